@@ -0,0 +1,50 @@
+package org.camunda.bpm.extension.keycloak;
+
+import org.camunda.bpm.engine.impl.cfg.ProcessEngineConfigurationImpl;
+import org.camunda.bpm.engine.impl.cfg.StandaloneProcessEngineConfiguration;
+import org.camunda.bpm.engine.impl.cfg.standalone.StandaloneTransactionContextFactory;
+import org.camunda.bpm.engine.impl.context.Context;
+import org.camunda.bpm.engine.impl.interceptor.CommandContext;
+
+/**
+ * Minimal command context for running the plugin's post processing outside of a process engine.
+ * No database is involved, authorization checks must therefore be disabled in the
+ * {@link KeycloakConfiguration} under test.
+ */
+public class BenchmarkCommandContext extends CommandContext implements AutoCloseable {
+
+	private final String authenticatedUserId;
+
+	private BenchmarkCommandContext(ProcessEngineConfigurationImpl configuration, String authenticatedUserId) {
+		super(configuration, new StandaloneTransactionContextFactory());
+		this.authenticatedUserId = authenticatedUserId;
+	}
+
+	/**
+	 * Opens a command context and makes it the current one of this thread.
+	 * @param authenticatedUserId the authenticated user, may be {@code null}
+	 * @return the command context, to be closed after the benchmark
+	 */
+	public static BenchmarkCommandContext open(String authenticatedUserId) {
+		BenchmarkCommandContext commandContext = new BenchmarkCommandContext(
+				new StandaloneProcessEngineConfiguration(), authenticatedUserId);
+		Context.setCommandContext(commandContext);
+		return commandContext;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String getAuthenticatedUserId() {
+		return authenticatedUserId;
+	}
+
+	/**
+	 * Removes this command context from the current thread.
+	 */
+	@Override
+	public void close() {
+		Context.removeCommandContext();
+	}
+}
@@ -0,0 +1,111 @@
+package org.camunda.bpm.extension.keycloak;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.camunda.bpm.engine.identity.Group;
+import org.camunda.bpm.engine.identity.User;
+import org.camunda.bpm.extension.keycloak.cache.CacheConfiguration;
+import org.camunda.bpm.extension.keycloak.cache.CacheFactory;
+import org.camunda.bpm.extension.keycloak.cache.QueryCache;
+import org.camunda.bpm.extension.keycloak.json.JsonException;
+import org.camunda.bpm.extension.keycloak.load.StubRealm;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+/**
+ * Heap retained by the user and group query caches once the groups of every user and the members of every group
+ * have been queried, with and without sharing equal users and groups between cache entries.
+ * <p>
+ * Each entry is transformed from a separately parsed response like in production. Usage:
+ * <pre>
+ * java -cp extension-benchmarks/target/benchmarks.jar org.camunda.bpm.extension.keycloak.CacheFootprint [realmSize]
+ * </pre>
+ * The realm contains one group per ten users, the default realm size is 10000.
+ */
+public class CacheFootprint {
+
+	private static final MemoryMXBean MEMORY = ManagementFactory.getMemoryMXBean();
+
+	public static void main(String[] args) throws JsonException {
+		int realmSize = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+		StubRealm realm = new StubRealm(realmSize);
+
+		KeycloakConfiguration configuration = new KeycloakConfiguration();
+		configuration.setCacheEnabled(true);
+		configuration.setMaxCacheSize(2 * realmSize);
+		CacheConfiguration cacheConfiguration = CacheConfiguration.from(configuration);
+		KeycloakUserService userService = new KeycloakUserService(configuration, null, null);
+		KeycloakGroupService groupService = new KeycloakGroupService(configuration, null, null);
+
+		System.out.printf("realm: %d users, %d groups%n", realm.size(), realm.groups().size());
+		System.out.printf("%-12s %12s %12s %12s%n", "caches", "user cache", "group cache", "total");
+		for (String variant : new String[] { "separate", "flyweight", "separate", "flyweight" }) {
+			boolean flyweight = variant.equals("flyweight");
+			long baseline = usedHeap();
+
+			QueryCache<String, List<User>> userCache = flyweight
+					? CacheFactory.createForValues(cacheConfiguration) : CacheFactory.create(cacheConfiguration);
+			for (JsonObject group : realm.groups()) {
+				String groupId = group.get("id").getAsString();
+				userCache.getOrCompute(groupId, id -> transformAll(realm.membersOf(id), userService::transformUser));
+			}
+			long afterUsers = usedHeap();
+
+			QueryCache<String, List<Group>> groupCache = flyweight
+					? CacheFactory.createForValues(cacheConfiguration) : CacheFactory.create(cacheConfiguration);
+			for (JsonObject user : realm.users()) {
+				String userId = user.get("id").getAsString();
+				groupCache.getOrCompute(userId, id -> transformAll(realm.groupsOf(id), groupService::transformGroup));
+			}
+			long afterGroups = usedHeap();
+
+			System.out.printf("%-12s %9.1f MB %9.1f MB %9.1f MB%n", variant, megabytes(afterUsers - baseline),
+					megabytes(afterGroups - afterUsers), megabytes(afterGroups - baseline));
+			// release the entries before the next variant
+			userCache.clear();
+			groupCache.clear();
+		}
+	}
+
+	/**
+	 * Transforms a response parsed from its JSON text, so that entries do not share strings by accident.
+	 */
+	private static <T> List<T> transformAll(List<JsonObject> response, Transformation<T> transformation) {
+		JsonArray array = new JsonArray(response.size());
+		response.forEach(array::add);
+		JsonArray parsed = JsonParser.parseString(array.toString()).getAsJsonArray();
+		List<T> result = new ArrayList<>(parsed.size());
+		try {
+			for (JsonElement element : parsed) {
+				result.add(transformation.apply(element.getAsJsonObject()));
+			}
+		} catch (JsonException e) {
+			throw new IllegalStateException(e);
+		}
+		return result;
+	}
+
+	private static long usedHeap() {
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+		}
+		return MEMORY.getHeapMemoryUsage().getUsed();
+	}
+
+	private static double megabytes(long bytes) {
+		return bytes / (1024.0 * 1024.0);
+	}
+
+	/**
+	 * A transformation of a Keycloak JSON object.
+	 */
+	private interface Transformation<T> {
+		T apply(JsonObject json) throws JsonException;
+	}
+}
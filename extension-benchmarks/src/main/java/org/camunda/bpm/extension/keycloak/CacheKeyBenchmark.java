@@ -0,0 +1,65 @@
+package org.camunda.bpm.extension.keycloak;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Creation, hashing and comparison of cache keys.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CacheKeyBenchmark {
+
+	private KeycloakUserQuery groupQuery;
+	private KeycloakUserQuery searchQuery;
+	private CacheableKeycloakUserQuery searchKey;
+	private CacheableKeycloakUserQuery otherSearchKey;
+
+	@Setup
+	public void setUp() {
+		groupQuery = new KeycloakUserQuery();
+		groupQuery.userFirstNameLike("%anna%");
+		groupQuery.memberOfGroup("management");
+
+		searchQuery = new KeycloakUserQuery();
+		searchQuery.userFirstNameLike("%Anna%");
+		searchQuery.userLastName("Example");
+		searchQuery.userEmailLike("*@example.org");
+		searchKey = CacheableKeycloakUserQuery.of(searchQuery);
+
+		KeycloakUserQuery otherSearchQuery = new KeycloakUserQuery();
+		otherSearchQuery.userFirstNameLike("*anna*");
+		otherSearchQuery.userLastNameLike("example");
+		otherSearchQuery.userEmailLike("%@EXAMPLE.ORG");
+		otherSearchKey = CacheableKeycloakUserQuery.of(otherSearchQuery);
+	}
+
+	@Benchmark
+	public int groupKeyOfAndHash() {
+		return CacheableKeycloakUserQuery.of(groupQuery).hashCode();
+	}
+
+	@Benchmark
+	public int searchKeyOfAndHash() {
+		return CacheableKeycloakUserQuery.of(searchQuery).hashCode();
+	}
+
+	@Benchmark
+	public boolean searchKeyEquals() {
+		return searchKey.equals(otherSearchKey);
+	}
+}
@@ -0,0 +1,70 @@
+package org.camunda.bpm.extension.keycloak;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.camunda.bpm.engine.identity.User;
+import org.camunda.bpm.extension.keycloak.cache.CacheConfiguration;
+import org.camunda.bpm.extension.keycloak.cache.CaffeineCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link CaffeineCache#getOrCompute} under contention of concurrent engine threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class CaffeineCacheBenchmark {
+
+	/** Number of distinct queries, in relation to the cache's max size of 500 this determines the hit rate. */
+	@Param({ "100", "1000", "10000" })
+	public int distinctQueries;
+
+	private CaffeineCache<CacheableKeycloakUserQuery, List<User>> cache;
+	private CacheableKeycloakUserQuery[] keys;
+
+	@Setup
+	public void setUp() {
+		KeycloakConfiguration configuration = new KeycloakConfiguration();
+		configuration.setCacheEnabled(true);
+		cache = new CaffeineCache<>(CacheConfiguration.from(configuration));
+		keys = new CacheableKeycloakUserQuery[distinctQueries];
+		for (int i = 0; i < keys.length; i++) {
+			KeycloakUserQuery query = new KeycloakUserQuery();
+			query.userId("user" + i + "@example.org");
+			keys[i] = CacheableKeycloakUserQuery.of(query);
+		}
+	}
+
+	@Benchmark
+	public List<User> getOrCompute() {
+		CacheableKeycloakUserQuery key = keys[ThreadLocalRandom.current().nextInt(keys.length)];
+		return cache.getOrCompute(key, CaffeineCacheBenchmark::load);
+	}
+
+	/** Hot key: all threads hit the same entry. */
+	@Benchmark
+	public List<User> getOrComputeHotKey() {
+		return cache.getOrCompute(keys[0], CaffeineCacheBenchmark::load);
+	}
+
+	private static List<User> load(CacheableKeycloakUserQuery key) {
+		return List.of(new KeycloakUser(key.getId(), null, null, null));
+	}
+}
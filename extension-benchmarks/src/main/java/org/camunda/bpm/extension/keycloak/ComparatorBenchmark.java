@@ -0,0 +1,90 @@
+package org.camunda.bpm.extension.keycloak;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.camunda.bpm.engine.identity.Group;
+import org.camunda.bpm.engine.identity.User;
+import org.camunda.bpm.engine.impl.Direction;
+import org.camunda.bpm.engine.impl.GroupQueryProperty;
+import org.camunda.bpm.engine.impl.QueryOrderingProperty;
+import org.camunda.bpm.engine.impl.UserQueryProperty;
+import org.camunda.bpm.extension.keycloak.KeycloakGroupService.GroupComparator;
+import org.camunda.bpm.extension.keycloak.KeycloakUserService.UserComparator;
+import org.camunda.bpm.extension.keycloak.json.JsonException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.gson.JsonArray;
+
+/**
+ * Sorting with the client side {@link UserComparator} and {@link GroupComparator}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ComparatorBenchmark {
+
+	@Param({ "1000", "10000", "100000" })
+	public int realmSize;
+
+	private User[] users;
+	private Group[] groups;
+	private UserComparator userComparator;
+	private GroupComparator groupComparator;
+
+	@Setup
+	public void setUp() throws JsonException {
+		KeycloakConfiguration configuration = new KeycloakConfiguration();
+		KeycloakUserService userService = new KeycloakUserService(configuration, null, null);
+		KeycloakGroupService groupService = new KeycloakGroupService(configuration, null, null);
+
+		JsonArray userJson = RealmFixtures.users(realmSize);
+		users = new User[userJson.size()];
+		for (int i = 0; i < users.length; i++) {
+			users[i] = userService.transformUser(userJson.get(i).getAsJsonObject());
+		}
+		JsonArray groupJson = groupService.flattenSubGroups(RealmFixtures.groups(realmSize), new JsonArray());
+		groups = new Group[groupJson.size()];
+		for (int i = 0; i < groups.length; i++) {
+			groups[i] = groupService.transformGroup(groupJson.get(i).getAsJsonObject());
+		}
+
+		// last name has many duplicates: forces evaluation of the second ordering property
+		userComparator = new UserComparator(Arrays.asList(
+				new QueryOrderingProperty(UserQueryProperty.LAST_NAME, Direction.ASCENDING),
+				new QueryOrderingProperty(UserQueryProperty.FIRST_NAME, Direction.DESCENDING),
+				new QueryOrderingProperty(UserQueryProperty.USER_ID, Direction.ASCENDING)));
+		groupComparator = new GroupComparator(Arrays.asList(
+				new QueryOrderingProperty(GroupQueryProperty.TYPE, Direction.ASCENDING),
+				new QueryOrderingProperty(GroupQueryProperty.NAME, Direction.ASCENDING)));
+	}
+
+	@Benchmark
+	public List<User> sortUsers() {
+		List<User> result = new ArrayList<>(Arrays.asList(users));
+		result.sort(userComparator);
+		return result;
+	}
+
+	@Benchmark
+	public List<Group> sortGroups() {
+		List<Group> result = new ArrayList<>(Arrays.asList(groups));
+		result.sort(groupComparator);
+		return result;
+	}
+}
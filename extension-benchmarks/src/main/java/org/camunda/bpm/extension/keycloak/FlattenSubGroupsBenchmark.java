@@ -0,0 +1,59 @@
+package org.camunda.bpm.extension.keycloak;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.camunda.bpm.engine.identity.Group;
+import org.camunda.bpm.extension.keycloak.json.JsonException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.gson.JsonArray;
+
+/**
+ * Flattening of the nested group hierarchy returned by Keycloak, either as JSON or transformed into groups as done
+ * by group queries. The {@code chain} shape nests all groups into each other.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FlattenSubGroupsBenchmark {
+
+	@Param({ "1000", "10000", "100000" })
+	public int realmSize;
+
+	@Param({ "tree", "chain" })
+	public String shape;
+
+	private KeycloakGroupService groupService;
+	private JsonArray groups;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		groupService = new KeycloakGroupService(new KeycloakConfiguration(), null, null);
+		groups = "chain".equals(shape) ? RealmFixtures.groupChain(realmSize) : RealmFixtures.groups(realmSize);
+	}
+
+	@Benchmark
+	public JsonArray flattenSubGroups() throws JsonException {
+		return groupService.flattenSubGroups(groups, new JsonArray());
+	}
+
+	@Benchmark
+	public List<Group> transformGroupTree() throws JsonException {
+		return groupService.transformGroupTree(groups);
+	}
+}
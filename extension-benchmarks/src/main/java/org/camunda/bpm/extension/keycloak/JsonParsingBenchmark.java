@@ -0,0 +1,53 @@
+package org.camunda.bpm.extension.keycloak;
+
+import java.util.concurrent.TimeUnit;
+
+import org.camunda.bpm.extension.keycloak.json.JsonException;
+import org.camunda.bpm.extension.keycloak.json.JsonUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.gson.JsonArray;
+
+/**
+ * Parsing of Keycloak user and group responses with {@link JsonUtil}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonParsingBenchmark {
+
+	@Param({ "1000", "10000", "100000" })
+	public int realmSize;
+
+	private String usersJson;
+	private String groupsJson;
+
+	@Setup
+	public void setUp() {
+		usersJson = RealmFixtures.usersJson(realmSize);
+		groupsJson = RealmFixtures.groupsJson(realmSize);
+	}
+
+	@Benchmark
+	public JsonArray parseUsers() throws JsonException {
+		return JsonUtil.parseAsJsonArray(usersJson);
+	}
+
+	@Benchmark
+	public JsonArray parseGroups() throws JsonException {
+		return JsonUtil.parseAsJsonArray(groupsJson);
+	}
+}
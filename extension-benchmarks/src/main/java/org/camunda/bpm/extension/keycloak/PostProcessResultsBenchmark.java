@@ -0,0 +1,130 @@
+package org.camunda.bpm.extension.keycloak;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.camunda.bpm.engine.identity.Group;
+import org.camunda.bpm.engine.identity.User;
+import org.camunda.bpm.extension.keycloak.json.JsonException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.gson.JsonArray;
+
+/**
+ * Client side filtering, sorting and paging of Keycloak results.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PostProcessResultsBenchmark {
+
+	@Param({ "1000", "10000", "100000" })
+	public int realmSize;
+
+	private KeycloakUserService userService;
+	private KeycloakGroupService groupService;
+	private List<User> users;
+	private List<Group> groups;
+	private BenchmarkCommandContext commandContext;
+
+	@Setup
+	public void setUp() throws JsonException {
+		KeycloakConfiguration configuration = new KeycloakConfiguration();
+		configuration.setAuthorizationCheckEnabled(false);
+		configuration.setMaxResultSize(Integer.MAX_VALUE);
+		userService = new KeycloakUserService(configuration, null, null);
+		groupService = new KeycloakGroupService(configuration, null, null);
+
+		JsonArray userJson = RealmFixtures.users(realmSize);
+		users = new ArrayList<>(userJson.size());
+		for (int i = 0; i < userJson.size(); i++) {
+			users.add(userService.transformUser(userJson.get(i).getAsJsonObject()));
+		}
+		JsonArray groupJson = groupService.flattenSubGroups(RealmFixtures.groups(realmSize), new JsonArray());
+		groups = new ArrayList<>(groupJson.size());
+		for (int i = 0; i < groupJson.size(); i++) {
+			groups.add(groupService.transformGroup(groupJson.get(i).getAsJsonObject()));
+		}
+
+		commandContext = BenchmarkCommandContext.open("camunda-admin");
+	}
+
+	@TearDown
+	public void tearDown() {
+		commandContext.close();
+	}
+
+	/** Unfiltered, unsorted, unpaged list - the base cost of the stream pipeline. */
+	@Benchmark
+	public List<User> usersPassThrough() {
+		return userService.postProcessResults(new KeycloakUserQuery(), users, new StringBuilder());
+	}
+
+	/** Like filter plus the first page of a sorted result - the typical Cockpit/Tasklist query. */
+	@Benchmark
+	public List<User> usersFilterSortFirstPage() {
+		KeycloakUserQuery query = new KeycloakUserQuery();
+		query.userFirstNameLike("%a%");
+		query.orderByUserLastName().asc().orderByUserId().asc();
+		query.setMaxResults(25);
+		return userService.postProcessResults(query, users, new StringBuilder());
+	}
+
+	/** First page of the whole result sorted by last name - a partial sort. */
+	@Benchmark
+	public List<User> usersSortFirstPage() {
+		KeycloakUserQuery query = new KeycloakUserQuery();
+		query.orderByUserLastName().asc();
+		query.setMaxResults(15);
+		return userService.postProcessResults(query, users, new StringBuilder());
+	}
+
+	/** Sorted page in the middle of the result. */
+	@Benchmark
+	public List<User> usersSortDeepPage() {
+		KeycloakUserQuery query = new KeycloakUserQuery();
+		query.orderByUserEmail().desc();
+		query.setFirstResult(realmSize / 2);
+		query.setMaxResults(25);
+		return userService.postProcessResults(query, users, new StringBuilder());
+	}
+
+	/** Lookup of a single page of users by ID. */
+	@Benchmark
+	public List<User> usersByIds() {
+		KeycloakUserQuery query = new KeycloakUserQuery();
+		query.userIdIn(users.get(0).getId(), users.get(realmSize / 2).getId(), users.get(realmSize - 1).getId());
+		return userService.postProcessResults(query, users, new StringBuilder());
+	}
+
+	@Benchmark
+	public List<Group> groupsFilterSortFirstPage() {
+		KeycloakGroupQuery query = new KeycloakGroupQuery();
+		query.groupNameLike("%sales%");
+		query.orderByGroupName().asc();
+		query.setMaxResults(25);
+		return groupService.postProcessResults(query, groups, new StringBuilder());
+	}
+
+	@Benchmark
+	public List<Group> groupsSortAll() {
+		KeycloakGroupQuery query = new KeycloakGroupQuery();
+		query.orderByGroupType().asc().orderByGroupName().asc();
+		return groupService.postProcessResults(query, groups, new StringBuilder());
+	}
+}
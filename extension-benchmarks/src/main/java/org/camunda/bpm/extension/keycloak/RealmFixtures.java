@@ -0,0 +1,213 @@
+package org.camunda.bpm.extension.keycloak;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Random;
+import java.util.UUID;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+
+/**
+ * Generates Keycloak admin API responses for realms of a given size. The output
+ * mirrors the JSON representation of Keycloak 26 and is deterministic for a given
+ * realm size, so benchmark runs are comparable without checking in large files.
+ * <p>
+ * Run {@link #main(String[])} to write the fixtures to disk, e.g. for inspection or
+ * for use with other tools.
+ */
+public final class RealmFixtures {
+
+	/** Realm sizes (number of users) used by the benchmarks. */
+	public static final int[] REALM_SIZES = { 1_000, 10_000, 100_000 };
+
+	private static final String[] FIRST_NAMES = { "Anna", "Ben", "Clara", "David", "Emma", "Felix", "Greta", "Hannes",
+			"Ida", "Jonas", "Karla", "Lukas", "Mia", "Noah", "Olga", "Paul", "Quirin", "Rosa", "Simon", "Tilda" };
+	private static final String[] LAST_NAMES = { "Albrecht", "Becker", "Chen", "Dietrich", "Engel", "Fischer", "Garcia",
+			"Hoffmann", "Ivanova", "Jung", "Keller", "Lorenz", "Meyer", "Nowak", "Otto", "Peters", "Richter", "Schmidt",
+			"Tanaka", "Weber" };
+	private static final String[] DEPARTMENTS = { "sales", "marketing", "engineering", "finance", "support", "legal",
+			"operations", "hr" };
+
+	/** Number of child groups per group. */
+	private static final int GROUP_FANOUT = 5;
+
+	/** Depth of the group hierarchy. */
+	private static final int GROUP_DEPTH = 4;
+
+	private RealmFixtures() {
+	}
+
+	/**
+	 * Generates the response of {@code GET /admin/realms/{realm}/users}.
+	 * @param realmSize the number of users
+	 * @return JSON array of users
+	 */
+	public static String usersJson(int realmSize) {
+		return users(realmSize).toString();
+	}
+
+	/**
+	 * Generates the users of a realm.
+	 * @param realmSize the number of users
+	 * @return JSON array of users
+	 */
+	public static JsonArray users(int realmSize) {
+		Random random = new Random(realmSize);
+		JsonArray users = new JsonArray(realmSize);
+		for (int i = 0; i < realmSize; i++) {
+			users.add(user(random, i));
+		}
+		return users;
+	}
+
+	/**
+	 * Generates the response of {@code GET /admin/realms/{realm}/groups?q=:} including nested subGroups.
+	 * The realm contains roughly one group per ten users, organized in a hierarchy.
+	 * @param realmSize the number of users
+	 * @return JSON array of top level groups
+	 */
+	public static String groupsJson(int realmSize) {
+		return groups(realmSize).toString();
+	}
+
+	/**
+	 * Generates the group hierarchy of a realm.
+	 * @param realmSize the number of users
+	 * @return JSON array of top level groups
+	 */
+	public static JsonArray groups(int realmSize) {
+		Random random = new Random(realmSize);
+		int groupCount = Math.max(1, realmSize / 10);
+		// size of a full tree below each top level group
+		int treeSize = 0;
+		for (int level = 0, width = 1; level < GROUP_DEPTH; level++, width *= GROUP_FANOUT) {
+			treeSize += width;
+		}
+		int topLevelCount = Math.max(1, groupCount / treeSize);
+		int[] counter = new int[1];
+		JsonArray groups = new JsonArray(topLevelCount + 1);
+		groups.add(group(random, "camunda-admin", "", 0, counter, false));
+		for (int i = 0; i < topLevelCount; i++) {
+			groups.add(group(random, DEPARTMENTS[i % DEPARTMENTS.length] + "-" + i, "", 1, counter, i % 7 == 0));
+		}
+		return groups;
+	}
+
+	/**
+	 * Generates a degenerated group hierarchy consisting of a single chain of nested groups, e.g. to verify that
+	 * arbitrarily deep hierarchies are processed without growing the call stack. The path of each group contains
+	 * the group's name only, as full paths would grow quadratically with the depth.
+	 * @param realmSize the number of users
+	 * @return JSON array of the single top level group
+	 */
+	public static JsonArray groupChain(int realmSize) {
+		Random random = new Random(realmSize);
+		int groupCount = Math.max(1, realmSize / 10);
+		int[] counter = new int[1];
+		JsonObject[] chain = new JsonObject[groupCount];
+		for (int i = 0; i < groupCount; i++) {
+			chain[i] = group(random, "chain-" + i, "", 0, counter, false);
+		}
+		// linked iteratively, as group() recurses per level
+		for (int i = groupCount - 1; i > 0; i--) {
+			JsonArray subGroups = chain[i - 1].getAsJsonArray("subGroups");
+			subGroups.add(chain[i]);
+			chain[i - 1].addProperty("subGroupCount", subGroups.size());
+		}
+		JsonArray groups = new JsonArray(1);
+		groups.add(chain[0]);
+		return groups;
+	}
+
+	private static JsonObject user(Random random, int index) {
+		String firstName = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)];
+		String lastName = LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+		String username = (firstName.charAt(0) + lastName + index).toLowerCase();
+
+		JsonObject user = new JsonObject();
+		user.addProperty("id", uuid("user", index));
+		user.addProperty("username", username);
+		user.addProperty("firstName", firstName);
+		user.addProperty("lastName", lastName);
+		user.addProperty("email", username + "@example.org");
+		user.addProperty("emailVerified", random.nextBoolean());
+		JsonObject attributes = new JsonObject();
+		attributes.add("department", array(DEPARTMENTS[random.nextInt(DEPARTMENTS.length)]));
+		attributes.add("locale", array(random.nextBoolean() ? "de" : "en"));
+		user.add("attributes", attributes);
+		user.addProperty("createdTimestamp", 1_700_000_000_000L + random.nextInt(Integer.MAX_VALUE));
+		user.addProperty("enabled", true);
+		user.addProperty("totp", false);
+		user.add("disableableCredentialTypes", new JsonArray());
+		user.add("requiredActions", new JsonArray());
+		user.addProperty("notBefore", 0);
+		user.add("access", access());
+		return user;
+	}
+
+	private static JsonObject group(Random random, String name, String parentPath, int level, int[] counter,
+			boolean system) {
+		String path = parentPath + "/" + name;
+		JsonArray subGroups = new JsonArray();
+		if (level > 0 && level < GROUP_DEPTH) {
+			for (int i = 0; i < GROUP_FANOUT; i++) {
+				subGroups.add(group(random, name + "." + i, path, level + 1, counter, false));
+			}
+		}
+
+		JsonObject group = new JsonObject();
+		group.addProperty("id", uuid("group", counter[0]++));
+		group.addProperty("name", name);
+		group.addProperty("path", path);
+		group.addProperty("subGroupCount", subGroups.size());
+		group.add("subGroups", subGroups);
+		JsonObject attributes = new JsonObject();
+		if (system) {
+			attributes.add("type", array(random.nextBoolean() ? "SYSTEM" : "system"));
+		}
+		group.add("attributes", attributes);
+		group.add("realmRoles", new JsonArray());
+		group.add("clientRoles", new JsonObject());
+		group.add("access", access());
+		return group;
+	}
+
+	private static JsonObject access() {
+		JsonObject access = new JsonObject();
+		access.addProperty("view", true);
+		access.addProperty("manage", true);
+		access.addProperty("manageGroupMembership", true);
+		access.addProperty("mapRoles", true);
+		access.addProperty("impersonate", false);
+		return access;
+	}
+
+	private static JsonArray array(String value) {
+		JsonArray array = new JsonArray(1);
+		array.add(new JsonPrimitive(value));
+		return array;
+	}
+
+	private static String uuid(String type, int index) {
+		return UUID.nameUUIDFromBytes((type + index).getBytes(StandardCharsets.UTF_8)).toString();
+	}
+
+	/**
+	 * Writes {@code users-<size>.json} and {@code groups-<size>.json} for all realm sizes.
+	 * @param args optional target directory, default: {@code target/fixtures}
+	 * @throws IOException in case of errors
+	 */
+	public static void main(String[] args) throws IOException {
+		Path target = Paths.get(args.length > 0 ? args[0] : "target/fixtures");
+		Files.createDirectories(target);
+		for (int realmSize : REALM_SIZES) {
+			Files.writeString(target.resolve("users-" + realmSize + ".json"), usersJson(realmSize));
+			Files.writeString(target.resolve("groups-" + realmSize + ".json"), groupsJson(realmSize));
+		}
+	}
+}
@@ -0,0 +1,74 @@
+package org.camunda.bpm.extension.keycloak;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.camunda.bpm.engine.identity.Group;
+import org.camunda.bpm.engine.identity.User;
+import org.camunda.bpm.extension.keycloak.json.JsonException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.gson.JsonArray;
+
+/**
+ * Mapping of parsed Keycloak responses to Camunda users and groups.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransformBenchmark {
+
+	@Param({ "1000", "10000", "100000" })
+	public int realmSize;
+
+	@Param({ "id", "email", "username" })
+	public String userIdMapping;
+
+	private KeycloakUserService userService;
+	private KeycloakGroupService groupService;
+	private JsonArray users;
+	private JsonArray groups;
+
+	@Setup
+	public void setUp() throws JsonException {
+		KeycloakConfiguration configuration = new KeycloakConfiguration();
+		configuration.setUseEmailAsCamundaUserId("email".equals(userIdMapping));
+		configuration.setUseUsernameAsCamundaUserId("username".equals(userIdMapping));
+		userService = new KeycloakUserService(configuration, null, null);
+		groupService = new KeycloakGroupService(configuration, null, null);
+		users = RealmFixtures.users(realmSize);
+		groups = groupService.flattenSubGroups(RealmFixtures.groups(realmSize), new JsonArray());
+	}
+
+	@Benchmark
+	public List<User> transformUsers() throws JsonException {
+		List<User> result = new ArrayList<>(users.size());
+		for (int i = 0; i < users.size(); i++) {
+			result.add(userService.transformUser(users.get(i).getAsJsonObject()));
+		}
+		return result;
+	}
+
+	@Benchmark
+	public List<Group> transformGroups() throws JsonException {
+		List<Group> result = new ArrayList<>(groups.size());
+		for (int i = 0; i < groups.size(); i++) {
+			result.add(groupService.transformGroup(groups.get(i).getAsJsonObject()));
+		}
+		return result;
+	}
+}
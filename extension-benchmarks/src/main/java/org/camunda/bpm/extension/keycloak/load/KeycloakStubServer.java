@@ -0,0 +1,407 @@
+package org.camunda.bpm.extension.keycloak.load;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.camunda.bpm.extension.keycloak.rest.KeycloakEndpoints;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Lightweight stand-in for the Keycloak token and admin endpoints used by the plugin. Serves a
+ * {@link StubRealm} with configurable latency and error rate and counts all incoming requests
+ * by endpoint.
+ * <p>
+ * Supported endpoints below {@code /realms/<realm>} and {@code /admin/realms/<realm>}:
+ * <ul>
+ * <li>{@code POST /protocol/openid-connect/token} - client_credentials, refresh_token and password grants</li>
+ * <li>{@code GET /users} - filters {@code id}, {@code username}, {@code email}, {@code firstName}, {@code lastName},
+ * {@code search}, {@code exact}, {@code first}, {@code max}</li>
+ * <li>{@code GET /users/{id}}, {@code GET /users/{id}/groups}</li>
+ * <li>{@code GET /groups} - filters {@code search}, {@code q} (a single {@code key:value} attribute),
+ * {@code first}, {@code max}; without search or attribute top level groups are returned including their subGroups,
+ * matching groups are returned without their parents</li>
+ * <li>{@code GET /groups/{id}}, {@code GET /groups/{id}/members}, {@code GET /groups/{id}/children},
+ * {@code GET /group-by-path/{path}}</li>
+ * </ul>
+ */
+public class KeycloakStubServer implements AutoCloseable {
+
+	public static final String REALM = "load";
+	public static final String CLIENT_ID = "camunda-identity-service";
+	public static final String CLIENT_SECRET = "secret";
+
+	static {
+		// headers and body are written separately: without TCP_NODELAY each response stalls on delayed ACKs
+		if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+			System.setProperty("sun.net.httpserver.nodelay", "true");
+		}
+	}
+
+	private final StubRealm realm;
+	private final LatencyDistribution latency;
+	private final double errorRate;
+	private final Semaphore capacity;
+	private final HttpServer server;
+	private final ExecutorService executor;
+	private final Map<String, LongAdder> requestCounts = new ConcurrentHashMap<>();
+
+	/**
+	 * Starts a stub server on an ephemeral port of the loopback interface.
+	 * @param realm the realm to serve
+	 * @param latency server side latency added to each request
+	 * @param errorRate probability in {@code [0, 1]} of answering a request with {@code 503 Service Unavailable}
+	 * @throws IOException in case the server cannot be started
+	 */
+	public KeycloakStubServer(StubRealm realm, LatencyDistribution latency, double errorRate) throws IOException {
+		this(realm, latency, errorRate, 0);
+	}
+
+	/**
+	 * Starts a stub server on an ephemeral port of the loopback interface.
+	 * @param realm the realm to serve
+	 * @param latency server side latency added to each request
+	 * @param errorRate probability in {@code [0, 1]} of answering a request with {@code 503 Service Unavailable}
+	 * @param capacity number of requests processed concurrently, further requests queue like on an overloaded
+	 *        server - {@code 0} for unlimited
+	 * @throws IOException in case the server cannot be started
+	 */
+	public KeycloakStubServer(StubRealm realm, LatencyDistribution latency, double errorRate, int capacity) throws IOException {
+		this.realm = realm;
+		this.latency = latency;
+		this.errorRate = errorRate;
+		this.capacity = capacity > 0 ? new Semaphore(capacity, true) : null;
+		this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1024);
+		AtomicInteger threadCount = new AtomicInteger();
+		// unbounded: simulated latency must not be limited by the stub's own thread pool
+		this.executor = Executors.newCachedThreadPool(r -> {
+			Thread thread = new Thread(r, "keycloak-stub-" + threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		server.setExecutor(executor);
+		server.createContext("/realms/" + REALM + "/protocol/openid-connect/token", this::handleToken);
+		server.createContext("/admin/realms/" + REALM + "/", this::handleAdmin);
+		server.start();
+	}
+
+	/**
+	 * @return the Keycloak issuer URL, e.g. {@code http://127.0.0.1:12345/realms/load}
+	 */
+	public String getIssuerUrl() {
+		return getBaseUrl() + "/realms/" + REALM;
+	}
+
+	/**
+	 * @return the Keycloak admin URL, e.g. {@code http://127.0.0.1:12345/admin/realms/load}
+	 */
+	public String getAdminUrl() {
+		return getBaseUrl() + "/admin/realms/" + REALM;
+	}
+
+	/**
+	 * @return scheme, host and port of this server, e.g. {@code http://127.0.0.1:12345}
+	 */
+	public String getBaseUrl() {
+		return "http://127.0.0.1:" + server.getAddress().getPort();
+	}
+
+	/**
+	 * @return the realm
+	 */
+	public StubRealm getRealm() {
+		return realm;
+	}
+
+	/**
+	 * @return number of requests received per endpoint, e.g. {@code GET /users/{id}/groups}
+	 */
+	public Map<String, Long> getRequestCounts() {
+		Map<String, Long> counts = new TreeMap<>();
+		requestCounts.forEach((endpoint, count) -> counts.put(endpoint, count.sum()));
+		return counts;
+	}
+
+	/**
+	 * @return total number of requests received
+	 */
+	public long getTotalRequestCount() {
+		return requestCounts.values().stream().mapToLong(LongAdder::sum).sum();
+	}
+
+	/**
+	 * Resets all request counts.
+	 */
+	public void resetRequestCounts() {
+		requestCounts.clear();
+	}
+
+	/**
+	 * Stops the server.
+	 */
+	@Override
+	public void close() {
+		server.stop(0);
+		executor.shutdownNow();
+	}
+
+	// ------------------------------------------------------------------------
+	// Token endpoint
+	// ------------------------------------------------------------------------
+
+	private void handleToken(HttpExchange exchange) throws IOException {
+		if (!simulate(exchange)) {
+			return;
+		}
+		Map<String, String> form = parseQuery(new String(readAll(exchange.getRequestBody()), StandardCharsets.UTF_8));
+		if (!CLIENT_ID.equals(form.get("client_id")) || !CLIENT_SECRET.equals(form.get("client_secret"))) {
+			respond(exchange, 401, "{\"error\":\"unauthorized_client\"}");
+			return;
+		}
+		String grantType = form.getOrDefault("grant_type", "");
+		if ("password".equals(grantType)) {
+			boolean valid = StubRealm.PASSWORD.equals(form.get("password")) && realm.hasUsername(form.get("username"));
+			if (!valid) {
+				respond(exchange, 401, "{\"error\":\"invalid_grant\",\"error_description\":\"Invalid user credentials\"}");
+				return;
+			}
+		} else if (!"client_credentials".equals(grantType) && !"refresh_token".equals(grantType)) {
+			respond(exchange, 400, "{\"error\":\"unsupported_grant_type\"}");
+			return;
+		}
+		String accessToken = UUID.randomUUID().toString();
+		if (!"password".equals(grantType)) {
+			realm.addAccessToken(accessToken);
+		}
+		JsonObject token = new JsonObject();
+		token.addProperty("access_token", accessToken);
+		token.addProperty("token_type", "Bearer");
+		token.addProperty("refresh_token", UUID.randomUUID().toString());
+		token.addProperty("expires_in", 300);
+		token.addProperty("refresh_expires_in", 1800);
+		respond(exchange, 200, token.toString());
+	}
+
+	// ------------------------------------------------------------------------
+	// Admin endpoints
+	// ------------------------------------------------------------------------
+
+	private void handleAdmin(HttpExchange exchange) throws IOException {
+		if (!simulate(exchange)) {
+			return;
+		}
+		String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+		if (authorization == null || !realm.isValidAccessToken(authorization.replaceFirst("(?i)^bearer ", ""))) {
+			respond(exchange, 401, "");
+			return;
+		}
+		if (!"GET".equals(exchange.getRequestMethod())) {
+			respond(exchange, 405, "");
+			return;
+		}
+
+		String path = exchange.getRequestURI().getRawPath().substring(("/admin/realms/" + REALM).length());
+		Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+		String[] segments = path.substring(1).split("/");
+		for (int i = 0; i < segments.length; i++) {
+			segments[i] = URLDecoder.decode(segments[i], StandardCharsets.UTF_8);
+		}
+
+		if (segments[0].equals("users")) {
+			if (segments.length == 1) {
+				respond(exchange, 200, page(filterUsers(query), query));
+			} else {
+				JsonObject user = realm.user(segments[1]);
+				if (user == null) {
+					respond(exchange, 404, "{\"error\":\"User not found\"}");
+				} else if (segments.length == 2) {
+					respond(exchange, 200, user.toString());
+				} else if (segments[2].equals("groups")) {
+					respond(exchange, 200, page(realm.groupsOf(segments[1]).stream(), query));
+				} else {
+					respond(exchange, 404, "");
+				}
+			}
+		} else if (segments[0].equals("groups")) {
+			if (segments.length == 1) {
+				String search = query.get("search");
+				String attribute = query.getOrDefault("q", ":");
+				if (search == null && !attribute.equals(":")) {
+					respond(exchange, 200, page(realm.groups().stream().filter(hasAttribute(attribute)), query));
+				} else if (search == null) {
+					respond(exchange, 200, page(elements(realm.topLevelGroups()), query));
+				} else {
+					respond(exchange, 200, page(realm.groups().stream().filter(contains("name", search)), query));
+				}
+			} else {
+				JsonObject group = realm.group(segments[1]);
+				if (group == null) {
+					respond(exchange, 404, "{\"error\":\"Could not find group by id\"}");
+				} else if (segments.length == 2) {
+					respond(exchange, 200, group.toString());
+				} else if (segments[2].equals("members")) {
+					respond(exchange, 200, page(realm.membersOf(segments[1]).stream(), query));
+				} else if (segments[2].equals("children")) {
+					respond(exchange, 200, page(realm.childrenOf(segments[1]).stream(), query));
+				} else {
+					respond(exchange, 404, "");
+				}
+			}
+		} else if (segments[0].equals("group-by-path")) {
+			JsonObject group = realm.groupByPath(path.substring("/group-by-path".length()));
+			if (group == null) {
+				respond(exchange, 404, "{\"error\":\"Group path does not exist\"}");
+			} else {
+				respond(exchange, 200, group.toString());
+			}
+		} else {
+			respond(exchange, 404, "");
+		}
+	}
+
+	private Stream<JsonObject> filterUsers(Map<String, String> query) {
+		boolean exact = Boolean.parseBoolean(query.get("exact"));
+		Stream<JsonObject> users = realm.users().stream();
+		for (String attribute : new String[] { "username", "email", "firstName", "lastName" }) {
+			String value = query.get(attribute);
+			if (value != null) {
+				users = users.filter(exact ? equalsIgnoreCase(attribute, value) : contains(attribute, value));
+			}
+		}
+		String search = query.get("search");
+		if (search != null) {
+			String term = search.replace("*", "");
+			users = users.filter(contains("username", term).or(contains("email", term))
+					.or(contains("firstName", term)).or(contains("lastName", term)));
+		}
+		return users;
+	}
+
+	private static Predicate<JsonObject> contains(String attribute, String value) {
+		String lowerCaseValue = value.toLowerCase(Locale.ROOT);
+		return o -> o.has(attribute) && o.get(attribute).getAsString().toLowerCase(Locale.ROOT).contains(lowerCaseValue);
+	}
+
+	private static Predicate<JsonObject> hasAttribute(String keyAndValue) {
+		int idx = keyAndValue.indexOf(':');
+		String key = keyAndValue.substring(0, idx);
+		JsonPrimitive value = new JsonPrimitive(keyAndValue.substring(idx + 1));
+		return o -> o.has("attributes") && o.getAsJsonObject("attributes").has(key)
+				&& o.getAsJsonObject("attributes").getAsJsonArray(key).contains(value);
+	}
+
+	private static Predicate<JsonObject> equalsIgnoreCase(String attribute, String value) {
+		return o -> o.has(attribute) && o.get(attribute).getAsString().equalsIgnoreCase(value);
+	}
+
+	private static Stream<JsonObject> elements(JsonArray array) {
+		return array.asList().stream().map(JsonElement::getAsJsonObject);
+	}
+
+	private static String page(Stream<JsonObject> result, Map<String, String> query) {
+		int first = Integer.parseInt(query.getOrDefault("first", "0"));
+		int max = Integer.parseInt(query.getOrDefault("max", "100"));
+		List<JsonObject> page = result.skip(first).limit(max < 0 ? Long.MAX_VALUE : max).collect(Collectors.toList());
+		return toJsonArray(page).toString();
+	}
+
+	private static JsonArray toJsonArray(Collection<JsonObject> objects) {
+		JsonArray array = new JsonArray(objects.size());
+		objects.forEach(array::add);
+		return array;
+	}
+
+	// ------------------------------------------------------------------------
+	// Helpers
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Counts the request, applies latency and injects errors.
+	 * @return {@code false} if an error has been sent and the request must not be processed any further
+	 */
+	private boolean simulate(HttpExchange exchange) throws IOException {
+		String endpoint = exchange.getRequestMethod() + " " + KeycloakEndpoints.templateOf(exchange.getRequestURI());
+		requestCounts.computeIfAbsent(endpoint, e -> new LongAdder()).increment();
+
+		Random random = ThreadLocalRandom.current();
+		long delay = latency.nextNanos(random);
+		if (delay > 0 || capacity != null) {
+			try {
+				if (capacity != null) {
+					capacity.acquire();
+				}
+				try {
+					TimeUnit.NANOSECONDS.sleep(delay);
+				} finally {
+					if (capacity != null) {
+						capacity.release();
+					}
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		if (errorRate > 0 && random.nextDouble() < errorRate) {
+			respond(exchange, 503, "");
+			return false;
+		}
+		return true;
+	}
+
+	private static Map<String, String> parseQuery(String query) {
+		Map<String, String> parameters = new HashMap<>();
+		if (query == null || query.isEmpty()) {
+			return parameters;
+		}
+		for (String pair : query.split("&")) {
+			int idx = pair.indexOf('=');
+			String name = URLDecoder.decode(idx < 0 ? pair : pair.substring(0, idx), StandardCharsets.UTF_8);
+			String value = idx < 0 ? "" : URLDecoder.decode(pair.substring(idx + 1), StandardCharsets.UTF_8);
+			parameters.putIfAbsent(name, value);
+		}
+		return parameters;
+	}
+
+	private static byte[] readAll(InputStream in) throws IOException {
+		try (InputStream is = in) {
+			return is.readAllBytes();
+		}
+	}
+
+	private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+		byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "application/json");
+		exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(bytes);
+		}
+	}
+}
@@ -0,0 +1,85 @@
+package org.camunda.bpm.extension.keycloak.load;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Server side latency of the Keycloak stub.
+ */
+@FunctionalInterface
+public interface LatencyDistribution {
+
+	/** z-score of the 99th percentile of the standard normal distribution. */
+	double Z_99 = 2.3263;
+
+	/**
+	 * @param random the random source
+	 * @return the next latency in nanoseconds
+	 */
+	long nextNanos(Random random);
+
+	/**
+	 * @return no latency at all
+	 */
+	static LatencyDistribution none() {
+		return random -> 0L;
+	}
+
+	/**
+	 * @param millis the latency
+	 * @return a constant latency
+	 */
+	static LatencyDistribution fixed(double millis) {
+		long nanos = toNanos(millis);
+		return random -> nanos;
+	}
+
+	/**
+	 * @param minMillis the minimum latency
+	 * @param maxMillis the maximum latency
+	 * @return latencies uniformly distributed between min and max
+	 */
+	static LatencyDistribution uniform(double minMillis, double maxMillis) {
+		long min = toNanos(minMillis);
+		long range = toNanos(maxMillis) - min;
+		return random -> min + (long) (random.nextDouble() * range);
+	}
+
+	/**
+	 * Log-normal latencies as typically observed for remote services: most requests are fast, some are very slow.
+	 * @param medianMillis the median latency
+	 * @param p99Millis the 99th percentile latency
+	 * @return latencies log-normally distributed with the given median and 99th percentile
+	 */
+	static LatencyDistribution logNormal(double medianMillis, double p99Millis) {
+		double mu = Math.log(toNanos(medianMillis));
+		double sigma = Math.log(p99Millis / medianMillis) / Z_99;
+		return random -> (long) Math.exp(mu + sigma * random.nextGaussian());
+	}
+
+	/**
+	 * Parses a distribution specification: {@code none}, {@code fixed:<ms>}, {@code uniform:<min ms>:<max ms>}
+	 * or {@code lognormal:<median ms>:<p99 ms>}.
+	 * @param spec the specification
+	 * @return the latency distribution
+	 */
+	static LatencyDistribution parse(String spec) {
+		String[] parts = spec.split(":");
+		switch (parts[0]) {
+			case "none":
+				return none();
+			case "fixed":
+				return fixed(Double.parseDouble(parts[1]));
+			case "uniform":
+				return uniform(Double.parseDouble(parts[1]), Double.parseDouble(parts[2]));
+			case "lognormal":
+				return logNormal(Double.parseDouble(parts[1]), Double.parseDouble(parts[2]));
+			default:
+				throw new IllegalArgumentException("Unknown latency distribution: " + spec);
+		}
+	}
+
+	private static long toNanos(double millis) {
+		return (long) (millis * TimeUnit.MILLISECONDS.toNanos(1));
+	}
+}
@@ -0,0 +1,48 @@
+package org.camunda.bpm.extension.keycloak.load;
+
+import java.util.Arrays;
+
+/**
+ * Records latencies of a single worker thread. Not thread safe.
+ */
+public class LatencyRecorder {
+
+	private final long[][] latencies = new long[Operation.values().length][1024];
+	private final int[] counts = new int[Operation.values().length];
+	private final long[] errors = new long[Operation.values().length];
+
+	/**
+	 * @param operation the operation
+	 * @param nanos the latency of a successful execution
+	 */
+	public void record(Operation operation, long nanos) {
+		int o = operation.ordinal();
+		if (counts[o] == latencies[o].length) {
+			latencies[o] = Arrays.copyOf(latencies[o], counts[o] * 2);
+		}
+		latencies[o][counts[o]++] = nanos;
+	}
+
+	/**
+	 * @param operation the operation which failed
+	 */
+	public void recordError(Operation operation) {
+		errors[operation.ordinal()]++;
+	}
+
+	/**
+	 * @param operation the operation
+	 * @return recorded latencies in nanoseconds
+	 */
+	public long[] latencies(Operation operation) {
+		return Arrays.copyOf(latencies[operation.ordinal()], counts[operation.ordinal()]);
+	}
+
+	/**
+	 * @param operation the operation
+	 * @return number of failed executions
+	 */
+	public long errors(Operation operation) {
+		return errors[operation.ordinal()];
+	}
+}
@@ -0,0 +1,377 @@
+package org.camunda.bpm.extension.keycloak.load;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import org.camunda.bpm.engine.IdentityService;
+import org.camunda.bpm.engine.ProcessEngine;
+import org.camunda.bpm.engine.ProcessEngineConfiguration;
+import org.camunda.bpm.engine.impl.cfg.ProcessEngineConfigurationImpl;
+import org.camunda.bpm.engine.impl.cfg.ProcessEnginePlugin;
+import org.camunda.bpm.extension.keycloak.load.Operation.Category;
+import org.camunda.bpm.extension.keycloak.plugin.KeycloakIdentityProviderPlugin;
+
+import com.google.gson.JsonObject;
+
+/**
+ * Load test driving a real process engine with the Keycloak identity provider plugin against a
+ * {@link KeycloakStubServer}. Concurrent workers execute a configurable mix of user, group and
+ * login queries; at the end throughput, latency percentiles and the number of requests sent to
+ * Keycloak are reported.
+ * <p>
+ * Options are passed as {@code --name=value}, see {@link Options}. Example:
+ * <pre>
+ * java -cp extension-benchmarks/target/benchmarks.jar org.camunda.bpm.extension.keycloak.load.LoadHarness \
+ *   --realmSize=10000 --threads=32 --duration=30 --latency=lognormal:5:50 --errorRate=0.001 --cacheEnabled=true
+ * </pre>
+ */
+public class LoadHarness {
+
+	/**
+	 * Options of a load test run.
+	 */
+	public static class Options {
+		/** Number of users in the realm. */
+		int realmSize = 10_000;
+		/** Number of users (and their groups) queried by the workers, determines the cache hit rate. */
+		int activeUsers = 1_000;
+		/** Number of concurrent worker threads. */
+		int threads = 16;
+		/** Warm up duration in seconds, not measured. */
+		int warmup = 5;
+		/** Measured duration in seconds. */
+		int duration = 30;
+		/** Server side latency: none, fixed:ms, uniform:min:max or lognormal:median:p99. */
+		String latency = "lognormal:5:50";
+		/** Probability of the stub failing a request with 503. */
+		double errorRate = 0.0;
+		/** Number of requests each stub node processes concurrently, 0 for unlimited. */
+		int capacity = 0;
+		/** Number of Keycloak stub nodes, more than one enables client side load balancing. */
+		int nodes = 1;
+		/** Latency of the first node, empty for the same latency as all other nodes. */
+		String firstNodeLatency = "";
+		/** Error rate of the first node, negative for the same error rate as all other nodes. */
+		double firstNodeErrorRate = -1;
+		/** Operation mix in percent per category. */
+		String mix = "users:60,groups:30,login:10";
+		/** Camunda user ID mapping: id, email or username. */
+		String userIdMapping = "id";
+		/** Plugin: query caching. */
+		boolean cacheEnabled = false;
+		/** Plugin: maximum cache size. */
+		int maxCacheSize = 500;
+		/** Plugin: login caching. */
+		boolean loginCacheEnabled = false;
+		/** Plugin: HTTP connection pool size. */
+		int maxHttpConnections = 50;
+		/** Plugin: maximum result size of Keycloak queries. */
+		int maxResultSize = 250;
+		/** Plugin: maximum concurrent requests per multi-ID query. */
+		int maxParallelRequestsPerQuery = 8;
+		/** Plugin: run concurrent requests on virtual threads (Java 21+). */
+		boolean virtualThreadsEnabled = false;
+		/** Plugin: hedge slow GET requests. */
+		boolean hedgingEnabled = false;
+		/** Plugin: maximum retries of failed GET requests. */
+		int maxRetries = 0;
+		/** Plugin: limit concurrent requests adaptively. */
+		boolean concurrencyLimitEnabled = false;
+		/** Plugin: merge identical concurrent queries without caching. */
+		boolean requestCoalescingEnabled = true;
+		/** Random seed of the workers. */
+		long seed = 42;
+
+		static Options parse(String[] args) {
+			Options options = new Options();
+			for (String arg : args) {
+				if (!arg.startsWith("--") || !arg.contains("=")) {
+					throw new IllegalArgumentException("Expected --name=value but got " + arg);
+				}
+				String name = arg.substring(2, arg.indexOf('='));
+				String value = arg.substring(arg.indexOf('=') + 1);
+				try {
+					java.lang.reflect.Field field = Options.class.getDeclaredField(name);
+					if (field.getType() == int.class) {
+						field.setInt(options, Integer.parseInt(value));
+					} else if (field.getType() == long.class) {
+						field.setLong(options, Long.parseLong(value));
+					} else if (field.getType() == double.class) {
+						field.setDouble(options, Double.parseDouble(value));
+					} else if (field.getType() == boolean.class) {
+						field.setBoolean(options, Boolean.parseBoolean(value));
+					} else {
+						field.set(options, value);
+					}
+				} catch (NoSuchFieldException e) {
+					throw new IllegalArgumentException("Unknown option --" + name);
+				} catch (IllegalAccessException e) {
+					throw new IllegalStateException(e);
+				}
+			}
+			return options;
+		}
+
+		@Override
+		public String toString() {
+			StringBuilder sb = new StringBuilder();
+			for (java.lang.reflect.Field field : Options.class.getDeclaredFields()) {
+				try {
+					sb.append("--").append(field.getName()).append('=').append(field.get(this)).append(' ');
+				} catch (IllegalAccessException e) {
+					throw new IllegalStateException(e);
+				}
+			}
+			return sb.toString().trim();
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+		Options options = Options.parse(args);
+		System.out.println("Options: " + options);
+		run(options).print(System.out);
+	}
+
+	/**
+	 * Runs a load test.
+	 * @param options the options
+	 * @return the report
+	 * @throws Exception in case of errors
+	 */
+	public static LoadReport run(Options options) throws Exception {
+		StubRealm realm = new StubRealm(options.realmSize);
+		List<KeycloakStubServer> servers = new ArrayList<>();
+		try {
+			for (int i = 0; i < Math.max(1, options.nodes); i++) {
+				boolean first = i == 0;
+				String latency = first && !options.firstNodeLatency.isEmpty() ? options.firstNodeLatency : options.latency;
+				double errorRate = first && options.firstNodeErrorRate >= 0 ? options.firstNodeErrorRate : options.errorRate;
+				servers.add(new KeycloakStubServer(realm, LatencyDistribution.parse(latency), errorRate, options.capacity));
+			}
+			ProcessEngine processEngine = buildProcessEngine(options, servers);
+			try {
+				return run(options, processEngine.getIdentityService(), realm, servers);
+			} finally {
+				processEngine.close();
+			}
+		} finally {
+			servers.forEach(KeycloakStubServer::close);
+		}
+	}
+
+	private static ProcessEngine buildProcessEngine(Options options, List<KeycloakStubServer> servers) {
+		KeycloakStubServer server = servers.get(0);
+		KeycloakIdentityProviderPlugin plugin = new KeycloakIdentityProviderPlugin();
+		plugin.setKeycloakIssuerUrl(server.getIssuerUrl());
+		plugin.setKeycloakAdminUrl(server.getAdminUrl());
+		plugin.setClientId(KeycloakStubServer.CLIENT_ID);
+		plugin.setClientSecret(KeycloakStubServer.CLIENT_SECRET);
+		plugin.setUseEmailAsCamundaUserId("email".equals(options.userIdMapping));
+		plugin.setUseUsernameAsCamundaUserId("username".equals(options.userIdMapping));
+		plugin.setCacheEnabled(options.cacheEnabled);
+		plugin.setMaxCacheSize(options.maxCacheSize);
+		plugin.setLoginCacheEnabled(options.loginCacheEnabled);
+		plugin.setMaxHttpConnections(options.maxHttpConnections);
+		plugin.setMaxResultSize(options.maxResultSize);
+		plugin.setMaxParallelRequestsPerQuery(options.maxParallelRequestsPerQuery);
+		plugin.setVirtualThreadsEnabled(options.virtualThreadsEnabled);
+		plugin.setHedgingEnabled(options.hedgingEnabled);
+		plugin.setMaxRetries(options.maxRetries);
+		plugin.setConcurrencyLimitEnabled(options.concurrencyLimitEnabled);
+		plugin.setRequestCoalescingEnabled(options.requestCoalescingEnabled);
+		if (servers.size() > 1) {
+			plugin.setKeycloakNodeUrls(servers.stream().map(KeycloakStubServer::getBaseUrl).collect(Collectors.joining(",")));
+		}
+
+		ProcessEngineConfigurationImpl configuration = (ProcessEngineConfigurationImpl) ProcessEngineConfiguration
+				.createStandaloneInMemProcessEngineConfiguration()
+				.setProcessEngineName("keycloak-load")
+				.setJdbcUrl("jdbc:h2:mem:keycloak-load;DB_CLOSE_DELAY=-1")
+				.setDatabaseSchemaUpdate(ProcessEngineConfiguration.DB_SCHEMA_UPDATE_CREATE_DROP)
+				.setHistory(ProcessEngineConfiguration.HISTORY_NONE)
+				.setJobExecutorActivate(false);
+		List<ProcessEnginePlugin> plugins = new ArrayList<>();
+		plugins.add(plugin);
+		configuration.setProcessEnginePlugins(plugins);
+		return configuration.buildProcessEngine();
+	}
+
+	private static LoadReport run(Options options, IdentityService identityService, StubRealm realm,
+			List<KeycloakStubServer> servers) throws InterruptedException {
+		Workload workload = new Workload(options, realm);
+		AtomicBoolean measuring = new AtomicBoolean(false);
+		AtomicBoolean running = new AtomicBoolean(true);
+		List<LatencyRecorder> recorders = new ArrayList<>();
+		CountDownLatch finished = new CountDownLatch(options.threads);
+
+		for (int t = 0; t < options.threads; t++) {
+			LatencyRecorder recorder = new LatencyRecorder();
+			recorders.add(recorder);
+			Random random = new Random(options.seed + t);
+			Thread worker = new Thread(() -> {
+				try {
+					while (running.get()) {
+						Operation operation = workload.nextOperation(random);
+						long start = System.nanoTime();
+						boolean success;
+						try {
+							workload.execute(operation, identityService, random);
+							success = true;
+						} catch (RuntimeException e) {
+							success = false;
+						}
+						if (measuring.get()) {
+							if (success) {
+								recorder.record(operation, System.nanoTime() - start);
+							} else {
+								recorder.recordError(operation);
+							}
+						}
+					}
+				} finally {
+					finished.countDown();
+				}
+			}, "load-worker-" + t);
+			worker.setDaemon(true);
+			worker.start();
+		}
+
+		TimeUnit.SECONDS.sleep(options.warmup);
+		servers.forEach(KeycloakStubServer::resetRequestCounts);
+		measuring.set(true);
+		long start = System.nanoTime();
+		TimeUnit.SECONDS.sleep(options.duration);
+		measuring.set(false);
+		long durationNanos = System.nanoTime() - start;
+		Map<String, Long> requestCounts = new TreeMap<>();
+		Map<String, Long> nodeRequestCounts = new LinkedHashMap<>();
+		for (KeycloakStubServer server : servers) {
+			server.getRequestCounts().forEach((endpoint, count) -> requestCounts.merge(endpoint, count, Long::sum));
+			nodeRequestCounts.put(server.getBaseUrl(), server.getTotalRequestCount());
+		}
+		running.set(false);
+		finished.await();
+
+		return new LoadReport(durationNanos, recorders, requestCounts, nodeRequestCounts);
+	}
+
+	/**
+	 * Chooses operations according to the configured mix and executes them on active users and their groups.
+	 */
+	private static class Workload {
+
+		private final Map<Category, Integer> mix = new EnumMap<>(Category.class);
+		private final int mixTotal;
+		private final List<String> userIds = new ArrayList<>();
+		private final List<String> usernames = new ArrayList<>();
+		private final List<String> firstNames = new ArrayList<>();
+		private final List<String> groupIds = new ArrayList<>();
+		private final List<String> groupNames = new ArrayList<>();
+
+		Workload(Options options, StubRealm realm) {
+			Map<String, Category> categories = new HashMap<>();
+			for (Category category : Category.values()) {
+				categories.put(category.name().toLowerCase(), category);
+			}
+			int total = 0;
+			for (String entry : options.mix.split(",")) {
+				String[] kv = entry.split(":");
+				Category category = categories.get(kv[0].trim().toLowerCase());
+				if (category == null) {
+					throw new IllegalArgumentException("Unknown operation category in mix: " + kv[0]);
+				}
+				int weight = Integer.parseInt(kv[1].trim());
+				mix.put(category, weight);
+				total += weight;
+			}
+			this.mixTotal = total;
+
+			int activeUsers = Math.min(options.activeUsers, realm.size());
+			for (int i = 0; i < activeUsers; i++) {
+				JsonObject user = realm.users().get(i * (realm.size() / activeUsers));
+				userIds.add(user.get(options.userIdMapping).getAsString());
+				usernames.add(user.get("username").getAsString());
+				firstNames.add(user.get("firstName").getAsString());
+				for (JsonObject group : realm.groupsOf(user.get("id").getAsString())) {
+					String groupId = group.get("id").getAsString();
+					if (!groupIds.contains(groupId)) {
+						groupIds.add(groupId);
+						groupNames.add(group.get("name").getAsString());
+					}
+				}
+			}
+		}
+
+		Operation nextOperation(Random random) {
+			int r = random.nextInt(mixTotal);
+			Category category = null;
+			for (Map.Entry<Category, Integer> entry : mix.entrySet()) {
+				r -= entry.getValue();
+				if (r < 0) {
+					category = entry.getKey();
+					break;
+				}
+			}
+			List<Operation> candidates = new ArrayList<>();
+			for (Operation operation : Operation.values()) {
+				if (operation.getCategory() == category) {
+					candidates.add(operation);
+				}
+			}
+			return candidates.get(random.nextInt(candidates.size()));
+		}
+
+		void execute(Operation operation, IdentityService identityService, Random random) {
+			int user = random.nextInt(userIds.size());
+			int group = random.nextInt(groupIds.size());
+			switch (operation) {
+				case USER_BY_ID:
+					identityService.createUserQuery().userId(userIds.get(user)).singleResult();
+					break;
+				case USERS_BY_IDS:
+					String[] ids = new String[25];
+					for (int i = 0; i < ids.length; i++) {
+						ids[i] = userIds.get(random.nextInt(userIds.size()));
+					}
+					identityService.createUserQuery().userIdIn(ids).list();
+					break;
+				case USER_SEARCH:
+					identityService.createUserQuery()
+							.userFirstNameLike("%" + firstNames.get(user).substring(0, 3) + "%").list();
+					break;
+				case USERS_OF_GROUP:
+					identityService.createUserQuery().memberOfGroup(groupIds.get(group)).list();
+					break;
+				case USER_PAGE:
+					identityService.createUserQuery().orderByUserLastName().asc().listPage(0, 25);
+					break;
+				case GROUP_BY_ID:
+					identityService.createGroupQuery().groupId(groupIds.get(group)).singleResult();
+					break;
+				case GROUPS_OF_USER:
+					identityService.createGroupQuery().groupMember(userIds.get(user)).list();
+					break;
+				case GROUP_SEARCH:
+					identityService.createGroupQuery().groupNameLike("%" + groupNames.get(group) + "%").list();
+					break;
+				case LOGIN:
+					if (!identityService.checkPassword(userIds.get(user), StubRealm.PASSWORD)) {
+						throw new IllegalStateException("Login failed for " + usernames.get(user));
+					}
+					break;
+				default:
+					throw new IllegalArgumentException(operation.name());
+			}
+		}
+	}
+}
@@ -0,0 +1,110 @@
+package org.camunda.bpm.extension.keycloak.load;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Throughput, latency percentiles and outbound request counts of a load test run.
+ */
+public class LoadReport {
+
+	private final long durationNanos;
+	private final Map<Operation, long[]> latencies = new EnumMap<>(Operation.class);
+	private final Map<Operation, Long> errors = new EnumMap<>(Operation.class);
+	private final Map<String, Long> requestCounts;
+	private final Map<String, Long> nodeRequestCounts;
+
+	/**
+	 * Creates a report by merging the recordings of all workers.
+	 * @param durationNanos the measured duration
+	 * @param recorders the per worker recordings
+	 * @param requestCounts requests received by the Keycloak stub per endpoint
+	 */
+	public LoadReport(long durationNanos, List<LatencyRecorder> recorders, Map<String, Long> requestCounts) {
+		this(durationNanos, recorders, requestCounts, Collections.emptyMap());
+	}
+
+	/**
+	 * Creates a report by merging the recordings of all workers.
+	 * @param durationNanos the measured duration
+	 * @param recorders the per worker recordings
+	 * @param requestCounts requests received by all Keycloak stub nodes per endpoint
+	 * @param nodeRequestCounts requests received per Keycloak stub node
+	 */
+	public LoadReport(long durationNanos, List<LatencyRecorder> recorders, Map<String, Long> requestCounts,
+			Map<String, Long> nodeRequestCounts) {
+		this.durationNanos = durationNanos;
+		this.requestCounts = requestCounts;
+		this.nodeRequestCounts = nodeRequestCounts;
+		for (Operation operation : Operation.values()) {
+			long[] merged = recorders.stream().flatMapToLong(r -> Arrays.stream(r.latencies(operation))).sorted().toArray();
+			if (merged.length > 0) {
+				latencies.put(operation, merged);
+			}
+			errors.put(operation, recorders.stream().mapToLong(r -> r.errors(operation)).sum());
+		}
+	}
+
+	/**
+	 * @return the total number of completed operations
+	 */
+	public long getOperationCount() {
+		return latencies.values().stream().mapToLong(l -> l.length).sum();
+	}
+
+	/**
+	 * @return completed operations per second
+	 */
+	public double getThroughput() {
+		return getOperationCount() / (durationNanos / 1e9);
+	}
+
+	/**
+	 * @return the total number of requests sent to Keycloak
+	 */
+	public long getRequestCount() {
+		return requestCounts.values().stream().mapToLong(Long::longValue).sum();
+	}
+
+	/**
+	 * Prints the report.
+	 * @param out the target
+	 */
+	public void print(PrintStream out) {
+		out.printf("%n%-16s %10s %8s %10s %9s %9s %9s %9s %9s%n", "operation", "count", "errors", "ops/s",
+				"p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+		for (Operation operation : Operation.values()) {
+			long[] l = latencies.get(operation);
+			if (l == null) {
+				continue;
+			}
+			out.printf("%-16s %10d %8d %10.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n", operation, l.length, errors.get(operation),
+					l.length / (durationNanos / 1e9), percentile(l, 0.5), percentile(l, 0.9), percentile(l, 0.99),
+					percentile(l, 0.999), l[l.length - 1] / 1e6);
+		}
+		out.printf("%-16s %10d %8d %10.1f%n", "total", getOperationCount(),
+				errors.values().stream().mapToLong(Long::longValue).sum(), getThroughput());
+
+		out.printf("%n%-40s %10s %12s%n", "Keycloak endpoint", "requests", "per op");
+		long operations = Math.max(1, getOperationCount());
+		requestCounts.forEach((endpoint, count) ->
+			out.printf("%-40s %10d %12.3f%n", endpoint, count, (double) count / operations));
+		out.printf("%-40s %10d %12.3f%n", "total", getRequestCount(), (double) getRequestCount() / operations);
+
+		if (nodeRequestCounts.size() > 1) {
+			out.printf("%n%-40s %10s %12s%n", "Keycloak node", "requests", "share");
+			long total = Math.max(1, nodeRequestCounts.values().stream().mapToLong(Long::longValue).sum());
+			nodeRequestCounts.forEach((node, count) ->
+				out.printf("%-40s %10d %11.1f%%%n", node, count, 100.0 * count / total));
+		}
+	}
+
+	private static double percentile(long[] sorted, double p) {
+		int idx = (int) Math.ceil(p * sorted.length) - 1;
+		return sorted[Math.max(0, Math.min(sorted.length - 1, idx))] / 1e6;
+	}
+}
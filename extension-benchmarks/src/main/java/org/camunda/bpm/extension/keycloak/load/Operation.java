@@ -0,0 +1,46 @@
+package org.camunda.bpm.extension.keycloak.load;
+
+/**
+ * Identity operations executed by the load harness.
+ */
+public enum Operation {
+
+	/** {@code createUserQuery().userId(..).singleResult()} */
+	USER_BY_ID(Category.USERS),
+	/** {@code createUserQuery().userIdIn(..25 IDs..).list()} */
+	USERS_BY_IDS(Category.USERS),
+	/** {@code createUserQuery().userFirstNameLike(..).list()} */
+	USER_SEARCH(Category.USERS),
+	/** {@code createUserQuery().memberOfGroup(..).list()} */
+	USERS_OF_GROUP(Category.USERS),
+	/** {@code createUserQuery().orderByUserLastName().asc().listPage(0, 25)} */
+	USER_PAGE(Category.USERS),
+	/** {@code createGroupQuery().groupId(..).singleResult()} */
+	GROUP_BY_ID(Category.GROUPS),
+	/** {@code createGroupQuery().groupMember(..).list()} */
+	GROUPS_OF_USER(Category.GROUPS),
+	/** {@code createGroupQuery().groupNameLike(..).list()} */
+	GROUP_SEARCH(Category.GROUPS),
+	/** {@code checkPassword(..)} */
+	LOGIN(Category.LOGIN);
+
+	/**
+	 * Operation categories used to configure the operation mix.
+	 */
+	public enum Category {
+		USERS, GROUPS, LOGIN
+	}
+
+	private final Category category;
+
+	Operation(Category category) {
+		this.category = category;
+	}
+
+	/**
+	 * @return the category
+	 */
+	public Category getCategory() {
+		return category;
+	}
+}
@@ -0,0 +1,198 @@
+package org.camunda.bpm.extension.keycloak.load;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.camunda.bpm.extension.keycloak.RealmFixtures;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+/**
+ * Immutable in-memory realm served by the {@link KeycloakStubServer}. Users and groups are
+ * taken from {@link RealmFixtures}; each user is member of one or two groups.
+ */
+public class StubRealm {
+
+	/** The password of all users. */
+	public static final String PASSWORD = "password";
+
+	private final int size;
+	private final List<JsonObject> users;
+	private final Map<String, JsonObject> usersById = new HashMap<>();
+	private final Set<String> usernames = new HashSet<>();
+	private final JsonArray topLevelGroups;
+	private final Map<String, JsonObject> groupsById = new LinkedHashMap<>();
+	private final Map<String, JsonObject> groupsByPath = new HashMap<>();
+	private final Map<String, List<JsonObject>> childrenOfGroup = new HashMap<>();
+	private final Map<String, List<JsonObject>> groupsOfUser = new HashMap<>();
+	private final Map<String, List<JsonObject>> membersOfGroup = new HashMap<>();
+	/** Access tokens issued by any node serving this realm, like signed tokens they are valid on all nodes. */
+	private final Set<String> accessTokens = ConcurrentHashMap.newKeySet();
+
+	/**
+	 * Creates a realm.
+	 * @param size the number of users
+	 */
+	public StubRealm(int size) {
+		this.size = size;
+		this.users = new ArrayList<>(size);
+		RealmFixtures.users(size).forEach(user -> {
+			JsonObject u = user.getAsJsonObject();
+			users.add(u);
+			usersById.put(u.get("id").getAsString(), u);
+			usernames.add(u.get("username").getAsString());
+		});
+
+		this.topLevelGroups = RealmFixtures.groups(size);
+		indexGroups(topLevelGroups);
+
+		// camunda-admin has the first user as only member, all others are distributed over the remaining groups
+		List<JsonObject> groups = new ArrayList<>(groupsById.values());
+		Random random = new Random(size);
+		for (int i = 0; i < users.size(); i++) {
+			JsonObject user = users.get(i);
+			if (i == 0) {
+				addMembership(user, groups.get(0));
+			}
+			if (groups.size() > 1) {
+				addMembership(user, groups.get(1 + i % (groups.size() - 1)));
+				if (random.nextBoolean()) {
+					addMembership(user, groups.get(1 + random.nextInt(groups.size() - 1)));
+				}
+			}
+		}
+	}
+
+	private void indexGroups(JsonArray groups) {
+		for (JsonElement element : groups) {
+			JsonObject group = element.getAsJsonObject();
+			JsonObject brief = group.deepCopy();
+			brief.remove("subGroups");
+			groupsById.put(group.get("id").getAsString(), brief);
+			groupsByPath.put(group.get("path").getAsString(), brief);
+			indexGroups(group.getAsJsonArray("subGroups"));
+			List<JsonObject> children = new ArrayList<>();
+			for (JsonElement subGroup : group.getAsJsonArray("subGroups")) {
+				children.add(groupsById.get(subGroup.getAsJsonObject().get("id").getAsString()));
+			}
+			childrenOfGroup.put(group.get("id").getAsString(), children);
+		}
+	}
+
+	private void addMembership(JsonObject user, JsonObject group) {
+		List<JsonObject> userGroups = groupsOfUser.computeIfAbsent(user.get("id").getAsString(), k -> new ArrayList<>());
+		if (!userGroups.contains(group)) {
+			userGroups.add(group);
+			membersOfGroup.computeIfAbsent(group.get("id").getAsString(), k -> new ArrayList<>()).add(user);
+		}
+	}
+
+	/**
+	 * @return the number of users
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return all users
+	 */
+	public List<JsonObject> users() {
+		return Collections.unmodifiableList(users);
+	}
+
+	/**
+	 * @param id the Keycloak ID
+	 * @return the user or {@code null}
+	 */
+	public JsonObject user(String id) {
+		return usersById.get(id);
+	}
+
+	/**
+	 * @param username the username
+	 * @return {@code true} if a user with this username exists
+	 */
+	public boolean hasUsername(String username) {
+		return usernames.contains(username);
+	}
+
+	/**
+	 * @param accessToken an access token issued to the client
+	 */
+	public void addAccessToken(String accessToken) {
+		accessTokens.add(accessToken);
+	}
+
+	/**
+	 * @param accessToken an access token
+	 * @return {@code true} if the token has been issued by any node serving this realm
+	 */
+	public boolean isValidAccessToken(String accessToken) {
+		return accessTokens.contains(accessToken);
+	}
+
+	/**
+	 * @return top level groups including their subGroups
+	 */
+	public JsonArray topLevelGroups() {
+		return topLevelGroups;
+	}
+
+	/**
+	 * @return all groups without subGroups
+	 */
+	public List<JsonObject> groups() {
+		return new ArrayList<>(groupsById.values());
+	}
+
+	/**
+	 * @param id the Keycloak ID
+	 * @return the group without subGroups or {@code null}
+	 */
+	public JsonObject group(String id) {
+		return groupsById.get(id);
+	}
+
+	/**
+	 * @param path the group path, e.g. {@code /sales-0/sales-0.1}
+	 * @return the group without subGroups or {@code null}
+	 */
+	public JsonObject groupByPath(String path) {
+		return groupsByPath.get(path);
+	}
+
+	/**
+	 * @param groupId the Keycloak ID of the group
+	 * @return the direct subgroups of the group without their subGroups
+	 */
+	public List<JsonObject> childrenOf(String groupId) {
+		return childrenOfGroup.getOrDefault(groupId, Collections.emptyList());
+	}
+
+	/**
+	 * @param userId the Keycloak ID of the user
+	 * @return the groups of the user
+	 */
+	public List<JsonObject> groupsOf(String userId) {
+		return groupsOfUser.getOrDefault(userId, Collections.emptyList());
+	}
+
+	/**
+	 * @param groupId the Keycloak ID of the group
+	 * @return the members of the group
+	 */
+	public List<JsonObject> membersOf(String groupId) {
+		return membersOfGroup.getOrDefault(groupId, Collections.emptyList());
+	}
+}
@@ -1,62 +1,113 @@
 package org.camunda.bpm.extension.keycloak;
 
-import java.util.Arrays;
+import static org.camunda.bpm.extension.keycloak.util.SearchTerms.searchTerm;
+
 import java.util.Objects;
 
+import org.camunda.bpm.engine.authorization.Groups;
+import org.springframework.util.StringUtils;
+
 /**
- * Immutable wrapper over KeycloakGroupQuery that can be used as a cache key.
+ * Immutable cache key of a KeycloakGroupQuery. Holds only the criteria actually sent to Keycloak in their
+ * canonical form, so that queries resulting in the same request share a cache entry - e.g. {@code groupName("Manager")}
+ * and {@code groupNameLike("manager%")}. All further criteria are applied by client side post processing of the
+ * original query.
  * Note: keep equals/hashcode in sync with the list of fields
  */
 public class CacheableKeycloakGroupQuery {
 
 	private final String id;
-	private final String[] ids;
-	private final String name;
-	private final String nameLike;
-	private final String type;
+	private final String search;
 	private final String userId;
-	private final String tenantId;
-
-	private CacheableKeycloakGroupQuery(KeycloakGroupQuery delegate) {
-		this.id = delegate.getId();
-		this.ids = delegate.getIds();
-		this.name = delegate.getName();
-		this.nameLike = delegate.getNameLike();
-		this.type = delegate.getType();
-		this.userId = delegate.getUserId();
-		this.tenantId = delegate.getTenantId();
+	private final String type;
+
+	private CacheableKeycloakGroupQuery(String id, String search, String userId, String type) {
+		this.id = id;
+		this.search = search;
+		this.userId = userId;
+		this.type = type;
 	}
 
 	public static CacheableKeycloakGroupQuery of(KeycloakGroupQuery groupQuery) {
-		return new CacheableKeycloakGroupQuery(groupQuery);
+		return of(groupQuery, false);
 	}
 
-	public String getId() {
-		return id;
+	/**
+	 * @param groupQuery the group query
+	 * @param searchType whether the type SYSTEM is sent to Keycloak as attribute search
+	 * @return the cache key of the group query
+	 */
+	public static CacheableKeycloakGroupQuery of(KeycloakGroupQuery groupQuery, boolean searchType) {
+		if (StringUtils.hasLength(groupQuery.getUserId())) {
+			// groups of a user are requested without further criteria
+			return ofMember(groupQuery.getUserId());
+		}
+		if (StringUtils.hasLength(groupQuery.getId())) {
+			return ofId(groupQuery.getId());
+		}
+		if (groupQuery.getIds() != null && groupQuery.getIds().length == 1) {
+			return ofId(groupQuery.getIds()[0]);
+		}
+		String search = searchTerm(groupQuery.getName(), groupQuery.getNameLike());
+		String type = searchType && Groups.GROUP_TYPE_SYSTEM.equals(groupQuery.getType()) ? Groups.GROUP_TYPE_SYSTEM : null;
+		return new CacheableKeycloakGroupQuery(null, search, null, type);
 	}
 
-	public String[] getIds() {
-		return ids;
+	/**
+	 * @return cache key of the unfiltered query for all groups
+	 */
+	public static CacheableKeycloakGroupQuery ofAll() {
+		return new CacheableKeycloakGroupQuery(null, null, null, null);
 	}
 
-	public String getName() {
-		return name;
+	/**
+	 * @param groupId the group ID
+	 * @return cache key of a query for a single group by its ID
+	 */
+	public static CacheableKeycloakGroupQuery ofId(String groupId) {
+		return new CacheableKeycloakGroupQuery(groupId, null, null, null);
 	}
 
-	public String getNameLike() {
-		return nameLike;
+	/**
+	 * @param userId the user ID
+	 * @return cache key of a query for the groups of a user
+	 */
+	public static CacheableKeycloakGroupQuery ofMember(String userId) {
+		return new CacheableKeycloakGroupQuery(null, null, userId, null);
 	}
 
-	public String getType() {
-		return type;
+	/**
+	 * Returns the cache key of the unfiltered query. Its result is a superset of this query's result, from which
+	 * this query can be answered by client side filtering unless it is truncated - provided it contains the
+	 * subgroups, which Keycloak 23 and later omit unless enforced.
+	 * @return the cache key without search term or this key in case it has an ID or user criteria, which are
+	 *         requested without search term anyway - the type is kept, as it cannot be verified without the group
+	 *         attributes missing in the unfiltered result
+	 */
+	public CacheableKeycloakGroupQuery withoutFilters() {
+		if (id != null || userId != null) {
+			return this;
+		}
+		return type == null ? ofAll() : new CacheableKeycloakGroupQuery(null, null, null, type);
+	}
+
+	public String getId() {
+		return id;
+	}
+
+	public String getSearch() {
+		return search;
 	}
 
 	public String getUserId() {
 		return userId;
 	}
 
-	public String getTenantId() {
-		return tenantId;
+	/**
+	 * @return the group type searched for via the group attribute {@code type}, {@code null} if not searched for
+	 */
+	public String getType() {
+		return type;
 	}
 
 	@Override
@@ -65,18 +116,13 @@ public class CacheableKeycloakGroupQuery {
 		if (o == null || getClass() != o.getClass()) return false;
 		CacheableKeycloakGroupQuery that = (CacheableKeycloakGroupQuery) o;
 		return Objects.equals(id, that.id) &&
-						Arrays.equals(ids, that.ids) &&
-						Objects.equals(name, that.name) &&
-						Objects.equals(nameLike, that.nameLike) &&
-						Objects.equals(type, that.type) &&
+						Objects.equals(search, that.search) &&
 						Objects.equals(userId, that.userId) &&
-						Objects.equals(tenantId, that.tenantId);
+						Objects.equals(type, that.type);
 	}
 
 	@Override
 	public int hashCode() {
-		int result = Objects.hash(id, name, nameLike, type, userId, tenantId);
-		result = 31 * result + Arrays.hashCode(ids);
-		return result;
+		return Objects.hash(id, search, userId, type);
 	}
 }
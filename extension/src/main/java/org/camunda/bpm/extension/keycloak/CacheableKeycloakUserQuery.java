@@ -1,96 +1,139 @@
 package org.camunda.bpm.extension.keycloak;
 
-import java.util.Arrays;
+import static org.camunda.bpm.extension.keycloak.util.SearchTerms.exactTerm;
+import static org.camunda.bpm.extension.keycloak.util.SearchTerms.searchTerm;
+
+import java.util.List;
 import java.util.Objects;
 
+import org.springframework.util.StringUtils;
+
 /**
- * Immutable wrapper over KeycloakUserQuery that can be used as a cache key.
+ * Immutable cache key of a KeycloakUserQuery. Holds only the criteria actually sent to Keycloak in their
+ * canonical form, so that queries resulting in the same request share a cache entry - e.g. {@code email("FOO@x")}
+ * and {@code emailLike("foo@x")}. All further criteria are applied by client side post processing of the
+ * original query.
  * Note: keep equals/hashcode in sync with the list of fields
  */
 public class CacheableKeycloakUserQuery {
 
 	private final String id;
-	private final String[] ids;
 	private final String firstName;
-	private final String firstNameLike;
 	private final String lastName;
-	private final String lastNameLike;
 	private final String email;
-	private final String emailLike;
 	private final String groupId;
-
-	private CacheableKeycloakUserQuery(KeycloakUserQuery delegate) {
-		this.id = delegate.getId();
-		this.ids = delegate.getIds();
-		this.firstName = delegate.getFirstName();
-		this.firstNameLike = delegate.getFirstNameLike();
-		this.lastName = delegate.getLastName();
-		this.lastNameLike = delegate.getLastNameLike();
-		this.email = delegate.getEmail();
-		this.emailLike = delegate.getEmailLike();
-		this.groupId = delegate.getGroupId();
+	private final boolean exact;
+
+	private CacheableKeycloakUserQuery(String id, String firstName, String lastName, String email, String groupId,
+			boolean exact) {
+		this.id = id;
+		this.firstName = firstName;
+		this.lastName = lastName;
+		this.email = email;
+		this.groupId = groupId;
+		this.exact = exact;
 	}
 
 	public static CacheableKeycloakUserQuery of(KeycloakUserQuery userQuery) {
-		return new CacheableKeycloakUserQuery(userQuery);
+		if (StringUtils.hasLength(userQuery.getGroupId())) {
+			// members of a group are requested without further criteria
+			return new CacheableKeycloakUserQuery(null, null, null, null, userQuery.getGroupId(), false);
+		}
+		if (StringUtils.hasLength(userQuery.getId())) {
+			return ofId(userQuery.getId());
+		}
+		if (userQuery.getIds() != null && userQuery.getIds().length == 1) {
+			return ofId(userQuery.getIds()[0]);
+		}
+		String firstName = exactTerm(userQuery.getFirstName(), userQuery.getFirstNameLike());
+		String lastName = exactTerm(userQuery.getLastName(), userQuery.getLastNameLike());
+		String email = exactTerm(userQuery.getEmail(), userQuery.getEmailLike());
+		if (firstName != null || lastName != null || email != null) {
+			// Keycloak matches all attributes of an exact request exactly, like criteria are left to post processing
+			return new CacheableKeycloakUserQuery(null, firstName, lastName, email, null, true);
+		}
+		return new CacheableKeycloakUserQuery(null,
+				searchTerm(null, userQuery.getFirstNameLike()),
+				searchTerm(null, userQuery.getLastNameLike()),
+				searchTerm(null, userQuery.getEmailLike()),
+				null, false);
 	}
 
-	public String getId() {
-		return id;
+	/**
+	 * @param userId the user ID
+	 * @return cache key of a query for a single user by its ID
+	 */
+	public static CacheableKeycloakUserQuery ofId(String userId) {
+		return new CacheableKeycloakUserQuery(userId, null, null, null, null, false);
 	}
 
-	public String[] getIds() {
-		return ids;
+	/**
+	 * Returns the cache key of the unfiltered query. Its result is a superset of this query's result, from which
+	 * this query can be answered by client side filtering unless it is truncated.
+	 * @return the cache key without search terms or this key in case it has an ID or group criteria, which are
+	 *         requested without search terms anyway
+	 */
+	public CacheableKeycloakUserQuery withoutFilters() {
+		if (id != null || groupId != null) {
+			return this;
+		}
+		return new CacheableKeycloakUserQuery(null, null, null, null, null, false);
 	}
 
-	public String getFirstName() {
-		return firstName;
+	/**
+	 * Returns the cache keys of queries whose results are supersets of this query's result, from which this query
+	 * can be answered by client side filtering unless they are truncated.
+	 * @return the substring search for the terms of an exact query followed by the unfiltered query, narrowest first
+	 */
+	public List<CacheableKeycloakUserQuery> broaderQueries() {
+		if (exact) {
+			return List.of(new CacheableKeycloakUserQuery(id, firstName, lastName, email, groupId, false), withoutFilters());
+		}
+		return List.of(withoutFilters());
 	}
 
-	public String getFirstNameLike() {
-		return firstNameLike;
+	public String getId() {
+		return id;
 	}
 
-	public String getLastName() {
-		return lastName;
+	public String getFirstName() {
+		return firstName;
 	}
 
-	public String getLastNameLike() {
-		return lastNameLike;
+	public String getLastName() {
+		return lastName;
 	}
 
 	public String getEmail() {
 		return email;
 	}
 
-	public String getEmailLike() {
-		return emailLike;
-	}
-
 	public String getGroupId() {
 		return groupId;
 	}
 
+	/**
+	 * @return {@code true} if the attributes are searched for exactly (case insensitive) instead of as substrings
+	 */
+	public boolean isExact() {
+		return exact;
+	}
+
 	@Override
 	public boolean equals(Object o) {
 		if (this == o) return true;
 		if (o == null || getClass() != o.getClass()) return false;
 		CacheableKeycloakUserQuery that = (CacheableKeycloakUserQuery) o;
-		return Objects.equals(id, that.id) && 
-						Arrays.equals(ids, that.ids) && 
-						Objects.equals(firstName, that.firstName) && 
-						Objects.equals(firstNameLike, that.firstNameLike) && 
-						Objects.equals(lastName, that.lastName) && 
-						Objects.equals(lastNameLike, that.lastNameLike) && 
-						Objects.equals(email, that.email) && 
-						Objects.equals(emailLike, that.emailLike) && 
-						Objects.equals(groupId, that.groupId);
+		return Objects.equals(id, that.id) &&
+						Objects.equals(firstName, that.firstName) &&
+						Objects.equals(lastName, that.lastName) &&
+						Objects.equals(email, that.email) &&
+						Objects.equals(groupId, that.groupId) &&
+						exact == that.exact;
 	}
 
 	@Override
 	public int hashCode() {
-		int result = Objects.hash(id, firstName, firstNameLike, lastName, lastNameLike, email, emailLike, groupId);
-		result = 31 * result + Arrays.hashCode(ids);
-		return result;
+		return Objects.hash(id, firstName, lastName, email, groupId, exact);
 	}
 }
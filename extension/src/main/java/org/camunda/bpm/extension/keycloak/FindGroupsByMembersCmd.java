@@ -0,0 +1,55 @@
+package org.camunda.bpm.extension.keycloak;
+
+import static org.camunda.bpm.engine.impl.util.EnsureUtil.ensureNotNull;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.camunda.bpm.engine.identity.Group;
+import org.camunda.bpm.engine.impl.identity.ReadOnlyIdentityProvider;
+import org.camunda.bpm.engine.impl.interceptor.Command;
+import org.camunda.bpm.engine.impl.interceptor.CommandContext;
+
+/**
+ * Engine command finding the groups of several users at once, e.g. for rendering a task list:
+ * <pre>
+ * Map&lt;String, List&lt;Group&gt;&gt; groupsOfUsers = processEngineConfiguration.getCommandExecutorTxRequired()
+ *     .execute(new FindGroupsByMembersCmd(userIds));
+ * </pre>
+ * With the Keycloak identity provider missing memberships are requested in parallel, see
+ * {@link KeycloakIdentityProviderSession#findGroupsByMembers(Collection)}. Other identity providers are queried
+ * once per user.
+ */
+public class FindGroupsByMembersCmd implements Command<Map<String, List<Group>>> {
+
+	private final Collection<String> userIds;
+
+	/**
+	 * Creates a new command.
+	 * @param userIds the user IDs
+	 */
+	public FindGroupsByMembersCmd(Collection<String> userIds) {
+		ensureNotNull("userIds", userIds);
+		this.userIds = new ArrayList<>(userIds);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Map<String, List<Group>> execute(CommandContext commandContext) {
+		ReadOnlyIdentityProvider identityProvider = commandContext.getReadOnlyIdentityProvider();
+		if (identityProvider instanceof KeycloakIdentityProviderSession) {
+			return ((KeycloakIdentityProviderSession) identityProvider).findGroupsByMembers(userIds);
+		}
+		Map<String, List<Group>> groupsOfUsers = new LinkedHashMap<>();
+		for (String userId : userIds) {
+			groupsOfUsers.computeIfAbsent(userId,
+					id -> identityProvider.createGroupQuery(commandContext).groupMember(id).list());
+		}
+		return groupsOfUsers;
+	}
+}
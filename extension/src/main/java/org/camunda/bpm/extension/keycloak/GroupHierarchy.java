@@ -0,0 +1,73 @@
+package org.camunda.bpm.extension.keycloak;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.camunda.bpm.engine.identity.Group;
+
+/**
+ * Immutable transitive closure of the Keycloak group tree: the ancestors of each group, parent first.
+ * Built from a single request of the group tree, so that inherited memberships are resolved without
+ * further requests in O(depth) per group.
+ */
+public class GroupHierarchy {
+
+	/** Hierarchy without any nested groups. */
+	public static final GroupHierarchy EMPTY = new GroupHierarchy(Collections.emptyMap());
+
+	private final Map<String, List<Group>> ancestors;
+
+	/**
+	 * Creates a new group hierarchy.
+	 * @param ancestors the ancestors of each group, parent first - top level groups may be omitted
+	 */
+	public GroupHierarchy(Map<String, List<Group>> ancestors) {
+		this.ancestors = ancestors;
+	}
+
+	/**
+	 * @param groupId the group ID
+	 * @return the ancestors of the group, parent first, empty for top level and unknown groups
+	 */
+	public List<Group> getAncestors(String groupId) {
+		return ancestors.getOrDefault(groupId, Collections.emptyList());
+	}
+
+	/**
+	 * Adds the ancestors of groups, e.g. to the direct groups of a user in order to obtain all groups the user
+	 * inherits membership from.
+	 * @param groups the groups
+	 * @return the groups followed by their distinct ancestors, the groups themselves in case they have no ancestors
+	 */
+	public List<Group> withAncestors(List<Group> groups) {
+		Map<String, Group> result = null;
+		for (Group group : groups) {
+			List<Group> groupAncestors = getAncestors(group.getId());
+			if (groupAncestors.isEmpty()) {
+				continue;
+			}
+			if (result == null) {
+				result = new LinkedHashMap<>();
+				for (Group direct : groups) {
+					result.put(direct.getId(), direct);
+				}
+			}
+			for (Group ancestor : groupAncestors) {
+				if (result.putIfAbsent(ancestor.getId(), ancestor) != null) {
+					// the remaining ancestors have been added with this one
+					break;
+				}
+			}
+		}
+		return result == null ? groups : List.copyOf(result.values());
+	}
+
+	/**
+	 * @return the number of nested groups, i.e. groups having a parent
+	 */
+	public int size() {
+		return ancestors.size();
+	}
+}
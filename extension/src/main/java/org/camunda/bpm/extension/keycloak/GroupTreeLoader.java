@@ -0,0 +1,219 @@
+package org.camunda.bpm.extension.keycloak;
+
+import static org.camunda.bpm.extension.keycloak.json.JsonUtil.*;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.camunda.bpm.engine.identity.Group;
+import org.camunda.bpm.engine.impl.identity.IdentityProviderException;
+import org.camunda.bpm.extension.keycloak.cache.CacheConfiguration;
+import org.camunda.bpm.extension.keycloak.cache.CacheFactory;
+import org.camunda.bpm.extension.keycloak.cache.QueryCache;
+import org.camunda.bpm.extension.keycloak.concurrent.ParallelFetcher;
+import org.camunda.bpm.extension.keycloak.json.JsonException;
+import org.camunda.bpm.extension.keycloak.rest.KeycloakRestTemplate;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+/**
+ * Loads the Keycloak group tree level by level: the top level groups first, then the children of all groups of
+ * a level in parallel via {@code /groups/{id}/children} (Keycloak 23 or higher). Each level is requested in pages
+ * of maxResultSize, instead of the whole tree in a single response.
+ * <p>
+ * The children of each group are cached independently, so that subtrees are shared between the flattened list of
+ * all groups and the group hierarchy and requested again only after they expired.
+ */
+public class GroupTreeLoader {
+
+	/** Cache key of the top level groups. */
+	private static final String TOP_LEVEL = "";
+
+	private final KeycloakGroupService groupService;
+	private final ParallelFetcher parallelFetcher;
+	private final QueryCache<String, List<Node>> childrenCache;
+	private final int pageSize;
+
+	/**
+	 * Creates a new group tree loader.
+	 * @param keycloakConfiguration the Keycloak configuration
+	 * @param restTemplate REST template
+	 * @param keycloakContextProvider Keycloak context provider
+	 * @param parallelFetcher fetcher requesting the children of the groups of a level
+	 * @param cacheConfiguration the configuration of the cache of the children of each group
+	 */
+	public GroupTreeLoader(KeycloakConfiguration keycloakConfiguration, KeycloakRestTemplate restTemplate,
+			KeycloakContextProvider keycloakContextProvider, ParallelFetcher parallelFetcher,
+			CacheConfiguration cacheConfiguration) {
+		this.groupService = new KeycloakGroupService(keycloakConfiguration, restTemplate, keycloakContextProvider);
+		this.parallelFetcher = parallelFetcher;
+		this.childrenCache = CacheFactory.create(cacheConfiguration);
+		this.pageSize = keycloakConfiguration.getMaxResultSize();
+	}
+
+	/**
+	 * Loads the group tree.
+	 * @return all groups and their hierarchy
+	 */
+	public GroupTree load() {
+		Map<String, List<Node>> children = new HashMap<>();
+		List<Node> topLevel = childrenCache.getOrCompute(TOP_LEVEL, this::requestChildren);
+		List<Node> level = topLevel;
+		while (!level.isEmpty()) {
+			List<String> parentIds = new ArrayList<>();
+			for (Node node : level) {
+				if (node.hasChildren) {
+					parentIds.add(node.keycloakId);
+				}
+			}
+			List<List<Node>> levelChildren = parallelFetcher.fetchAll(parentIds,
+					parentId -> childrenCache.getOrCompute(parentId, this::requestChildren));
+			level = new ArrayList<>();
+			for (int i = 0; i < parentIds.size(); i++) {
+				children.put(parentIds.get(i), levelChildren.get(i));
+				level.addAll(levelChildren.get(i));
+			}
+		}
+		return flatten(topLevel, children);
+	}
+
+	/**
+	 * @return the cache of the children of each group
+	 */
+	public QueryCache<String, ?> getCache() {
+		return childrenCache;
+	}
+
+	/**
+	 * Immediately clears all cached subtrees.
+	 */
+	public void clear() {
+		childrenCache.clear();
+	}
+
+	/**
+	 * Requests all pages of the children of a group.
+	 * @param parentId the Keycloak internal ID of the group or {@link #TOP_LEVEL}
+	 * @return the children
+	 */
+	private List<Node> requestChildren(String parentId) {
+		List<Node> nodes = new ArrayList<>();
+		try {
+			for (int first = 0;; first += pageSize) {
+				JsonArray page = groupService.requestGroupLevel(TOP_LEVEL.equals(parentId) ? null : parentId, first, pageSize);
+				for (int i = 0; i < page.size(); i++) {
+					nodes.add(toNode(getJsonObjectAtIndex(page, i)));
+				}
+				if (page.size() < pageSize) {
+					break;
+				}
+			}
+		} catch (JsonException je) {
+			throw new IdentityProviderException("Unable to query subgroups of group " + parentId, je);
+		}
+		return Collections.unmodifiableList(nodes);
+	}
+
+	private Node toNode(JsonObject json) throws JsonException {
+		// without the count (e.g. a Keycloak version without paginated subgroups) the children are requested anyway
+		boolean hasChildren = !json.has("subGroupCount") || json.get("subGroupCount").getAsInt() > 0;
+		return new Node(getJsonString(json, "id"), groupService.transformGroup(json), hasChildren);
+	}
+
+	/**
+	 * Flattens the tree depth first, each group followed by its subtree like in a group query result.
+	 */
+	private GroupTree flatten(List<Node> topLevel, Map<String, List<Node>> children) {
+		List<Group> groups = new ArrayList<>();
+		Map<String, List<Group>> ancestors = new HashMap<>();
+		Deque<Visit> stack = new ArrayDeque<>();
+		push(stack, topLevel, Collections.emptyList());
+		while (!stack.isEmpty()) {
+			Visit visit = stack.pop();
+			groups.add(visit.node.group);
+			if (!visit.parents.isEmpty()) {
+				ancestors.put(visit.node.group.getId(), visit.parents);
+			}
+			List<Node> nodeChildren = children.getOrDefault(visit.node.keycloakId, Collections.emptyList());
+			if (!nodeChildren.isEmpty()) {
+				// shared by all children
+				List<Group> childParents = new ArrayList<>(visit.parents.size() + 1);
+				childParents.add(visit.node.group);
+				childParents.addAll(visit.parents);
+				push(stack, nodeChildren, Collections.unmodifiableList(childParents));
+			}
+		}
+		return new GroupTree(Collections.unmodifiableList(groups), new GroupHierarchy(ancestors));
+	}
+
+	private void push(Deque<Visit> stack, List<Node> nodes, List<Group> parents) {
+		// reverse order: the first node is visited first
+		for (int i = nodes.size() - 1; i >= 0; i--) {
+			stack.push(new Visit(nodes.get(i), parents));
+		}
+	}
+
+	/**
+	 * The loaded group tree.
+	 */
+	public static final class GroupTree {
+
+		private final List<Group> groups;
+		private final GroupHierarchy hierarchy;
+
+		private GroupTree(List<Group> groups, GroupHierarchy hierarchy) {
+			this.groups = groups;
+			this.hierarchy = hierarchy;
+		}
+
+		/**
+		 * @return all groups, each followed by its subgroups
+		 */
+		public List<Group> getGroups() {
+			return groups;
+		}
+
+		/**
+		 * @return the ancestors of all groups
+		 */
+		public GroupHierarchy getHierarchy() {
+			return hierarchy;
+		}
+	}
+
+	/**
+	 * A group of the tree.
+	 */
+	private static final class Node {
+
+		final String keycloakId;
+		final KeycloakGroup group;
+		final boolean hasChildren;
+
+		Node(String keycloakId, KeycloakGroup group, boolean hasChildren) {
+			this.keycloakId = keycloakId;
+			this.group = group;
+			this.hasChildren = hasChildren;
+		}
+	}
+
+	/**
+	 * A group to visit with its ancestors, parent first.
+	 */
+	private static final class Visit {
+
+		final Node node;
+		final List<Group> parents;
+
+		Visit(Node node, List<Group> parents) {
+			this.node = node;
+			this.parents = parents;
+		}
+	}
+}
@@ -47,6 +47,29 @@ public class KeycloakConfiguration {
 	 */
 	protected boolean enforceSubgroupsInGroupQuery = false;
 
+	/**
+	 * Whether the subgroups of the unfiltered group query and of the group hierarchy are loaded level by level via
+	 * {@code /groups/{id}/children} instead of a single response containing the whole group tree. Requires Keycloak 23
+	 * or higher, replaces enforceSubgroupsInGroupQuery for these queries.
+	 */
+	protected boolean loadSubgroupsViaChildrenEndpoint = false;
+
+	/**
+	 * Whether members of a subgroup are members of all its parent groups as well, like for roles inherited in
+	 * Keycloak. Group member queries then include the ancestors of the user's groups, resolved from the group
+	 * hierarchy cached for cacheExpirationTimeoutMin. Requires enforceSubgroupsInGroupQuery with Keycloak 23 or higher.
+	 */
+	protected boolean inheritParentGroupMembership = false;
+
+	/**
+	 * Whether group queries filtered by type SYSTEM are sent to Keycloak as attribute search {@code q=type:SYSTEM}
+	 * instead of requesting all groups, unless filtered by name as well. The group attributes are requested in order to
+	 * verify the type. Requires Keycloak 23 or higher. Keycloak matches attribute values exactly, hence the values
+	 * SYSTEM and system are searched for, and the administrator groups by name. Other spellings of the attribute
+	 * value are not considered SYSTEM groups in this case.
+	 */
+	protected boolean searchGroupTypeViaAttributeQuery = false;
+
 	/** The name of the administrator group.
 	 *
 	 * If this name is set to a non-null and non-empty value,
@@ -104,6 +127,12 @@ public class KeycloakConfiguration {
 
 	/** Time after which a cached entry is evicted. default: 15 minutes */
 	private int cacheExpirationTimeoutMin = 15;
+
+	/**
+	 * Determines if identical user and group queries running concurrently are merged into a single request
+	 * to Keycloak in case caching is disabled. default: true
+	 */
+	private boolean requestCoalescingEnabled = true;
 	
 	/** 
 	 * Determines if login password checks to Keycloak are cached. default: false.
@@ -120,6 +149,96 @@ public class KeycloakConfiguration {
 
 	/** Time after which a cached login entry is evicted. default: 15 minutes */
 	private int loginCacheExpirationTimeoutMin = 15;
+
+	/**
+	 * Determines if metrics (e.g. cache statistics) are published. Metrics are published via Micrometer's
+	 * global registry in case Micrometer is on the classpath, via JMX otherwise. default: false
+	 */
+	private boolean metricsEnabled = false;
+
+	/** Requests to Keycloak taking longer than this threshold (in milliseconds) are logged. default: 0 (disabled) */
+	private long slowRequestThresholdMs = 0;
+
+	/**
+	 * Determines if identity queries and requests to Keycloak are traced via OpenTelemetry. Requires the
+	 * OpenTelemetry API on the classpath, uses the global OpenTelemetry instance. default: false
+	 */
+	private boolean tracingEnabled = false;
+
+	/**
+	 * Maximum number of concurrent requests to Keycloak when resolving a multi-ID query (e.g. userIdIn) by single
+	 * ID lookups, including the calling thread. 1 resolves all IDs sequentially. default: 8
+	 */
+	private int maxParallelRequestsPerQuery = 8;
+
+	/** Maximum duration in milliseconds for resolving all IDs of a multi-ID query. default: 30000 */
+	private long parallelRequestTimeoutMs = 30_000;
+
+	/**
+	 * Determines if outbound requests to Keycloak issued in parallel to the calling thread run on virtual threads.
+	 * Requires Java 21 or later, falls back to a bounded pool of platform threads otherwise. default: false
+	 */
+	private boolean virtualThreadsEnabled = false;
+
+	/**
+	 * Comma separated base URLs (scheme, host and port) of several Keycloak nodes. Requests to the hosts of
+	 * keycloakAdminUrl and keycloakIssuerUrl are then balanced across these nodes. default: null (disabled)
+	 */
+	private String keycloakNodeUrls;
+
+	/** Number of consecutive failures after which a Keycloak node is ejected from load balancing. default: 5 */
+	private int nodeEjectionConsecutiveFailures = 5;
+
+	/** Duration in milliseconds of the first ejection of a failing Keycloak node. default: 30000 */
+	private long nodeEjectionTimeMs = 30_000;
+
+	/**
+	 * Determines if slow GET requests to Keycloak are hedged, i.e. a second copy is sent and the first response
+	 * is used. default: false
+	 */
+	private boolean hedgingEnabled = false;
+
+	/** Percentile of the recent latencies of an endpoint after which a GET request is hedged. default: 95 */
+	private double hedgeDelayPercentile = 95;
+
+	/** Minimum delay in milliseconds before a GET request is hedged. default: 10 */
+	private long hedgeMinDelayMs = 10;
+
+	/** Maximum percentage of GET requests to send a hedged copy for. default: 5 */
+	private double hedgeBudgetPercent = 5;
+
+	/**
+	 * Maximum number of retries of an idempotent request to Keycloak failing with an I/O error or
+	 * HTTP 429, 502, 503 or 504. default: 0 (disabled)
+	 */
+	private int maxRetries = 0;
+
+	/** Maximum delay in milliseconds before the first retry, doubled for each further retry. default: 100 */
+	private long retryInitialBackoffMs = 100;
+
+	/** Upper limit of the delay in milliseconds before a retry. default: 2000 */
+	private long retryMaxBackoffMs = 2_000;
+
+	/** Maximum duration in milliseconds of a request to Keycloak including all retries. default: 10000 */
+	private long retryBudgetMs = 10_000;
+
+	/**
+	 * Determines if concurrent requests to Keycloak are limited adaptively, based on observed latencies
+	 * and overload responses. default: false
+	 */
+	private boolean concurrencyLimitEnabled = false;
+
+	/** Initial limit of concurrent requests to Keycloak. default: 20 */
+	private int concurrencyLimitInitial = 20;
+
+	/** Factor by which latencies may exceed their usual value before the limit is reduced. default: 2 */
+	private double concurrencyLimitLatencyTolerance = 2;
+
+	/** Maximum time in milliseconds a request waits for the concurrency limit before it is rejected. default: 1000 */
+	private long concurrencyLimitMaxWaitMs = 1_000;
+
+	/** Maximum number of requests waiting for the concurrency limit. default: 100 */
+	private int concurrencyLimitMaxQueueSize = 100;
 	
 	//-------------------------------------------------------------------------
 	// Getters / Setters
@@ -237,6 +356,48 @@ public class KeycloakConfiguration {
 		this.enforceSubgroupsInGroupQuery = enforceSubgroupsInGroupQuery;
 	}
 
+	/**
+	 * @return the loadSubgroupsViaChildrenEndpoint
+	 */
+	public boolean isLoadSubgroupsViaChildrenEndpoint() {
+		return loadSubgroupsViaChildrenEndpoint;
+	}
+
+	/**
+	 * @param loadSubgroupsViaChildrenEndpoint the loadSubgroupsViaChildrenEndpoint to set
+	 */
+	public void setLoadSubgroupsViaChildrenEndpoint(boolean loadSubgroupsViaChildrenEndpoint) {
+		this.loadSubgroupsViaChildrenEndpoint = loadSubgroupsViaChildrenEndpoint;
+	}
+
+	/**
+	 * @return the inheritParentGroupMembership
+	 */
+	public boolean isInheritParentGroupMembership() {
+		return inheritParentGroupMembership;
+	}
+
+	/**
+	 * @param inheritParentGroupMembership the inheritParentGroupMembership to set
+	 */
+	public void setInheritParentGroupMembership(boolean inheritParentGroupMembership) {
+		this.inheritParentGroupMembership = inheritParentGroupMembership;
+	}
+
+	/**
+	 * @return the searchGroupTypeViaAttributeQuery
+	 */
+	public boolean isSearchGroupTypeViaAttributeQuery() {
+		return searchGroupTypeViaAttributeQuery;
+	}
+
+	/**
+	 * @param searchGroupTypeViaAttributeQuery the searchGroupTypeViaAttributeQuery to set
+	 */
+	public void setSearchGroupTypeViaAttributeQuery(boolean searchGroupTypeViaAttributeQuery) {
+		this.searchGroupTypeViaAttributeQuery = searchGroupTypeViaAttributeQuery;
+	}
+
 	/**
 	 * @return the administratorGroupName
 	 */
@@ -429,6 +590,20 @@ public class KeycloakConfiguration {
 		this.cacheExpirationTimeoutMin = cacheExpirationTimeoutMin;
 	}
 
+	/**
+	 * @return the requestCoalescingEnabled
+	 */
+	public boolean isRequestCoalescingEnabled() {
+		return requestCoalescingEnabled;
+	}
+
+	/**
+	 * @param requestCoalescingEnabled the requestCoalescingEnabled to set
+	 */
+	public void setRequestCoalescingEnabled(boolean requestCoalescingEnabled) {
+		this.requestCoalescingEnabled = requestCoalescingEnabled;
+	}
+
 	/**
 	 * @return the loginCacheEnabled
 	 */
@@ -471,6 +646,314 @@ public class KeycloakConfiguration {
 		this.loginCacheExpirationTimeoutMin = loginCacheExpirationTimeoutMin;
 	}
 
+	/**
+	 * @return the metricsEnabled
+	 */
+	public boolean isMetricsEnabled() {
+		return metricsEnabled;
+	}
+
+	/**
+	 * @param metricsEnabled the metricsEnabled to set
+	 */
+	public void setMetricsEnabled(boolean metricsEnabled) {
+		this.metricsEnabled = metricsEnabled;
+	}
+
+	/**
+	 * @return the slowRequestThresholdMs
+	 */
+	public long getSlowRequestThresholdMs() {
+		return slowRequestThresholdMs;
+	}
+
+	/**
+	 * @param slowRequestThresholdMs the slowRequestThresholdMs to set
+	 */
+	public void setSlowRequestThresholdMs(long slowRequestThresholdMs) {
+		this.slowRequestThresholdMs = slowRequestThresholdMs;
+	}
+
+	/**
+	 * @return the tracingEnabled
+	 */
+	public boolean isTracingEnabled() {
+		return tracingEnabled;
+	}
+
+	/**
+	 * @param tracingEnabled the tracingEnabled to set
+	 */
+	public void setTracingEnabled(boolean tracingEnabled) {
+		this.tracingEnabled = tracingEnabled;
+	}
+
+	/**
+	 * @return the maxParallelRequestsPerQuery
+	 */
+	public int getMaxParallelRequestsPerQuery() {
+		return maxParallelRequestsPerQuery;
+	}
+
+	/**
+	 * @param maxParallelRequestsPerQuery the maxParallelRequestsPerQuery to set
+	 */
+	public void setMaxParallelRequestsPerQuery(int maxParallelRequestsPerQuery) {
+		this.maxParallelRequestsPerQuery = maxParallelRequestsPerQuery;
+	}
+
+	/**
+	 * @return the parallelRequestTimeoutMs
+	 */
+	public long getParallelRequestTimeoutMs() {
+		return parallelRequestTimeoutMs;
+	}
+
+	/**
+	 * @param parallelRequestTimeoutMs the parallelRequestTimeoutMs to set
+	 */
+	public void setParallelRequestTimeoutMs(long parallelRequestTimeoutMs) {
+		this.parallelRequestTimeoutMs = parallelRequestTimeoutMs;
+	}
+
+	/**
+	 * @return the virtualThreadsEnabled
+	 */
+	public boolean isVirtualThreadsEnabled() {
+		return virtualThreadsEnabled;
+	}
+
+	/**
+	 * @param virtualThreadsEnabled the virtualThreadsEnabled to set
+	 */
+	public void setVirtualThreadsEnabled(boolean virtualThreadsEnabled) {
+		this.virtualThreadsEnabled = virtualThreadsEnabled;
+	}
+
+	/**
+	 * @return the keycloakNodeUrls
+	 */
+	public String getKeycloakNodeUrls() {
+		return keycloakNodeUrls;
+	}
+
+	/**
+	 * @param keycloakNodeUrls the keycloakNodeUrls to set
+	 */
+	public void setKeycloakNodeUrls(String keycloakNodeUrls) {
+		this.keycloakNodeUrls = keycloakNodeUrls;
+	}
+
+	/**
+	 * @return the nodeEjectionConsecutiveFailures
+	 */
+	public int getNodeEjectionConsecutiveFailures() {
+		return nodeEjectionConsecutiveFailures;
+	}
+
+	/**
+	 * @param nodeEjectionConsecutiveFailures the nodeEjectionConsecutiveFailures to set
+	 */
+	public void setNodeEjectionConsecutiveFailures(int nodeEjectionConsecutiveFailures) {
+		this.nodeEjectionConsecutiveFailures = nodeEjectionConsecutiveFailures;
+	}
+
+	/**
+	 * @return the nodeEjectionTimeMs
+	 */
+	public long getNodeEjectionTimeMs() {
+		return nodeEjectionTimeMs;
+	}
+
+	/**
+	 * @param nodeEjectionTimeMs the nodeEjectionTimeMs to set
+	 */
+	public void setNodeEjectionTimeMs(long nodeEjectionTimeMs) {
+		this.nodeEjectionTimeMs = nodeEjectionTimeMs;
+	}
+
+	/**
+	 * @return the hedgingEnabled
+	 */
+	public boolean isHedgingEnabled() {
+		return hedgingEnabled;
+	}
+
+	/**
+	 * @param hedgingEnabled the hedgingEnabled to set
+	 */
+	public void setHedgingEnabled(boolean hedgingEnabled) {
+		this.hedgingEnabled = hedgingEnabled;
+	}
+
+	/**
+	 * @return the hedgeDelayPercentile
+	 */
+	public double getHedgeDelayPercentile() {
+		return hedgeDelayPercentile;
+	}
+
+	/**
+	 * @param hedgeDelayPercentile the hedgeDelayPercentile to set
+	 */
+	public void setHedgeDelayPercentile(double hedgeDelayPercentile) {
+		this.hedgeDelayPercentile = hedgeDelayPercentile;
+	}
+
+	/**
+	 * @return the hedgeMinDelayMs
+	 */
+	public long getHedgeMinDelayMs() {
+		return hedgeMinDelayMs;
+	}
+
+	/**
+	 * @param hedgeMinDelayMs the hedgeMinDelayMs to set
+	 */
+	public void setHedgeMinDelayMs(long hedgeMinDelayMs) {
+		this.hedgeMinDelayMs = hedgeMinDelayMs;
+	}
+
+	/**
+	 * @return the hedgeBudgetPercent
+	 */
+	public double getHedgeBudgetPercent() {
+		return hedgeBudgetPercent;
+	}
+
+	/**
+	 * @param hedgeBudgetPercent the hedgeBudgetPercent to set
+	 */
+	public void setHedgeBudgetPercent(double hedgeBudgetPercent) {
+		this.hedgeBudgetPercent = hedgeBudgetPercent;
+	}
+
+	/**
+	 * @return the maxRetries
+	 */
+	public int getMaxRetries() {
+		return maxRetries;
+	}
+
+	/**
+	 * @param maxRetries the maxRetries to set
+	 */
+	public void setMaxRetries(int maxRetries) {
+		this.maxRetries = maxRetries;
+	}
+
+	/**
+	 * @return the retryInitialBackoffMs
+	 */
+	public long getRetryInitialBackoffMs() {
+		return retryInitialBackoffMs;
+	}
+
+	/**
+	 * @param retryInitialBackoffMs the retryInitialBackoffMs to set
+	 */
+	public void setRetryInitialBackoffMs(long retryInitialBackoffMs) {
+		this.retryInitialBackoffMs = retryInitialBackoffMs;
+	}
+
+	/**
+	 * @return the retryMaxBackoffMs
+	 */
+	public long getRetryMaxBackoffMs() {
+		return retryMaxBackoffMs;
+	}
+
+	/**
+	 * @param retryMaxBackoffMs the retryMaxBackoffMs to set
+	 */
+	public void setRetryMaxBackoffMs(long retryMaxBackoffMs) {
+		this.retryMaxBackoffMs = retryMaxBackoffMs;
+	}
+
+	/**
+	 * @return the retryBudgetMs
+	 */
+	public long getRetryBudgetMs() {
+		return retryBudgetMs;
+	}
+
+	/**
+	 * @param retryBudgetMs the retryBudgetMs to set
+	 */
+	public void setRetryBudgetMs(long retryBudgetMs) {
+		this.retryBudgetMs = retryBudgetMs;
+	}
+
+	/**
+	 * @return the concurrencyLimitEnabled
+	 */
+	public boolean isConcurrencyLimitEnabled() {
+		return concurrencyLimitEnabled;
+	}
+
+	/**
+	 * @param concurrencyLimitEnabled the concurrencyLimitEnabled to set
+	 */
+	public void setConcurrencyLimitEnabled(boolean concurrencyLimitEnabled) {
+		this.concurrencyLimitEnabled = concurrencyLimitEnabled;
+	}
+
+	/**
+	 * @return the concurrencyLimitInitial
+	 */
+	public int getConcurrencyLimitInitial() {
+		return concurrencyLimitInitial;
+	}
+
+	/**
+	 * @param concurrencyLimitInitial the concurrencyLimitInitial to set
+	 */
+	public void setConcurrencyLimitInitial(int concurrencyLimitInitial) {
+		this.concurrencyLimitInitial = concurrencyLimitInitial;
+	}
+
+	/**
+	 * @return the concurrencyLimitLatencyTolerance
+	 */
+	public double getConcurrencyLimitLatencyTolerance() {
+		return concurrencyLimitLatencyTolerance;
+	}
+
+	/**
+	 * @param concurrencyLimitLatencyTolerance the concurrencyLimitLatencyTolerance to set
+	 */
+	public void setConcurrencyLimitLatencyTolerance(double concurrencyLimitLatencyTolerance) {
+		this.concurrencyLimitLatencyTolerance = concurrencyLimitLatencyTolerance;
+	}
+
+	/**
+	 * @return the concurrencyLimitMaxWaitMs
+	 */
+	public long getConcurrencyLimitMaxWaitMs() {
+		return concurrencyLimitMaxWaitMs;
+	}
+
+	/**
+	 * @param concurrencyLimitMaxWaitMs the concurrencyLimitMaxWaitMs to set
+	 */
+	public void setConcurrencyLimitMaxWaitMs(long concurrencyLimitMaxWaitMs) {
+		this.concurrencyLimitMaxWaitMs = concurrencyLimitMaxWaitMs;
+	}
+
+	/**
+	 * @return the concurrencyLimitMaxQueueSize
+	 */
+	public int getConcurrencyLimitMaxQueueSize() {
+		return concurrencyLimitMaxQueueSize;
+	}
+
+	/**
+	 * @param concurrencyLimitMaxQueueSize the concurrencyLimitMaxQueueSize to set
+	 */
+	public void setConcurrencyLimitMaxQueueSize(int concurrencyLimitMaxQueueSize) {
+		this.concurrencyLimitMaxQueueSize = concurrencyLimitMaxQueueSize;
+	}
+
 	//-------------------------------------------------------------------------
 	// Helpers
 	//-------------------------------------------------------------------------
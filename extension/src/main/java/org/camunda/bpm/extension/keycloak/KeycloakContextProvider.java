@@ -2,6 +2,8 @@ package org.camunda.bpm.extension.keycloak;
 
 import static org.camunda.bpm.extension.keycloak.json.JsonUtil.*;
 
+import java.util.concurrent.locks.ReentrantLock;
+
 import org.camunda.bpm.engine.impl.identity.IdentityProviderException;
 import org.camunda.bpm.extension.keycloak.json.JsonException;
 import org.camunda.bpm.extension.keycloak.rest.KeycloakRestTemplate;
@@ -27,7 +29,13 @@ public class KeycloakContextProvider {
 	protected KeycloakConfiguration keycloakConfiguration;
 	protected KeycloakRestTemplate restTemplate;
 
-	protected KeycloakContext context;
+	protected volatile KeycloakContext context;
+
+	/**
+	 * Guards requesting and refreshing the access token so that concurrent callers share a single token request.
+	 * A lock instead of {@code synchronized} does not pin virtual threads while waiting on Keycloak.
+	 */
+	private final ReentrantLock tokenLock = new ReentrantLock();
 	
 	/**
 	 * Creates a new Keycloak context provider
@@ -79,15 +87,16 @@ public class KeycloakContextProvider {
 
 	/**
 	 * Refreshs an access token for the configured Keycloak client.
+	 * @param currentRefreshToken the refresh token of the current context
 	 * @return the refreshed Keycloak context holding the access token
 	 */
-	private KeycloakContext refreshToken() {
+	private KeycloakContext refreshToken(String currentRefreshToken) {
 		HttpHeaders headers = new HttpHeaders();
 		headers.add(HttpHeaders.CONTENT_TYPE, ContentType.APPLICATION_FORM_URLENCODED + ";charset=" + keycloakConfiguration.getCharset());
 		HttpEntity<String> request = new HttpEntity<String>(
 	    		"client_id=" + keycloakConfiguration.getClientId()
 	    		+ "&client_secret=" + keycloakConfiguration.getClientSecret()
-	    		+ "&refresh_token=" + context.getRefreshToken()
+	    		+ "&refresh_token=" + currentRefreshToken
 	    		+ "&grant_type=refresh_token",
 				headers);
 
@@ -120,21 +129,40 @@ public class KeycloakContextProvider {
 	 * @return request entity with authorization header / access token set
 	 */
 	public HttpEntity<String> createApiRequestEntity() {
-		if (context == null) {
-			context = openAuthorizationContext();
-		} else if (context.needsRefresh()) {
-			if (context.getRefreshToken() == null) {
-				LOG.missingRefreshToken();
-				context = openAuthorizationContext();
-			} else {
-				try {
-					context = refreshToken();
-				} catch (IdentityProviderException ipe) {
-					context = openAuthorizationContext();
+		KeycloakContext current = context;
+		if (current == null || current.needsRefresh()) {
+			current = acquireContext();
+		}
+		return current.createHttpRequestEntity();
+	}
+
+	/**
+	 * Requests or refreshes the access token unless another thread did so meanwhile.
+	 * @return a valid Keycloak context
+	 */
+	private KeycloakContext acquireContext() {
+		tokenLock.lock();
+		try {
+			KeycloakContext current = context;
+			if (current == null) {
+				current = openAuthorizationContext();
+			} else if (current.needsRefresh()) {
+				if (current.getRefreshToken() == null) {
+					LOG.missingRefreshToken();
+					current = openAuthorizationContext();
+				} else {
+					try {
+						current = refreshToken(current.getRefreshToken());
+					} catch (IdentityProviderException ipe) {
+						current = openAuthorizationContext();
+					}
 				}
 			}
+			context = current;
+			return current;
+		} finally {
+			tokenLock.unlock();
 		}
-		return context.createHttpRequestEntity();
 	}
 
 	/**
@@ -0,0 +1,103 @@
+package org.camunda.bpm.extension.keycloak;
+
+import java.util.Objects;
+
+import org.camunda.bpm.engine.identity.Group;
+
+/**
+ * Immutable group as read from Keycloak. Instances are cached and shared between all callers without copying,
+ * the setters of the {@link Group} interface therefore throw an {@link UnsupportedOperationException}.
+ */
+public final class KeycloakGroup implements Group {
+
+	private static final long serialVersionUID = 1L;
+
+	private final String id;
+	private final String name;
+	private final String type;
+
+	/**
+	 * Creates a new group. The name is shared with other groups of the same name, e.g. in other branches of the
+	 * group tree.
+	 * @param id the group ID
+	 * @param name the name
+	 * @param type the type, one of the constants of {@link org.camunda.bpm.engine.authorization.Groups}
+	 */
+	public KeycloakGroup(String id, String name, String type) {
+		this.id = id;
+		this.name = SharedStrings.intern(name);
+		this.type = type;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String getId() {
+		return id;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String getType() {
+		return type;
+	}
+
+	/**
+	 * Not supported, groups are read-only.
+	 */
+	@Override
+	public void setId(String id) {
+		throw readOnly();
+	}
+
+	/**
+	 * Not supported, groups are read-only.
+	 */
+	@Override
+	public void setName(String name) {
+		throw readOnly();
+	}
+
+	/**
+	 * Not supported, groups are read-only.
+	 */
+	@Override
+	public void setType(String type) {
+		throw readOnly();
+	}
+
+	private UnsupportedOperationException readOnly() {
+		return new UnsupportedOperationException("Groups read from Keycloak are read-only: " + id);
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) return true;
+		if (o == null || getClass() != o.getClass()) return false;
+		KeycloakGroup that = (KeycloakGroup) o;
+		return Objects.equals(id, that.id) &&
+						Objects.equals(name, that.name) &&
+						Objects.equals(type, that.type);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(id, name, type);
+	}
+
+	@Override
+	public String toString() {
+		return "KeycloakGroup[id=" + id + ", name=" + name + ", type=" + type + "]";
+	}
+}
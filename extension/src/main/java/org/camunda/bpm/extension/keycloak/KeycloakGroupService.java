@@ -4,12 +4,15 @@ import static org.camunda.bpm.engine.authorization.Permissions.READ;
 import static org.camunda.bpm.engine.authorization.Resources.GROUP;
 import static org.camunda.bpm.extension.keycloak.json.JsonUtil.*;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.Map;
 
 import org.camunda.bpm.engine.authorization.Groups;
 import org.camunda.bpm.engine.identity.Group;
@@ -17,7 +20,6 @@ import org.camunda.bpm.engine.impl.Direction;
 import org.camunda.bpm.engine.impl.GroupQueryProperty;
 import org.camunda.bpm.engine.impl.QueryOrderingProperty;
 import org.camunda.bpm.engine.impl.identity.IdentityProviderException;
-import org.camunda.bpm.engine.impl.persistence.entity.GroupEntity;
 import org.camunda.bpm.extension.keycloak.json.JsonException;
 import org.camunda.bpm.extension.keycloak.rest.KeycloakRestTemplate;
 import org.camunda.bpm.extension.keycloak.util.KeycloakPluginLogger;
@@ -29,6 +31,7 @@ import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestClientException;
 
 import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 
 /**
@@ -36,6 +39,11 @@ import com.google.gson.JsonObject;
  */
 public class KeycloakGroupService extends KeycloakServiceBase {
 
+	/** Values of the type attribute of SYSTEM groups in case the type is searched via attribute query. */
+	private static final List<String> SYSTEM_TYPE_VALUES = List.of(Groups.GROUP_TYPE_SYSTEM, Groups.GROUP_TYPE_SYSTEM.toLowerCase());
+
+	protected SubgroupVisibility subgroupVisibility;
+
 	/**
 	 * Default constructor.
 	 * 
@@ -45,7 +53,22 @@ public class KeycloakGroupService extends KeycloakServiceBase {
 	 */
 	public KeycloakGroupService(KeycloakConfiguration keycloakConfiguration,
 			KeycloakRestTemplate restTemplate, KeycloakContextProvider keycloakContextProvider) {
+		this(keycloakConfiguration, restTemplate, keycloakContextProvider, new SubgroupVisibility());
+	}
+
+	/**
+	 * Creates a new group service.
+	 * 
+	 * @param keycloakConfiguration the Keycloak configuration
+	 * @param restTemplate REST template
+	 * @param keycloakContextProvider Keycloak context provider
+	 * @param subgroupVisibility records whether the unfiltered group query returns all subgroups
+	 */
+	public KeycloakGroupService(KeycloakConfiguration keycloakConfiguration,
+			KeycloakRestTemplate restTemplate, KeycloakContextProvider keycloakContextProvider,
+			SubgroupVisibility subgroupVisibility) {
 		super(keycloakConfiguration, restTemplate, keycloakContextProvider);
+		this.subgroupVisibility = subgroupVisibility;
 	}
 
 	/**
@@ -106,11 +129,12 @@ public class KeycloakGroupService extends KeycloakServiceBase {
 	/**
 	 * Requests groups of a specific user.
 	 * @param query the group query - including a userId criteria
-	 * @return list of matching groups
+	 * @return list of matching groups, a {@link KeycloakResult} unless the user does not exist
 	 */
 	public List<Group> requestGroupsByUserId(CacheableKeycloakGroupQuery query) {
 		String userId = query.getUserId();
 		List<Group> groupList = new ArrayList<>();
+		boolean truncated;
 
 		try {
 			//  get Keycloak specific userID
@@ -133,6 +157,7 @@ public class KeycloakGroupService extends KeycloakServiceBase {
 			}
 
 			JsonArray searchResult = parseAsJsonArray(response.getBody());
+			truncated = isTruncated(searchResult);
 			for (int i = 0; i < searchResult.size(); i++) {
 				groupList.add(transformGroup(getJsonObjectAtIndex(searchResult, i)));
 			}
@@ -147,16 +172,20 @@ public class KeycloakGroupService extends KeycloakServiceBase {
 			throw new IdentityProviderException("Unable to query groups of user " + userId, rce);
 		}
 
-		return groupList;
+		return new KeycloakResult<>(groupList, truncated);
 	}
 	
 	/**
 	 * Requests groups.
 	 * @param query the group query - not including a userId criteria
-	 * @return list of matching groups
+	 * @return list of matching groups as {@link KeycloakResult}
 	 */
 	public List<Group> requestGroupsWithoutUserId(CacheableKeycloakGroupQuery query) {
+		if (query.getSearch() == null && query.getType() != null) {
+			return requestSystemGroups(query);
+		}
 		List<Group> groupList = new ArrayList<>();
+		boolean truncated;
 
 		try {
 			// get groups according to search criteria
@@ -164,8 +193,6 @@ public class KeycloakGroupService extends KeycloakServiceBase {
 
 			if (StringUtils.hasLength(query.getId())) {
 				response = requestGroupById(query.getId());
-			} else if (query.getIds() != null && query.getIds().length == 1) {
-				response = requestGroupById(query.getIds()[0]);
 			} else {
 				String groupFilter = createGroupSearchFilter(query); // only pre-filter of names possible
 				response = restTemplate.exchange(keycloakConfiguration.getKeycloakAdminUrl() + "/groups" + groupFilter, HttpMethod.GET, String.class);
@@ -176,22 +203,155 @@ public class KeycloakGroupService extends KeycloakServiceBase {
 								+ ": HTTP status code " + response.getStatusCodeValue());
 			}
 
-			JsonArray searchResult;
 			if (StringUtils.hasLength(query.getId())) {
-				searchResult = parseAsJsonArray(response.getBody());
+				JsonArray searchResult = parseAsJsonArray(response.getBody());
+				truncated = false;
+				for (int i = 0; i < searchResult.size(); i++) {
+					groupList.add(transformGroup(getJsonObjectAtIndex(searchResult, i)));
+				}
 			} else {
 				// for non ID queries search in subgroups as well
-				searchResult = flattenSubGroups(parseAsJsonArray(response.getBody()), new JsonArray());
-			}
-			for (int i = 0; i < searchResult.size(); i++) {
-				groupList.add(transformGroup(getJsonObjectAtIndex(searchResult, i)));
+				JsonArray groups = parseAsJsonArray(response.getBody());
+				// maxResultSize limits the top level groups only
+				truncated = isTruncated(groups);
+				if (query.getSearch() == null && query.getType() == null) {
+					subgroupVisibility.record(containsAllSubgroups(groups));
+				}
+				groupList.addAll(transformGroupTree(groups));
 			}
 
 		} catch (RestClientException | JsonException rce) {
 			throw new IdentityProviderException("Unable to query groups", rce);
 		}
 
-		return groupList;
+		return new KeycloakResult<>(groupList, truncated);
+	}
+
+	/**
+	 * Requests the SYSTEM groups via attribute search. Keycloak matches attribute values exactly, hence each value
+	 * accepted by {@link #isSystemGroup(JsonObject)} is searched for, as well as the administrator groups, which are
+	 * SYSTEM groups by name. The results include the parents of the matching groups.
+	 * @param query the group query filtered by type
+	 * @return the merged results as {@link KeycloakResult}
+	 */
+	private List<Group> requestSystemGroups(CacheableKeycloakGroupQuery query) {
+		List<String> filters = new ArrayList<>();
+		for (String type : SYSTEM_TYPE_VALUES) {
+			filters.add(createGroupSearchFilter(null, false, type));
+		}
+		filters.add(createGroupSearchFilter(Groups.CAMUNDA_ADMIN, true, query.getType()));
+		String administratorGroupName = keycloakConfiguration.getAdministratorGroupName();
+		if (StringUtils.hasLength(administratorGroupName) && !Groups.CAMUNDA_ADMIN.equals(administratorGroupName)) {
+			filters.add(createGroupSearchFilter(administratorGroupName, true, query.getType()));
+		}
+
+		Map<String, Group> groups = new LinkedHashMap<>();
+		boolean truncated = false;
+		try {
+			for (String filter : filters) {
+				ResponseEntity<String> response = restTemplate.exchange(keycloakConfiguration.getKeycloakAdminUrl() + "/groups" + filter, HttpMethod.GET, String.class);
+				if (!response.getStatusCode().equals(HttpStatus.OK)) {
+					throw new IdentityProviderException(
+							"Unable to read groups from " + keycloakConfiguration.getKeycloakAdminUrl()
+									+ ": HTTP status code " + response.getStatusCodeValue());
+				}
+				JsonArray result = parseAsJsonArray(response.getBody());
+				truncated |= isTruncated(result);
+				for (Group group : transformGroupTree(result)) {
+					groups.putIfAbsent(group.getId(), group);
+				}
+			}
+		} catch (RestClientException | JsonException rce) {
+			throw new IdentityProviderException("Unable to query groups", rce);
+		}
+
+		return new KeycloakResult<>(new ArrayList<>(groups.values()), truncated);
+	}
+
+	/**
+	 * Requests the group tree and builds its transitive closure.
+	 * @return the ancestors of all nested groups
+	 */
+	public GroupHierarchy requestGroupHierarchy() {
+		try {
+			// same request as the unfiltered group query: includes subgroups for Keycloak >= 23 if enforced
+			ResponseEntity<String> response = restTemplate.exchange(keycloakConfiguration.getKeycloakAdminUrl() + "/groups"
+					+ createGroupSearchFilter(CacheableKeycloakGroupQuery.ofAll()), HttpMethod.GET, String.class);
+			if (!response.getStatusCode().equals(HttpStatus.OK)) {
+				throw new IdentityProviderException(
+						"Unable to read groups from " + keycloakConfiguration.getKeycloakAdminUrl()
+								+ ": HTTP status code " + response.getStatusCodeValue());
+			}
+			return new GroupHierarchy(collectAncestors(parseAsJsonArray(response.getBody())));
+		} catch (RestClientException | JsonException rce) {
+			throw new IdentityProviderException("Unable to query group hierarchy", rce);
+		}
+	}
+
+	/**
+	 * Requests a page of the top level groups or of the direct children of a group, without their subgroups.
+	 * Children are requested via {@code /groups/{id}/children}, available as of Keycloak 23.
+	 * @param parentId the Keycloak internal ID of the parent group, {@code null} for the top level groups
+	 * @param first the index of the first group of the page
+	 * @param max the page size
+	 * @return the groups of the page, empty in case the parent group does not exist (anymore)
+	 */
+	public JsonArray requestGroupLevel(String parentId, int first, int max) {
+		String path = parentId == null ? "/groups" : "/groups/" + parentId + "/children";
+		StringBuilder filter = new StringBuilder();
+		addArgument(filter, "first", Integer.toString(first));
+		addArgument(filter, "max", Integer.toString(max));
+		try {
+			ResponseEntity<String> response = restTemplate.exchange(
+					keycloakConfiguration.getKeycloakAdminUrl() + path + "?" + filter, HttpMethod.GET, String.class);
+			if (!response.getStatusCode().equals(HttpStatus.OK)) {
+				throw new IdentityProviderException(
+						"Unable to read groups from " + keycloakConfiguration.getKeycloakAdminUrl()
+								+ ": HTTP status code " + response.getStatusCodeValue());
+			}
+			return parseAsJsonArray(response.getBody());
+		} catch (HttpClientErrorException hcee) {
+			// if the parent group is unknown server answers with HTTP 404 not found
+			if (hcee.getStatusCode().equals(HttpStatus.NOT_FOUND)) {
+				return new JsonArray();
+			}
+			throw hcee;
+		} catch (RestClientException | JsonException rce) {
+			throw new IdentityProviderException("Unable to query subgroups of group " + parentId, rce);
+		}
+	}
+
+	/**
+	 * Collects the ancestors of all groups of a hierarchy.
+	 * @param groups the top level groups of the hierarchy
+	 * @return the ancestors of each nested group, parent first
+	 * @throws JsonException in case of errors
+	 */
+	Map<String, List<Group>> collectAncestors(JsonArray groups) throws JsonException {
+		Map<String, List<Group>> ancestors = new HashMap<>();
+		// path.get(i) is the current group at depth i, parents.get(i) the ancestors of its children once requested
+		List<Group> path = new ArrayList<>();
+		List<List<Group>> parents = new ArrayList<>();
+		walkGroupTree(groups, (json, depth) -> {
+			KeycloakGroup group = transformGroup(json);
+			path.subList(depth, path.size()).clear();
+			parents.subList(depth, parents.size()).clear();
+			if (depth > 0) {
+				List<Group> groupParents = parents.get(depth - 1);
+				if (groupParents == null) {
+					// shared by all children
+					List<Group> childParents = new ArrayList<>(depth);
+					childParents.add(path.get(depth - 1));
+					childParents.addAll(depth > 1 ? parents.get(depth - 2) : Collections.emptyList());
+					groupParents = Collections.unmodifiableList(childParents);
+					parents.set(depth - 1, groupParents);
+				}
+				ancestors.put(group.getId(), groupParents);
+			}
+			path.add(group);
+			parents.add(null);
+		});
+		return ancestors;
 	}
 
 	/**
@@ -202,38 +362,36 @@ public class KeycloakGroupService extends KeycloakServiceBase {
 	 * @return final result with client side filtered, sorted and paginated list of groups
 	 */
 	public List<Group> postProcessResults(KeycloakGroupQuery query, List<Group> groupList, StringBuilder resultLogger) {
-		// apply client side filtering
-		Stream<Group> processed = groupList.stream().filter(group -> isValid(query, group, resultLogger));
-		
-		// sort groups according to query criteria
-		if (query.getOrderingProperties().size() > 0) {
-			processed = processed.sorted(new GroupComparator(query.getOrderingProperties()));
-		}
-
-		// paging
-		if ((query.getFirstResult() > 0) || (query.getMaxResults() < Integer.MAX_VALUE)) {
-			processed = processed.skip(query.getFirstResult()).limit(query.getMaxResults());
-		}
-
+		Comparator<Group> order = query.getOrderingProperties().isEmpty() ? null : new GroupComparator(query.getOrderingProperties());
 		// group queries in Keycloak do not consider the max attribute within the search request
-		return processed.limit(keycloakConfiguration.getMaxResultSize()).collect(Collectors.toList());
+		return filterSortAndPage(groupList, group -> matches(query, group), group -> isReadable(query, group, resultLogger),
+				order, query.getFirstResult(), Math.min(query.getMaxResults(), keycloakConfiguration.getMaxResultSize()));
 	}
 
 	/**
-	 * Post processing query filter. Checks if a single group is valid.
+	 * Post processing query filter. Checks if a single group matches the query criteria.
 	 * @param query the original query
 	 * @param group the group to validate
-	 * @param resultLogger the log accumulator
-	 * @return a boolean indicating if the group is valid for current query
+	 * @return a boolean indicating if the group matches the current query
 	 */
-	private boolean isValid(KeycloakGroupQuery query, Group group, StringBuilder resultLogger) {
+	private boolean matches(KeycloakGroupQuery query, Group group) {
 		// client side check of further query filters
 		if (!matches(query.getId(), group.getId())) return false;
 		if (!matches(query.getIds(), group.getId())) return false;
 		if (!matches(query.getName(), group.getName())) return false;
 		if (!matchesLike(query.getNameLike(), group.getName())) return false;
 		if (!matches(query.getType(), group.getType())) return false;
+		return true;
+	}
 
+	/**
+	 * Post processing authorization check. Checks if a single group may be read.
+	 * @param query the original query
+	 * @param group the group to validate
+	 * @param resultLogger the log accumulator
+	 * @return a boolean indicating if the group is visible to the current user
+	 */
+	private boolean isReadable(KeycloakGroupQuery query, Group group, StringBuilder resultLogger) {
 		// authenticated user is always allowed to query his own groups
 		// otherwise READ authentication is required
 		boolean isAuthenticatedUser = isAuthenticatedUser(query.getUserId());
@@ -254,18 +412,35 @@ public class KeycloakGroupService extends KeycloakServiceBase {
 	 * @return request query
 	 */
 	private String createGroupSearchFilter(CacheableKeycloakGroupQuery query) {
+		return createGroupSearchFilter(query.getSearch(), false, query.getType());
+	}
+
+	/**
+	 * Creates an Keycloak group search filter query
+	 * @param search the search term or {@code null}
+	 * @param exact whether the name must match the search term exactly
+	 * @param type the value of the type attribute to search for in case there is no search term or {@code null}
+	 * @return request query
+	 */
+	private String createGroupSearchFilter(String search, boolean exact, String type) {
 		StringBuilder filter = new StringBuilder();
 		boolean hasSearch = false;
-		if (StringUtils.hasLength(query.getName())) {
+		if (search != null) {
 			hasSearch = true;
-			addArgument(filter, "search", query.getName());
-		}
-		if (StringUtils.hasLength(query.getNameLike())) {
-			hasSearch = true;
-			addArgument(filter, "search", query.getNameLike().replaceAll("[%,\\*]", ""));
+			addArgument(filter, "search", search);
+			if (exact) {
+				addArgument(filter, "exact", "true");
+			}
 		}
 		addArgument(filter, "max", getMaxQueryResultSize());
-		if (!hasSearch && keycloakConfiguration.isEnforceSubgroupsInGroupQuery()) {
+		if (type != null) {
+			// the brief representation lacks the attributes, which are required to verify the type of each group
+			addArgument(filter, "briefRepresentation", "false");
+		}
+		if (!hasSearch && type != null) {
+			// attribute search, includes matching subgroups along with their parents
+			addArgument(filter, "q", "type:" + type);
+		} else if (!hasSearch && keycloakConfiguration.isEnforceSubgroupsInGroupQuery()) {
 			// fix: include subgroups in query result for Keycloak >= 23
 			addArgument(filter, "q", ":");
 		}
@@ -280,28 +455,103 @@ public class KeycloakGroupService extends KeycloakServiceBase {
 
 	/**
 	 * Converts a result consisting of a potential hierarchy of groups into a flattened list of groups.
+	 * The original hierarchy is left unchanged, i.e. the groups of the result still contain their subgroups.
 	 * @param groups the original structured hierarchy of groups
-	 * @param result recursive result
-	 * @return flattened list of all groups in this hierarchy
+	 * @param result the result to add the groups to
+	 * @return flattened list of all groups in this hierarchy, each group followed by its subgroups
 	 * @throws JsonException in case of errors
 	 */
-	private JsonArray flattenSubGroups(JsonArray groups, JsonArray result) throws JsonException {
+	protected JsonArray flattenSubGroups(JsonArray groups, JsonArray result) throws JsonException {
 		if (groups == null) return result;
-	    for (int i = 0; i < groups.size(); i++) {
-	    	JsonObject group = getJsonObjectAtIndex(groups, i);
-	    	JsonArray subGroups;
-			try {
-				subGroups = getJsonArray(group, "subGroups");
-		    	group.remove("subGroups");
-		    	result.add(group);
-		    	flattenSubGroups(subGroups, result);
-			} catch (JsonException e) {
-				result.add(group);
+		walkGroupTree(groups, (group, depth) -> result.add(group));
+		return result;
+	}
+
+	/**
+	 * Transforms a result consisting of a potential hierarchy of groups into a flattened list of groups
+	 * without copying the JSON groups.
+	 * @param groups the original structured hierarchy of groups
+	 * @return flattened list of all groups in this hierarchy, each group followed by its subgroups
+	 * @throws JsonException in case of errors
+	 */
+	protected List<Group> transformGroupTree(JsonArray groups) throws JsonException {
+		List<Group> result = new ArrayList<>(groups.size());
+		walkGroupTree(groups, (group, depth) -> result.add(transformGroup(group)));
+		return result;
+	}
+
+	/**
+	 * Checks whether a group hierarchy contains the subgroups of all its groups. Keycloak 23 and later returns
+	 * the number of subgroups of each group, older versions always contain all subgroups.
+	 * @param groups the top level groups
+	 * @return {@code false} in case a group has more subgroups than contained in the hierarchy
+	 * @throws JsonException in case of errors
+	 */
+	protected boolean containsAllSubgroups(JsonArray groups) throws JsonException {
+		boolean[] complete = { true };
+		walkGroupTree(groups, (group, depth) -> {
+			JsonElement subGroupCount = group.get("subGroupCount");
+			JsonElement subGroups = group.get("subGroups");
+			int contained = subGroups != null && subGroups.isJsonArray() ? subGroups.getAsJsonArray().size() : 0;
+			if (subGroupCount != null && subGroupCount.isJsonPrimitive() && subGroupCount.getAsInt() > contained) {
+				complete[0] = false;
 			}
-	    }
-	    return result;
+		});
+		return complete[0];
 	}
-	
+
+	/**
+	 * Visits all groups of a hierarchy depth first, each group before its subgroups. Iterates with an explicit
+	 * stack holding one entry per level, hence arbitrarily deep hierarchies do not grow the call stack.
+	 * @param groups the top level groups
+	 * @param visitor the visitor of each group
+	 * @throws JsonException in case of errors
+	 */
+	private static void walkGroupTree(JsonArray groups, GroupVisitor visitor) throws JsonException {
+		Deque<Level> stack = new ArrayDeque<>();
+		stack.push(new Level(groups));
+		while (!stack.isEmpty()) {
+			Level level = stack.peek();
+			if (level.next == level.groups.size()) {
+				stack.pop();
+				continue;
+			}
+			JsonObject group = getJsonObjectAtIndex(level.groups, level.next++);
+			visitor.visit(group, stack.size() - 1);
+			JsonElement subGroups = group.get("subGroups");
+			if (subGroups != null && subGroups.isJsonArray() && subGroups.getAsJsonArray().size() > 0) {
+				stack.push(new Level(subGroups.getAsJsonArray()));
+			}
+		}
+	}
+
+	/**
+	 * Visitor of the groups of a hierarchy.
+	 */
+	@FunctionalInterface
+	private interface GroupVisitor {
+
+		/**
+		 * @param group the JSON group
+		 * @param depth the depth of the group, {@code 0} for top level groups
+		 * @throws JsonException in case of errors
+		 */
+		void visit(JsonObject group, int depth) throws JsonException;
+	}
+
+	/**
+	 * A level of a hierarchy being visited.
+	 */
+	private static final class Level {
+
+		final JsonArray groups;
+		int next;
+
+		Level(JsonArray groups) {
+			this.groups = groups;
+		}
+	}
+
 	/**
 	 * Requests data of single group.
 	 * @param groupId the ID of the requested group
@@ -336,20 +586,15 @@ public class KeycloakGroupService extends KeycloakServiceBase {
 	 * @return the Group object
 	 * @throws JsonException in case of errors
 	 */
-	private GroupEntity transformGroup(JsonObject result) throws JsonException {
-		GroupEntity group = new GroupEntity();
+	protected KeycloakGroup transformGroup(JsonObject result) throws JsonException {
+		String id;
 		if (keycloakConfiguration.isUseGroupPathAsCamundaGroupId()) {
-			group.setId(getJsonString(result, "path").substring(1)); // remove trailing '/'
-		} else {
-			group.setId(getJsonString(result, "id"));
-		}
-		group.setName(getJsonString(result, "name"));
-		if (isSystemGroup(result)) {
-			group.setType(Groups.GROUP_TYPE_SYSTEM);
+			id = getJsonString(result, "path").substring(1); // remove trailing '/'
 		} else {
-			group.setType(Groups.GROUP_TYPE_WORKFLOW);
+			id = getJsonString(result, "id");
 		}
-		return group;
+		return new KeycloakGroup(id, getJsonString(result, "name"),
+				isSystemGroup(result) ? Groups.GROUP_TYPE_SYSTEM : Groups.GROUP_TYPE_WORKFLOW);
 	}
 
 	/**
@@ -367,7 +612,9 @@ public class KeycloakGroupService extends KeycloakServiceBase {
 		try {
 			JsonArray types = getJsonArray(getJsonObject(result, "attributes"), "type");
 			for (int i = 0; i < types.size(); i++) {
-				if (Groups.GROUP_TYPE_SYSTEM.equals(getJsonStringAtIndex(types, i).toUpperCase())) {
+				String type = getJsonStringAtIndex(types, i);
+				if (keycloakConfiguration.isSearchGroupTypeViaAttributeQuery()
+						? SYSTEM_TYPE_VALUES.contains(type) : Groups.GROUP_TYPE_SYSTEM.equals(type.toUpperCase())) {
 					return true;
 				}
 			}
@@ -380,7 +627,7 @@ public class KeycloakGroupService extends KeycloakServiceBase {
 	/**
 	 * Helper for client side group ordering.
 	 */
-	private static class GroupComparator implements Comparator<Group> {
+	static class GroupComparator implements Comparator<Group> {
 		private final static int GROUP_ID = 0;
 		private final static int NAME = 1;
 		private final static int TYPE = 2;
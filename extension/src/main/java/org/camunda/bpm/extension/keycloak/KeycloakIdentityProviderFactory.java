@@ -11,6 +11,7 @@ import org.apache.hc.client5.http.ssl.SSLConnectionSocketFactory;
 import org.apache.hc.client5.http.ssl.TrustAllStrategy;
 import org.apache.hc.core5.http.HttpHost;
 import org.apache.hc.core5.ssl.SSLContextBuilder;
+import org.camunda.bpm.engine.ProcessEngines;
 import org.camunda.bpm.engine.identity.Group;
 import org.camunda.bpm.engine.identity.User;
 import org.camunda.bpm.engine.impl.identity.IdentityProviderException;
@@ -19,8 +20,22 @@ import org.camunda.bpm.engine.impl.interceptor.Session;
 import org.camunda.bpm.engine.impl.interceptor.SessionFactory;
 import org.camunda.bpm.extension.keycloak.cache.CacheConfiguration;
 import org.camunda.bpm.extension.keycloak.cache.CacheFactory;
+import org.camunda.bpm.extension.keycloak.cache.CacheStatistics;
 import org.camunda.bpm.extension.keycloak.cache.QueryCache;
+import org.camunda.bpm.extension.keycloak.concurrent.KeycloakExecutors;
+import org.camunda.bpm.extension.keycloak.concurrent.ParallelFetcher;
+import org.camunda.bpm.extension.keycloak.metrics.KeycloakMetrics;
+import org.camunda.bpm.extension.keycloak.metrics.MetricsFactory;
+import org.camunda.bpm.extension.keycloak.rest.CancellableRequestFactory;
+import org.camunda.bpm.extension.keycloak.rest.ConcurrencyLimitingInterceptor;
+import org.camunda.bpm.extension.keycloak.rest.HedgingInterceptor;
+import org.camunda.bpm.extension.keycloak.rest.KeycloakLoadBalancer;
 import org.camunda.bpm.extension.keycloak.rest.KeycloakRestTemplate;
+import org.camunda.bpm.extension.keycloak.rest.LoadBalancingInterceptor;
+import org.camunda.bpm.extension.keycloak.rest.RequestMetricsInterceptor;
+import org.camunda.bpm.extension.keycloak.rest.RetryPolicy;
+import org.camunda.bpm.extension.keycloak.tracing.KeycloakTracing;
+import org.camunda.bpm.extension.keycloak.tracing.TracingFactory;
 import org.springframework.http.client.ClientHttpRequestInterceptor;
 import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.http.converter.StringHttpMessageConverter;
@@ -33,7 +48,10 @@ import java.io.IOException;
 import java.net.URI;
 import java.nio.charset.Charset;
 import java.security.GeneralSecurityException;
+import java.time.Duration;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
 
 /**
  * Keycloak Identity Provider Session Factory.
@@ -46,30 +64,93 @@ public class KeycloakIdentityProviderFactory implements SessionFactory {
 	protected QueryCache<CacheableKeycloakUserQuery, List<User>> userQueryCache;
 	protected QueryCache<CacheableKeycloakGroupQuery, List<Group>> groupQueryCache;
 	protected QueryCache<CacheableKeycloakCheckPasswordCall, Boolean> checkPasswordCache;
+	protected QueryCache<CacheableKeycloakGroupQuery, GroupHierarchy> groupHierarchyCache;
+
+	protected KeycloakMetrics metrics;
+	protected KeycloakTracing tracing;
+	protected ParallelFetcher parallelFetcher;
+	protected GroupTreeLoader groupTreeLoader;
+	protected MembershipIndex membershipIndex;
+	protected SubgroupVisibility subgroupVisibility = new SubgroupVisibility();
+	protected KeycloakLoadBalancer loadBalancer;
+	protected ExecutorService executor;
+	protected ExecutorService hedgeExecutor;
+	protected ScheduledExecutorService scheduler;
+	protected HttpComponentsClientHttpRequestFactory requestFactory;
 
 	protected KeycloakRestTemplate restTemplate = new KeycloakRestTemplate();
 
 	/**
-	 * Creates a new Keycloak session factory.
+	 * Creates a new Keycloak session factory for the default process engine.
 	 * @param keycloakConfiguration the Keycloak configuration
 	 * @param customHttpRequestInterceptors custom interceptors to modify behaviour of default KeycloakRestTemplate
 	 */
 	public KeycloakIdentityProviderFactory(
 					KeycloakConfiguration keycloakConfiguration, List<ClientHttpRequestInterceptor> customHttpRequestInterceptors) {
+		this(keycloakConfiguration, customHttpRequestInterceptors, ProcessEngines.NAME_DEFAULT);
+	}
+
+	/**
+	 * Creates a new Keycloak session factory.
+	 * @param keycloakConfiguration the Keycloak configuration
+	 * @param customHttpRequestInterceptors custom interceptors to modify behaviour of default KeycloakRestTemplate
+	 * @param processEngineName the name of the process engine, used for tagging metrics
+	 */
+	public KeycloakIdentityProviderFactory(
+					KeycloakConfiguration keycloakConfiguration, List<ClientHttpRequestInterceptor> customHttpRequestInterceptors,
+					String processEngineName) {
 
 		this.keycloakConfiguration = keycloakConfiguration;
 
 		CacheConfiguration cacheConfiguration = CacheConfiguration.from(keycloakConfiguration);
 		CacheConfiguration loginCacheConfiguration = CacheConfiguration.fromLoginConfigOf(keycloakConfiguration);
 
-		this.setUserQueryCache(CacheFactory.create(cacheConfiguration));
-		this.setGroupQueryCache(CacheFactory.create(cacheConfiguration));
+		this.setUserQueryCache(CacheFactory.createForValues(cacheConfiguration));
+		this.setGroupQueryCache(CacheFactory.createForValues(cacheConfiguration));
 		this.setCheckPasswordCache(CacheFactory.create(loginCacheConfiguration));
+		this.groupHierarchyCache = CacheFactory.create(CacheConfiguration.fromGroupHierarchyConfigOf(keycloakConfiguration));
+
+		// memberships read in one direction update cached memberships of the other direction
+		this.membershipIndex = cacheConfiguration.isEnabled()
+				? new MembershipIndex(cacheConfiguration.getMaxSize(), cacheConfiguration.getExpirationTimeout())
+				: MembershipIndex.none();
+
+		// publish cache statistics - caches are looked up lazily since they may be replaced via setters
+		this.metrics = MetricsFactory.create(keycloakConfiguration, processEngineName);
+		metrics.bindCache("userQuery", () -> this.userQueryCache);
+		metrics.bindCache("groupQuery", () -> this.groupQueryCache);
+		metrics.bindCache("checkPassword", () -> this.checkPasswordCache);
+		metrics.bindCache("groupHierarchy", () -> this.groupHierarchyCache);
+
+		this.tracing = TracingFactory.create(keycloakConfiguration);
+
+		// runs requests in parallel to the calling thread: multi-ID queries and the group tree
+		this.executor = KeycloakExecutors.create(keycloakConfiguration, processEngineName);
+
+		// resolve multi-ID queries by concurrent single ID lookups
+		this.parallelFetcher = new ParallelFetcher(executor,
+				keycloakConfiguration.getMaxParallelRequestsPerQuery(),
+				Duration.ofMillis(keycloakConfiguration.getParallelRequestTimeoutMs()), tracing);
+
+		// balance requests across several Keycloak nodes if configured
+		if (StringUtils.hasText(keycloakConfiguration.getKeycloakNodeUrls())) {
+			try {
+				this.loadBalancer = new KeycloakLoadBalancer(
+						KeycloakLoadBalancer.parseNodes(keycloakConfiguration.getKeycloakNodeUrls()),
+						List.of(URI.create(keycloakConfiguration.getKeycloakAdminUrl()), URI.create(keycloakConfiguration.getKeycloakIssuerUrl())),
+						keycloakConfiguration.getNodeEjectionConsecutiveFailures(), keycloakConfiguration.getNodeEjectionTimeMs());
+			} catch (IllegalArgumentException e) {
+				throw new IdentityProviderException("Invalid keycloakNodeUrls: " + e.getMessage(), e);
+			}
+		}
+		int nodeCount = loadBalancer != null ? loadBalancer.getNodes().size() : 1;
 
 		// Create REST template with pooling HTTP client
+		// each node is a separate route with its own pool: allow all connections to be used for it (default: 5 per route)
 		PoolingHttpClientConnectionManagerBuilder connectionManagerBuilder = PoolingHttpClientConnectionManagerBuilder
 				.create()
-				.setMaxConnTotal(keycloakConfiguration.getMaxHttpConnections());
+				.setMaxConnTotal(keycloakConfiguration.getMaxHttpConnections() * nodeCount)
+				.setMaxConnPerRoute(keycloakConfiguration.getMaxHttpConnections());
 
 		if (keycloakConfiguration.isDisableSSLCertificateValidation()) {
 			try {
@@ -97,6 +178,11 @@ public class KeycloakIdentityProviderFactory implements SessionFactory {
 		HttpClientBuilder httpClientBuilder = HttpClientBuilder.create()
 				.setConnectionManager(connectionManagerBuilder.build())
 				.setDefaultCredentialsProvider(credentialsProvider);
+		if (keycloakConfiguration.getMaxRetries() > 0 || loadBalancer != null) {
+			// replaced by retry policy and failover: by default HttpClient retries idempotent requests
+			// on HTTP 429 and 503 once after a fixed delay of one second
+			httpClientBuilder.disableAutomaticRetries();
+		}
 
 		// configure proxy if set
 		if (StringUtils.hasLength(keycloakConfiguration.getProxyUri())) {
@@ -113,8 +199,9 @@ public class KeycloakIdentityProviderFactory implements SessionFactory {
 			}
 		}
 
-		final HttpComponentsClientHttpRequestFactory factory = new HttpComponentsClientHttpRequestFactory(httpClientBuilder.build());
-		restTemplate.setRequestFactory(factory);
+		// requests can be aborted, e.g. once their hedged copy has been answered
+		this.requestFactory = new CancellableRequestFactory(httpClientBuilder.build());
+		restTemplate.setRequestFactory(requestFactory);
 
 		// replace ISO-8859-1 encoding with configured charset (default: UTF-8)
 		for (int i = 0; i < restTemplate.getMessageConverters().size(); i++) {
@@ -124,10 +211,50 @@ public class KeycloakIdentityProviderFactory implements SessionFactory {
 			}
 		}
 
+		// client spans first: trace context headers are visible to all subsequent interceptors
+		tracing.requestInterceptor().ifPresent(restTemplate.getInterceptors()::add);
 		restTemplate.getInterceptors().addAll(customHttpRequestInterceptors);
+		ConcurrencyLimitingInterceptor concurrencyLimiter = null;
+		if (keycloakConfiguration.isConcurrencyLimitEnabled()) {
+			// before metrics: only requests actually sent are measured, rejected requests are never sent
+			concurrencyLimiter = new ConcurrencyLimitingInterceptor(
+					keycloakConfiguration.getConcurrencyLimitInitial(), keycloakConfiguration.getMaxHttpConnections() * nodeCount,
+					keycloakConfiguration.getConcurrencyLimitLatencyTolerance(), keycloakConfiguration.getConcurrencyLimitMaxWaitMs(),
+					keycloakConfiguration.getConcurrencyLimitMaxQueueSize());
+			metrics.bindConcurrencyLimit(concurrencyLimiter);
+			restTemplate.getInterceptors().add(concurrencyLimiter);
+		}
+		if (keycloakConfiguration.isMetricsEnabled() || keycloakConfiguration.getSlowRequestThresholdMs() > 0) {
+			// built-in interceptor recording latency, size and status per endpoint
+			restTemplate.getInterceptors().add(
+					new RequestMetricsInterceptor(metrics, keycloakConfiguration.getSlowRequestThresholdMs()));
+		}
+		if (loadBalancer != null) {
+			// last: failover to other nodes re-executes the request without passing the interceptors again
+			restTemplate.getInterceptors().add(new LoadBalancingInterceptor(loadBalancer));
+		}
+		if (keycloakConfiguration.isHedgingEnabled()) {
+			// after load balancing: hedged copies of a request routed to one node go to another node
+			// copies are sent by threads of their own, they never wait behind queued requests of other callers
+			this.scheduler = KeycloakExecutors.createScheduler(processEngineName);
+			this.hedgeExecutor = KeycloakExecutors.createHedgeExecutor(keycloakConfiguration, processEngineName);
+			restTemplate.getInterceptors().add(new HedgingInterceptor(scheduler, hedgeExecutor, concurrencyLimiter,
+					tracing, metrics, loadBalancer,
+					keycloakConfiguration.getHedgeDelayPercentile(), keycloakConfiguration.getHedgeMinDelayMs(),
+					keycloakConfiguration.getHedgeBudgetPercent()));
+		}
 		
+		restTemplate.setRetryPolicy(new RetryPolicy(keycloakConfiguration.getMaxRetries(),
+				keycloakConfiguration.getRetryInitialBackoffMs(), keycloakConfiguration.getRetryMaxBackoffMs(),
+				keycloakConfiguration.getRetryBudgetMs()));
+
 		// Create Keycloak context provider for access token handling
 		keycloakContextProvider = new KeycloakContextProvider(keycloakConfiguration, restTemplate);
+
+		// load the group tree level by level, the children of the groups of a level concurrently
+		this.groupTreeLoader = new GroupTreeLoader(keycloakConfiguration, restTemplate, keycloakContextProvider,
+				parallelFetcher, cacheConfiguration);
+		metrics.bindCache("groupTree", groupTreeLoader::getCache);
 	}
 
 	/**
@@ -159,6 +286,27 @@ public class KeycloakIdentityProviderFactory implements SessionFactory {
 		this.checkPasswordCache = checkPasswordCache;
 	}
 	
+	/**
+	 * @return statistics of the user query cache
+	 */
+	public CacheStatistics getUserQueryCacheStatistics() {
+		return this.userQueryCache.getStatistics();
+	}
+
+	/**
+	 * @return statistics of the group query cache
+	 */
+	public CacheStatistics getGroupQueryCacheStatistics() {
+		return this.groupQueryCache.getStatistics();
+	}
+
+	/**
+	 * @return statistics of the check password cache
+	 */
+	public CacheStatistics getCheckPasswordCacheStatistics() {
+		return this.checkPasswordCache.getStatistics();
+	}
+
 	/**
 	 * immediately clear entries from cache
 	 */
@@ -166,6 +314,26 @@ public class KeycloakIdentityProviderFactory implements SessionFactory {
 		this.userQueryCache.clear();
 		this.groupQueryCache.clear();
 		this.checkPasswordCache.clear();
+		this.groupHierarchyCache.clear();
+		this.groupTreeLoader.clear();
+		this.membershipIndex.clear();
+	}
+
+	/**
+	 * Releases the threads and HTTP connections of this factory. Requests still running are interrupted,
+	 * sessions must not be opened afterwards.
+	 */
+	public void close() {
+		executor.shutdownNow();
+		if (scheduler != null) {
+			scheduler.shutdownNow();
+			hedgeExecutor.shutdownNow();
+		}
+		try {
+			requestFactory.destroy();
+		} catch (Exception e) {
+			// connections are released anyway
+		}
 	}
 
 	/**
@@ -174,7 +342,8 @@ public class KeycloakIdentityProviderFactory implements SessionFactory {
 	@Override
 	public Session openSession() {
 		return new KeycloakIdentityProviderSession(
-						keycloakConfiguration, restTemplate, keycloakContextProvider, userQueryCache, groupQueryCache, checkPasswordCache);
+						keycloakConfiguration, restTemplate, keycloakContextProvider, userQueryCache, groupQueryCache, checkPasswordCache,
+						groupHierarchyCache, groupTreeLoader, tracing, parallelFetcher, membershipIndex, subgroupVisibility);
 	}
 
 }
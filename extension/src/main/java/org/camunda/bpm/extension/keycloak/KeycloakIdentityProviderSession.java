@@ -1,10 +1,20 @@
 package org.camunda.bpm.extension.keycloak;
 
+import static org.camunda.bpm.engine.impl.util.EnsureUtil.ensureNotEmpty;
+import static org.camunda.bpm.engine.impl.util.EnsureUtil.ensureNotNull;
 import static org.camunda.bpm.extension.keycloak.json.JsonUtil.*;
 
 import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 
 import org.camunda.bpm.engine.BadUserRequestException;
 import org.camunda.bpm.engine.identity.Group;
@@ -18,9 +28,15 @@ import org.camunda.bpm.engine.impl.UserQueryImpl;
 import org.camunda.bpm.engine.impl.identity.IdentityProviderException;
 import org.camunda.bpm.engine.impl.identity.ReadOnlyIdentityProvider;
 import org.camunda.bpm.engine.impl.interceptor.CommandContext;
+import org.camunda.bpm.extension.keycloak.cache.CacheConfiguration;
+import org.camunda.bpm.extension.keycloak.cache.CacheFactory;
 import org.camunda.bpm.extension.keycloak.cache.QueryCache;
+import org.camunda.bpm.extension.keycloak.concurrent.ParallelFetcher;
 import org.camunda.bpm.extension.keycloak.json.JsonException;
 import org.camunda.bpm.extension.keycloak.rest.KeycloakRestTemplate;
+import org.camunda.bpm.extension.keycloak.tracing.KeycloakSpan;
+import org.camunda.bpm.extension.keycloak.tracing.KeycloakTracing;
+import org.camunda.bpm.extension.keycloak.tracing.NoOpTracing;
 import org.camunda.bpm.extension.keycloak.util.ContentType;
 import org.camunda.bpm.extension.keycloak.util.KeycloakPluginLogger;
 import org.springframework.http.HttpEntity;
@@ -49,9 +65,22 @@ public class KeycloakIdentityProviderSession implements ReadOnlyIdentityProvider
 	protected QueryCache<CacheableKeycloakUserQuery, List<User>> userQueryCache;
 	protected QueryCache<CacheableKeycloakGroupQuery, List<Group>> groupQueryCache;
 	protected QueryCache<CacheableKeycloakCheckPasswordCall, Boolean> checkPasswordCache;
+	protected QueryCache<CacheableKeycloakGroupQuery, GroupHierarchy> groupHierarchyCache;
+	protected GroupTreeLoader groupTreeLoader;
+
+	protected KeycloakTracing tracing;
+	protected ParallelFetcher parallelFetcher;
+	protected MembershipIndex membershipIndex;
+	protected SubgroupVisibility subgroupVisibility;
 
 	/**
-	 * Creates a new session.
+	 * Results of user and group queries within the current command, keyed by cacheable query. The session lives
+	 * per command context, so repeated lookups of a command are answered without any staleness across commands.
+	 */
+	protected Map<Object, List<?>> commandMemo = new HashMap<>();
+
+	/**
+	 * Creates a new session without tracing, resolving multi-ID queries sequentially.
 	 * @param keycloakConfiguration the Keycloak configuration
 	 * @param restTemplate REST template
 	 * @param keycloakContextProvider Keycloak context provider
@@ -60,16 +89,48 @@ public class KeycloakIdentityProviderSession implements ReadOnlyIdentityProvider
 					KeycloakConfiguration keycloakConfiguration, KeycloakRestTemplate restTemplate, KeycloakContextProvider keycloakContextProvider,
 					QueryCache<CacheableKeycloakUserQuery, List<User>> userQueryCache, QueryCache<CacheableKeycloakGroupQuery, List<Group>> groupQueryCache,
 					QueryCache<CacheableKeycloakCheckPasswordCall, Boolean> checkPasswordCache) {
+		this(keycloakConfiguration, restTemplate, keycloakContextProvider, userQueryCache, groupQueryCache, checkPasswordCache,
+				CacheFactory.create(CacheConfiguration.fromGroupHierarchyConfigOf(keycloakConfiguration)),
+				new GroupTreeLoader(keycloakConfiguration, restTemplate, keycloakContextProvider, ParallelFetcher.sequential(),
+						CacheConfiguration.from(keycloakConfiguration)),
+				new NoOpTracing(), ParallelFetcher.sequential(), MembershipIndex.none(), new SubgroupVisibility());
+	}
+
+	/**
+	 * Creates a new session.
+	 * @param keycloakConfiguration the Keycloak configuration
+	 * @param restTemplate REST template
+	 * @param keycloakContextProvider Keycloak context provider
+	 * @param groupHierarchyCache cache of the group hierarchy, used if parent group membership is inherited
+	 * @param groupTreeLoader loader of the group tree in case subgroups are loaded via the children endpoint
+	 * @param tracing tracing of identity queries
+	 * @param parallelFetcher fetcher resolving multi-ID queries
+	 * @param membershipIndex index of the memberships read from Keycloak in both directions
+	 * @param subgroupVisibility whether the unfiltered group query returns all subgroups, shared by all sessions
+	 */
+	public KeycloakIdentityProviderSession(
+					KeycloakConfiguration keycloakConfiguration, KeycloakRestTemplate restTemplate, KeycloakContextProvider keycloakContextProvider,
+					QueryCache<CacheableKeycloakUserQuery, List<User>> userQueryCache, QueryCache<CacheableKeycloakGroupQuery, List<Group>> groupQueryCache,
+					QueryCache<CacheableKeycloakCheckPasswordCall, Boolean> checkPasswordCache,
+					QueryCache<CacheableKeycloakGroupQuery, GroupHierarchy> groupHierarchyCache, GroupTreeLoader groupTreeLoader,
+					KeycloakTracing tracing,
+					ParallelFetcher parallelFetcher, MembershipIndex membershipIndex, SubgroupVisibility subgroupVisibility) {
 		this.keycloakConfiguration = keycloakConfiguration;
 		this.restTemplate = restTemplate;
 		this.keycloakContextProvider = keycloakContextProvider;
 		
 		this.userService = new KeycloakUserService(keycloakConfiguration, restTemplate, keycloakContextProvider);
-		this.groupService = new  KeycloakGroupService(keycloakConfiguration, restTemplate, keycloakContextProvider);
+		this.groupService = new  KeycloakGroupService(keycloakConfiguration, restTemplate, keycloakContextProvider, subgroupVisibility);
 
 		this.userQueryCache = userQueryCache;
 		this.groupQueryCache = groupQueryCache;
 		this.checkPasswordCache = checkPasswordCache;
+		this.groupHierarchyCache = groupHierarchyCache;
+		this.groupTreeLoader = groupTreeLoader;
+		this.tracing = tracing;
+		this.parallelFetcher = parallelFetcher;
+		this.membershipIndex = membershipIndex;
+		this.subgroupVisibility = subgroupVisibility;
 	}
 	
 	@Override
@@ -79,7 +140,7 @@ public class KeycloakIdentityProviderSession implements ReadOnlyIdentityProvider
 
 	@Override
 	public void close() {
-		// nothing to do
+		commandMemo.clear();
 	}
 
 	//-------------------------------------------------------------------------
@@ -135,23 +196,43 @@ public class KeycloakIdentityProviderSession implements ReadOnlyIdentityProvider
 	 * @return list of matching users
 	 */
 	protected List<User> findUserByQueryCriteria(KeycloakUserQuery userQuery) {
-		StringBuilder resultLogger = new StringBuilder();
+		try (KeycloakSpan span = tracing.startSpan("keycloak.findUserByQueryCriteria")) {
+			try {
+				StringBuilder resultLogger = new StringBuilder();
 
-		if (KeycloakPluginLogger.INSTANCE.isDebugEnabled()) {
-			resultLogger.append("Keycloak group query results: [");
-		}
+				if (KeycloakPluginLogger.INSTANCE.isDebugEnabled()) {
+					resultLogger.append("Keycloak group query results: [");
+				}
 
-		List<User> allMatchingUsers = userQueryCache
-						.getOrCompute(CacheableKeycloakUserQuery.of(userQuery), this::doFindUserByQueryCriteria);
+				boolean multiIdQuery = isMultiIdQuery(userQuery.getId(), userQuery.getIds(), userQuery.getGroupId());
+				List<User> allMatchingUsers = multiIdQuery
+								? findUsersByIds(Arrays.asList(userQuery.getIds()))
+								: memoized(CacheableKeycloakUserQuery.of(userQuery),
+										key -> lookup("userQuery", userQueryCache, key, key.broaderQueries(), this::doFindUserByQueryCriteria));
+				boolean truncated = !multiIdQuery && KeycloakResult.isTruncated(allMatchingUsers);
+				if (!multiIdQuery && StringUtils.hasLength(userQuery.getGroupId())) {
+					allMatchingUsers = withChanges(allMatchingUsers, membershipIndex.membersOfGroup(userQuery.getGroupId()),
+							User::getId, this::findUsersByIds);
+				}
 
-		List<User> processedUsers = userService.postProcessResults(userQuery, allMatchingUsers, resultLogger);
+				List<User> processedUsers;
+				try (KeycloakSpan postProcessSpan = tracing.startSpan("keycloak.postProcessResults")) {
+					processedUsers = userService.postProcessResults(userQuery, allMatchingUsers, resultLogger);
+				}
 
-		if (KeycloakPluginLogger.INSTANCE.isDebugEnabled()) {
-			resultLogger.append("]");
-			KeycloakPluginLogger.INSTANCE.groupQueryResult(resultLogger.toString());
-		}
+				if (KeycloakPluginLogger.INSTANCE.isDebugEnabled()) {
+					resultLogger.append("]");
+					KeycloakPluginLogger.INSTANCE.groupQueryResult(resultLogger.toString());
+				}
 
-		return processedUsers;
+				span.setAttribute(KeycloakTracing.ATTRIBUTE_RESULT_SIZE, processedUsers.size());
+				span.setAttribute(KeycloakTracing.ATTRIBUTE_RESULT_TRUNCATED, truncated);
+				return processedUsers;
+			} catch (RuntimeException e) {
+				span.recordException(e);
+				throw e;
+			}
+		}
 	}
 
 	/**
@@ -160,9 +241,14 @@ public class KeycloakIdentityProviderSession implements ReadOnlyIdentityProvider
 	 * @return list of matching users
 	 */
 	private List<User> doFindUserByQueryCriteria(CacheableKeycloakUserQuery userQuery) {
+		// results are cached and shared, they are unmodifiable and carry whether Keycloak truncated them
 		if (StringUtils.hasLength(userQuery.getGroupId())) {
 			// search within the members of a single group
-			return userService.requestUsersByGroupId(userQuery);
+			long observedAt = membershipIndex.now();
+			List<User> members = userService.requestUsersByGroupId(userQuery);
+			membershipIndex.recordMembersOfGroup(userQuery.getGroupId(), observedAt, idsOf(members, User::getId),
+					!KeycloakResult.isTruncated(members));
+			return members;
 		} else {
 			return userService.requestUsersWithoutGroupId(userQuery);
 		}
@@ -192,8 +278,15 @@ public class KeycloakIdentityProviderSession implements ReadOnlyIdentityProvider
 	 */
 	@Override
 	public boolean checkPassword(String userId, String password) {
-		return checkPasswordCache.getOrCompute(new CacheableKeycloakCheckPasswordCall(userId, password), 
-				(c) -> this.doCheckPassword(c.getUserId(), password));
+		try (KeycloakSpan span = tracing.startSpan("keycloak.checkPassword")) {
+			try {
+				return lookup("checkPassword", checkPasswordCache, new CacheableKeycloakCheckPasswordCall(userId, password), 
+						(c) -> this.doCheckPassword(c.getUserId(), password));
+			} catch (RuntimeException e) {
+				span.recordException(e);
+				throw e;
+			}
+		}
 	}
 
 	/**
@@ -331,23 +424,56 @@ public class KeycloakIdentityProviderSession implements ReadOnlyIdentityProvider
 	 * @return list of matching groups
 	 */
 	protected List<Group> findGroupByQueryCriteria(KeycloakGroupQuery groupQuery) {
-		StringBuilder resultLogger = new StringBuilder();
+		try (KeycloakSpan span = tracing.startSpan("keycloak.findGroupByQueryCriteria")) {
+			try {
+				StringBuilder resultLogger = new StringBuilder();
 
-		if (KeycloakPluginLogger.INSTANCE.isDebugEnabled()) {
-			resultLogger.append("Keycloak group query results: [");
-		}
+				if (KeycloakPluginLogger.INSTANCE.isDebugEnabled()) {
+					resultLogger.append("Keycloak group query results: [");
+				}
+
+				boolean multiIdQuery = isMultiIdQuery(groupQuery.getId(), groupQuery.getIds(), groupQuery.getUserId());
+				List<Group> allMatchingGroups = multiIdQuery
+								? findGroupsByIds(Arrays.asList(groupQuery.getIds()))
+								: memoized(CacheableKeycloakGroupQuery.of(groupQuery, keycloakConfiguration.isSearchGroupTypeViaAttributeQuery()),
+										key -> lookup("groupQuery", groupQueryCache, key, broaderGroupQueries(key), this::doFindGroupByQueryCriteria));
+				boolean truncated = !multiIdQuery && KeycloakResult.isTruncated(allMatchingGroups);
+				if (!multiIdQuery && StringUtils.hasLength(groupQuery.getUserId())) {
+					allMatchingGroups = groupsOfUser(groupQuery.getUserId(), allMatchingGroups);
+				}
 
-		List<Group> allMatchingGroups = groupQueryCache
-						.getOrCompute(CacheableKeycloakGroupQuery.of(groupQuery), this::doFindGroupByQueryCriteria);
+				List<Group> processedGroups;
+				try (KeycloakSpan postProcessSpan = tracing.startSpan("keycloak.postProcessResults")) {
+					processedGroups = groupService.postProcessResults(groupQuery, allMatchingGroups, resultLogger);
+				}
 
-		List<Group> processedGroups = groupService.postProcessResults(groupQuery, allMatchingGroups, resultLogger);
+				if (KeycloakPluginLogger.INSTANCE.isDebugEnabled()) {
+					resultLogger.append("]");
+					KeycloakPluginLogger.INSTANCE.groupQueryResult(resultLogger.toString());
+				}
 
-		if (KeycloakPluginLogger.INSTANCE.isDebugEnabled()) {
-			resultLogger.append("]");
-			KeycloakPluginLogger.INSTANCE.groupQueryResult(resultLogger.toString());
+				span.setAttribute(KeycloakTracing.ATTRIBUTE_RESULT_SIZE, processedGroups.size());
+				span.setAttribute(KeycloakTracing.ATTRIBUTE_RESULT_TRUNCATED, truncated);
+				return processedGroups;
+			} catch (RuntimeException e) {
+				span.recordException(e);
+				throw e;
+			}
 		}
+	}
 
-		return processedGroups;
+	/**
+	 * Returns the unfiltered query in case its result contains the subgroups matching the given query. Keycloak 23
+	 * and later return only top level groups for it unless subgroups are enforced or loaded via the children
+	 * endpoint. The attribute search of a type returns matching subgroups anyway.
+	 * @param groupQuery the group query
+	 * @return the queries whose results are supersets of the given query's result
+	 */
+	private List<CacheableKeycloakGroupQuery> broaderGroupQueries(CacheableKeycloakGroupQuery groupQuery) {
+		CacheableKeycloakGroupQuery unfiltered = groupQuery.withoutFilters();
+		boolean containsSubgroups = unfiltered.getType() != null || keycloakConfiguration.isEnforceSubgroupsInGroupQuery()
+				|| keycloakConfiguration.isLoadSubgroupsViaChildrenEndpoint() || subgroupVisibility.isComplete();
+		return containsSubgroups ? List.of(unfiltered) : List.of();
 	}
 
 	/**
@@ -356,14 +482,40 @@ public class KeycloakIdentityProviderSession implements ReadOnlyIdentityProvider
 	 * @return list of matching groups
 	 */
 	private List<Group> doFindGroupByQueryCriteria(CacheableKeycloakGroupQuery groupQuery) {
+		// results are cached and shared, they are unmodifiable and carry whether Keycloak truncated them
 		if (StringUtils.hasLength(groupQuery.getUserId())) {
 			// if restriction on userId is provided, we're searching within the groups of a single user
-			return groupService.requestGroupsByUserId(groupQuery);
+			long observedAt = membershipIndex.now();
+			List<Group> groups = groupService.requestGroupsByUserId(groupQuery);
+			membershipIndex.recordGroupsOfUser(groupQuery.getUserId(), observedAt, idsOf(groups, Group::getId),
+					!KeycloakResult.isTruncated(groups));
+			return groups;
+		} else if (keycloakConfiguration.isLoadSubgroupsViaChildrenEndpoint() && groupQuery.equals(CacheableKeycloakGroupQuery.ofAll())) {
+			// all groups including subgroups, loaded level by level
+			return groupTreeLoader.load().getGroups();
 		} else {
 			return groupService.requestGroupsWithoutUserId(groupQuery);
 		}
 	}
 
+	/**
+	 * Completes the direct groups of a user as cached or requested: applies newer memberships of the membership
+	 * index and adds the ancestors of the groups in case parent group membership is inherited.
+	 * @param userId the user ID
+	 * @param groups the direct groups of the user
+	 * @return all groups of the user
+	 */
+	private List<Group> groupsOfUser(String userId, List<Group> groups) {
+		List<Group> directGroups = withChanges(groups, membershipIndex.groupsOfUser(userId), Group::getId, this::findGroupsByIds);
+		if (!keycloakConfiguration.isInheritParentGroupMembership()) {
+			return directGroups;
+		}
+		GroupHierarchy hierarchy = lookup("groupHierarchy", groupHierarchyCache, CacheableKeycloakGroupQuery.ofAll(),
+				key -> keycloakConfiguration.isLoadSubgroupsViaChildrenEndpoint()
+						? groupTreeLoader.load().getHierarchy() : groupService.requestGroupHierarchy());
+		return hierarchy.withAncestors(directGroups);
+	}
+
 	/**
 	 * Get the group ID of the configured admin group. Enable configuration using group path as well.
 	 * This prevents common configuration pitfalls and makes it consistent to other configuration options
@@ -378,6 +530,254 @@ public class KeycloakIdentityProviderSession implements ReadOnlyIdentityProvider
 		return groupService.getKeycloakAdminGroupId(configuredAdminGroupName);
 	}
 
+	/**
+	 * Finds the groups of several users at once, e.g. of all assignees and candidates shown on a task list page.
+	 * Equivalent to a {@code groupMember(userId)} query per user, but memoized and cached memberships are used first
+	 * and the remaining ones are requested from Keycloak in parallel.
+	 * @param userIds the user IDs
+	 * @return the groups of each distinct user in the order of the user IDs, empty for unknown users
+	 */
+	public Map<String, List<Group>> findGroupsByMembers(Collection<String> userIds) {
+		ensureNotNull("userIds", userIds);
+		for (String userId : userIds) {
+			// an empty user ID would request all groups
+			ensureNotEmpty("userId", userId);
+		}
+		try (KeycloakSpan span = tracing.startSpan("keycloak.findGroupsByMembers")) {
+			try {
+				StringBuilder resultLogger = new StringBuilder();
+
+				if (KeycloakPluginLogger.INSTANCE.isDebugEnabled()) {
+					resultLogger.append("Keycloak group query results: [");
+				}
+
+				Map<String, List<Group>> memberships = lookupAll("groupsOfUsers", userIds, groupQueryCache,
+						CacheableKeycloakGroupQuery::ofMember, this::doFindGroupByQueryCriteria);
+				try (KeycloakSpan postProcessSpan = tracing.startSpan("keycloak.postProcessResults")) {
+					for (Map.Entry<String, List<Group>> membership : memberships.entrySet()) {
+						KeycloakGroupQuery groupQuery = new KeycloakGroupQuery();
+						groupQuery.groupMember(membership.getKey());
+						List<Group> groups = groupsOfUser(membership.getKey(), membership.getValue());
+						membership.setValue(groupService.postProcessResults(groupQuery, groups, resultLogger));
+					}
+				}
+
+				if (KeycloakPluginLogger.INSTANCE.isDebugEnabled()) {
+					resultLogger.append("]");
+					KeycloakPluginLogger.INSTANCE.groupQueryResult(resultLogger.toString());
+				}
+
+				span.setAttribute(KeycloakTracing.ATTRIBUTE_RESULT_SIZE, memberships.size());
+				return memberships;
+			} catch (RuntimeException e) {
+				span.recordException(e);
+				throw e;
+			}
+		}
+	}
+
+	//-------------------------------------------------------------------------
+	// Helpers
+	//-------------------------------------------------------------------------
+
+	/**
+	 * Looks up a cache within its own span recording whether the cache has been hit.
+	 * @param cacheType the type of the cache used as span name suffix
+	 * @param cache the cache
+	 * @param key the key
+	 * @param computation the computation in case of a cache miss
+	 * @return the cached or computed value
+	 */
+	private <K, V> V lookup(String cacheType, QueryCache<K, V> cache, K key, Function<K, V> computation) {
+		try (KeycloakSpan span = tracing.startSpan("keycloak.cache." + cacheType)) {
+			boolean[] computed = new boolean[1];
+			V result = cache.getOrCompute(key, k -> {
+				computed[0] = true;
+				return computation.apply(k);
+			});
+			span.setAttribute(KeycloakTracing.ATTRIBUTE_CACHE_HIT, !computed[0]);
+			return result;
+		}
+	}
+
+	/**
+	 * Looks up a query in the cache, answering it from the complete result of a broader query if present.
+	 * Post processing applies all filters client side, so the broader result yields the same final result.
+	 * Completeness is taken from the Keycloak response, see {@link KeycloakResult}.
+	 * @param cacheType the type of the cache used as span name suffix
+	 * @param cache the cache
+	 * @param key the key
+	 * @param broaderKeys the keys of queries whose results are supersets of the key's result, narrowest first
+	 * @param computation the computation in case of a cache miss
+	 * @return the broader, cached or computed result
+	 */
+	private <K, V> List<V> lookup(String cacheType, QueryCache<K, List<V>> cache, K key, List<K> broaderKeys,
+			Function<K, List<V>> computation) {
+		for (K broaderKey : broaderKeys) {
+			if (key.equals(broaderKey)) {
+				continue;
+			}
+			@SuppressWarnings("unchecked")
+			List<V> broader = (List<V>) commandMemo.get(broaderKey);
+			if (broader == null) {
+				broader = cache.getIfPresent(broaderKey);
+			}
+			if (broader != null && !KeycloakResult.isTruncated(broader)) {
+				try (KeycloakSpan span = tracing.startSpan("keycloak.cache." + cacheType)) {
+					span.setAttribute(KeycloakTracing.ATTRIBUTE_CACHE_HIT, true);
+					span.setAttribute(KeycloakTracing.ATTRIBUTE_CACHE_SUBSUMED, true);
+				}
+				return broader;
+			}
+		}
+		return lookup(cacheType, cache, key, computation);
+	}
+
+	/**
+	 * Looks up the result of a query in the command memo, executes and memoizes it in case it is absent.
+	 * Failures are not memoized.
+	 * @param key the cacheable query
+	 * @param lookup executes the query, e.g. by a cache lookup
+	 * @return the memoized or looked up result
+	 */
+	@SuppressWarnings("unchecked")
+	private <K, V> List<V> memoized(K key, Function<K, List<V>> lookup) {
+		List<V> result = (List<V>) commandMemo.get(key);
+		if (result == null) {
+			result = lookup.apply(key);
+			commandMemo.put(key, result);
+		}
+		return result;
+	}
+
+	/**
+	 * Checks whether a query is a multi-ID query (e.g. userIdIn) which can be resolved by single ID lookups.
+	 * A Keycloak search cannot filter by several IDs and would be truncated to maxResultSize.
+	 * @param id the single ID criteria
+	 * @param ids the multi-ID criteria
+	 * @param membership the user or group membership criteria, resolved by a separate Keycloak request
+	 * @return {@code true} if the query is a multi-ID query
+	 */
+	private boolean isMultiIdQuery(String id, String[] ids, String membership) {
+		return !StringUtils.hasLength(id) && ids != null && ids.length > 1 && !StringUtils.hasLength(membership);
+	}
+
+	/**
+	 * Resolves a multi-ID user query by single ID queries.
+	 * @param ids the user IDs
+	 * @return all users found in the order of the IDs
+	 */
+	private List<User> findUsersByIds(Collection<String> ids) {
+		return findByIds("users", ids, userQueryCache, CacheableKeycloakUserQuery::ofId, this::doFindUserByQueryCriteria);
+	}
+
+	/**
+	 * Resolves a multi-ID group query by single ID queries.
+	 * @param ids the group IDs
+	 * @return all groups found in the order of the IDs
+	 */
+	private List<Group> findGroupsByIds(Collection<String> ids) {
+		return findByIds("groups", ids, groupQueryCache, CacheableKeycloakGroupQuery::ofId, this::doFindGroupByQueryCriteria);
+	}
+
+	/**
+	 * Resolves a multi-ID query by single ID queries.
+	 * @param type the type of the entities, used as span name suffix
+	 * @param ids the IDs
+	 * @param cache the query cache
+	 * @param keyOfId creates the cache key of a single ID query
+	 * @param computation the computation of a single ID query in case of a cache miss
+	 * @return all entities found in the order of the IDs
+	 */
+	private <K, V> List<V> findByIds(String type, Collection<String> ids, QueryCache<K, List<V>> cache,
+			Function<String, K> keyOfId, Function<K, List<V>> computation) {
+		List<V> result = new ArrayList<>(ids.size());
+		lookupAll(type, ids, cache, keyOfId, computation).values().forEach(result::addAll);
+		return result;
+	}
+
+	/**
+	 * Applies memberships read more recently in the other direction to a membership listing, e.g. a user added to
+	 * a group whose member listing has been read after the cached groups of the user.
+	 * @param listing the members or groups as cached or requested
+	 * @param changes the changes according to the membership index
+	 * @param idOf the ID of an element of the listing
+	 * @param findByIds resolves the elements missing in the listing
+	 * @return the updated listing
+	 */
+	private <V> List<V> withChanges(List<V> listing, MembershipIndex.Changes changes, Function<V, String> idOf,
+			Function<Collection<String>, List<V>> findByIds) {
+		if (changes.isEmpty()) {
+			return listing;
+		}
+		List<V> result = new ArrayList<>(listing.size() + changes.getAdded().size());
+		for (V element : listing) {
+			if (!changes.getRemoved().contains(idOf.apply(element))) {
+				result.add(element);
+			}
+		}
+		if (!changes.getAdded().isEmpty()) {
+			result.addAll(findByIds.apply(changes.getAdded()));
+		}
+		return Collections.unmodifiableList(result);
+	}
+
+	/**
+	 * @param elements users or groups
+	 * @param idOf the ID of an element
+	 * @return the IDs of the elements
+	 */
+	private static <V> List<String> idsOf(List<V> elements, Function<V, String> idOf) {
+		List<String> ids = new ArrayList<>(elements.size());
+		for (V element : elements) {
+			ids.add(idOf.apply(element));
+		}
+		return ids;
+	}
+
+	/**
+	 * Looks up one query per ID. Memoized and cached entries are used first, the remaining IDs are fetched from
+	 * Keycloak in parallel, cached and memoized.
+	 * @param type the type of the entities, used as span name suffix
+	 * @param ids the IDs
+	 * @param cache the query cache
+	 * @param keyOfId creates the cache key of the query of an ID
+	 * @param computation the computation of a query in case of a cache miss
+	 * @return the result of each distinct ID in the order of the IDs
+	 */
+	private <K, V> Map<String, List<V>> lookupAll(String type, Collection<String> ids, QueryCache<K, List<V>> cache,
+			Function<String, K> keyOfId, Function<K, List<V>> computation) {
+		try (KeycloakSpan span = tracing.startSpan("keycloak.findByIds." + type)) {
+			Map<String, List<V>> results = new LinkedHashMap<>();
+			List<String> missingIds = new ArrayList<>();
+			List<K> misses = new ArrayList<>();
+			for (String id : ids) {
+				if (results.containsKey(id)) {
+					continue;
+				}
+				K key = keyOfId.apply(id);
+				@SuppressWarnings("unchecked")
+				List<V> cached = (List<V>) commandMemo.get(key);
+				if (cached == null) {
+					cached = cache.getIfPresent(key);
+				}
+				results.put(id, cached);
+				if (cached == null) {
+					missingIds.add(id);
+					misses.add(key);
+				}
+			}
+			span.setAttribute(KeycloakTracing.ATTRIBUTE_CACHE_HIT, misses.isEmpty());
+
+			List<List<V>> fetched = parallelFetcher.fetchAll(misses, key -> cache.getOrCompute(key, computation));
+			for (int m = 0; m < misses.size(); m++) {
+				commandMemo.put(misses.get(m), fetched.get(m));
+				results.put(missingIds.get(m), fetched.get(m));
+			}
+			return results;
+		}
+	}
+
 	//-------------------------------------------------------------------------
 	// Tenants
 	//-------------------------------------------------------------------------
@@ -0,0 +1,59 @@
+package org.camunda.bpm.extension.keycloak;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Unmodifiable list of the users or groups returned by a Keycloak request, knowing whether Keycloak truncated the
+ * response to maxResultSize. Truncation is determined from the size of the response rather than of the list, since
+ * entries may be skipped while transforming them, e.g. users without email in case the email is used as user ID.
+ * @param <E> the element type
+ */
+public final class KeycloakResult<E> extends AbstractList<E> implements RandomAccess {
+
+	private final List<E> elements;
+	private final boolean truncated;
+
+	/**
+	 * Creates a new result.
+	 * @param elements the elements, not to be modified afterwards
+	 * @param truncated whether Keycloak has possibly truncated the response due to the configured maxResultSize
+	 */
+	public KeycloakResult(List<E> elements, boolean truncated) {
+		this.elements = elements;
+		this.truncated = truncated;
+	}
+
+	/**
+	 * Checks whether a list is a truncated Keycloak result.
+	 * @param list the list, e.g. as cached
+	 * @return {@code true} if the list is a {@link KeycloakResult} which has possibly been truncated
+	 */
+	public static boolean isTruncated(List<?> list) {
+		return list instanceof KeycloakResult && ((KeycloakResult<?>) list).truncated;
+	}
+
+	/**
+	 * @return {@code true} if Keycloak has possibly truncated the response due to the configured maxResultSize
+	 */
+	public boolean isTruncated() {
+		return truncated;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public E get(int index) {
+		return elements.get(index);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int size() {
+		return elements.size();
+	}
+}
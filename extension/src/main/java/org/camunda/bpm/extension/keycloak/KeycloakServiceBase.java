@@ -6,8 +6,12 @@ import java.io.UnsupportedEncodingException;
 import java.net.URI;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Predicate;
 
 import org.camunda.bpm.engine.authorization.Permission;
 import org.camunda.bpm.engine.authorization.Resource;
@@ -28,6 +32,9 @@ import com.google.gson.JsonObject;
  */
 public abstract class KeycloakServiceBase {
 
+	/** Pages up to this fraction of a result are selected by a bounded heap instead of sorting the whole result. */
+	private static final int HEAP_SELECTION_RATIO = 8;
+
 	protected KeycloakConfiguration keycloakConfiguration;
 	protected KeycloakRestTemplate restTemplate;
 	protected KeycloakContextProvider keycloakContextProvider;
@@ -135,6 +142,15 @@ public abstract class KeycloakServiceBase {
 		return Integer.toString(keycloakConfiguration.getMaxResultSize());
 	}
 	
+	/**
+	 * Checks whether Keycloak has possibly truncated a response due to the configured maxResultSize.
+	 * @param response the JSON array as returned by Keycloak, before skipping any entries
+	 * @return {@code true} if the response size reached the configured maximum
+	 */
+	protected boolean isTruncated(JsonArray response) {
+		return response.size() >= keycloakConfiguration.getMaxResultSize();
+	}
+
 	/**
 	 * Truncates a list to a given maximum size.
 	 * @param <T> element type of list
@@ -197,6 +213,110 @@ public abstract class KeycloakServiceBase {
 		}
 		return attribute.matches(queryParameter.replaceAll("[%\\*]", ".*"));
 	}
+
+	/**
+	 * Applies client side filters, ordering and paging to a Keycloak result. The authorization check is expensive
+	 * and therefore evaluated as late as possible: for unordered results only until the requested page is complete,
+	 * for ordered results only for elements within the requested page so far. Small pages of large results are
+	 * selected by a bounded heap instead of sorting the whole result.
+	 * @param <T> element type of list
+	 * @param list the full result
+	 * @param criteria the query filters
+	 * @param authorization the authorization check
+	 * @param order the ordering, {@code null} if unordered
+	 * @param firstResult index of the first element of the page
+	 * @param maxResults maximum size of the page
+	 * @return the elements of the page, in order
+	 */
+	protected <T> List<T> filterSortAndPage(List<T> list, Predicate<T> criteria, Predicate<T> authorization,
+			Comparator<T> order, int firstResult, int maxResults) {
+		int first = Math.max(0, firstResult);
+		int window = (int) Math.min(Integer.MAX_VALUE, (long) first + Math.max(0, maxResults));
+		if (window == first) {
+			return new ArrayList<>();
+		}
+		if (order == null) {
+			return page(list, criteria.and(authorization), first, window);
+		}
+		if (window <= list.size() / HEAP_SELECTION_RATIO) {
+			return page(selectSmallest(list, criteria, authorization, order, window), e -> true, first, window);
+		}
+		List<T> candidates = new ArrayList<>();
+		for (T element : list) {
+			if (criteria.test(element)) {
+				candidates.add(element);
+			}
+		}
+		candidates.sort(order);
+		return page(candidates, authorization, first, window);
+	}
+
+	/**
+	 * @return the elements at positions {@code first} to {@code window - 1} of the accepted elements of the list
+	 */
+	private static <T> List<T> page(List<T> list, Predicate<T> accepted, int first, int window) {
+		List<T> result = new ArrayList<>(Math.min(window - first, list.size()));
+		int count = 0;
+		for (T element : list) {
+			if (accepted.test(element) && count++ >= first) {
+				result.add(element);
+				if (count == window) {
+					break;
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Selects the smallest accepted elements of a list by a bounded heap. Elements are authorized only in case they
+	 * belong to the smallest elements so far. Equal elements keep their order within the list.
+	 * @return at most {@code limit} smallest accepted elements, in order
+	 */
+	private static <T> List<T> selectSmallest(List<T> list, Predicate<T> criteria, Predicate<T> authorization,
+			Comparator<T> order, int limit) {
+		// ties are broken by position, so the largest element of the heap is the one to be replaced
+		Comparator<Ranked<T>> ranking = Comparator.<Ranked<T>, T> comparing(r -> r.element, order)
+				.thenComparingInt(r -> r.position);
+		PriorityQueue<Ranked<T>> heap = new PriorityQueue<>(limit + 1, ranking.reversed());
+		for (int i = 0; i < list.size(); i++) {
+			T element = list.get(i);
+			if (!criteria.test(element)) {
+				continue;
+			}
+			if (heap.size() == limit && order.compare(element, heap.peek().element) >= 0) {
+				continue;
+			}
+			if (!authorization.test(element)) {
+				continue;
+			}
+			heap.add(new Ranked<>(element, i));
+			if (heap.size() > limit) {
+				heap.poll();
+			}
+		}
+		List<Ranked<T>> ranked = new ArrayList<>(heap);
+		ranked.sort(ranking);
+		List<T> result = new ArrayList<>(ranked.size());
+		for (Ranked<T> r : ranked) {
+			result.add(r.element);
+		}
+		return result;
+	}
+
+	/**
+	 * An element together with its position in the original list.
+	 */
+	private static class Ranked<T> {
+
+		final T element;
+		final int position;
+
+		Ranked(T element, int position) {
+			this.element = element;
+			this.position = position;
+		}
+	}
 	
 	/**
 	 * Null safe compare of two strings.
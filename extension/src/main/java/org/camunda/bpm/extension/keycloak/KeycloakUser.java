@@ -0,0 +1,139 @@
+package org.camunda.bpm.extension.keycloak;
+
+import java.util.Objects;
+
+import org.camunda.bpm.engine.identity.User;
+
+/**
+ * Immutable user as read from Keycloak. Instances are cached and shared between all callers without copying,
+ * the setters of the {@link User} interface therefore throw an {@link UnsupportedOperationException}.
+ */
+public final class KeycloakUser implements User {
+
+	private static final long serialVersionUID = 1L;
+
+	private final String id;
+	private final String firstName;
+	private final String lastName;
+	private final String email;
+
+	/**
+	 * Creates a new user. Names are shared with other users of the same names, IDs and emails are unique anyway.
+	 * @param id the user ID
+	 * @param firstName the first name
+	 * @param lastName the last name
+	 * @param email the email
+	 */
+	public KeycloakUser(String id, String firstName, String lastName, String email) {
+		this.id = id;
+		this.firstName = SharedStrings.intern(firstName);
+		this.lastName = SharedStrings.intern(lastName);
+		this.email = email;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String getId() {
+		return id;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String getFirstName() {
+		return firstName;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String getLastName() {
+		return lastName;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String getEmail() {
+		return email;
+	}
+
+	/**
+	 * Passwords are never read from Keycloak.
+	 * @return {@code null}
+	 */
+	@Override
+	public String getPassword() {
+		return null;
+	}
+
+	/**
+	 * Not supported, users are read-only.
+	 */
+	@Override
+	public void setId(String id) {
+		throw readOnly();
+	}
+
+	/**
+	 * Not supported, users are read-only.
+	 */
+	@Override
+	public void setFirstName(String firstName) {
+		throw readOnly();
+	}
+
+	/**
+	 * Not supported, users are read-only.
+	 */
+	@Override
+	public void setLastName(String lastName) {
+		throw readOnly();
+	}
+
+	/**
+	 * Not supported, users are read-only.
+	 */
+	@Override
+	public void setEmail(String email) {
+		throw readOnly();
+	}
+
+	/**
+	 * Not supported, users are read-only.
+	 */
+	@Override
+	public void setPassword(String password) {
+		throw readOnly();
+	}
+
+	private UnsupportedOperationException readOnly() {
+		return new UnsupportedOperationException("Users read from Keycloak are read-only: " + id);
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) return true;
+		if (o == null || getClass() != o.getClass()) return false;
+		KeycloakUser that = (KeycloakUser) o;
+		return Objects.equals(id, that.id) &&
+						Objects.equals(firstName, that.firstName) &&
+						Objects.equals(lastName, that.lastName) &&
+						Objects.equals(email, that.email);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(id, firstName, lastName, email);
+	}
+
+	@Override
+	public String toString() {
+		return "KeycloakUser[id=" + id + ", firstName=" + firstName + ", lastName=" + lastName + ", email=" + email + "]";
+	}
+}
@@ -8,15 +8,12 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 import org.camunda.bpm.engine.identity.User;
 import org.camunda.bpm.engine.impl.Direction;
 import org.camunda.bpm.engine.impl.QueryOrderingProperty;
 import org.camunda.bpm.engine.impl.UserQueryProperty;
 import org.camunda.bpm.engine.impl.identity.IdentityProviderException;
-import org.camunda.bpm.engine.impl.persistence.entity.UserEntity;
 import org.camunda.bpm.extension.keycloak.json.JsonException;
 import org.camunda.bpm.extension.keycloak.rest.KeycloakRestTemplate;
 import org.camunda.bpm.extension.keycloak.util.KeycloakPluginLogger;
@@ -107,11 +104,12 @@ public class KeycloakUserService extends KeycloakServiceBase {
 	/**
 	 * Requests users of a specific group.
 	 * @param query the user query - including a groupId criteria
-	 * @return list of matching users
+	 * @return list of matching users, a {@link KeycloakResult} unless the group does not exist
 	 */
 	public List<User> requestUsersByGroupId(CacheableKeycloakUserQuery query) {
 		String groupId = query.getGroupId();
 		List<User> userList = new ArrayList<>();
+		boolean truncated;
 
 		try {
 			//  get Keycloak specific groupID
@@ -134,6 +132,7 @@ public class KeycloakUserService extends KeycloakServiceBase {
 			}
 
 			JsonArray searchResult = parseAsJsonArray(response.getBody());
+			truncated = isTruncated(searchResult);
 			for (int i = 0; i < searchResult.size(); i++) {
 				JsonObject keycloakUser = getJsonObjectAtIndex(searchResult, i);
 				if (keycloakConfiguration.isUseEmailAsCamundaUserId() && 
@@ -157,16 +156,17 @@ public class KeycloakUserService extends KeycloakServiceBase {
 			throw new IdentityProviderException("Unable to query members of group " + groupId, rce);
 		}
 
-		return userList;
+		return new KeycloakResult<>(userList, truncated);
 	}
 
 	/**
 	 * Requests users.
 	 * @param query the user query - not including a groupId criteria
-	 * @return list of matching users
+	 * @return list of matching users as {@link KeycloakResult}
 	 */
 	public List<User> requestUsersWithoutGroupId(CacheableKeycloakUserQuery query) {
 		List<User> userList = new ArrayList<>();
+		boolean truncated;
 
 		try {
 			// get members of this group
@@ -174,8 +174,6 @@ public class KeycloakUserService extends KeycloakServiceBase {
 
 			if (StringUtils.hasLength(query.getId())) {
 				response = requestUserById(query.getId());
-			} else if (query.getIds() != null && query.getIds().length == 1) {
-				response = requestUserById(query.getIds()[0]);
 			} else {
 				// Create user search filter
 				String userFilter = createUserSearchFilter(query);
@@ -188,6 +186,7 @@ public class KeycloakUserService extends KeycloakServiceBase {
 			}
 
 			JsonArray searchResult = parseAsJsonArray(response.getBody());
+			truncated = !StringUtils.hasLength(query.getId()) && isTruncated(searchResult);
 			for (int i = 0; i < searchResult.size(); i++) {
 				JsonObject keycloakUser = getJsonObjectAtIndex(searchResult, i);
 				if (keycloakConfiguration.isUseEmailAsCamundaUserId() && 
@@ -206,7 +205,7 @@ public class KeycloakUserService extends KeycloakServiceBase {
 			throw new IdentityProviderException("Unable to query users", rce);
 		}
 
-		return userList;
+		return new KeycloakResult<>(userList, truncated);
 	}
 
 	/**
@@ -217,30 +216,18 @@ public class KeycloakUserService extends KeycloakServiceBase {
 	 * @return final result with the client side filtered, sorted and paginated list of users
 	 */
 	public List<User> postProcessResults(KeycloakUserQuery query, List<User> userList, StringBuilder resultLogger) {
-		// apply client side filtering
-		Stream<User> processed = userList.stream().filter(user -> isValid(query, user, resultLogger));
-
-		// sort users according to query criteria
-		if (query.getOrderingProperties().size() > 0) {
-			processed = processed.sorted(new UserComparator(query.getOrderingProperties()));
-		}
-
-		// paging
-		if ((query.getFirstResult() > 0) || (query.getMaxResults() < Integer.MAX_VALUE)) {
-			processed = processed.skip(query.getFirstResult()).limit(query.getMaxResults());
-		}
-
-		return processed.collect(Collectors.toList());
+		Comparator<User> order = query.getOrderingProperties().isEmpty() ? null : new UserComparator(query.getOrderingProperties());
+		return filterSortAndPage(userList, user -> matches(query, user), user -> isReadable(user, resultLogger), order,
+				query.getFirstResult(), query.getMaxResults());
 	}
 
 	/**
-	 * Post processing query filter. Checks if a single user is valid.
+	 * Post processing query filter. Checks if a single user matches the query criteria.
 	 * @param query the original query
 	 * @param user the user to validate
-	 * @param resultLogger the log accumulator
-	 * @return a boolean indicating if the user is valid for current query
+	 * @return a boolean indicating if the user matches the current query
 	 */
-	private boolean isValid(KeycloakUserQuery query, User user, StringBuilder resultLogger) {
+	private boolean matches(KeycloakUserQuery query, User user) {
 		// client side check of further query filters
 		// beware: looks like most attributes are treated as 'like' queries on Keycloak
 		//         and must therefore be seen as a sort of pre-filter only
@@ -252,7 +239,16 @@ public class KeycloakUserService extends KeycloakServiceBase {
 		if (!matchesLike(query.getFirstNameLike(), user.getFirstName())) return false;
 		if (!matches(query.getLastName(), user.getLastName())) return false;
 		if (!matchesLike(query.getLastNameLike(), user.getLastName())) return false;
+		return true;
+	}
 
+	/**
+	 * Post processing authorization check. Checks if a single user may be read.
+	 * @param user the user to validate
+	 * @param resultLogger the log accumulator
+	 * @return a boolean indicating if the user is visible to the current user
+	 */
+	private boolean isReadable(User user, StringBuilder resultLogger) {
 		if(isAuthenticatedUser(user.getId()) || isAuthorized(READ, USER, user.getId())) {
 			if (KeycloakPluginLogger.INSTANCE.isDebugEnabled()) {
 				resultLogger.append(user);
@@ -271,24 +267,18 @@ public class KeycloakUserService extends KeycloakServiceBase {
 	 */
 	private String createUserSearchFilter(CacheableKeycloakUserQuery query) {
 		StringBuilder filter = new StringBuilder();
-		if (StringUtils.hasLength(query.getEmail())) {
-			addArgument(filter, "email", query.getEmail());
+		if (query.isExact()) {
+			addArgument(filter, "exact", "true");
 		}
-		if (StringUtils.hasLength(query.getEmailLike())) {
-			addArgument(filter, "email", query.getEmailLike().replaceAll("[%,\\*]", ""));
+		if (query.getEmail() != null) {
+			addArgument(filter, "email", query.getEmail());
 		}
-		if (StringUtils.hasLength(query.getFirstName())) {
+		if (query.getFirstName() != null) {
 			addArgument(filter, "firstName", query.getFirstName());
 		}
-		if (StringUtils.hasLength(query.getFirstNameLike())) {
-			addArgument(filter, "firstName", query.getFirstNameLike().replaceAll("[%,\\*]", ""));
-		}
-		if (StringUtils.hasLength(query.getLastName())) {
+		if (query.getLastName() != null) {
 			addArgument(filter, "lastName", query.getLastName());
 		}
-		if (StringUtils.hasLength(query.getLastNameLike())) {
-			addArgument(filter, "lastName", query.getLastNameLike().replaceAll("[%,\\*]", ""));
-		}
 		addArgument(filter, "max", getMaxQueryResultSize());
 		if (filter.length() > 0) {
 			filter.insert(0, "?");
@@ -337,28 +327,28 @@ public class KeycloakUserService extends KeycloakServiceBase {
 	 * @return the User object
 	 * @throws JsonException in case of errors
 	 */
-	private UserEntity transformUser(JsonObject result) throws JsonException {
-		UserEntity user = new UserEntity();
+	protected KeycloakUser transformUser(JsonObject result) throws JsonException {
+		String email = getJsonString(result, "email");
+		String id;
 		if (keycloakConfiguration.isUseEmailAsCamundaUserId()) {
-			user.setId(getJsonString(result, "email"));
+			id = email;
 		} else if (keycloakConfiguration.isUseUsernameAsCamundaUserId()) {
-			user.setId(getJsonString(result, "username"));
+			id = getJsonString(result, "username");
 		} else {
-			user.setId(getJsonString(result, "id"));
+			id = getJsonString(result, "id");
 		}
-		user.setFirstName(getJsonString(result, "firstName"));
-		user.setLastName(getJsonString(result, "lastName"));
-		if (!StringUtils.hasLength(user.getFirstName()) && !StringUtils.hasLength(user.getLastName())) {
-			user.setFirstName(getJsonString(result, "username"));
+		String firstName = getJsonString(result, "firstName");
+		String lastName = getJsonString(result, "lastName");
+		if (!StringUtils.hasLength(firstName) && !StringUtils.hasLength(lastName)) {
+			firstName = getJsonString(result, "username");
 		}
-		user.setEmail(getJsonString(result, "email"));
-		return user;
+		return new KeycloakUser(id, firstName, lastName, email);
 	}
 
 	/**
 	 * Helper for client side user ordering.
 	 */
-	private static class UserComparator implements Comparator<User> {
+	static class UserComparator implements Comparator<User> {
 		private final static int USER_ID = 0;
 		private final static int EMAIL = 1;
 		private final static int FIRST_NAME = 2;
@@ -0,0 +1,263 @@
+package org.camunda.bpm.extension.keycloak;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.LongSupplier;
+
+/**
+ * Bidirectional index of group memberships as read from Keycloak: the groups of users ({@code /users/{id}/groups})
+ * and the members of groups ({@code /groups/{id}/members}).
+ * <p>
+ * Both endpoints describe the same edges. Each listing is complete for its own user or group, but also states for
+ * every edge it covers whether it exists at the time of the request. An edge is decided by the most recent listing
+ * covering it, so a cached listing of one direction can be updated by a newer listing of the other direction, e.g.
+ * the groups of a user by a member listing of a group read after the user has been added to it.
+ * <p>
+ * Listings expire after the cache expiration timeout. The number of listings per direction is bounded by the
+ * maximum cache size, the oldest listings are evicted. Listings truncated to maxResultSize are incomplete
+ * and therefore not indexed, truncation is judged by the Keycloak response (see {@link KeycloakResult}).
+ */
+public class MembershipIndex {
+
+	private final Direction groupsOfUsers;
+	private final Direction membersOfGroups;
+	private final long expirationNanos;
+	private final LongSupplier clock;
+
+	/**
+	 * Creates a new membership index.
+	 * @param maxSize the maximum number of listings per direction, {@code 0} to index nothing
+	 * @param expirationTimeout the time after which a listing is no longer used
+	 */
+	public MembershipIndex(int maxSize, Duration expirationTimeout) {
+		this(maxSize, expirationTimeout, System::nanoTime);
+	}
+
+	/**
+	 * Creates a new membership index.
+	 * @param maxSize the maximum number of listings per direction, {@code 0} to index nothing
+	 * @param expirationTimeout the time after which a listing is no longer used
+	 * @param clock the clock in nanoseconds
+	 */
+	MembershipIndex(int maxSize, Duration expirationTimeout, LongSupplier clock) {
+		this.groupsOfUsers = new Direction(maxSize);
+		this.membersOfGroups = new Direction(maxSize);
+		this.expirationNanos = expirationTimeout.toNanos();
+		this.clock = clock;
+	}
+
+	/**
+	 * @return an index without any listings, used in case caching is disabled
+	 */
+	public static MembershipIndex none() {
+		return new MembershipIndex(0, Duration.ZERO);
+	}
+
+	/**
+	 * @return the current time of the index, to be taken before requesting a listing
+	 */
+	public long now() {
+		return clock.getAsLong();
+	}
+
+	/**
+	 * Records the groups of a user.
+	 * @param userId the user ID
+	 * @param observedAt the time of the request as returned by {@link #now()}
+	 * @param groupIds the IDs of the user's groups
+	 * @param complete {@code false} if the listing has been truncated, removes the user's listing
+	 */
+	public synchronized void recordGroupsOfUser(String userId, long observedAt, Collection<String> groupIds, boolean complete) {
+		groupsOfUsers.record(userId, observedAt, groupIds, complete);
+	}
+
+	/**
+	 * Records the members of a group.
+	 * @param groupId the group ID
+	 * @param observedAt the time of the request as returned by {@link #now()}
+	 * @param userIds the IDs of the group's members
+	 * @param complete {@code false} if the listing has been truncated, removes the group's listing
+	 */
+	public synchronized void recordMembersOfGroup(String groupId, long observedAt, Collection<String> userIds, boolean complete) {
+		membersOfGroups.record(groupId, observedAt, userIds, complete);
+	}
+
+	/**
+	 * Determines the changes of the groups of a user according to member listings newer than the user's listing.
+	 * @param userId the user ID
+	 * @return the changes, {@link Changes#NONE} if the user's listing is unknown or up to date
+	 */
+	public synchronized Changes groupsOfUser(String userId) {
+		return changes(userId, groupsOfUsers, membersOfGroups);
+	}
+
+	/**
+	 * Determines the changes of the members of a group according to group listings newer than the group's listing.
+	 * @param groupId the group ID
+	 * @return the changes, {@link Changes#NONE} if the group's listing is unknown or up to date
+	 */
+	public synchronized Changes membersOfGroup(String groupId) {
+		return changes(groupId, membersOfGroups, groupsOfUsers);
+	}
+
+	/**
+	 * Removes all listings.
+	 */
+	public synchronized void clear() {
+		groupsOfUsers.clear();
+		membersOfGroups.clear();
+	}
+
+	private Changes changes(String id, Direction own, Direction other) {
+		Listing listing = own.listings.get(id);
+		if (listing == null || isExpired(listing)) {
+			return Changes.NONE;
+		}
+		Set<String> added = new HashSet<>();
+		Set<String> removed = new HashSet<>();
+		// edges of the listing contradicted by a newer listing of the other side
+		for (String otherId : listing.ids) {
+			Listing newer = newerListing(other, otherId, listing);
+			if (newer != null && !newer.ids.contains(id)) {
+				removed.add(otherId);
+			}
+		}
+		// edges missing in the listing, stated by a newer listing of the other side
+		for (String otherId : other.containing.getOrDefault(id, Collections.emptySet())) {
+			if (!listing.ids.contains(otherId) && newerListing(other, otherId, listing) != null) {
+				added.add(otherId);
+			}
+		}
+		return added.isEmpty() && removed.isEmpty() ? Changes.NONE : new Changes(added, removed);
+	}
+
+	private Listing newerListing(Direction direction, String id, Listing than) {
+		Listing listing = direction.listings.get(id);
+		return listing != null && listing.observedAt - than.observedAt > 0 && !isExpired(listing) ? listing : null;
+	}
+
+	private boolean isExpired(Listing listing) {
+		return clock.getAsLong() - listing.observedAt >= expirationNanos;
+	}
+
+	/**
+	 * Changes of a listing.
+	 */
+	public static final class Changes {
+
+		/** No changes. */
+		public static final Changes NONE = new Changes(Collections.emptySet(), Collections.emptySet());
+
+		private final Set<String> added;
+		private final Set<String> removed;
+
+		private Changes(Set<String> added, Set<String> removed) {
+			this.added = added;
+			this.removed = removed;
+		}
+
+		/**
+		 * @return {@code true} if the listing is up to date
+		 */
+		public boolean isEmpty() {
+			return added.isEmpty() && removed.isEmpty();
+		}
+
+		/**
+		 * @return the IDs missing in the listing
+		 */
+		public Set<String> getAdded() {
+			return added;
+		}
+
+		/**
+		 * @return the IDs no longer valid in the listing
+		 */
+		public Set<String> getRemoved() {
+			return removed;
+		}
+	}
+
+	/**
+	 * A complete listing of the edges of a single user or group.
+	 */
+	private static final class Listing {
+
+		final long observedAt;
+		final Set<String> ids;
+
+		Listing(long observedAt, Set<String> ids) {
+			this.observedAt = observedAt;
+			this.ids = ids;
+		}
+	}
+
+	/**
+	 * The listings of one direction, oldest first, and the reverse of their edges.
+	 */
+	private static final class Direction {
+
+		final int maxSize;
+		final Map<String, Listing> listings;
+		/** ID of the other side -> IDs of the listings containing it */
+		final Map<String, Set<String>> containing = new HashMap<>();
+
+		Direction(int maxSize) {
+			this.maxSize = maxSize;
+			this.listings = new LinkedHashMap<String, Listing>() {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<String, Listing> eldest) {
+					if (size() > maxSize) {
+						unlink(eldest.getKey(), eldest.getValue());
+						return true;
+					}
+					return false;
+				}
+			};
+		}
+
+		void record(String id, long observedAt, Collection<String> ids, boolean complete) {
+			if (maxSize == 0) {
+				return;
+			}
+			Listing previous = listings.get(id);
+			if (previous != null && previous.observedAt - observedAt > 0) {
+				// a newer listing has been recorded by a concurrent request
+				return;
+			}
+			if (previous != null) {
+				listings.remove(id);
+				unlink(id, previous);
+			}
+			if (complete) {
+				Listing listing = new Listing(observedAt, new HashSet<>(ids));
+				for (String otherId : listing.ids) {
+					containing.computeIfAbsent(otherId, k -> new HashSet<>()).add(id);
+				}
+				listings.put(id, listing);
+			}
+		}
+
+		void unlink(String id, Listing listing) {
+			for (String otherId : listing.ids) {
+				Set<String> ids = containing.get(otherId);
+				if (ids != null && ids.remove(id) && ids.isEmpty()) {
+					containing.remove(otherId);
+				}
+			}
+		}
+
+		void clear() {
+			listings.clear();
+			containing.clear();
+		}
+	}
+}
@@ -0,0 +1,24 @@
+package org.camunda.bpm.extension.keycloak;
+
+import com.github.benmanes.caffeine.cache.Interner;
+
+/**
+ * Canonical instances of strings repeated across many users and groups, e.g. common first and last names or
+ * group names reused in several branches of the group tree. Each JSON response otherwise yields its own copies.
+ * Canonical instances are weakly referenced and released as soon as no user or group refers to them anymore.
+ */
+final class SharedStrings {
+
+	private static final Interner<String> POOL = Interner.newWeakInterner();
+
+	private SharedStrings() {
+	}
+
+	/**
+	 * @param value the string, may be {@code null}
+	 * @return the canonical instance of the string
+	 */
+	static String intern(String value) {
+		return value != null ? POOL.intern(value) : null;
+	}
+}
@@ -0,0 +1,27 @@
+package org.camunda.bpm.extension.keycloak;
+
+/**
+ * Tracks whether the unfiltered group query returns the subgroups of all groups. Keycloak 23 and later return only
+ * top level groups unless subgroups are enforced, older versions return the whole group tree. Only then filtered
+ * group queries can be answered from the unfiltered result. Shared by all sessions of a process engine, the latest
+ * response is decisive.
+ */
+public class SubgroupVisibility {
+
+	private volatile boolean complete;
+
+	/**
+	 * @param complete whether the latest response of the unfiltered group query contained all subgroups
+	 */
+	public void record(boolean complete) {
+		this.complete = complete;
+	}
+
+	/**
+	 * @return whether the latest response of the unfiltered group query contained all subgroups,
+	 *   {@code false} as long as there has been none
+	 */
+	public boolean isComplete() {
+		return complete;
+	}
+}
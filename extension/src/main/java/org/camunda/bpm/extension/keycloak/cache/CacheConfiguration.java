@@ -12,11 +12,13 @@ public class CacheConfiguration {
 	private final boolean enabled;
 	private final int maxSize;
 	private final Duration expirationTimeout;
+	private final boolean coalescing;
 
-	private CacheConfiguration(boolean enabled, int maxSize, Duration expirationTimeout) {
+	private CacheConfiguration(boolean enabled, int maxSize, Duration expirationTimeout, boolean coalescing) {
 		this.enabled = enabled;
 		this.maxSize = maxSize;
 		this.expirationTimeout = expirationTimeout;
+		this.coalescing = coalescing;
 	}
 
 	/**
@@ -26,7 +28,8 @@ public class CacheConfiguration {
 	 */
 	public static CacheConfiguration from(KeycloakConfiguration keycloakConfiguration) {
 		return new CacheConfiguration(keycloakConfiguration.isCacheEnabled(),
-						keycloakConfiguration.getMaxCacheSize(), Duration.ofMinutes(keycloakConfiguration.getCacheExpirationTimeoutMin()));
+						keycloakConfiguration.getMaxCacheSize(), Duration.ofMinutes(keycloakConfiguration.getCacheExpirationTimeoutMin()),
+						keycloakConfiguration.isRequestCoalescingEnabled());
 	}
 
 	/**
@@ -36,9 +39,20 @@ public class CacheConfiguration {
 	 */
 	public static CacheConfiguration fromLoginConfigOf(KeycloakConfiguration keycloakConfiguration) {
 		return new CacheConfiguration(keycloakConfiguration.isLoginCacheEnabled(), keycloakConfiguration.getLoginCacheSize(), 
-				Duration.ofMinutes(keycloakConfiguration.getLoginCacheExpirationTimeoutMin()));
+				Duration.ofMinutes(keycloakConfiguration.getLoginCacheExpirationTimeoutMin()), false);
 	}
 	
+	/**
+	 * Creates a new group hierarchy cache configuration out of the overal Keycloak configuration. The single entry
+	 * is refreshed after the query cache expiration timeout, even in case query caching is disabled.
+	 * @param keycloakConfiguration the Keycloak Identity Provider configuration.
+	 * @return the resulting group hierarchy cache configuration
+	 */
+	public static CacheConfiguration fromGroupHierarchyConfigOf(KeycloakConfiguration keycloakConfiguration) {
+		return new CacheConfiguration(keycloakConfiguration.isInheritParentGroupMembership(), 1,
+				Duration.ofMinutes(keycloakConfiguration.getCacheExpirationTimeoutMin()), true);
+	}
+
 	public boolean isEnabled() {
 		return enabled;
 	}
@@ -50,4 +64,11 @@ public class CacheConfiguration {
 	public Duration getExpirationTimeout() {
 		return expirationTimeout;
 	}
+
+	/**
+	 * @return whether concurrent computations of the same key are merged in case caching is disabled
+	 */
+	public boolean isCoalescing() {
+		return coalescing;
+	}
 }
@@ -1,5 +1,7 @@
 package org.camunda.bpm.extension.keycloak.cache;
 
+import java.util.List;
+
 /**
  * Factory for creating a QueryCache.
  */
@@ -7,6 +9,8 @@ public class CacheFactory {
 
   /**
    * Creates implementations of QueryCache based on the provided configuration.
+   * Without caching, concurrent computations of the same key may still be merged (see {@link CoalescingCache}),
+   * Caffeine does so by itself.
    * 
    * @param configuration the configuration defining the caching behavior
    * @return The created QueryCache implementation
@@ -14,8 +18,22 @@ public class CacheFactory {
   public static <K, V> QueryCache<K, V> create(CacheConfiguration configuration) {
     if (configuration.isEnabled()) {
       return new CaffeineCache<>(configuration);
+    } else if (configuration.isCoalescing()) {
+      return new CoalescingCache<>(new PassThroughCache<>());
     } else {
       return new PassThroughCache<>();
     }
   }
+
+  /**
+   * Creates implementations of QueryCache for lists of immutable values, e.g. users or groups. In case caching is
+   * enabled, equal elements of different entries are stored only once (see {@link FlyweightCache}).
+   * 
+   * @param configuration the configuration defining the caching behavior
+   * @return The created QueryCache implementation
+   */
+  public static <K, E> QueryCache<K, List<E>> createForValues(CacheConfiguration configuration) {
+    QueryCache<K, List<E>> cache = create(configuration);
+    return configuration.isEnabled() ? new FlyweightCache<>(cache) : cache;
+  }
 }
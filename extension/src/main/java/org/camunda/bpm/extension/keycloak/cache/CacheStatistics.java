@@ -0,0 +1,97 @@
+package org.camunda.bpm.extension.keycloak.cache;
+
+/**
+ * Immutable snapshot of the statistics of a QueryCache.
+ */
+public class CacheStatistics {
+
+	/** Statistics of a cache not recording anything. */
+	public static final CacheStatistics EMPTY = new CacheStatistics(0, 0, 0, 0, 0, 0, 0);
+
+	private final long hitCount;
+	private final long missCount;
+	private final long loadSuccessCount;
+	private final long loadFailureCount;
+	private final long totalLoadTimeNanos;
+	private final long evictionCount;
+	private final long size;
+
+	/**
+	 * Creates a new statistics snapshot.
+	 * @param hitCount number of lookups answered from the cache
+	 * @param missCount number of lookups which had to compute a value
+	 * @param loadSuccessCount number of successful computations
+	 * @param loadFailureCount number of computations which threw an exception
+	 * @param totalLoadTimeNanos total time in nanoseconds spent computing values
+	 * @param evictionCount number of evicted entries
+	 * @param size the (estimated) number of entries currently held
+	 */
+	public CacheStatistics(long hitCount, long missCount, long loadSuccessCount, long loadFailureCount,
+			long totalLoadTimeNanos, long evictionCount, long size) {
+		this.hitCount = hitCount;
+		this.missCount = missCount;
+		this.loadSuccessCount = loadSuccessCount;
+		this.loadFailureCount = loadFailureCount;
+		this.totalLoadTimeNanos = totalLoadTimeNanos;
+		this.evictionCount = evictionCount;
+		this.size = size;
+	}
+
+	public long getHitCount() {
+		return hitCount;
+	}
+
+	public long getMissCount() {
+		return missCount;
+	}
+
+	public long getRequestCount() {
+		return hitCount + missCount;
+	}
+
+	/**
+	 * @return ratio of lookups answered from the cache, {@code 1.0} if there were no lookups at all
+	 */
+	public double getHitRate() {
+		long requestCount = getRequestCount();
+		return requestCount == 0 ? 1.0 : (double) hitCount / requestCount;
+	}
+
+	public long getLoadSuccessCount() {
+		return loadSuccessCount;
+	}
+
+	public long getLoadFailureCount() {
+		return loadFailureCount;
+	}
+
+	public long getTotalLoadTimeNanos() {
+		return totalLoadTimeNanos;
+	}
+
+	/**
+	 * @return average time in nanoseconds spent computing a value, {@code 0.0} if nothing has been computed yet
+	 */
+	public double getAverageLoadPenaltyNanos() {
+		long loadCount = loadSuccessCount + loadFailureCount;
+		return loadCount == 0 ? 0.0 : (double) totalLoadTimeNanos / loadCount;
+	}
+
+	public long getEvictionCount() {
+		return evictionCount;
+	}
+
+	public long getSize() {
+		return size;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String toString() {
+		return "CacheStatistics [hitCount=" + hitCount + ", missCount=" + missCount + ", loadSuccessCount="
+				+ loadSuccessCount + ", loadFailureCount=" + loadFailureCount + ", totalLoadTimeNanos="
+				+ totalLoadTimeNanos + ", evictionCount=" + evictionCount + ", size=" + size + "]";
+	}
+}
@@ -3,6 +3,7 @@ package org.camunda.bpm.extension.keycloak.cache;
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
 import com.github.benmanes.caffeine.cache.Ticker;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
 
 import java.util.concurrent.ConcurrentMap;
 import java.util.function.Function;
@@ -30,7 +31,7 @@ public class CaffeineCache<K, V> implements QueryCache<K, V> {
 	 */
 	public CaffeineCache(CacheConfiguration config, Ticker ticker) {
 		this.cache = Caffeine.newBuilder().ticker(ticker).maximumSize(config.getMaxSize())
-				.expireAfterWrite(config.getExpirationTimeout()).build();
+				.expireAfterWrite(config.getExpirationTimeout()).recordStats().build();
 	}
 
 	/**
@@ -41,6 +42,15 @@ public class CaffeineCache<K, V> implements QueryCache<K, V> {
 		return this.cache.get(key, computation);
 	}
 
+	/**
+	 * {@inheritDoc}
+	 * Absent entries are not recorded as cache misses, since callers typically continue with {@link #getOrCompute}.
+	 */
+	@Override
+	public V getIfPresent(K key) {
+		return this.cache.policy().getIfPresentQuietly(key) != null ? this.cache.getIfPresent(key) : null;
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -49,6 +59,16 @@ public class CaffeineCache<K, V> implements QueryCache<K, V> {
 		this.cache.invalidateAll();
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public CacheStatistics getStatistics() {
+		CacheStats stats = this.cache.stats();
+		return new CacheStatistics(stats.hitCount(), stats.missCount(), stats.loadSuccessCount(),
+				stats.loadFailureCount(), stats.totalLoadTime(), stats.evictionCount(), this.cache.estimatedSize());
+	}
+
 	/**
 	 * To be used in tests to trigger any pending eviction tasks. This is required
 	 * since caffeine performs these asynchronously. To make tests predictable and
@@ -0,0 +1,108 @@
+package org.camunda.bpm.extension.keycloak.cache;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import org.camunda.bpm.engine.impl.identity.IdentityProviderException;
+import org.camunda.bpm.extension.keycloak.concurrent.RequestDeadline;
+
+/**
+ * A QueryCache decorator merging concurrent computations of the same key (single flight): while a value is
+ * being computed, further callers for an equal key wait for and share its result - or its exception -
+ * instead of sending an identical request to Keycloak. Waiting is bounded by the {@link RequestDeadline} of the
+ * caller.
+ * <p>
+ * Intended for caches not coalescing by themselves, e.g. the {@link PassThroughCache}. Coalesced lookups are
+ * recorded as hits in the statistics, since they have been answered without a request.
+ */
+public class CoalescingCache<K, V> implements QueryCache<K, V> {
+
+	private final QueryCache<K, V> delegate;
+	private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+	private final LongAdder coalescedCount = new LongAdder();
+
+	/**
+	 * Creates a new coalescing cache.
+	 * @param delegate the cache computing the values
+	 */
+	public CoalescingCache(QueryCache<K, V> delegate) {
+		this.delegate = delegate;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public V getOrCompute(K key, Function<K, V> computation) {
+		CompletableFuture<V> flight = new CompletableFuture<>();
+		CompletableFuture<V> leader = inFlight.putIfAbsent(key, flight);
+		if (leader != null) {
+			coalescedCount.increment();
+			return awaitLeader(leader);
+		}
+		try {
+			V result = delegate.getOrCompute(key, computation);
+			flight.complete(result);
+			return result;
+		} catch (RuntimeException | Error e) {
+			flight.completeExceptionally(e);
+			throw e;
+		} finally {
+			inFlight.remove(key, flight);
+		}
+	}
+
+	/**
+	 * Waits for the computation of another caller, at most until the deadline of the calling operation.
+	 */
+	private V awaitLeader(CompletableFuture<V> leader) {
+		try {
+			return leader.get(Math.max(0, RequestDeadline.remainingNanos()), TimeUnit.NANOSECONDS);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			} else if (e.getCause() instanceof Error) {
+				throw (Error) e.getCause();
+			}
+			throw new IdentityProviderException("Unable to query Keycloak", e.getCause());
+		} catch (TimeoutException e) {
+			throw new IdentityProviderException("Timeout: waiting for a concurrent query to Keycloak exceeded the deadline");
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IdentityProviderException("Interrupted while waiting for a concurrent query to Keycloak", e);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public V getIfPresent(K key) {
+		return delegate.getIfPresent(key);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void clear() {
+		delegate.clear();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public CacheStatistics getStatistics() {
+		CacheStatistics statistics = delegate.getStatistics();
+		return new CacheStatistics(statistics.getHitCount() + coalescedCount.sum(), statistics.getMissCount(),
+				statistics.getLoadSuccessCount(), statistics.getLoadFailureCount(), statistics.getTotalLoadTimeNanos(),
+				statistics.getEvictionCount(), statistics.getSize());
+	}
+}
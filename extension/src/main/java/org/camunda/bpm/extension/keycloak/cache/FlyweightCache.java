@@ -0,0 +1,82 @@
+package org.camunda.bpm.extension.keycloak.cache;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+import org.camunda.bpm.extension.keycloak.KeycloakResult;
+
+import com.github.benmanes.caffeine.cache.Interner;
+
+/**
+ * A QueryCache decorator storing each distinct element of the cached lists only once (flyweight): equal elements
+ * computed for different keys - e.g. a group contained in the groups of thousands of users - are replaced by a
+ * single canonical instance. Canonical instances are weakly referenced and released as soon as no cached list
+ * contains them anymore.
+ * <p>
+ * Requires immutable elements with value based equality, so that an element changed in Keycloak is a new
+ * instance not shared with outdated entries.
+ */
+public class FlyweightCache<K, E> implements QueryCache<K, List<E>> {
+
+	private final QueryCache<K, List<E>> delegate;
+	private final Interner<E> pool = Interner.newWeakInterner();
+
+	/**
+	 * Creates a new flyweight cache.
+	 * @param delegate the cache storing the lists
+	 */
+	public FlyweightCache(QueryCache<K, List<E>> delegate) {
+		this.delegate = delegate;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public List<E> getOrCompute(K key, Function<K, List<E>> computation) {
+		return delegate.getOrCompute(key, k -> canonicalize(computation.apply(k)));
+	}
+
+	/**
+	 * @return an unmodifiable list of the canonical instances of the elements, keeping the truncation of a
+	 *   {@link KeycloakResult}
+	 */
+	private List<E> canonicalize(List<E> list) {
+		if (list.isEmpty()) {
+			return list;
+		}
+		List<E> result = new ArrayList<>(list.size());
+		for (E element : list) {
+			result.add(pool.intern(element));
+		}
+		return list instanceof KeycloakResult
+				? new KeycloakResult<>(result, KeycloakResult.isTruncated(list))
+				: Collections.unmodifiableList(result);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public List<E> getIfPresent(K key) {
+		return delegate.getIfPresent(key);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void clear() {
+		delegate.clear();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public CacheStatistics getStatistics() {
+		return delegate.getStatistics();
+	}
+}
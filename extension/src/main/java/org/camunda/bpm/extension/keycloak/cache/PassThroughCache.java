@@ -1,18 +1,34 @@
 package org.camunda.bpm.extension.keycloak.cache;
 
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Function;
 
 /**
  * A no-op implementation of the QueryCache.
+ * Every lookup is recorded as a miss in the statistics.
  */
 public class PassThroughCache<K, V> implements QueryCache<K, V> {
-	
+
+	private final LongAdder loadSuccessCount = new LongAdder();
+	private final LongAdder loadFailureCount = new LongAdder();
+	private final LongAdder totalLoadTime = new LongAdder();
+
 	/**
 	 * {@inheritDoc}
 	 */
 	@Override
 	public V getOrCompute(K key, Function<K, V> computation) {
-		return computation.apply(key);
+		long start = System.nanoTime();
+		try {
+			V result = computation.apply(key);
+			loadSuccessCount.increment();
+			return result;
+		} catch (RuntimeException e) {
+			loadFailureCount.increment();
+			throw e;
+		} finally {
+			totalLoadTime.add(System.nanoTime() - start);
+		}
 	}
 
 	/**
@@ -22,4 +38,14 @@ public class PassThroughCache<K, V> implements QueryCache<K, V> {
 	public void clear() {
 		// no-op
 	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public CacheStatistics getStatistics() {
+		long successes = loadSuccessCount.sum();
+		long failures = loadFailureCount.sum();
+		return new CacheStatistics(0, successes + failures, successes, failures, totalLoadTime.sum(), 0, 0);
+	}
 }
@@ -19,8 +19,27 @@ public interface QueryCache<K, V> {
    */
   V getOrCompute(K key, Function<K, V> computation);
 
+  /**
+   * Gets the cached value without computing it in case it is absent.
+   *
+   * @param key The key to lookup the cache with
+   * @return the cached value or {@code null} if the cache does not contain an entry for the key
+   */
+  default V getIfPresent(K key) {
+    return null;
+  }
+
   /**
    * Clear/invalidate all entries in cache.
    */
   void clear();
+
+  /**
+   * Returns a snapshot of the statistics recorded by this cache.
+   *
+   * @return the current cache statistics, {@link CacheStatistics#EMPTY} if the implementation does not record any
+   */
+  default CacheStatistics getStatistics() {
+    return CacheStatistics.EMPTY;
+  }
 }
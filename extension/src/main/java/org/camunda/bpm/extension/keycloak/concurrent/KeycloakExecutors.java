@@ -0,0 +1,124 @@
+package org.camunda.bpm.extension.keycloak.concurrent;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.camunda.bpm.extension.keycloak.KeycloakConfiguration;
+import org.camunda.bpm.extension.keycloak.util.KeycloakPluginLogger;
+
+/**
+ * Creates the executor running outbound Keycloak requests in parallel to the calling engine thread.
+ * <p>
+ * On Java 21 or later virtual threads can be enabled. Blocking on Keycloak then releases the carrier
+ * thread instead of occupying a platform thread. The virtual thread API is accessed reflectively since
+ * the plugin is built for Java 17.
+ */
+public class KeycloakExecutors {
+
+	private static final KeycloakPluginLogger LOG = KeycloakPluginLogger.INSTANCE;
+
+	/** Idle time after which pool threads are released. */
+	private static final long KEEP_ALIVE_SECONDS = 60;
+
+	private KeycloakExecutors() {
+	}
+
+	/**
+	 * Creates the executor: a virtual thread per task in case virtual threads are enabled and supported
+	 * by the runtime, a bounded pool of daemon threads otherwise.
+	 * @param keycloakConfiguration the Keycloak configuration
+	 * @param processEngineName the name of the process engine, used as thread name prefix
+	 * @return the executor
+	 */
+	public static ExecutorService create(KeycloakConfiguration keycloakConfiguration, String processEngineName) {
+		String threadNamePrefix = "keycloak-" + processEngineName + "-";
+		if (keycloakConfiguration.isVirtualThreadsEnabled()) {
+			ExecutorService executor = createVirtualThreadExecutor(threadNamePrefix);
+			if (executor != null) {
+				LOG.executorCreated("virtual threads", processEngineName);
+				return executor;
+			}
+			LOG.virtualThreadsUnavailable(System.getProperty("java.version"));
+		}
+		return createPlatformThreadPool(keycloakConfiguration, threadNamePrefix);
+	}
+
+	/**
+	 * Creates a bounded pool of daemon threads. Its size matches the HTTP connection pool, more
+	 * threads would just wait for a connection.
+	 * @param keycloakConfiguration the Keycloak configuration
+	 * @param threadNamePrefix the thread name prefix
+	 * @return the executor
+	 */
+	static ExecutorService createPlatformThreadPool(KeycloakConfiguration keycloakConfiguration, String threadNamePrefix) {
+		int poolSize = Math.max(1, keycloakConfiguration.getMaxHttpConnections());
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(poolSize, poolSize, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<>(), daemonThreadFactory(threadNamePrefix));
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
+	}
+
+	/**
+	 * Creates the executor sending hedged copies of requests. It does not queue copies, a copy exceeding
+	 * its capacity is rejected right away: it is only useful in case it is sent immediately.
+	 * @param keycloakConfiguration the Keycloak configuration
+	 * @param processEngineName the name of the process engine, used as thread name prefix
+	 * @return the executor
+	 */
+	public static ExecutorService createHedgeExecutor(KeycloakConfiguration keycloakConfiguration, String processEngineName) {
+		int poolSize = Math.max(1, keycloakConfiguration.getMaxHttpConnections());
+		return new ThreadPoolExecutor(0, poolSize, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new SynchronousQueue<>(),
+				daemonThreadFactory("keycloak-" + processEngineName + "-hedge-"));
+	}
+
+	/**
+	 * Creates a scheduler with a single daemon thread for short tasks like starting hedged copies. Cancelled tasks
+	 * are removed right away since most of them never run.
+	 * @param processEngineName the name of the process engine, used as thread name prefix
+	 * @return the scheduler
+	 */
+	public static ScheduledExecutorService createScheduler(String processEngineName) {
+		ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1,
+				daemonThreadFactory("keycloak-" + processEngineName + "-scheduler-"));
+		scheduler.setRemoveOnCancelPolicy(true);
+		return scheduler;
+	}
+
+	/**
+	 * Creates an executor starting a new virtual thread for each task, equivalent to
+	 * {@code Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(prefix, 1).factory())}. The executor
+	 * itself is unbounded, concurrency is limited by the parallelism of the callers and the HTTP connection pool.
+	 * @param threadNamePrefix the thread name prefix
+	 * @return the executor or {@code null} in case the runtime does not support virtual threads
+	 */
+	static ExecutorService createVirtualThreadExecutor(String threadNamePrefix) {
+		try {
+			Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+			Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+			builder = builderType.getMethod("name", String.class, long.class).invoke(builder, threadNamePrefix, 1L);
+			ThreadFactory threadFactory = (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+			return (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+					.invoke(null, threadFactory);
+		} catch (ReflectiveOperationException | LinkageError e) {
+			// Java < 21
+			return null;
+		}
+	}
+
+	private static ThreadFactory daemonThreadFactory(String prefix) {
+		AtomicInteger count = new AtomicInteger();
+		return runnable -> {
+			Thread thread = new Thread(runnable, prefix + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+}
@@ -0,0 +1,133 @@
+package org.camunda.bpm.extension.keycloak.concurrent;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+import org.camunda.bpm.engine.impl.identity.IdentityProviderException;
+import org.camunda.bpm.extension.keycloak.tracing.KeycloakTracing;
+import org.camunda.bpm.extension.keycloak.tracing.NoOpTracing;
+
+/**
+ * Fetches a number of independent entries concurrently, e.g. users by ID. At most {@code parallelism}
+ * entries are fetched at the same time, the calling thread takes part in fetching. If not all entries
+ * have been fetched within the timeout an {@link IdentityProviderException} is thrown.
+ */
+public class ParallelFetcher {
+
+	private final ExecutorService executor;
+	private final int parallelism;
+	private final Duration timeout;
+	private final KeycloakTracing tracing;
+
+	/**
+	 * Creates a new parallel fetcher.
+	 * @param executor the executor running fetches in addition to the calling thread
+	 * @param parallelism maximum number of concurrent fetches per call including the calling thread
+	 * @param timeout maximum duration of a call
+	 * @param tracing tracing propagated to the executor threads
+	 */
+	public ParallelFetcher(ExecutorService executor, int parallelism, Duration timeout, KeycloakTracing tracing) {
+		this.executor = executor;
+		this.parallelism = executor == null ? 1 : Math.max(1, parallelism);
+		this.timeout = timeout;
+		this.tracing = tracing;
+	}
+
+	/**
+	 * @return a fetcher fetching all entries one after the other in the calling thread
+	 */
+	public static ParallelFetcher sequential() {
+		return new ParallelFetcher(null, 1, Duration.ofDays(1), new NoOpTracing());
+	}
+
+	/**
+	 * Fetches all entries.
+	 * @param keys the keys of the entries
+	 * @param fetch the function fetching a single entry
+	 * @return the fetched entries in the order of the keys
+	 * @throws IdentityProviderException in case of a timeout or interruption
+	 * @throws RuntimeException the first exception thrown by a fetch
+	 */
+	@SuppressWarnings("unchecked")
+	public <K, V> List<V> fetchAll(Collection<K> keys, Function<K, V> fetch) {
+		List<K> keyList = new ArrayList<>(keys);
+		int size = keyList.size();
+		if (size <= 1 || parallelism == 1) {
+			List<V> result = new ArrayList<>(size);
+			for (K key : keyList) {
+				result.add(fetch.apply(key));
+			}
+			return result;
+		}
+
+		Object[] results = new Object[size];
+		AtomicInteger next = new AtomicInteger();
+		CountDownLatch done = new CountDownLatch(size);
+		AtomicReference<Throwable> failure = new AtomicReference<>();
+		long deadline = System.nanoTime() + timeout.toNanos();
+		Runnable work = () -> {
+			int i;
+			// stop claiming entries after the deadline, the calling thread reports the timeout
+			while (System.nanoTime() - deadline < 0 && (i = next.getAndIncrement()) < size) {
+				try {
+					results[i] = fetch.apply(keyList.get(i));
+				} catch (Throwable t) {
+					failure.compareAndSet(null, t);
+					// claim all remaining entries: nothing left to do after a failure
+					while (next.getAndIncrement() < size) {
+						done.countDown();
+					}
+				} finally {
+					done.countDown();
+				}
+			}
+		};
+		// requests are not retried beyond the deadline
+		Runnable worker = () -> RequestDeadline.runWithin(deadline, work);
+
+		List<Future<?>> helpers = new ArrayList<>();
+		for (int i = 1; i < Math.min(parallelism, size); i++) {
+			helpers.add(executor.submit(tracing.wrap(() -> {
+				worker.run();
+				return null;
+			})));
+		}
+		try {
+			worker.run();
+			if (!done.await(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+				next.set(size);
+				helpers.forEach(f -> f.cancel(true));
+				throw new IdentityProviderException("Timeout: fetching " + size + " entries from Keycloak took longer than "
+						+ timeout.toMillis() + " ms");
+			}
+		} catch (InterruptedException e) {
+			next.set(size);
+			helpers.forEach(f -> f.cancel(true));
+			Thread.currentThread().interrupt();
+			throw new IdentityProviderException("Interrupted while fetching entries from Keycloak", e);
+		} finally {
+			// helpers still waiting for a thread have nothing left to do
+			helpers.forEach(f -> f.cancel(false));
+		}
+
+		Throwable t = failure.get();
+		if (t instanceof RuntimeException) {
+			throw (RuntimeException) t;
+		} else if (t instanceof Error) {
+			throw (Error) t;
+		} else if (t != null) {
+			throw new IdentityProviderException("Unable to fetch entries from Keycloak", t);
+		}
+		return (List<V>) Arrays.asList(results);
+	}
+}
@@ -0,0 +1,43 @@
+package org.camunda.bpm.extension.keycloak.concurrent;
+
+/**
+ * Deadline of the current operation, e.g. a multi-ID query resolved by {@link ParallelFetcher}, bound to the
+ * threads working on it. Requests to Keycloak must not be retried beyond it.
+ */
+public class RequestDeadline {
+
+	private static final ThreadLocal<Long> DEADLINE = new ThreadLocal<>();
+
+	private RequestDeadline() {
+	}
+
+	/**
+	 * Runs a task with a deadline bound to the current thread. An earlier deadline already bound stays in effect.
+	 * @param deadlineNanos the deadline in terms of {@link System#nanoTime()}
+	 * @param task the task
+	 */
+	public static void runWithin(long deadlineNanos, Runnable task) {
+		Long previous = DEADLINE.get();
+		if (previous == null || deadlineNanos - previous < 0) {
+			DEADLINE.set(deadlineNanos);
+		}
+		try {
+			task.run();
+		} finally {
+			if (previous == null) {
+				DEADLINE.remove();
+			} else {
+				DEADLINE.set(previous);
+			}
+		}
+	}
+
+	/**
+	 * @return the time left until the deadline bound to the current thread in nanoseconds,
+	 *   {@link Long#MAX_VALUE} in case there is none
+	 */
+	public static long remainingNanos() {
+		Long deadline = DEADLINE.get();
+		return deadline == null ? Long.MAX_VALUE : deadline - System.nanoTime();
+	}
+}
@@ -0,0 +1,25 @@
+package org.camunda.bpm.extension.keycloak.metrics;
+
+/**
+ * JMX view on the statistics of a QueryCache.
+ */
+public interface CacheStatisticsMXBean {
+
+	long getHitCount();
+
+	long getMissCount();
+
+	double getHitRate();
+
+	long getLoadSuccessCount();
+
+	long getLoadFailureCount();
+
+	long getTotalLoadTimeNanos();
+
+	double getAverageLoadPenaltyNanos();
+
+	long getEvictionCount();
+
+	long getSize();
+}
@@ -0,0 +1,16 @@
+package org.camunda.bpm.extension.keycloak.metrics;
+
+/**
+ * JMX view on the adaptive limit of concurrent requests to Keycloak.
+ */
+public interface ConcurrencyLimitMXBean {
+
+	/** Current limit of concurrent requests. */
+	int getLimit();
+
+	int getInFlight();
+
+	int getQueued();
+
+	long getRejectedCount();
+}
@@ -0,0 +1,23 @@
+package org.camunda.bpm.extension.keycloak.metrics;
+
+/**
+ * JMX view on the outcomes of hedged GET requests to a single Keycloak endpoint.
+ */
+public interface HedgingStatisticsMXBean {
+
+	long getRequestCount();
+
+	long getNotHedgedCount();
+
+	long getBudgetExhaustedCount();
+
+	long getPrimaryWonCount();
+
+	long getHedgeWonCount();
+
+	/** Share of requests a hedged copy has been sent for. */
+	double getHedgeRate();
+
+	/** Share of hedged requests answered first by the hedged copy. */
+	double getHedgeWinRate();
+}
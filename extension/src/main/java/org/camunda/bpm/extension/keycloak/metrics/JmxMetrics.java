@@ -0,0 +1,358 @@
+package org.camunda.bpm.extension.keycloak.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.camunda.bpm.extension.keycloak.cache.CacheStatistics;
+import org.camunda.bpm.extension.keycloak.cache.QueryCache;
+import org.camunda.bpm.extension.keycloak.rest.ConcurrencyLimitingInterceptor;
+import org.camunda.bpm.extension.keycloak.rest.HedgingInterceptor;
+import org.camunda.bpm.extension.keycloak.util.KeycloakPluginLogger;
+
+/**
+ * An implementation of KeycloakMetrics registering MXBeans at the platform MBean server.
+ * <p>
+ * Object names follow the pattern
+ * {@code org.camunda.bpm.extension.keycloak:type=<type>,engine=<processEngineName>,name=<name>}.
+ */
+public class JmxMetrics implements KeycloakMetrics {
+
+	public static final String DOMAIN = "org.camunda.bpm.extension.keycloak";
+
+	/** The MBean server. */
+	private final MBeanServer mBeanServer;
+
+	/** The name of the process engine. */
+	private final String processEngineName;
+
+	/** Request statistics by method and endpoint. */
+	private final Map<String, RequestStatisticsView> requestStatistics = new ConcurrentHashMap<>();
+
+	/** Hedging statistics by endpoint. */
+	private final Map<String, HedgingStatisticsView> hedgingStatistics = new ConcurrentHashMap<>();
+
+	/**
+	 * Creates new metrics publishing to the platform MBean server.
+	 * @param processEngineName the name of the process engine
+	 */
+	public JmxMetrics(String processEngineName) {
+		this(ManagementFactory.getPlatformMBeanServer(), processEngineName);
+	}
+
+	/**
+	 * Creates new metrics publishing to the given MBean server.
+	 * @param mBeanServer the MBean server
+	 * @param processEngineName the name of the process engine
+	 */
+	public JmxMetrics(MBeanServer mBeanServer, String processEngineName) {
+		this.mBeanServer = mBeanServer;
+		this.processEngineName = processEngineName;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void bindCache(String cacheType, Supplier<QueryCache<?, ?>> cache) {
+		register("QueryCache", cacheType, new CacheStatisticsView(cache));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void recordRequest(String method, String endpoint, String status, long durationNanos) {
+		requestStatisticsOf(method, endpoint).record(status, durationNanos);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void recordResponseSize(String method, String endpoint, long bytes) {
+		requestStatisticsOf(method, endpoint).responseBytes.add(bytes);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void recordHedging(String endpoint, String outcome) {
+		hedgingStatistics.computeIfAbsent("GET " + endpoint, name -> {
+			HedgingStatisticsView view = new HedgingStatisticsView();
+			register("KeycloakHedging", name, view);
+			return view;
+		}).record(outcome);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void bindConcurrencyLimit(ConcurrencyLimitingInterceptor limiter) {
+		register("KeycloakConcurrencyLimit", "http", new ConcurrencyLimitView(limiter));
+	}
+
+	private RequestStatisticsView requestStatisticsOf(String method, String endpoint) {
+		return requestStatistics.computeIfAbsent(method + ' ' + endpoint, name -> {
+			RequestStatisticsView view = new RequestStatisticsView();
+			register("KeycloakRequest", name, view);
+			return view;
+		});
+	}
+
+	/**
+	 * Registers an MBean replacing a previous registration with the same name, e.g. from a former engine.
+	 * @param type the type part of the object name
+	 * @param name the name part of the object name
+	 * @param mBean the MBean
+	 */
+	protected void register(String type, String name, Object mBean) {
+		String objectName = DOMAIN + ":type=" + type + ",engine=" + ObjectName.quote(processEngineName) + ",name=" + ObjectName.quote(name);
+		try {
+			ObjectName on = new ObjectName(objectName);
+			if (mBeanServer.isRegistered(on)) {
+				mBeanServer.unregisterMBean(on);
+			}
+			mBeanServer.registerMBean(mBean, on);
+		} catch (JMException e) {
+			KeycloakPluginLogger.INSTANCE.metricsRegistrationFailed(objectName, e);
+		}
+	}
+
+	/**
+	 * MXBean reading the statistics of a cache on each access.
+	 */
+	public static class CacheStatisticsView implements CacheStatisticsMXBean {
+
+		private final Supplier<QueryCache<?, ?>> cache;
+
+		public CacheStatisticsView(Supplier<QueryCache<?, ?>> cache) {
+			this.cache = cache;
+		}
+
+		private CacheStatistics statistics() {
+			return cache.get().getStatistics();
+		}
+
+		@Override
+		public long getHitCount() {
+			return statistics().getHitCount();
+		}
+
+		@Override
+		public long getMissCount() {
+			return statistics().getMissCount();
+		}
+
+		@Override
+		public double getHitRate() {
+			return statistics().getHitRate();
+		}
+
+		@Override
+		public long getLoadSuccessCount() {
+			return statistics().getLoadSuccessCount();
+		}
+
+		@Override
+		public long getLoadFailureCount() {
+			return statistics().getLoadFailureCount();
+		}
+
+		@Override
+		public long getTotalLoadTimeNanos() {
+			return statistics().getTotalLoadTimeNanos();
+		}
+
+		@Override
+		public double getAverageLoadPenaltyNanos() {
+			return statistics().getAverageLoadPenaltyNanos();
+		}
+
+		@Override
+		public long getEvictionCount() {
+			return statistics().getEvictionCount();
+		}
+
+		@Override
+		public long getSize() {
+			return statistics().getSize();
+		}
+	}
+
+	/**
+	 * MXBean accumulating the statistics of requests to a single endpoint.
+	 */
+	public static class RequestStatisticsView implements RequestStatisticsMXBean {
+
+		private final LongAdder requestCount = new LongAdder();
+		private final LongAdder totalTimeNanos = new LongAdder();
+		private final LongAccumulator maxTimeNanos = new LongAccumulator(Math::max, 0);
+		private final LongAdder successCount = new LongAdder();
+		private final LongAdder clientErrorCount = new LongAdder();
+		private final LongAdder serverErrorCount = new LongAdder();
+		private final LongAdder ioErrorCount = new LongAdder();
+		private final LongAdder responseBytes = new LongAdder();
+
+		void record(String status, long durationNanos) {
+			requestCount.increment();
+			totalTimeNanos.add(durationNanos);
+			maxTimeNanos.accumulate(durationNanos);
+			switch (status.charAt(0)) {
+				case '2':
+				case '3':
+					successCount.increment();
+					break;
+				case '4':
+					clientErrorCount.increment();
+					break;
+				case '5':
+					serverErrorCount.increment();
+					break;
+				default:
+					ioErrorCount.increment();
+			}
+		}
+
+		@Override
+		public long getRequestCount() {
+			return requestCount.sum();
+		}
+
+		@Override
+		public long getTotalTimeNanos() {
+			return totalTimeNanos.sum();
+		}
+
+		@Override
+		public long getMaxTimeNanos() {
+			return maxTimeNanos.get();
+		}
+
+		@Override
+		public double getMeanTimeMillis() {
+			long count = requestCount.sum();
+			return count == 0 ? 0.0 : totalTimeNanos.sum() / 1_000_000.0 / count;
+		}
+
+		@Override
+		public long getSuccessCount() {
+			return successCount.sum();
+		}
+
+		@Override
+		public long getClientErrorCount() {
+			return clientErrorCount.sum();
+		}
+
+		@Override
+		public long getServerErrorCount() {
+			return serverErrorCount.sum();
+		}
+
+		@Override
+		public long getIoErrorCount() {
+			return ioErrorCount.sum();
+		}
+
+		@Override
+		public long getResponseBytes() {
+			return responseBytes.sum();
+		}
+	}
+
+	/**
+	 * MXBean counting the outcomes of hedged requests to a single endpoint.
+	 */
+	public static class HedgingStatisticsView implements HedgingStatisticsMXBean {
+
+		private final Map<String, LongAdder> outcomes = new ConcurrentHashMap<>();
+
+		void record(String outcome) {
+			outcomes.computeIfAbsent(outcome, o -> new LongAdder()).increment();
+		}
+
+		private long count(String outcome) {
+			LongAdder count = outcomes.get(outcome);
+			return count == null ? 0 : count.sum();
+		}
+
+		@Override
+		public long getRequestCount() {
+			return outcomes.values().stream().mapToLong(LongAdder::sum).sum();
+		}
+
+		@Override
+		public long getNotHedgedCount() {
+			return count(HedgingInterceptor.OUTCOME_NOT_HEDGED);
+		}
+
+		@Override
+		public long getBudgetExhaustedCount() {
+			return count(HedgingInterceptor.OUTCOME_BUDGET_EXHAUSTED);
+		}
+
+		@Override
+		public long getPrimaryWonCount() {
+			return count(HedgingInterceptor.OUTCOME_PRIMARY_WON);
+		}
+
+		@Override
+		public long getHedgeWonCount() {
+			return count(HedgingInterceptor.OUTCOME_HEDGE_WON);
+		}
+
+		@Override
+		public double getHedgeRate() {
+			long requests = getRequestCount();
+			return requests == 0 ? 0.0 : (double) (getPrimaryWonCount() + getHedgeWonCount()) / requests;
+		}
+
+		@Override
+		public double getHedgeWinRate() {
+			long hedged = getPrimaryWonCount() + getHedgeWonCount();
+			return hedged == 0 ? 0.0 : (double) getHedgeWonCount() / hedged;
+		}
+	}
+
+	/**
+	 * MXBean reading the state of the concurrency limiter on each access.
+	 */
+	public static class ConcurrencyLimitView implements ConcurrencyLimitMXBean {
+
+		private final ConcurrencyLimitingInterceptor limiter;
+
+		public ConcurrencyLimitView(ConcurrencyLimitingInterceptor limiter) {
+			this.limiter = limiter;
+		}
+
+		@Override
+		public int getLimit() {
+			return limiter.getLimit();
+		}
+
+		@Override
+		public int getInFlight() {
+			return limiter.getInFlight();
+		}
+
+		@Override
+		public int getQueued() {
+			return limiter.getQueued();
+		}
+
+		@Override
+		public long getRejectedCount() {
+			return limiter.getRejectedCount();
+		}
+	}
+}
@@ -0,0 +1,54 @@
+package org.camunda.bpm.extension.keycloak.metrics;
+
+import java.util.function.Supplier;
+
+import org.camunda.bpm.extension.keycloak.cache.QueryCache;
+import org.camunda.bpm.extension.keycloak.rest.ConcurrencyLimitingInterceptor;
+
+/**
+ * The interface for publishing Keycloak plugin metrics to a monitoring system.
+ */
+public interface KeycloakMetrics {
+
+	/**
+	 * Publishes hit, miss, load time, eviction and size metrics of a cache.
+	 *
+	 * @param cacheType the type of the cache, e.g. {@code userQuery}
+	 * @param cache supplier of the cache to observe - the cache instance might be replaced at runtime
+	 */
+	void bindCache(String cacheType, Supplier<QueryCache<?, ?>> cache);
+
+	/**
+	 * Records a request sent to Keycloak.
+	 *
+	 * @param method the HTTP method
+	 * @param endpoint the normalized endpoint template, e.g. {@code /users/{id}/groups}
+	 * @param status the HTTP status code or {@code IO_ERROR} if no response has been received
+	 * @param durationNanos the time until the response has been received
+	 */
+	void recordRequest(String method, String endpoint, String status, long durationNanos);
+
+	/**
+	 * Records the size of a response received from Keycloak.
+	 *
+	 * @param method the HTTP method
+	 * @param endpoint the normalized endpoint template
+	 * @param bytes the size of the response body in bytes
+	 */
+	void recordResponseSize(String method, String endpoint, long bytes);
+
+	/**
+	 * Records the outcome of a GET request subject to hedging.
+	 *
+	 * @param endpoint the normalized endpoint template
+	 * @param outcome whether the request has been hedged and which copy answered first, see {@code HedgingInterceptor}
+	 */
+	void recordHedging(String endpoint, String outcome);
+
+	/**
+	 * Publishes the current limit, in flight and queued requests as well as rejections of the concurrency limiter.
+	 *
+	 * @param limiter the concurrency limiter to observe
+	 */
+	void bindConcurrencyLimit(ConcurrencyLimitingInterceptor limiter);
+}
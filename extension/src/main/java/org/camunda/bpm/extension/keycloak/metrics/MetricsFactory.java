@@ -0,0 +1,34 @@
+package org.camunda.bpm.extension.keycloak.metrics;
+
+import org.camunda.bpm.extension.keycloak.KeycloakConfiguration;
+import org.camunda.bpm.extension.keycloak.util.KeycloakPluginLogger;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Factory for creating KeycloakMetrics.
+ */
+public class MetricsFactory {
+
+	/** Class indicating Micrometer is available on the classpath. */
+	private static final String MICROMETER_REGISTRY_CLASS = "io.micrometer.core.instrument.MeterRegistry";
+
+	/**
+	 * Creates implementations of KeycloakMetrics based on the provided configuration and the classpath:
+	 * Micrometer's global registry is used if present, JMX otherwise.
+	 *
+	 * @param configuration the Keycloak configuration
+	 * @param processEngineName the name of the process engine, used to tag all metrics
+	 * @return the created KeycloakMetrics implementation
+	 */
+	public static KeycloakMetrics create(KeycloakConfiguration configuration, String processEngineName) {
+		if (!configuration.isMetricsEnabled()) {
+			return new NoOpMetrics();
+		}
+		if (ClassUtils.isPresent(MICROMETER_REGISTRY_CLASS, MetricsFactory.class.getClassLoader())) {
+			KeycloakPluginLogger.INSTANCE.metricsActivated("Micrometer", processEngineName);
+			return new MicrometerMetrics(processEngineName);
+		}
+		KeycloakPluginLogger.INSTANCE.metricsActivated("JMX", processEngineName);
+		return new JmxMetrics(processEngineName);
+	}
+}
@@ -0,0 +1,206 @@
+package org.camunda.bpm.extension.keycloak.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.camunda.bpm.extension.keycloak.cache.CacheStatistics;
+import org.camunda.bpm.extension.keycloak.cache.QueryCache;
+import org.camunda.bpm.extension.keycloak.rest.ConcurrencyLimitingInterceptor;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * An implementation of KeycloakMetrics backed by Micrometer.
+ * <p>
+ * All meters are tagged with the name of the process engine ({@code engine}). 
+ * Cache meters are additionally tagged with the type of the cache ({@code cache}),
+ * request meters with HTTP method ({@code method}), endpoint template ({@code endpoint}) and status ({@code status}),
+ * hedging meters with endpoint template and outcome ({@code outcome}).
+ */
+public class MicrometerMetrics implements KeycloakMetrics {
+
+	public static final String TAG_ENGINE = "engine";
+	public static final String TAG_CACHE = "cache";
+	public static final String TAG_METHOD = "method";
+	public static final String TAG_ENDPOINT = "endpoint";
+	public static final String TAG_STATUS = "status";
+	public static final String TAG_OUTCOME = "outcome";
+
+	/** The registry. */
+	private final MeterRegistry registry;
+
+	/** Common tags of all meters. */
+	private final Tags engineTags;
+
+	/** Strong references to all bound state objects - Micrometer itself holds weak references only. */
+	private final List<Object> boundStates = new CopyOnWriteArrayList<>();
+
+	/** Request timers by method, endpoint and status - avoids meter lookups for each request. */
+	private final Map<String, Timer> requestTimers = new ConcurrentHashMap<>();
+
+	/** Response size summaries by method and endpoint. */
+	private final Map<String, DistributionSummary> responseSizes = new ConcurrentHashMap<>();
+
+	/** Hedging counters by endpoint and outcome. */
+	private final Map<String, Counter> hedgingCounters = new ConcurrentHashMap<>();
+
+	/**
+	 * Creates new metrics publishing to Micrometer's global registry.
+	 * @param processEngineName the name of the process engine
+	 */
+	public MicrometerMetrics(String processEngineName) {
+		this(Metrics.globalRegistry, processEngineName);
+	}
+
+	/**
+	 * Creates new metrics publishing to the given registry.
+	 * @param registry the meter registry
+	 * @param processEngineName the name of the process engine
+	 */
+	public MicrometerMetrics(MeterRegistry registry, String processEngineName) {
+		this.registry = registry;
+		this.engineTags = Tags.of(TAG_ENGINE, processEngineName);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void bindCache(String cacheType, Supplier<QueryCache<?, ?>> cache) {
+		Tags tags = engineTags.and(TAG_CACHE, cacheType);
+		removeExisting("keycloak.cache.", tags);
+		boundStates.add(cache);
+
+		FunctionCounter.builder("keycloak.cache.gets", cache, c -> statisticsOf(c).getHitCount())
+				.tags(tags).tag("result", "hit")
+				.description("The number of times cache lookup methods have returned a cached value")
+				.register(registry);
+		FunctionCounter.builder("keycloak.cache.gets", cache, c -> statisticsOf(c).getMissCount())
+				.tags(tags).tag("result", "miss")
+				.description("The number of times cache lookup methods had to compute a value")
+				.register(registry);
+		FunctionCounter.builder("keycloak.cache.loads", cache, c -> statisticsOf(c).getLoadSuccessCount())
+				.tags(tags).tag("result", "success")
+				.description("The number of successfully computed values")
+				.register(registry);
+		FunctionCounter.builder("keycloak.cache.loads", cache, c -> statisticsOf(c).getLoadFailureCount())
+				.tags(tags).tag("result", "failure")
+				.description("The number of failed computations")
+				.register(registry);
+		FunctionTimer.builder("keycloak.cache.load.duration", cache,
+						c -> { CacheStatistics s = statisticsOf(c); return s.getLoadSuccessCount() + s.getLoadFailureCount(); },
+						c -> statisticsOf(c).getTotalLoadTimeNanos(), TimeUnit.NANOSECONDS)
+				.tags(tags)
+				.description("The time spent computing values, i.e. querying Keycloak")
+				.register(registry);
+		FunctionCounter.builder("keycloak.cache.evictions", cache, c -> statisticsOf(c).getEvictionCount())
+				.tags(tags)
+				.description("The number of entries evicted from the cache")
+				.register(registry);
+		Gauge.builder("keycloak.cache.size", cache, c -> statisticsOf(c).getSize())
+				.tags(tags)
+				.description("The estimated number of entries in the cache")
+				.register(registry);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void recordRequest(String method, String endpoint, String status, long durationNanos) {
+		requestTimers.computeIfAbsent(method + ' ' + endpoint + ' ' + status,
+				k -> Timer.builder("keycloak.http.requests")
+						.tags(engineTags).tag(TAG_METHOD, method).tag(TAG_ENDPOINT, endpoint).tag(TAG_STATUS, status)
+						.description("Latency of requests sent to Keycloak")
+						.publishPercentileHistogram()
+						.register(registry))
+				.record(durationNanos, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void recordResponseSize(String method, String endpoint, long bytes) {
+		responseSizes.computeIfAbsent(method + ' ' + endpoint,
+				k -> DistributionSummary.builder("keycloak.http.response.size")
+						.tags(engineTags).tag(TAG_METHOD, method).tag(TAG_ENDPOINT, endpoint)
+						.description("Size of responses received from Keycloak")
+						.baseUnit("bytes")
+						.register(registry))
+				.record(bytes);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void recordHedging(String endpoint, String outcome) {
+		hedgingCounters.computeIfAbsent(endpoint + ' ' + outcome,
+				k -> Counter.builder("keycloak.http.hedging")
+						.tags(engineTags).tag(TAG_METHOD, "GET").tag(TAG_ENDPOINT, endpoint).tag(TAG_OUTCOME, outcome)
+						.description("GET requests subject to hedging by outcome")
+						.register(registry))
+				.increment();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void bindConcurrencyLimit(ConcurrencyLimitingInterceptor limiter) {
+		removeExisting("keycloak.http.concurrency.", engineTags);
+		boundStates.add(limiter);
+
+		Gauge.builder("keycloak.http.concurrency.limit", limiter, ConcurrencyLimitingInterceptor::getLimit)
+				.tags(engineTags)
+				.description("The current limit of concurrent requests to Keycloak")
+				.register(registry);
+		Gauge.builder("keycloak.http.concurrency.in.flight", limiter, ConcurrencyLimitingInterceptor::getInFlight)
+				.tags(engineTags)
+				.description("The number of requests currently sent to Keycloak")
+				.register(registry);
+		Gauge.builder("keycloak.http.concurrency.queued", limiter, ConcurrencyLimitingInterceptor::getQueued)
+				.tags(engineTags)
+				.description("The number of requests waiting for the concurrency limit")
+				.register(registry);
+		FunctionCounter.builder("keycloak.http.concurrency.rejected", limiter, ConcurrencyLimitingInterceptor::getRejectedCount)
+				.tags(engineTags)
+				.description("The number of requests rejected by the concurrency limit")
+				.register(registry);
+	}
+
+	/**
+	 * Removes meters of a previous registration with equal tags, e.g. from a former engine with the same name.
+	 * @param namePrefix the prefix of the meter names
+	 * @param tags the tags to match
+	 */
+	private void removeExisting(String namePrefix, Tags tags) {
+		List<Meter> existing = new ArrayList<>();
+		for (Meter meter : registry.getMeters()) {
+			if (meter.getId().getName().startsWith(namePrefix)
+					&& tags.stream().allMatch(t -> t.getValue().equals(meter.getId().getTag(t.getKey())))) {
+				existing.add(meter);
+			}
+		}
+		existing.forEach(registry::remove);
+	}
+
+	private static CacheStatistics statisticsOf(Supplier<QueryCache<?, ?>> cache) {
+		return cache.get().getStatistics();
+	}
+}
@@ -0,0 +1,52 @@
+package org.camunda.bpm.extension.keycloak.metrics;
+
+import java.util.function.Supplier;
+
+import org.camunda.bpm.extension.keycloak.cache.QueryCache;
+import org.camunda.bpm.extension.keycloak.rest.ConcurrencyLimitingInterceptor;
+
+/**
+ * A no-op implementation of KeycloakMetrics used when metrics are disabled.
+ */
+public class NoOpMetrics implements KeycloakMetrics {
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void bindCache(String cacheType, Supplier<QueryCache<?, ?>> cache) {
+		// no-op
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void recordRequest(String method, String endpoint, String status, long durationNanos) {
+		// no-op
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void recordResponseSize(String method, String endpoint, long bytes) {
+		// no-op
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void recordHedging(String endpoint, String outcome) {
+		// no-op
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void bindConcurrencyLimit(ConcurrencyLimitingInterceptor limiter) {
+		// no-op
+	}
+}
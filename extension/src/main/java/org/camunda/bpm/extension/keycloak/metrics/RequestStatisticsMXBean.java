@@ -0,0 +1,25 @@
+package org.camunda.bpm.extension.keycloak.metrics;
+
+/**
+ * JMX view on the statistics of requests to a single Keycloak endpoint.
+ */
+public interface RequestStatisticsMXBean {
+
+	long getRequestCount();
+
+	long getTotalTimeNanos();
+
+	long getMaxTimeNanos();
+
+	double getMeanTimeMillis();
+
+	long getSuccessCount();
+
+	long getClientErrorCount();
+
+	long getServerErrorCount();
+
+	long getIoErrorCount();
+
+	long getResponseBytes();
+}
@@ -0,0 +1,40 @@
+package org.camunda.bpm.extension.keycloak.plugin;
+
+import org.camunda.bpm.engine.impl.interceptor.Command;
+import org.camunda.bpm.engine.impl.interceptor.CommandInterceptor;
+
+/**
+ * Command interceptor running a callback once the process engine has been closed.
+ * <p>
+ * The engine does not offer close listeners, but {@code ProcessEngine.close()} always executes
+ * the {@code SchemaOperationProcessEngineClose} command, after the job executor has been stopped.
+ * The command class is not public, it is recognized by name.
+ */
+public class EngineCloseInterceptor extends CommandInterceptor {
+
+	private static final String CLOSE_COMMAND = "org.camunda.bpm.engine.impl.SchemaOperationProcessEngineClose";
+
+	private final Runnable onClose;
+
+	/**
+	 * Creates a new interceptor.
+	 * @param onClose the callback to run after the engine close command
+	 */
+	public EngineCloseInterceptor(Runnable onClose) {
+		this.onClose = onClose;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public <T> T execute(Command<T> command) {
+		try {
+			return next.execute(command);
+		} finally {
+			if (CLOSE_COMMAND.equals(command.getClass().getName())) {
+				onClose.run();
+			}
+		}
+	}
+}
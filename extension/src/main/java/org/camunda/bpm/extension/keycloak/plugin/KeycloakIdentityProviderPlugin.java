@@ -15,6 +15,7 @@ import org.camunda.bpm.engine.authorization.Resource;
 import org.camunda.bpm.engine.authorization.Resources;
 import org.camunda.bpm.engine.impl.cfg.ProcessEngineConfigurationImpl;
 import org.camunda.bpm.engine.impl.cfg.ProcessEnginePlugin;
+import org.camunda.bpm.engine.impl.interceptor.CommandInterceptor;
 import org.camunda.bpm.engine.impl.persistence.entity.AuthorizationEntity;
 import org.camunda.bpm.extension.keycloak.KeycloakConfiguration;
 import org.camunda.bpm.extension.keycloak.KeycloakIdentityProviderFactory;
@@ -63,9 +64,21 @@ public class KeycloakIdentityProviderPlugin extends KeycloakConfiguration implem
 			// add the configured administrator to the engine configuration later: potentially needs translation to user ID
 		}
 
-		keycloakIdentityProviderFactory = new KeycloakIdentityProviderFactory(this, customHttpRequestInterceptors);
+		keycloakIdentityProviderFactory = new KeycloakIdentityProviderFactory(this, customHttpRequestInterceptors,
+				processEngineConfiguration.getProcessEngineName());
 		processEngineConfiguration.setIdentityProviderSessionFactory(keycloakIdentityProviderFactory);
 
+		// release threads and connections of the factory once the engine is closed
+		if (processEngineConfiguration.getCustomPostCommandInterceptorsTxRequired() == null) {
+			processEngineConfiguration.setCustomPostCommandInterceptorsTxRequired(new ArrayList<CommandInterceptor>());
+		}
+		KeycloakIdentityProviderFactory factory = keycloakIdentityProviderFactory;
+		String processEngineName = processEngineConfiguration.getProcessEngineName();
+		processEngineConfiguration.getCustomPostCommandInterceptorsTxRequired().add(new EngineCloseInterceptor(() -> {
+			factory.close();
+			LOG.pluginClosed(getClass().getSimpleName(), processEngineName);
+		}));
+
 		LOG.pluginActivated(getClass().getSimpleName(), processEngineConfiguration.getProcessEngineName());
 	}
 
@@ -0,0 +1,96 @@
+package org.camunda.bpm.extension.keycloak.rest;
+
+import java.io.IOException;
+
+import org.apache.hc.client5.http.classic.HttpClient;
+import org.apache.hc.core5.concurrent.Cancellable;
+import org.apache.hc.core5.http.ClassicHttpRequest;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+
+/**
+ * Request factory allowing another thread to abort a request while the executing thread is blocked on it, e.g.
+ * the slow original of a request once its hedged copy has been answered.
+ */
+public class CancellableRequestFactory extends HttpComponentsClientHttpRequestFactory {
+
+	private static final ThreadLocal<RequestCancellation> CURRENT = new ThreadLocal<>();
+
+	/**
+	 * Creates a new request factory.
+	 * @param httpClient the HTTP client
+	 */
+	public CancellableRequestFactory(HttpClient httpClient) {
+		super(httpClient);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void postProcessHttpRequest(ClassicHttpRequest request) {
+		RequestCancellation cancellation = CURRENT.get();
+		if (cancellation != null && request instanceof Cancellable) {
+			cancellation.register((Cancellable) request);
+		}
+	}
+
+	/**
+	 * Executes a request which can be aborted via the given cancellation. Has no effect in case the rest template
+	 * uses another request factory.
+	 * @param cancellation the cancellation
+	 * @param request the request
+	 * @param body the request body
+	 * @param execution the request execution
+	 * @return the response
+	 * @throws IOException in case of I/O errors, including aborted requests
+	 */
+	static ClientHttpResponse execute(RequestCancellation cancellation, HttpRequest request, byte[] body,
+			ClientHttpRequestExecution execution) throws IOException {
+		RequestCancellation previous = CURRENT.get();
+		CURRENT.set(cancellation);
+		try {
+			return execution.execute(request, body);
+		} finally {
+			if (previous == null) {
+				CURRENT.remove();
+			} else {
+				CURRENT.set(previous);
+			}
+		}
+	}
+
+	/**
+	 * Handle to abort the HTTP request created while executing a request. Cancelling before the HTTP request has
+	 * been created aborts it right after creation.
+	 */
+	static class RequestCancellation {
+
+		private Cancellable request;
+		private boolean cancelled;
+
+		synchronized void register(Cancellable request) {
+			this.request = request;
+			if (cancelled) {
+				request.cancel();
+			}
+		}
+
+		void cancel() {
+			Cancellable toCancel;
+			synchronized (this) {
+				cancelled = true;
+				toCancel = request;
+			}
+			if (toCancel != null) {
+				toCancel.cancel();
+			}
+		}
+
+		synchronized boolean isCancelled() {
+			return cancelled;
+		}
+	}
+}
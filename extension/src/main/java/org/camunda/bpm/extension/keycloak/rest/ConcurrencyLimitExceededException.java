@@ -0,0 +1,20 @@
+package org.camunda.bpm.extension.keycloak.rest;
+
+import java.io.IOException;
+
+/**
+ * Thrown in case a request to Keycloak is rejected by the {@link ConcurrencyLimitingInterceptor} without being sent.
+ * Such requests are not retried: retrying would add load while Keycloak is already at its limit.
+ */
+public class ConcurrencyLimitExceededException extends IOException {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Creates a new exception.
+	 * @param message the message
+	 */
+	public ConcurrencyLimitExceededException(String message) {
+		super(message);
+	}
+}
@@ -0,0 +1,280 @@
+package org.camunda.bpm.extension.keycloak.rest;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.camunda.bpm.extension.keycloak.concurrent.RequestDeadline;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+/**
+ * Interceptor limiting the number of concurrent requests to Keycloak adaptively (AIMD): the limit grows by one
+ * per round trip while Keycloak answers as fast as usual and shrinks multiplicatively as soon as it slows down
+ * or sheds load. This keeps Keycloak close to its optimal throughput instead of overloading it during spikes
+ * like login storms.
+ * <p>
+ * Keycloak is considered congested in case the recent latencies exceed the usual latencies of their endpoints
+ * by a tolerance factor, or in case a request fails with an I/O error or HTTP 429, 502, 503 or 504. Requests
+ * exceeding the limit wait in a bounded queue for a bounded time and are rejected with a
+ * {@link ConcurrencyLimitExceededException} afterwards.
+ */
+public class ConcurrencyLimitingInterceptor implements ClientHttpRequestInterceptor {
+
+	/** Factor the limit is multiplied with on congestion. */
+	private static final double BACKOFF_RATIO = 0.9;
+	/** Weight of the latest request in the smoothed latency ratio. */
+	private static final double SMOOTHING = 0.1;
+	/** Percentile of recent latencies of an endpoint regarded as its usual latency. */
+	private static final double BASELINE_PERCENTILE = 50;
+	/** Minimum interval between latencies of an endpoint taken into account for its usual latency. */
+	private static final long SAMPLE_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+	/** Minimum interval between latencies taken into account for the usual latency while congested. */
+	private static final long CONGESTED_SAMPLE_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+	private final int maxLimit;
+	private final double latencyTolerance;
+	private final long maxWaitNanos;
+	private final int maxQueueSize;
+
+	private final Map<String, UsualLatency> usualLatencies = new ConcurrentHashMap<>();
+	private final LongAdder rejectedCount = new LongAdder();
+
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition permitAvailable = lock.newCondition();
+	/** Current limit, fractional for additive increase by one per round trip. Guarded by lock. */
+	private double limit;
+	/** Requests currently sent to Keycloak. Guarded by lock. */
+	private int inFlight;
+	/** Requests waiting for a permit. Guarded by lock. */
+	private int queued;
+	/** Smoothed ratio of latencies to their endpoint's usual latency. Guarded by lock. */
+	private double latencyRatio = 1;
+	/** Time of the last decrease, requests started before do not decrease the limit again. Guarded by lock. */
+	private long lastDecreaseNanos = System.nanoTime();
+
+	/**
+	 * Creates a new interceptor.
+	 * @param initialLimit the initial limit
+	 * @param maxLimit the upper limit, e.g. the size of the connection pool
+	 * @param latencyTolerance factor by which latencies may exceed their usual value before Keycloak is regarded congested
+	 * @param maxWaitMs maximum time in milliseconds a request waits for a permit
+	 * @param maxQueueSize maximum number of requests waiting for a permit
+	 */
+	public ConcurrencyLimitingInterceptor(int initialLimit, int maxLimit, double latencyTolerance, long maxWaitMs,
+			int maxQueueSize) {
+		this.maxLimit = Math.max(1, maxLimit);
+		this.limit = Math.max(1, Math.min(this.maxLimit, initialLimit));
+		this.latencyTolerance = Math.max(1, latencyTolerance);
+		this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, maxWaitMs));
+		this.maxQueueSize = Math.max(0, maxQueueSize);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution) throws IOException {
+		acquire();
+		long start = System.nanoTime();
+		boolean congested = true;
+		try {
+			ClientHttpResponse response = execution.execute(request, body);
+			int status = response.getStatusCode().value();
+			congested = status == 429 || LoadBalancingInterceptor.isUnavailable(status)
+					|| isSlow(request.getMethod() + " " + KeycloakEndpoints.templateOf(request.getURI()), System.nanoTime() - start);
+			return response;
+		} finally {
+			release(start, congested);
+		}
+	}
+
+	/**
+	 * Compares the latency of a request to the usual latency of its endpoint and updates the smoothed latency ratio.
+	 * @return whether Keycloak is regarded congested
+	 */
+	private boolean isSlow(String endpoint, long latencyNanos) {
+		UsualLatency usual = usualLatencies.computeIfAbsent(endpoint, e -> new UsualLatency());
+		long baseline = usual.window.percentileNanos(BASELINE_PERCENTILE);
+		boolean slow;
+		lock.lock();
+		try {
+			if (baseline > 0) {
+				latencyRatio += SMOOTHING * ((double) latencyNanos / baseline - latencyRatio);
+			}
+			slow = latencyRatio > latencyTolerance;
+		} finally {
+			lock.unlock();
+		}
+		usual.sample(latencyNanos, baseline < 0, slow);
+		return slow;
+	}
+
+	private void acquire() throws IOException {
+		long waitNanos = Math.min(maxWaitNanos, RequestDeadline.remainingNanos());
+		lock.lock();
+		try {
+			// queued requests go first
+			if (queued == 0 && inFlight < (int) limit) {
+				inFlight++;
+				return;
+			}
+			if (queued >= maxQueueSize) {
+				rejectedCount.increment();
+				throw new ConcurrencyLimitExceededException("Too many concurrent requests to Keycloak: " + inFlight
+						+ " in flight, " + queued + " queued, limit " + (int) limit);
+			}
+			queued++;
+			try {
+				while (inFlight >= (int) limit) {
+					if (waitNanos <= 0) {
+						rejectedCount.increment();
+						throw new ConcurrencyLimitExceededException("Timed out waiting for a request to Keycloak: "
+								+ inFlight + " in flight, limit " + (int) limit);
+					}
+					waitNanos = permitAvailable.awaitNanos(waitNanos);
+				}
+				inFlight++;
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Interrupted while waiting for a request to Keycloak");
+			} finally {
+				queued--;
+			}
+			if (inFlight < (int) limit) {
+				permitAvailable.signal();
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Acquires a permit for a request sent besides the interceptor chain, e.g. a hedged copy, in case one is
+	 * available right away. The request counts against the limit but does not adjust it.
+	 * @return whether a permit has been acquired, it must be returned via {@link #release()}
+	 */
+	public boolean tryAcquire() {
+		lock.lock();
+		try {
+			if (queued == 0 && inFlight < (int) limit) {
+				inFlight++;
+				return true;
+			}
+			return false;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns a permit acquired via {@link #tryAcquire()}.
+	 */
+	public void release() {
+		lock.lock();
+		try {
+			releasePermit();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void release(long startNanos, boolean congested) {
+		lock.lock();
+		try {
+			if (congested) {
+				// requests started before the last decrease reflect the previous limit already handled
+				if (startNanos - lastDecreaseNanos > 0) {
+					limit = Math.max(1, limit * BACKOFF_RATIO);
+					lastDecreaseNanos = System.nanoTime();
+				}
+			} else if (inFlight * 2 >= limit) {
+				// grow only while the limit is actually used
+				limit = Math.min(maxLimit, limit + 1 / limit);
+			}
+			releasePermit();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/** Guarded by lock. */
+	private void releasePermit() {
+		inFlight--;
+		if (inFlight < (int) limit) {
+			permitAvailable.signal();
+		}
+	}
+
+	/**
+	 * @return the current limit of concurrent requests
+	 */
+	public int getLimit() {
+		lock.lock();
+		try {
+			return (int) limit;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * @return the number of requests currently sent to Keycloak
+	 */
+	public int getInFlight() {
+		lock.lock();
+		try {
+			return inFlight;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * @return the number of requests waiting for a permit
+	 */
+	public int getQueued() {
+		lock.lock();
+		try {
+			return queued;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * @return the number of requests rejected since creation
+	 */
+	public long getRejectedCount() {
+		return rejectedCount.sum();
+	}
+
+	/**
+	 * The usual latency of an endpoint. Sampled at a fixed rate, so it follows neither a growing limit nor congestion
+	 * quickly, but eventually adapts to permanently slower responses.
+	 */
+	private static class UsualLatency {
+
+		final LatencyWindow window = new LatencyWindow();
+		final AtomicLong nextSampleNanos = new AtomicLong(System.nanoTime());
+
+		void sample(long latencyNanos, boolean learning, boolean congested) {
+			long now = System.nanoTime();
+			long next = nextSampleNanos.get();
+			if (learning) {
+				window.record(latencyNanos);
+			} else if (now - next >= 0 && nextSampleNanos.compareAndSet(next,
+					now + (congested ? CONGESTED_SAMPLE_INTERVAL_NANOS : SAMPLE_INTERVAL_NANOS))) {
+				window.record(latencyNanos);
+			}
+		}
+	}
+}
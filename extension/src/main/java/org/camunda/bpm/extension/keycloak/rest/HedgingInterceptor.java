@@ -0,0 +1,393 @@
+package org.camunda.bpm.extension.keycloak.rest;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.camunda.bpm.extension.keycloak.concurrent.RequestDeadline;
+import org.camunda.bpm.extension.keycloak.metrics.KeycloakMetrics;
+import org.camunda.bpm.extension.keycloak.rest.CancellableRequestFactory.RequestCancellation;
+import org.camunda.bpm.extension.keycloak.tracing.KeycloakTracing;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+/**
+ * Interceptor hedging GET requests: in case Keycloak has not answered within a delay derived from the recent
+ * latency of the endpoint (e.g. its 95th percentile), a second copy of the request is sent - to another node in
+ * case of load balancing - and the first response wins. The other request is aborted.
+ * <p>
+ * A budget limits hedged copies to a percentage of all GET requests, so hedging cannot multiply the load on a
+ * Keycloak server which is slow for everyone. Until enough latencies of an endpoint have been recorded, its requests
+ * are not hedged.
+ * <p>
+ * The original request is executed on the calling thread. Once the delay has elapsed the scheduler hands the copy
+ * to a bounded executor of its own, it is not sent in case no thread or - with concurrency limiting - no permit is
+ * available right away. Waiting for a copy after the original failed is bounded by the {@link RequestDeadline}.
+ * Aborting the original requires the {@link CancellableRequestFactory}, otherwise the calling thread still waits for
+ * it. Has to be the last interceptor since request execution is repeated concurrently. Failover attempts of the
+ * {@link LoadBalancingInterceptor} are not hedged.
+ */
+public class HedgingInterceptor implements ClientHttpRequestInterceptor {
+
+	/** Outcome: answered within the hedging delay or not hedgeable yet. */
+	public static final String OUTCOME_NOT_HEDGED = "not_hedged";
+	/** Outcome: the hedging delay elapsed but the budget, the hedging threads or the concurrency limit did not allow another copy. */
+	public static final String OUTCOME_BUDGET_EXHAUSTED = "budget_exhausted";
+	/** Outcome: hedged, the original request answered first. */
+	public static final String OUTCOME_PRIMARY_WON = "primary_won";
+	/** Outcome: hedged, the copy answered first. */
+	public static final String OUTCOME_HEDGE_WON = "hedge_won";
+
+	/** Hedging delay not elapsed yet. */
+	private static final int PENDING = 0;
+	/** The original request finished within the hedging delay. */
+	private static final int DONE = 1;
+	/** A copy has been sent. */
+	private static final int HEDGED = 2;
+	/** The hedging delay elapsed but no copy could be sent. */
+	private static final int REFUSED = 3;
+
+	private final ScheduledExecutorService scheduler;
+	private final Executor hedgeExecutor;
+	private final ConcurrencyLimitingInterceptor concurrencyLimiter;
+	private final KeycloakTracing tracing;
+	private final KeycloakMetrics metrics;
+	private final KeycloakLoadBalancer loadBalancer;
+	private final double delayPercentile;
+	private final long minDelayNanos;
+	final HedgeBudget budget;
+
+	private final Map<String, LatencyWindow> latencies = new ConcurrentHashMap<>();
+
+	/**
+	 * Creates a new interceptor.
+	 * @param scheduler the scheduler starting hedged copies once the hedging delay has elapsed
+	 * @param hedgeExecutor the bounded executor sending hedged copies, rejecting copies exceeding its capacity
+	 * @param concurrencyLimiter the concurrency limiter hedged copies count against, {@code null} if disabled
+	 * @param tracing the tracing, propagated to the executing threads
+	 * @param metrics the metrics to record hedging outcomes to
+	 * @param loadBalancer the load balancer choosing another node for hedged copies, {@code null} if disabled
+	 * @param delayPercentile percentile of recent latencies of an endpoint after which a copy is sent, e.g. {@code 95}
+	 * @param minDelayMs lower limit of the hedging delay in milliseconds
+	 * @param budgetPercent maximum percentage of GET requests to send hedged copies for
+	 */
+	public HedgingInterceptor(ScheduledExecutorService scheduler, Executor hedgeExecutor,
+			ConcurrencyLimitingInterceptor concurrencyLimiter, KeycloakTracing tracing, KeycloakMetrics metrics,
+			KeycloakLoadBalancer loadBalancer, double delayPercentile, long minDelayMs, double budgetPercent) {
+		this.scheduler = scheduler;
+		this.hedgeExecutor = hedgeExecutor;
+		this.concurrencyLimiter = concurrencyLimiter;
+		this.tracing = tracing;
+		this.metrics = metrics;
+		this.loadBalancer = loadBalancer;
+		this.delayPercentile = Math.max(0, Math.min(100, delayPercentile));
+		this.minDelayNanos = TimeUnit.MILLISECONDS.toNanos(minDelayMs);
+		this.budget = new HedgeBudget(budgetPercent);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution) throws IOException {
+		if (!HttpMethod.GET.equals(request.getMethod())) {
+			return execution.execute(request, body);
+		}
+		String endpoint = KeycloakEndpoints.templateOf(request.getURI());
+		LatencyWindow window = latencies.computeIfAbsent(endpoint, e -> new LatencyWindow());
+		budget.deposit();
+		long delayNanos = window.percentileNanos(delayPercentile);
+		if (delayNanos < 0) {
+			// not enough latencies recorded yet
+			return executeUnhedged(request, body, execution, window, endpoint, Long.MAX_VALUE);
+		}
+		delayNanos = Math.max(delayNanos, minDelayNanos);
+		if (!budget.isAvailable()) {
+			// no copy could be sent anyway: no need to schedule one
+			return executeUnhedged(request, body, execution, window, endpoint, delayNanos);
+		}
+		return new HedgedCall(request, body, execution, window).execute(endpoint, delayNanos);
+	}
+
+	/**
+	 * Executes the request without a hedged copy. It counts as {@link #OUTCOME_BUDGET_EXHAUSTED} in case it takes
+	 * longer than the given hedging delay.
+	 * @return the response
+	 */
+	private ClientHttpResponse executeUnhedged(HttpRequest request, byte[] body, ClientHttpRequestExecution execution,
+			LatencyWindow window, String endpoint, long delayNanos) throws IOException {
+		long start = System.nanoTime();
+		ClientHttpResponse response = execution.execute(request, body);
+		long duration = System.nanoTime() - start;
+		window.record(duration);
+		metrics.recordHedging(endpoint, duration > delayNanos ? OUTCOME_BUDGET_EXHAUSTED : OUTCOME_NOT_HEDGED);
+		return response;
+	}
+
+	/**
+	 * @return another node than the one the request has been routed to, {@code null} in case there is none
+	 */
+	private KeycloakNode otherNode(HttpRequest request) {
+		if (loadBalancer == null) {
+			return null;
+		}
+		KeycloakNode node = loadBalancer.nodeOf(request.getURI());
+		KeycloakNode other = loadBalancer.select(node != null ? Collections.singleton(node) : Collections.emptySet());
+		return other != node ? other : null;
+	}
+
+	private static IOException asIOException(Throwable failure) {
+		if (failure instanceof IOException) {
+			return (IOException) failure;
+		} else if (failure instanceof RuntimeException) {
+			throw (RuntimeException) failure;
+		} else if (failure instanceof Error) {
+			throw (Error) failure;
+		}
+		return new IOException(failure);
+	}
+
+	/**
+	 * A request executed on the calling thread and its hedged copy. The first response wins and aborts the other
+	 * request, a response of the other request arriving nevertheless is closed.
+	 */
+	private class HedgedCall {
+
+		final HttpRequest request;
+		final byte[] body;
+		final ClientHttpRequestExecution execution;
+		final LatencyWindow window;
+		/** Deadline of the caller, {@code null} in case there is none. */
+		final Long deadlineNanos;
+		/** Sends the copy within the trace context of the caller. */
+		final Callable<Void> copy;
+
+		final AtomicInteger state = new AtomicInteger(PENDING);
+		final AtomicBoolean decided = new AtomicBoolean();
+		final CompletableFuture<ClientHttpResponse> copyResponse = new CompletableFuture<>();
+		final RequestCancellation primaryCancellation = new RequestCancellation();
+		final RequestCancellation copyCancellation = new RequestCancellation();
+
+		HedgedCall(HttpRequest request, byte[] body, ClientHttpRequestExecution execution, LatencyWindow window) {
+			this.request = request;
+			this.body = body;
+			this.execution = execution;
+			this.window = window;
+			long remainingNanos = RequestDeadline.remainingNanos();
+			this.deadlineNanos = remainingNanos == Long.MAX_VALUE ? null : System.nanoTime() + remainingNanos;
+			this.copy = tracing.wrap(() -> {
+				if (deadlineNanos != null) {
+					RequestDeadline.runWithin(deadlineNanos, this::sendCopy);
+				} else {
+					sendCopy();
+				}
+				return null;
+			});
+		}
+
+		ClientHttpResponse execute(String endpoint, long delayNanos) throws IOException {
+			ScheduledFuture<?> timer;
+			try {
+				timer = scheduler.schedule(this::hedge, delayNanos, TimeUnit.NANOSECONDS);
+			} catch (RejectedExecutionException e) {
+				// shut down
+				return executeUnhedged(request, body, execution, window, endpoint, Long.MAX_VALUE);
+			}
+
+			ClientHttpResponse response;
+			long start = System.nanoTime();
+			try {
+				response = CancellableRequestFactory.execute(primaryCancellation, request, body, execution);
+			} catch (IOException | RuntimeException e) {
+				timer.cancel(false);
+				if (!state.compareAndSet(PENDING, DONE) && state.get() == HEDGED) {
+					// the copy may still be answered, it may even have aborted the original
+					return awaitCopy(endpoint, e);
+				}
+				throw e;
+			}
+			timer.cancel(false);
+			window.record(System.nanoTime() - start);
+			if (!decided.compareAndSet(false, true)) {
+				// the copy has been answered first, the original has not been aborted in time
+				response.close();
+				return awaitCopy(endpoint, null);
+			}
+			state.compareAndSet(PENDING, DONE);
+			copyCancellation.cancel();
+			int finalState = state.get();
+			metrics.recordHedging(endpoint, finalState == HEDGED ? OUTCOME_PRIMARY_WON
+					: finalState == REFUSED ? OUTCOME_BUDGET_EXHAUSTED : OUTCOME_NOT_HEDGED);
+			return response;
+		}
+
+		/**
+		 * Waits for the response of the copy, at most until the deadline of the caller.
+		 * @param primaryFailure the failure of the original request, {@code null} in case it has been answered
+		 */
+		private ClientHttpResponse awaitCopy(String endpoint, Exception primaryFailure) throws IOException {
+			try {
+				ClientHttpResponse response = copyResponse.get(Math.max(0, RequestDeadline.remainingNanos()), TimeUnit.NANOSECONDS);
+				metrics.recordHedging(endpoint, OUTCOME_HEDGE_WON);
+				return response;
+			} catch (ExecutionException | CancellationException e) {
+				throw asIOException(primaryFailure != null ? primaryFailure : e);
+			} catch (TimeoutException e) {
+				abandonCopy();
+				throw asIOException(primaryFailure != null ? primaryFailure : e);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				abandonCopy();
+				throw new InterruptedIOException("Interrupted while waiting for Keycloak");
+			}
+		}
+
+		private void abandonCopy() {
+			decided.set(true);
+			copyCancellation.cancel();
+			copyResponse.thenAccept(ClientHttpResponse::close);
+		}
+
+		/**
+		 * Runs on the scheduler once the hedging delay has elapsed: hands the copy over to the hedging threads.
+		 */
+		private void hedge() {
+			if (state.get() != PENDING) {
+				return;
+			}
+			if (!budget.withdraw()) {
+				state.compareAndSet(PENDING, REFUSED);
+				return;
+			}
+			// no copy is sent from here on without refunding the budget
+			if (concurrencyLimiter != null && !concurrencyLimiter.tryAcquire()) {
+				budget.refund();
+				state.compareAndSet(PENDING, REFUSED);
+				return;
+			}
+			if (!state.compareAndSet(PENDING, HEDGED)) {
+				budget.refund();
+				releasePermit();
+				return;
+			}
+			try {
+				hedgeExecutor.execute(() -> {
+					try {
+						copy.call();
+					} catch (Exception e) {
+						// sendCopy() handles all failures
+						copyResponse.completeExceptionally(e);
+					}
+				});
+			} catch (RejectedExecutionException e) {
+				budget.refund();
+				releasePermit();
+				state.set(REFUSED);
+				copyResponse.completeExceptionally(e);
+			}
+		}
+
+		private void sendCopy() {
+			KeycloakNode node = otherNode(request);
+			long start = System.nanoTime();
+			if (node != null) {
+				node.requestStarted();
+			}
+			try {
+				ClientHttpResponse response = CancellableRequestFactory.execute(copyCancellation,
+						node != null ? LoadBalancingInterceptor.routeTo(request, node) : request, body, execution);
+				long duration = System.nanoTime() - start;
+				window.record(duration);
+				if (node != null) {
+					loadBalancer.onSuccess(node, duration);
+				}
+				if (decided.compareAndSet(false, true)) {
+					copyResponse.complete(response);
+					primaryCancellation.cancel();
+				} else {
+					response.close();
+					copyResponse.cancel(false);
+				}
+			} catch (IOException | RuntimeException e) {
+				if (node != null && !copyCancellation.isCancelled()) {
+					loadBalancer.onFailure(node);
+				}
+				copyResponse.completeExceptionally(e);
+			} finally {
+				if (node != null) {
+					node.requestFinished();
+				}
+				releasePermit();
+			}
+		}
+
+		private void releasePermit() {
+			if (concurrencyLimiter != null) {
+				concurrencyLimiter.release();
+			}
+		}
+	}
+
+	/**
+	 * Token bucket limiting hedged copies: each request deposits the budget percentage, a copy costs 100.
+	 * Up to ten copies can be saved up for bursts of slow responses.
+	 */
+	static class HedgeBudget {
+
+		/** Fixed point scale of the tokens. */
+		private static final long SCALE = 100;
+		private static final long COST = 100 * SCALE;
+		private static final long CAPACITY = 10 * COST;
+
+		private final long depositPerRequest;
+		private final AtomicLong tokens = new AtomicLong();
+
+		HedgeBudget(double budgetPercent) {
+			this.depositPerRequest = Math.max(0, Math.round(budgetPercent * SCALE));
+		}
+
+		void deposit() {
+			tokens.accumulateAndGet(depositPerRequest, (current, deposit) -> Math.min(CAPACITY, current + deposit));
+		}
+
+		boolean isAvailable() {
+			return tokens.get() >= COST;
+		}
+
+		boolean withdraw() {
+			long current;
+			do {
+				current = tokens.get();
+				if (current < COST) {
+					return false;
+				}
+			} while (!tokens.compareAndSet(current, current - COST));
+			return true;
+		}
+
+		/**
+		 * Returns a withdrawn copy which has not been sent.
+		 */
+		void refund() {
+			tokens.accumulateAndGet(COST, (current, refund) -> Math.min(CAPACITY, current + refund));
+		}
+	}
+}
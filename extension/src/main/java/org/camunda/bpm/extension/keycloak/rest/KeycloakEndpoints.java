@@ -0,0 +1,66 @@
+package org.camunda.bpm.extension.keycloak.rest;
+
+import java.net.URI;
+
+/**
+ * Helper normalizing Keycloak request URIs to endpoint templates without IDs, realm names or query parameters,
+ * e.g. {@code https://kc/auth/admin/realms/master/users/4711/groups?max=250} becomes {@code /users/{id}/groups}.
+ */
+public class KeycloakEndpoints {
+
+	private static final String ADMIN_REALMS = "/admin/realms/";
+	private static final String REALMS = "/realms/";
+
+	private KeycloakEndpoints() {
+		// utility class
+	}
+
+	/**
+	 * Returns the endpoint template of a request URI.
+	 * @param uri the request URI
+	 * @return the normalized endpoint template
+	 */
+	public static String templateOf(URI uri) {
+		String path = uri.getRawPath();
+		if (path == null || path.isEmpty()) {
+			return "/";
+		}
+		// cut off base URL including realm name
+		int idx = path.indexOf(ADMIN_REALMS);
+		int realmStart = idx >= 0 ? idx + ADMIN_REALMS.length() : -1;
+		if (realmStart < 0) {
+			idx = path.indexOf(REALMS);
+			realmStart = idx >= 0 ? idx + REALMS.length() : -1;
+		}
+		if (realmStart >= 0) {
+			int realmEnd = path.indexOf('/', realmStart);
+			path = realmEnd >= 0 ? path.substring(realmEnd) : "/";
+		}
+		return normalizePath(path);
+	}
+
+	/**
+	 * Replaces IDs within a path relative to the realm.
+	 * @param path the path relative to the realm, starting with '/'
+	 * @return the normalized path
+	 */
+	private static String normalizePath(String path) {
+		String[] segments = path.split("/");
+		StringBuilder template = new StringBuilder();
+		for (int i = 1; i < segments.length; i++) {
+			String segment = segments[i];
+			String previous = segments[i - 1];
+			if ("group-by-path".equals(previous)) {
+				// the remaining segments are the group path
+				template.append("/{path}");
+				break;
+			}
+			if ("users".equals(previous) || "groups".equals(previous) || "clients".equals(previous) || "roles-by-id".equals(previous)) {
+				template.append("/{id}");
+			} else {
+				template.append('/').append(segment);
+			}
+		}
+		return template.length() == 0 ? "/" : template.toString();
+	}
+}
@@ -0,0 +1,179 @@
+package org.camunda.bpm.extension.keycloak.rest;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.camunda.bpm.extension.keycloak.util.KeycloakPluginLogger;
+
+/**
+ * Client side load balancer distributing requests across several Keycloak nodes.
+ * <p>
+ * Nodes are chosen by the power of two random choices: out of two random nodes the one with the lower
+ * product of outstanding requests and average latency wins. Nodes failing repeatedly are ejected for
+ * some time (passive outlier detection). If all nodes are ejected, the node recovering first is used.
+ */
+public class KeycloakLoadBalancer {
+
+	private static final KeycloakPluginLogger LOG = KeycloakPluginLogger.INSTANCE;
+
+	/** Ejection durations grow with repeated ejections up to this multiple of the base ejection time. */
+	private static final int MAX_EJECTION_MULTIPLIER = 10;
+
+	private final List<KeycloakNode> nodes;
+	private final Set<String> routedAuthorities;
+	private final int consecutiveFailuresToEject;
+	private final long baseEjectionNanos;
+
+	/**
+	 * Creates a new load balancer.
+	 * @param nodes the nodes
+	 * @param routedUris URIs whose scheme, host and port are replaced by the ones of the chosen node,
+	 *   requests to other hosts are not load balanced
+	 * @param consecutiveFailuresToEject number of consecutive failures after which a node is ejected
+	 * @param ejectionTimeMs duration of the first ejection in milliseconds
+	 */
+	public KeycloakLoadBalancer(List<KeycloakNode> nodes, Collection<URI> routedUris, int consecutiveFailuresToEject,
+			long ejectionTimeMs) {
+		if (nodes.isEmpty()) {
+			throw new IllegalArgumentException("At least one Keycloak node is required");
+		}
+		this.nodes = Collections.unmodifiableList(new ArrayList<>(nodes));
+		this.routedAuthorities = new HashSet<>();
+		routedUris.forEach(uri -> routedAuthorities.add(authorityOf(uri)));
+		this.consecutiveFailuresToEject = Math.max(1, consecutiveFailuresToEject);
+		this.baseEjectionNanos = TimeUnit.MILLISECONDS.toNanos(ejectionTimeMs);
+	}
+
+	/**
+	 * Parses a comma separated list of node URLs.
+	 * @param nodeUrls the node URLs, e.g. {@code https://kc1:8443,https://kc2:8443}
+	 * @return the nodes
+	 * @throws IllegalArgumentException in case an URL is invalid or contains more than scheme, host and port
+	 */
+	public static List<KeycloakNode> parseNodes(String nodeUrls) {
+		List<KeycloakNode> nodes = new ArrayList<>();
+		for (String nodeUrl : nodeUrls.split(",")) {
+			String trimmed = nodeUrl.trim();
+			if (trimmed.isEmpty()) {
+				continue;
+			}
+			URI uri = URI.create(trimmed);
+			if (uri.getScheme() == null || uri.getHost() == null) {
+				throw new IllegalArgumentException("Keycloak node URL must contain scheme and host: " + trimmed);
+			}
+			if ((uri.getRawPath() != null && !uri.getRawPath().isEmpty() && !"/".equals(uri.getRawPath()))
+					|| uri.getRawQuery() != null) {
+				throw new IllegalArgumentException("Keycloak node URL must consist of scheme, host and port only: " + trimmed);
+			}
+			nodes.add(new KeycloakNode(URI.create(uri.getScheme() + "://" + uri.getRawAuthority())));
+		}
+		return nodes;
+	}
+
+	/**
+	 * @param uri a request URI
+	 * @return whether requests to this URI are load balanced
+	 */
+	public boolean isRouted(URI uri) {
+		return routedAuthorities.contains(authorityOf(uri));
+	}
+
+	/**
+	 * @return all nodes
+	 */
+	public List<KeycloakNode> getNodes() {
+		return nodes;
+	}
+
+	/**
+	 * @param uri a request URI already routed to a node
+	 * @return the node the URI points to or {@code null} if none
+	 */
+	public KeycloakNode nodeOf(URI uri) {
+		String authority = authorityOf(uri);
+		for (KeycloakNode node : nodes) {
+			if (authorityOf(node.getBaseUri()).equals(authority)) {
+				return node;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Chooses the node for the next request.
+	 * @param excluded nodes not to choose, e.g. nodes already tried for the current request
+	 * @return the chosen node or {@code null} in case all nodes are excluded
+	 */
+	public KeycloakNode select(Collection<KeycloakNode> excluded) {
+		List<KeycloakNode> candidates = new ArrayList<>(nodes.size());
+		KeycloakNode recoveringFirst = null;
+		for (KeycloakNode node : nodes) {
+			if (excluded.contains(node)) {
+				continue;
+			}
+			if (!node.isEjected()) {
+				candidates.add(node);
+			} else if (recoveringFirst == null || node.getEjectedUntilNanos() < recoveringFirst.getEjectedUntilNanos()) {
+				recoveringFirst = node;
+			}
+		}
+		if (candidates.isEmpty()) {
+			return recoveringFirst;
+		}
+		if (candidates.size() == 1) {
+			return candidates.get(0);
+		}
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		int first = random.nextInt(candidates.size());
+		int second = random.nextInt(candidates.size() - 1);
+		if (second >= first) {
+			second++;
+		}
+		KeycloakNode a = candidates.get(first);
+		KeycloakNode b = candidates.get(second);
+		return load(a) <= load(b) ? a : b;
+	}
+
+	/**
+	 * Records a successful request.
+	 * @param node the node
+	 * @param durationNanos the response time
+	 */
+	public void onSuccess(KeycloakNode node, long durationNanos) {
+		node.recordLatency(durationNanos);
+		if (node.recordSuccess()) {
+			LOG.nodeReinstated(node.toString());
+		}
+	}
+
+	/**
+	 * Records a failed request, i.e. an I/O error or a response indicating an unavailable node.
+	 * Ejects the node in case of too many consecutive failures.
+	 * @param node the node
+	 */
+	public void onFailure(KeycloakNode node) {
+		if (node.recordFailure() >= consecutiveFailuresToEject && !node.isEjected()) {
+			long duration = node.eject(baseEjectionNanos, baseEjectionNanos * MAX_EJECTION_MULTIPLIER);
+			LOG.nodeEjected(node.toString(), consecutiveFailuresToEject, TimeUnit.NANOSECONDS.toMillis(duration));
+		}
+	}
+
+	/**
+	 * Expected time for the node to answer: nodes without any latency measured yet are preferred.
+	 */
+	private static double load(KeycloakNode node) {
+		return (node.getOutstandingRequests() + 1) * (double) node.getLatencyNanos();
+	}
+
+	private static String authorityOf(URI uri) {
+		return Objects.toString(uri.getScheme(), "").toLowerCase() + "://" + Objects.toString(uri.getRawAuthority(), "").toLowerCase();
+	}
+}
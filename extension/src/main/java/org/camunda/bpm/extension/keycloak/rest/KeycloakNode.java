@@ -0,0 +1,137 @@
+package org.camunda.bpm.extension.keycloak.rest;
+
+import java.net.URI;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.web.util.UriComponentsBuilder;
+
+/**
+ * A single Keycloak node requests can be routed to, together with its load and health as observed by the client.
+ */
+public class KeycloakNode {
+
+	/** Weight of the latest request in the moving latency average. */
+	private static final int LATENCY_SMOOTHING = 5;
+
+	private final URI baseUri;
+
+	private final AtomicInteger outstandingRequests = new AtomicInteger();
+	private final AtomicInteger consecutiveFailures = new AtomicInteger();
+	private final AtomicInteger ejections = new AtomicInteger();
+
+	/** Exponentially weighted moving average, concurrent updates may get lost which is fine for routing decisions. */
+	private volatile long latencyNanos;
+	private volatile long ejectedUntilNanos;
+	private volatile boolean ejected;
+
+	/**
+	 * Creates a new node.
+	 * @param baseUri scheme, host and port of the node
+	 */
+	public KeycloakNode(URI baseUri) {
+		this.baseUri = baseUri;
+	}
+
+	/**
+	 * Routes a request URI to this node by replacing its scheme, host and port.
+	 * @param uri the request URI
+	 * @return the URI pointing to this node
+	 */
+	public URI resolve(URI uri) {
+		return UriComponentsBuilder.fromUri(uri)
+				.scheme(baseUri.getScheme())
+				.host(baseUri.getHost())
+				.port(baseUri.getPort())
+				.build(true)
+				.toUri();
+	}
+
+	/**
+	 * @return scheme, host and port of this node
+	 */
+	public URI getBaseUri() {
+		return baseUri;
+	}
+
+	/**
+	 * @return the number of requests sent to this node and not yet answered
+	 */
+	public int getOutstandingRequests() {
+		return outstandingRequests.get();
+	}
+
+	/**
+	 * @return the moving average of the response time in nanoseconds, {@code 0} if unknown
+	 */
+	public long getLatencyNanos() {
+		return latencyNanos;
+	}
+
+	/**
+	 * @return whether this node is currently ejected due to failures
+	 */
+	public boolean isEjected() {
+		return ejected && System.nanoTime() < ejectedUntilNanos;
+	}
+
+	void requestStarted() {
+		outstandingRequests.incrementAndGet();
+	}
+
+	void requestFinished() {
+		outstandingRequests.decrementAndGet();
+	}
+
+	void recordLatency(long durationNanos) {
+		long average = latencyNanos;
+		latencyNanos = average == 0 ? durationNanos : average + (durationNanos - average) / LATENCY_SMOOTHING;
+	}
+
+	/**
+	 * Records a failure.
+	 * @return the number of consecutive failures
+	 */
+	int recordFailure() {
+		return consecutiveFailures.incrementAndGet();
+	}
+
+	/**
+	 * Records a success, reinstating the node in case it has been ejected.
+	 * @return whether the node has been ejected before
+	 */
+	boolean recordSuccess() {
+		consecutiveFailures.set(0);
+		if (ejected) {
+			ejected = false;
+			ejections.set(0);
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Ejects the node. Repeated ejections without a success in between last longer.
+	 * @param baseEjectionNanos duration of the first ejection
+	 * @param maxEjectionNanos upper limit of the ejection duration
+	 * @return the ejection duration in nanoseconds
+	 */
+	long eject(long baseEjectionNanos, long maxEjectionNanos) {
+		consecutiveFailures.set(0);
+		long duration = Math.min(maxEjectionNanos, baseEjectionNanos * ejections.incrementAndGet());
+		ejectedUntilNanos = System.nanoTime() + duration;
+		ejected = true;
+		return duration;
+	}
+
+	long getEjectedUntilNanos() {
+		return ejectedUntilNanos;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String toString() {
+		return baseUri.toString();
+	}
+}
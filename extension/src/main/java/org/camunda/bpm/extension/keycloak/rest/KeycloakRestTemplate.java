@@ -1,5 +1,9 @@
 package org.camunda.bpm.extension.keycloak.rest;
 
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
 import org.camunda.bpm.extension.keycloak.KeycloakContextProvider;
 import org.camunda.bpm.extension.keycloak.util.KeycloakPluginLogger;
 import org.springframework.http.HttpEntity;
@@ -10,11 +14,15 @@ import org.springframework.web.client.RestClientException;
 
 /**
  * Keycloak specific RestTemplate taking care of authentication and a single retry in case of HTTP 401.
+ * Idempotent requests are additionally retried on transient failures according to a {@link RetryPolicy}.
  */
 public class KeycloakRestTemplate extends org.springframework.web.client.RestTemplate {
 	
 	/** Access to the Keycloak context. */
 	private KeycloakContextProvider keycloakContextProvider;
+
+	/** Retries of idempotent requests, token and password requests are not sent via exchange. */
+	private RetryPolicy retryPolicy = RetryPolicy.NONE;
 	
 	/**
 	 * Execute the HTTP method to the given URI template (using a Keycloak default request entity to the request) and returns the response as ResponseEntity. 
@@ -34,13 +42,56 @@ public class KeycloakRestTemplate extends org.springframework.web.client.RestTem
 	@Override
 	public <T> ResponseEntity<T> exchange(String url, HttpMethod method, HttpEntity<?> requestEntity,
 			Class<T> responseType, Object... uriVariables) throws RestClientException {
-		try {
-			return super.exchange(url, method, requestEntity, responseType, uriVariables);
-		} catch (HttpClientErrorException.Unauthorized u) {
-			// retry once in case of HTTP 401
-			KeycloakPluginLogger.INSTANCE.requestFailedUnauthorized(url);
-			keycloakContextProvider.invalidateToken();
-			return super.exchange(url, method, keycloakContextProvider.createApiRequestEntity(), responseType, uriVariables);
+		return exchangeWithRetries(url, method, () -> {
+			try {
+				return super.exchange(url, method, requestEntity, responseType, uriVariables);
+			} catch (HttpClientErrorException.Unauthorized u) {
+				// retry once in case of HTTP 401
+				KeycloakPluginLogger.INSTANCE.requestFailedUnauthorized(url);
+				keycloakContextProvider.invalidateToken();
+				return super.exchange(url, method, keycloakContextProvider.createApiRequestEntity(), responseType, uriVariables);
+			}
+		});
+	}
+
+	@Override
+	public <T> ResponseEntity<T> exchange(URI url, HttpMethod method, HttpEntity<?> requestEntity,
+			Class<T> responseType) throws RestClientException {
+		return exchangeWithRetries(url.toString(), method, () -> {
+			try {
+				return super.exchange(url, method, requestEntity, responseType);
+			} catch (HttpClientErrorException.Unauthorized u) {
+				// retry once in case of HTTP 401
+				KeycloakPluginLogger.INSTANCE.requestFailedUnauthorized(url.toString());
+				keycloakContextProvider.invalidateToken();
+				return super.exchange(url, method, keycloakContextProvider.createApiRequestEntity(), responseType);
+			}
+		});
+	}
+
+	private <T> ResponseEntity<T> exchangeWithRetries(String url, HttpMethod method,
+			Supplier<ResponseEntity<T>> exchange) throws RestClientException {
+		if (!retryPolicy.isEnabled() || !HttpMethod.GET.equals(method)) {
+			return exchange.get();
+		}
+		long start = System.nanoTime();
+		for (int retry = 1; ; retry++) {
+			try {
+				return exchange.get();
+			} catch (RestClientException e) {
+				long delayNanos = retryPolicy.delayBeforeRetry(e, retry, System.nanoTime() - start);
+				if (delayNanos < 0) {
+					throw e;
+				}
+				KeycloakPluginLogger.INSTANCE.requestRetry(method.name(), url, e.getMessage(), retry,
+						TimeUnit.NANOSECONDS.toMillis(delayNanos));
+				try {
+					TimeUnit.NANOSECONDS.sleep(delayNanos);
+				} catch (InterruptedException ie) {
+					Thread.currentThread().interrupt();
+					throw e;
+				}
+			}
 		}
 	}
 
@@ -51,5 +102,13 @@ public class KeycloakRestTemplate extends org.springframework.web.client.RestTem
 	public void registerKeycloakContextProvider(KeycloakContextProvider keycloakContextProvider) {
 		this.keycloakContextProvider = keycloakContextProvider;
 	}
+
+	/**
+	 * Sets the policy for retrying idempotent requests on transient failures.
+	 * @param retryPolicy the retry policy
+	 */
+	public void setRetryPolicy(RetryPolicy retryPolicy) {
+		this.retryPolicy = retryPolicy;
+	}
 	
 }
@@ -0,0 +1,51 @@
+package org.camunda.bpm.extension.keycloak.rest;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Sliding window of the most recent latencies of an endpoint. The requested percentile is recomputed
+ * periodically instead of on each request.
+ */
+class LatencyWindow {
+
+	private static final int SIZE = 512;
+	private static final int MIN_SAMPLES = 64;
+	private static final int RECOMPUTE_INTERVAL = 64;
+
+	private final AtomicLongArray samples = new AtomicLongArray(SIZE);
+	private final AtomicLong count = new AtomicLong();
+	private volatile double cachedPercentile = -1;
+	private volatile long cachedNanos = -1;
+	private volatile long cachedAtCount;
+
+	void record(long nanos) {
+		long n = count.getAndIncrement();
+		samples.set((int) (n % SIZE), nanos);
+	}
+
+	/**
+	 * @param percentile the percentile, e.g. {@code 95}
+	 * @return the percentile of the recent latencies in nanoseconds, {@code -1} if too few have been recorded
+	 */
+	long percentileNanos(double percentile) {
+		long n = count.get();
+		if (n < MIN_SAMPLES) {
+			return -1;
+		}
+		if (cachedPercentile != percentile || n - cachedAtCount >= RECOMPUTE_INTERVAL) {
+			int size = (int) Math.min(n, SIZE);
+			long[] sorted = new long[size];
+			for (int i = 0; i < size; i++) {
+				sorted[i] = samples.get(i);
+			}
+			Arrays.sort(sorted);
+			int index = (int) Math.ceil(percentile / 100 * size) - 1;
+			cachedNanos = sorted[Math.max(0, Math.min(size - 1, index))];
+			cachedPercentile = percentile;
+			cachedAtCount = n;
+		}
+		return cachedNanos;
+	}
+}
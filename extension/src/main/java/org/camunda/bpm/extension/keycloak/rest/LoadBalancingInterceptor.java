@@ -0,0 +1,132 @@
+package org.camunda.bpm.extension.keycloak.rest;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.URI;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.hc.client5.http.ConnectTimeoutException;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.support.HttpRequestWrapper;
+
+/**
+ * Interceptor routing requests to the Keycloak node chosen by a {@link KeycloakLoadBalancer}.
+ * <p>
+ * In case a node cannot be reached, the request fails over to the next node. Idempotent requests also fail over
+ * on any other I/O error and on HTTP 502, 503 and 504. Non idempotent requests (token and password grants)
+ * are not repeated once they might have reached Keycloak.
+ * <p>
+ * Has to be the last interceptor: failover repeats the request execution without passing other interceptors again.
+ */
+public class LoadBalancingInterceptor implements ClientHttpRequestInterceptor {
+
+	private final KeycloakLoadBalancer loadBalancer;
+
+	/**
+	 * Creates a new interceptor.
+	 * @param loadBalancer the load balancer
+	 */
+	public LoadBalancingInterceptor(KeycloakLoadBalancer loadBalancer) {
+		this.loadBalancer = loadBalancer;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution) throws IOException {
+		if (!loadBalancer.isRouted(request.getURI())) {
+			return execution.execute(request, body);
+		}
+		boolean idempotent = isIdempotent(request.getMethod());
+		List<KeycloakNode> tried = new ArrayList<>(loadBalancer.getNodes().size());
+		ClientHttpResponse unavailableResponse = null;
+		IOException failure = null;
+
+		KeycloakNode node;
+		while ((node = loadBalancer.select(tried)) != null) {
+			tried.add(node);
+			ClientHttpResponse response;
+			long start = System.nanoTime();
+			node.requestStarted();
+			try {
+				response = execution.execute(routeTo(request, node), body);
+			} catch (IOException e) {
+				loadBalancer.onFailure(node);
+				if (idempotent || isConnectFailure(e)) {
+					failure = e;
+					continue;
+				}
+				throw e;
+			} finally {
+				node.requestFinished();
+			}
+
+			boolean unavailable = isUnavailable(response.getStatusCode().value());
+			if (unavailable) {
+				loadBalancer.onFailure(node);
+			} else {
+				loadBalancer.onSuccess(node, System.nanoTime() - start);
+			}
+			closeQuietly(unavailableResponse);
+			if (!unavailable || !idempotent) {
+				return response;
+			}
+			// keep the latest response in case no other node answers
+			unavailableResponse = response;
+		}
+
+		if (unavailableResponse != null) {
+			return unavailableResponse;
+		}
+		throw failure;
+	}
+
+	/**
+	 * Wraps a request replacing scheme, host and port of its URI with the ones of the given node.
+	 * @param request the request
+	 * @param node the target node
+	 * @return the routed request
+	 */
+	static HttpRequest routeTo(HttpRequest request, KeycloakNode node) {
+		URI uri = node.resolve(request.getURI());
+		return new HttpRequestWrapper(request) {
+			@Override
+			public URI getURI() {
+				return uri;
+			}
+		};
+	}
+
+	static boolean isIdempotent(HttpMethod method) {
+		return HttpMethod.GET.equals(method) || HttpMethod.HEAD.equals(method) || HttpMethod.OPTIONS.equals(method);
+	}
+
+	/**
+	 * @return whether the status indicates the node cannot serve requests right now
+	 */
+	static boolean isUnavailable(int status) {
+		return status == 502 || status == 503 || status == 504;
+	}
+
+	/**
+	 * @return whether the request has not been sent at all
+	 */
+	private static boolean isConnectFailure(IOException e) {
+		return e instanceof ConnectException || e instanceof ConnectTimeoutException
+				|| e instanceof NoRouteToHostException || e instanceof UnknownHostException;
+	}
+
+	private static void closeQuietly(ClientHttpResponse response) {
+		if (response != null) {
+			response.close();
+		}
+	}
+}
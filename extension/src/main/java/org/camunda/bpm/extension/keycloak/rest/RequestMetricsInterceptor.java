@@ -0,0 +1,159 @@
+package org.camunda.bpm.extension.keycloak.rest;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongConsumer;
+
+import org.camunda.bpm.extension.keycloak.metrics.KeycloakMetrics;
+import org.camunda.bpm.extension.keycloak.util.KeycloakPluginLogger;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+/**
+ * Interceptor recording latency, response size and status of every request sent to Keycloak.
+ * Requests are grouped by HTTP method and normalized endpoint template (see {@link KeycloakEndpoints}).
+ * Optionally logs requests exceeding a given latency threshold.
+ */
+public class RequestMetricsInterceptor implements ClientHttpRequestInterceptor {
+
+	/** Status used in case no HTTP response has been received at all. */
+	public static final String STATUS_IO_ERROR = "IO_ERROR";
+
+	private final KeycloakMetrics metrics;
+	private final long slowRequestThresholdNanos;
+
+	/**
+	 * Creates a new interceptor.
+	 * @param metrics the metrics to record to
+	 * @param slowRequestThresholdMs requests taking longer are logged, {@code 0} disables logging
+	 */
+	public RequestMetricsInterceptor(KeycloakMetrics metrics, long slowRequestThresholdMs) {
+		this.metrics = metrics;
+		this.slowRequestThresholdNanos = slowRequestThresholdMs > 0 ? TimeUnit.MILLISECONDS.toNanos(slowRequestThresholdMs) : Long.MAX_VALUE;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution) throws IOException {
+		String method = request.getMethod().name();
+		String endpoint = KeycloakEndpoints.templateOf(request.getURI());
+		long start = System.nanoTime();
+		ClientHttpResponse response;
+		try {
+			response = execution.execute(request, body);
+		} catch (IOException | RuntimeException e) {
+			record(method, endpoint, STATUS_IO_ERROR, System.nanoTime() - start);
+			throw e;
+		}
+		HttpStatusCode status = response.getStatusCode();
+		record(method, endpoint, Integer.toString(status.value()), System.nanoTime() - start);
+
+		long contentLength = response.getHeaders().getContentLength();
+		if (contentLength >= 0) {
+			metrics.recordResponseSize(method, endpoint, contentLength);
+			return response;
+		}
+		// chunked response: count bytes while the body is consumed
+		return new SizeRecordingResponse(response, bytes -> metrics.recordResponseSize(method, endpoint, bytes));
+	}
+
+	private void record(String method, String endpoint, String status, long durationNanos) {
+		metrics.recordRequest(method, endpoint, status, durationNanos);
+		if (durationNanos >= slowRequestThresholdNanos) {
+			KeycloakPluginLogger.INSTANCE.slowRequest(method, endpoint, status, TimeUnit.NANOSECONDS.toMillis(durationNanos));
+		}
+	}
+
+	/**
+	 * Response wrapper counting the bytes read from the body. The size is recorded when the response is closed.
+	 */
+	private static class SizeRecordingResponse implements ClientHttpResponse {
+
+		private final ClientHttpResponse delegate;
+		private final LongConsumer sizeConsumer;
+		private CountingInputStream body;
+		private boolean closed;
+
+		SizeRecordingResponse(ClientHttpResponse delegate, LongConsumer sizeConsumer) {
+			this.delegate = delegate;
+			this.sizeConsumer = sizeConsumer;
+		}
+
+		@Override
+		public HttpStatusCode getStatusCode() throws IOException {
+			return delegate.getStatusCode();
+		}
+
+		@Override
+		public String getStatusText() throws IOException {
+			return delegate.getStatusText();
+		}
+
+		@Override
+		public HttpHeaders getHeaders() {
+			return delegate.getHeaders();
+		}
+
+		@Override
+		public InputStream getBody() throws IOException {
+			if (body == null) {
+				body = new CountingInputStream(delegate.getBody());
+			}
+			return body;
+		}
+
+		@Override
+		public void close() {
+			if (!closed) {
+				closed = true;
+				sizeConsumer.accept(body == null ? 0 : body.count);
+			}
+			delegate.close();
+		}
+	}
+
+	/**
+	 * Input stream counting the bytes read.
+	 */
+	private static class CountingInputStream extends FilterInputStream {
+
+		private long count;
+
+		CountingInputStream(InputStream in) {
+			super(in);
+		}
+
+		@Override
+		public int read() throws IOException {
+			int b = super.read();
+			if (b >= 0) {
+				count++;
+			}
+			return b;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			int n = super.read(b, off, len);
+			if (n > 0) {
+				count += n;
+			}
+			return n;
+		}
+
+		@Override
+		public long skip(long n) throws IOException {
+			long skipped = super.skip(n);
+			count += skipped;
+			return skipped;
+		}
+	}
+}
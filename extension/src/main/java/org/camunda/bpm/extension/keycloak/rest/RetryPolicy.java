@@ -0,0 +1,116 @@
+package org.camunda.bpm.extension.keycloak.rest;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.camunda.bpm.extension.keycloak.concurrent.RequestDeadline;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientException;
+
+/**
+ * Decides whether and when a failed idempotent request to Keycloak is retried.
+ * <p>
+ * Retried are I/O errors (e.g. connection resets), HTTP 502, 503, 504 and 429. Retries back off exponentially with
+ * full jitter; a {@code Retry-After} header of the response is honored as minimum delay. All retries of a call must
+ * complete within the retry budget and the deadline of the calling operation (see {@link RequestDeadline}), a retry
+ * which would have to wait beyond is not attempted at all.
+ */
+public class RetryPolicy {
+
+	/** Policy never retrying. */
+	public static final RetryPolicy NONE = new RetryPolicy(0, 0, 0, 0);
+
+	private final int maxRetries;
+	private final long initialBackoffNanos;
+	private final long maxBackoffNanos;
+	private final long budgetNanos;
+
+	/**
+	 * Creates a new retry policy.
+	 * @param maxRetries maximum number of retries per call, {@code 0} disables retries
+	 * @param initialBackoffMs maximum delay before the first retry in milliseconds, doubled for each further retry
+	 * @param maxBackoffMs upper limit of the delay in milliseconds
+	 * @param budgetMs maximum duration of a call including all retries in milliseconds
+	 */
+	public RetryPolicy(int maxRetries, long initialBackoffMs, long maxBackoffMs, long budgetMs) {
+		this.maxRetries = Math.max(0, maxRetries);
+		this.initialBackoffNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, initialBackoffMs));
+		this.maxBackoffNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(initialBackoffMs, maxBackoffMs));
+		this.budgetNanos = TimeUnit.MILLISECONDS.toNanos(budgetMs);
+	}
+
+	/**
+	 * @return whether this policy retries at all
+	 */
+	public boolean isEnabled() {
+		return maxRetries > 0;
+	}
+
+	/**
+	 * Determines the delay before retrying a failed call.
+	 * @param exception the failure
+	 * @param retry the number of the upcoming retry, starting with {@code 1}
+	 * @param elapsedNanos time spent on the call so far
+	 * @return the delay in nanoseconds or {@code -1} in case the call must not be retried
+	 */
+	public long delayBeforeRetry(RestClientException exception, int retry, long elapsedNanos) {
+		if (retry > maxRetries || !isRetryable(exception) || Thread.currentThread().isInterrupted()) {
+			return -1;
+		}
+		long backoff = Math.min(maxBackoffNanos, initialBackoffNanos << Math.min(retry - 1, 20));
+		long delay = ThreadLocalRandom.current().nextLong(backoff + 1);
+		long retryAfter = retryAfterNanos(exception);
+		if (retryAfter > delay) {
+			delay = retryAfter;
+		}
+		long remaining = Math.min(budgetNanos - elapsedNanos, RequestDeadline.remainingNanos());
+		return delay < remaining ? delay : -1;
+	}
+
+	/**
+	 * @return whether the failure is likely transient
+	 */
+	static boolean isRetryable(RestClientException exception) {
+		if (exception instanceof ResourceAccessException) {
+			// rejected by the concurrency limit without being sent
+			return !(exception.getCause() instanceof ConcurrencyLimitExceededException);
+		}
+		if (exception instanceof HttpStatusCodeException) {
+			int status = ((HttpStatusCodeException) exception).getStatusCode().value();
+			return status == 429 || LoadBalancingInterceptor.isUnavailable(status);
+		}
+		return false;
+	}
+
+	/**
+	 * Parses the {@code Retry-After} header given either in seconds or as HTTP date.
+	 * @return the delay in nanoseconds or {@code 0} in case there is no valid header
+	 */
+	static long retryAfterNanos(RestClientException exception) {
+		if (!(exception instanceof HttpStatusCodeException)) {
+			return 0;
+		}
+		HttpHeaders headers = ((HttpStatusCodeException) exception).getResponseHeaders();
+		String retryAfter = headers != null ? headers.getFirst(HttpHeaders.RETRY_AFTER) : null;
+		if (retryAfter == null || retryAfter.isBlank()) {
+			return 0;
+		}
+		try {
+			return TimeUnit.SECONDS.toNanos(Math.max(0, Long.parseLong(retryAfter.trim())));
+		} catch (NumberFormatException e) {
+			try {
+				Duration delay = Duration.between(ZonedDateTime.now(),
+						ZonedDateTime.parse(retryAfter.trim(), DateTimeFormatter.RFC_1123_DATE_TIME));
+				return Math.max(0, delay.toNanos());
+			} catch (DateTimeParseException | ArithmeticException ex) {
+				return 0;
+			}
+		}
+	}
+}
@@ -0,0 +1,25 @@
+package org.camunda.bpm.extension.keycloak.tracing;
+
+/**
+ * A span of work traced by KeycloakTracing. Closing the span ends it.
+ */
+public interface KeycloakSpan extends AutoCloseable {
+
+	KeycloakSpan setAttribute(String key, String value);
+
+	KeycloakSpan setAttribute(String key, long value);
+
+	KeycloakSpan setAttribute(String key, boolean value);
+
+	/**
+	 * Records an exception and marks the span as failed.
+	 * @param exception the exception
+	 */
+	void recordException(Throwable exception);
+
+	/**
+	 * Ends the span.
+	 */
+	@Override
+	void close();
+}
@@ -0,0 +1,45 @@
+package org.camunda.bpm.extension.keycloak.tracing;
+
+import java.util.Optional;
+import java.util.concurrent.Callable;
+
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+
+/**
+ * The interface for tracing identity queries and requests to Keycloak.
+ */
+public interface KeycloakTracing {
+
+	/** Attribute: whether a lookup has been answered from the cache. */
+	String ATTRIBUTE_CACHE_HIT = "keycloak.cache.hit";
+	/** Attribute: whether a lookup has been answered from the cached result of a broader query. */
+	String ATTRIBUTE_CACHE_SUBSUMED = "keycloak.cache.subsumed";
+	/** Attribute: the number of entries in a (post processed) result. */
+	String ATTRIBUTE_RESULT_SIZE = "keycloak.result.size";
+	/** Attribute: whether the Keycloak response has possibly been truncated due to the configured maxResultSize. */
+	String ATTRIBUTE_RESULT_TRUNCATED = "keycloak.result.truncated";
+
+	/**
+	 * Starts a new span as child of the current span and makes it the current span until it is closed.
+	 *
+	 * @param name the name of the span
+	 * @return the started span, to be closed by the caller
+	 */
+	KeycloakSpan startSpan(String name);
+
+	/**
+	 * Returns an interceptor creating a client span for each request to Keycloak
+	 * and propagating the trace context via request headers.
+	 *
+	 * @return the interceptor or empty if tracing is disabled
+	 */
+	Optional<ClientHttpRequestInterceptor> requestInterceptor();
+
+	/**
+	 * Wraps a task such that it runs within the trace context of the caller when executed on another thread.
+	 *
+	 * @param task the task
+	 * @return the wrapped task
+	 */
+	<T> Callable<T> wrap(Callable<T> task);
+}
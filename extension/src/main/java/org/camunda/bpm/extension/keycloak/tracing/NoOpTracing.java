@@ -0,0 +1,65 @@
+package org.camunda.bpm.extension.keycloak.tracing;
+
+import java.util.Optional;
+import java.util.concurrent.Callable;
+
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+
+/**
+ * A no-op implementation of KeycloakTracing used when tracing is disabled.
+ */
+public class NoOpTracing implements KeycloakTracing {
+
+	/** The span doing nothing. */
+	private static final KeycloakSpan NOOP_SPAN = new KeycloakSpan() {
+
+		@Override
+		public KeycloakSpan setAttribute(String key, String value) {
+			return this;
+		}
+
+		@Override
+		public KeycloakSpan setAttribute(String key, long value) {
+			return this;
+		}
+
+		@Override
+		public KeycloakSpan setAttribute(String key, boolean value) {
+			return this;
+		}
+
+		@Override
+		public void recordException(Throwable exception) {
+			// no-op
+		}
+
+		@Override
+		public void close() {
+			// no-op
+		}
+	};
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public KeycloakSpan startSpan(String name) {
+		return NOOP_SPAN;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Optional<ClientHttpRequestInterceptor> requestInterceptor() {
+		return Optional.empty();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public <T> Callable<T> wrap(Callable<T> task) {
+		return task;
+	}
+}
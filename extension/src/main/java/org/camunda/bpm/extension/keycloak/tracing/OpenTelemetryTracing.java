@@ -0,0 +1,128 @@
+package org.camunda.bpm.extension.keycloak.tracing;
+
+import java.util.Optional;
+import java.util.concurrent.Callable;
+
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+
+import io.opentelemetry.api.GlobalOpenTelemetry;
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.Scope;
+
+/**
+ * An implementation of KeycloakTracing backed by OpenTelemetry.
+ */
+public class OpenTelemetryTracing implements KeycloakTracing {
+
+	/** The instrumentation scope name. */
+	public static final String INSTRUMENTATION_NAME = "org.camunda.bpm.extension.keycloak";
+
+	/** The OpenTelemetry instance or {@code null} in order to use the global instance. */
+	private final OpenTelemetry configuredOpenTelemetry;
+
+	/** Lazily resolved: the global instance might be registered after plugin initialization. */
+	private volatile OpenTelemetry openTelemetry;
+	private volatile Tracer tracer;
+
+	/**
+	 * Creates a new tracing using the global OpenTelemetry instance.
+	 */
+	public OpenTelemetryTracing() {
+		this(null);
+	}
+
+	/**
+	 * Creates a new tracing using the given OpenTelemetry instance.
+	 * @param openTelemetry the OpenTelemetry instance
+	 */
+	public OpenTelemetryTracing(OpenTelemetry openTelemetry) {
+		this.configuredOpenTelemetry = openTelemetry;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public KeycloakSpan startSpan(String name) {
+		Span span = tracer().spanBuilder(name).startSpan();
+		return new OpenTelemetrySpan(span, span.makeCurrent());
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Optional<ClientHttpRequestInterceptor> requestInterceptor() {
+		return Optional.of(new TracingRequestInterceptor(this));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public <T> Callable<T> wrap(Callable<T> task) {
+		return Context.current().wrap(task);
+	}
+
+	OpenTelemetry openTelemetry() {
+		if (openTelemetry == null) {
+			openTelemetry = configuredOpenTelemetry != null ? configuredOpenTelemetry : GlobalOpenTelemetry.get();
+		}
+		return openTelemetry;
+	}
+
+	Tracer tracer() {
+		if (tracer == null) {
+			tracer = openTelemetry().getTracer(INSTRUMENTATION_NAME);
+		}
+		return tracer;
+	}
+
+	/**
+	 * KeycloakSpan wrapping an OpenTelemetry span and its scope.
+	 */
+	static class OpenTelemetrySpan implements KeycloakSpan {
+
+		private final Span span;
+		private final Scope scope;
+
+		OpenTelemetrySpan(Span span, Scope scope) {
+			this.span = span;
+			this.scope = scope;
+		}
+
+		@Override
+		public KeycloakSpan setAttribute(String key, String value) {
+			span.setAttribute(key, value);
+			return this;
+		}
+
+		@Override
+		public KeycloakSpan setAttribute(String key, long value) {
+			span.setAttribute(key, value);
+			return this;
+		}
+
+		@Override
+		public KeycloakSpan setAttribute(String key, boolean value) {
+			span.setAttribute(key, value);
+			return this;
+		}
+
+		@Override
+		public void recordException(Throwable exception) {
+			span.recordException(exception);
+			span.setStatus(StatusCode.ERROR);
+		}
+
+		@Override
+		public void close() {
+			scope.close();
+			span.end();
+		}
+	}
+}
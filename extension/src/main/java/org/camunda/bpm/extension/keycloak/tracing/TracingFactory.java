@@ -0,0 +1,28 @@
+package org.camunda.bpm.extension.keycloak.tracing;
+
+import org.camunda.bpm.extension.keycloak.KeycloakConfiguration;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Factory for creating KeycloakTracing.
+ */
+public class TracingFactory {
+
+	/** Class indicating the OpenTelemetry API is available on the classpath. */
+	private static final String OPENTELEMETRY_CLASS = "io.opentelemetry.api.GlobalOpenTelemetry";
+
+	/**
+	 * Creates implementations of KeycloakTracing based on the provided configuration:
+	 * OpenTelemetry is used if enabled and present on the classpath.
+	 *
+	 * @param configuration the Keycloak configuration
+	 * @return the created KeycloakTracing implementation
+	 */
+	public static KeycloakTracing create(KeycloakConfiguration configuration) {
+		if (configuration.isTracingEnabled()
+				&& ClassUtils.isPresent(OPENTELEMETRY_CLASS, TracingFactory.class.getClassLoader())) {
+			return new OpenTelemetryTracing();
+		}
+		return new NoOpTracing();
+	}
+}
@@ -0,0 +1,67 @@
+package org.camunda.bpm.extension.keycloak.tracing;
+
+import java.io.IOException;
+
+import org.camunda.bpm.extension.keycloak.rest.KeycloakEndpoints;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.Scope;
+
+/**
+ * Interceptor creating a client span for each request to Keycloak and propagating the
+ * trace context to Keycloak via request headers (e.g. W3C {@code traceparent}).
+ * <p>
+ * Span names use the normalized endpoint template only, request URIs are not recorded since they might
+ * contain user data like email addresses.
+ */
+public class TracingRequestInterceptor implements ClientHttpRequestInterceptor {
+
+	private final OpenTelemetryTracing tracing;
+
+	/**
+	 * Creates a new interceptor.
+	 * @param tracing the OpenTelemetry tracing
+	 */
+	public TracingRequestInterceptor(OpenTelemetryTracing tracing) {
+		this.tracing = tracing;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution) throws IOException {
+		String method = request.getMethod().name();
+		String endpoint = KeycloakEndpoints.templateOf(request.getURI());
+		Span span = tracing.tracer().spanBuilder(method + " " + endpoint)
+				.setSpanKind(SpanKind.CLIENT)
+				.setAttribute("http.request.method", method)
+				.setAttribute("url.template", endpoint)
+				.setAttribute("server.address", String.valueOf(request.getURI().getHost()))
+				.startSpan();
+		try (Scope scope = span.makeCurrent()) {
+			tracing.openTelemetry().getPropagators().getTextMapPropagator()
+					.inject(Context.current(), request, (carrier, key, value) -> carrier.getHeaders().set(key, value));
+			ClientHttpResponse response = execution.execute(request, body);
+			int status = response.getStatusCode().value();
+			span.setAttribute("http.response.status_code", status);
+			if (status >= 400) {
+				span.setStatus(StatusCode.ERROR);
+			}
+			return response;
+		} catch (IOException | RuntimeException e) {
+			span.recordException(e);
+			span.setStatus(StatusCode.ERROR);
+			throw e;
+		} finally {
+			span.end();
+		}
+	}
+}
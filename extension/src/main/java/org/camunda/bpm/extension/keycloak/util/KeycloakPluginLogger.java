@@ -32,6 +32,10 @@ public class KeycloakPluginLogger extends BaseLogger {
 		logError("005", "PLUGIN {} could not be activated on process engine {}: {}", pluginClassName, engineName, errorMessage);
 	}
 
+	public void pluginClosed(String pluginClassName, String engineName) {
+		logInfo("006", "PLUGIN {} closed on process engine {}", pluginClassName, engineName);
+	}
+
 	public void requestTokenFailed(Exception exception) {
 		logError("011", "TOKEN request failed: {}", exception.getMessage());
 	}
@@ -60,6 +64,38 @@ public class KeycloakPluginLogger extends BaseLogger {
 		logDebug("022", "FIND group with query {}", filter);
 	}
 
+	public void metricsActivated(String registryName, String engineName) {
+		logInfo("030", "METRICS publishing via {} activated on process engine {}", registryName, engineName);
+	}
+
+	public void metricsRegistrationFailed(String name, Exception exception) {
+		logWarn("031", "METRICS registration of {} failed: {}", name, exception.getMessage());
+	}
+
+	public void slowRequest(String method, String endpoint, String status, long durationMillis) {
+		logWarn("032", "REQUEST {} {} took {} ms (status {})", method, endpoint, durationMillis, status);
+	}
+
+	public void executorCreated(String type, String engineName) {
+		logInfo("033", "EXECUTOR for Keycloak requests uses {} on process engine {}", type, engineName);
+	}
+
+	public void virtualThreadsUnavailable(String javaVersion) {
+		logWarn("034", "EXECUTOR virtual threads require Java 21 or later but running on {}, using platform threads", javaVersion);
+	}
+
+	public void nodeEjected(String node, int consecutiveFailures, long durationMillis) {
+		logWarn("035", "NODE {} ejected for {} ms after {} consecutive failures", node, durationMillis, consecutiveFailures);
+	}
+
+	public void nodeReinstated(String node) {
+		logInfo("036", "NODE {} reinstated", node);
+	}
+
+	public void requestRetry(String method, String url, String failure, int retry, long delayMillis) {
+		logWarn("037", "REQUEST {} {} failed ({}), retry {} in {} ms", method, url, failure, retry, delayMillis);
+	}
+
 	public void groupQueryResult(String summary) {
 		// log sensitive data only on FINE
 		logDebug("050", summary);
@@ -0,0 +1,66 @@
+package org.camunda.bpm.extension.keycloak.util;
+
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+import org.springframework.util.StringUtils;
+
+/**
+ * Derives the terms sent to Keycloak from the criteria of user and group queries.
+ */
+public class SearchTerms {
+
+	/** Wildcards stripped from like patterns. */
+	private static final Pattern WILDCARDS = Pattern.compile("[%,\\*]");
+
+	private SearchTerms() {
+	}
+
+	/**
+	 * Returns the term sent to Keycloak for an attribute searched for exactly (case insensitive), i.e. an equality
+	 * criteria or a like pattern without wildcards. Equality criteria take precedence since Keycloak uses the first
+	 * parameter of the same name only.
+	 * @param value the attribute value the query is filtered by
+	 * @param valueLike the attribute like pattern the query is filtered by
+	 * @return the exact term or {@code null} in case the attribute is not searched for exactly
+	 */
+	public static String exactTerm(String value, String valueLike) {
+		if (StringUtils.hasLength(value)) {
+			return value.toLowerCase(Locale.ROOT);
+		}
+		if (StringUtils.hasLength(valueLike) && !WILDCARDS.matcher(valueLike).find()) {
+			return valueLike.toLowerCase(Locale.ROOT);
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the term sent to Keycloak for an attribute. Keycloak searches case insensitive substrings, so the case
+	 * is folded and like patterns are searched for by a part without wildcards, which is contained in every match:
+	 * the prefix of the pattern, as it is usually more selective than e.g. a common email domain, otherwise the
+	 * longest part - e.g. {@code "john"} for {@code "john%@example.org"} and {@code "smith"} for {@code "%j%smith"}.
+	 * Equality criteria take precedence since Keycloak uses the first parameter of the same name only.
+	 * @param value the attribute value the query is filtered by
+	 * @param valueLike the attribute like pattern the query is filtered by
+	 * @return the search term or {@code null} in case the attribute is not searched for
+	 */
+	public static String searchTerm(String value, String valueLike) {
+		if (StringUtils.hasLength(value)) {
+			return value.toLowerCase(Locale.ROOT);
+		}
+		if (StringUtils.hasLength(valueLike)) {
+			// a leading wildcard results in an empty first part
+			String[] parts = WILDCARDS.split(valueLike);
+			String term = parts.length > 0 ? parts[0] : "";
+			if (term.isEmpty()) {
+				for (String part : parts) {
+					if (part.length() > term.length()) {
+						term = part;
+					}
+				}
+			}
+			return term.isEmpty() ? null : term.toLowerCase(Locale.ROOT);
+		}
+		return null;
+	}
+}
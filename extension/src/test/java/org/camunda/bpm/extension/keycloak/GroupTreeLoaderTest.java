@@ -0,0 +1,194 @@
+package org.camunda.bpm.extension.keycloak;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.camunda.bpm.engine.identity.Group;
+import org.camunda.bpm.extension.keycloak.GroupTreeLoader.GroupTree;
+import org.camunda.bpm.extension.keycloak.cache.CacheConfiguration;
+import org.camunda.bpm.extension.keycloak.concurrent.ParallelFetcher;
+import org.camunda.bpm.extension.keycloak.rest.KeycloakRestTemplate;
+import org.camunda.bpm.extension.keycloak.test.util.StubServer;
+import org.camunda.bpm.extension.keycloak.tracing.NoOpTracing;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.sun.net.httpserver.HttpExchange;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit tests of loading the group tree via the children endpoint, using a local stub server as Keycloak.
+ */
+public class GroupTreeLoaderTest extends TestCase {
+
+	private static final int PAGE_SIZE = 2;
+
+	/** The children of each group, the top level groups for the empty ID. */
+	private final Map<String, List<String>> tree = new LinkedHashMap<>();
+	/** The children of t0 and t3 are requested at the same time, t0 waits for t3 and vice versa. */
+	private final CyclicBarrier sameLevel = new CyclicBarrier(2);
+	private final AtomicBoolean concurrent = new AtomicBoolean(true);
+	private final ExecutorService executor = Executors.newCachedThreadPool();
+	private StubServer keycloak;
+	private CloseableHttpClient httpClient;
+	private GroupTreeLoader loader;
+
+	@Override
+	protected void setUp() throws Exception {
+		// more children than fit on a page, exactly a page and a single partial page
+		tree.put("", List.of("t0", "t1", "t2", "t3", "t4"));
+		tree.put("t0", List.of("c0", "c1", "c2", "c3", "c4"));
+		tree.put("c1", List.of("s0", "s1", "s2"));
+		tree.put("t3", List.of("d0", "d1"));
+		keycloak = StubServer.start(this::handle);
+
+		KeycloakConfiguration configuration = new KeycloakConfiguration();
+		configuration.setKeycloakIssuerUrl(keycloak.getUri() + "/realms/test");
+		configuration.setKeycloakAdminUrl(keycloak.getUri() + "/admin/realms/test");
+		configuration.setMaxResultSize(PAGE_SIZE);
+		configuration.setCacheEnabled(true);
+		httpClient = HttpClients.custom().disableAutomaticRetries().build();
+		KeycloakRestTemplate restTemplate = new KeycloakRestTemplate();
+		restTemplate.setRequestFactory(new HttpComponentsClientHttpRequestFactory(httpClient));
+		KeycloakContextProvider keycloakContextProvider = new KeycloakContextProvider(configuration, restTemplate);
+		loader = new GroupTreeLoader(configuration, restTemplate, keycloakContextProvider,
+				new ParallelFetcher(executor, 4, Duration.ofSeconds(30), new NoOpTracing()), CacheConfiguration.from(configuration));
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		executor.shutdownNow();
+		httpClient.close();
+		keycloak.close();
+	}
+
+	public void testGroupsAreFlattenedDepthFirst() {
+		GroupTree groupTree = loader.load();
+
+		assertEquals(List.of("t0", "c0", "c1", "s0", "s1", "s2", "c2", "c3", "c4", "t1", "t2", "t3", "d0", "d1", "t4"),
+				groupTree.getGroups().stream().map(Group::getId).collect(Collectors.toList()));
+		assertEquals("Group s1", groupTree.getGroups().get(4).getName());
+	}
+
+	public void testHierarchy() {
+		GroupHierarchy hierarchy = loader.load().getHierarchy();
+
+		assertEquals(List.of("c1", "t0"), ids(hierarchy.getAncestors("s1")));
+		assertEquals(List.of("t0"), ids(hierarchy.getAncestors("c4")));
+		assertEquals(List.of("t3"), ids(hierarchy.getAncestors("d1")));
+		assertTrue(hierarchy.getAncestors("t4").isEmpty());
+	}
+
+	public void testLevelsAreRequestedInPagesOfMaxResultSize() {
+		loader.load();
+
+		List<String> requests = groupRequests();
+		assertEquals(List.of("/groups?first=0&max=2", "/groups?first=2&max=2", "/groups?first=4&max=2"),
+				requests.subList(0, 3));
+		assertTrue(requests.containsAll(List.of("/groups/t0/children?first=0&max=2", "/groups/t0/children?first=2&max=2",
+				"/groups/t0/children?first=4&max=2")));
+		// a full page is followed by an empty one
+		assertTrue(requests.containsAll(List.of("/groups/t3/children?first=0&max=2", "/groups/t3/children?first=2&max=2")));
+		assertTrue(requests.containsAll(List.of("/groups/c1/children?first=0&max=2", "/groups/c1/children?first=2&max=2")));
+		// groups without subgroups are not requested
+		assertEquals(3 + 3 + 2 + 2, requests.size());
+	}
+
+	public void testChildrenOfALevelAreRequestedConcurrently() {
+		loader.load();
+
+		assertTrue(concurrent.get());
+		// the children of c1 are requested after its level has been loaded
+		List<String> requests = groupRequests();
+		assertTrue(requests.indexOf("/groups/c1/children?first=0&max=2") > requests.indexOf("/groups/t0/children?first=4&max=2"));
+	}
+
+	public void testChildrenAreCachedPerGroup() {
+		loader.load();
+		int requests = groupRequests().size();
+
+		assertEquals(15, loader.load().getGroups().size());
+		assertEquals(requests, groupRequests().size());
+		assertNotNull(loader.getCache().getIfPresent(""));
+		assertNotNull(loader.getCache().getIfPresent("t0"));
+		assertNotNull(loader.getCache().getIfPresent("c1"));
+		assertNull(loader.getCache().getIfPresent("t1"));
+
+		loader.clear();
+		loader.load();
+		assertEquals(2 * requests, groupRequests().size());
+	}
+
+	// ------------------------------------------------------------------------
+	// Helpers
+	// ------------------------------------------------------------------------
+
+	private void handle(HttpExchange exchange) throws IOException {
+		String path = exchange.getRequestURI().getPath();
+		if (path.endsWith("/protocol/openid-connect/token")) {
+			StubServer.respond(exchange, 200,
+					"{\"access_token\":\"token\",\"token_type\":\"Bearer\",\"refresh_token\":\"refresh\",\"expires_in\":300}");
+			return;
+		}
+		String parentId = path.endsWith("/children") ? path.split("/")[5] : "";
+		Map<String, List<String>> query = UriComponentsBuilder.fromUri(exchange.getRequestURI()).build().getQueryParams();
+		int first = Integer.parseInt(query.get("first").get(0));
+		int max = Integer.parseInt(query.get("max").get(0));
+		if (first == 0 && (parentId.equals("t0") || parentId.equals("t3"))) {
+			awaitSameLevel();
+		}
+		List<String> children = tree.getOrDefault(parentId, List.of());
+		JsonArray page = new JsonArray();
+		for (String id : children.subList(Math.min(first, children.size()), Math.min(first + max, children.size()))) {
+			JsonObject group = new JsonObject();
+			group.addProperty("id", id);
+			group.addProperty("name", "Group " + id);
+			group.addProperty("subGroupCount", tree.getOrDefault(id, List.of()).size());
+			page.add(group);
+		}
+		StubServer.respond(exchange, 200, page.toString());
+	}
+
+	private void awaitSameLevel() {
+		try {
+			sameLevel.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException | BrokenBarrierException | TimeoutException e) {
+			concurrent.set(false);
+		}
+	}
+
+	/**
+	 * @return path relative to the realm and query of all group requests
+	 */
+	private List<String> groupRequests() {
+		List<String> requests = new ArrayList<>();
+		for (String request : keycloak.getRequests()) {
+			String uri = request.substring(request.indexOf(' ') + 1);
+			if (uri.startsWith("/admin/realms/test/groups")) {
+				requests.add(uri.substring("/admin/realms/test".length()));
+			}
+		}
+		return requests;
+	}
+
+	private static List<String> ids(List<Group> groups) {
+		return groups.stream().map(Group::getId).collect(Collectors.toList());
+	}
+}
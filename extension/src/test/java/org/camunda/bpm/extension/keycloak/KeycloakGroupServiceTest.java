@@ -0,0 +1,251 @@
+package org.camunda.bpm.extension.keycloak;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import org.camunda.bpm.engine.authorization.Groups;
+import org.camunda.bpm.engine.identity.Group;
+import org.camunda.bpm.extension.keycloak.rest.KeycloakRestTemplate;
+import org.camunda.bpm.extension.keycloak.test.util.StubServer;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.sun.net.httpserver.HttpExchange;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit tests of flattening Keycloak group hierarchies and of group types.
+ */
+public class KeycloakGroupServiceTest extends TestCase {
+
+	private final KeycloakGroupService groupService = new KeycloakGroupService(new KeycloakConfiguration(), null, null);
+	private final Random random = new Random(4711);
+	private int nextId;
+
+	public void testFlatteningEqualsRecursiveFlattening() throws Exception {
+		for (int run = 0; run < 200; run++) {
+			JsonArray groups = randomTree(random.nextInt(6), 0);
+			List<String> expectedIds = new ArrayList<>();
+			Map<String, List<String>> expectedAncestors = new HashMap<>();
+			flattenRecursively(groups, new ArrayList<>(), expectedIds, expectedAncestors);
+
+			assertEquals(expectedIds, ids(groupService.flattenSubGroups(groups, new JsonArray())));
+			assertEquals(expectedIds, groupService.transformGroupTree(groups).stream().map(Group::getId).collect(Collectors.toList()));
+			assertEquals(expectedAncestors, ancestorIds(groupService.collectAncestors(groups)));
+		}
+	}
+
+	public void testFlatteningLeavesHierarchyUnchanged() throws Exception {
+		JsonArray groups = chain(3);
+		JsonArray copy = groups.deepCopy();
+
+		JsonArray flattened = groupService.flattenSubGroups(groups, new JsonArray());
+
+		assertEquals(copy, groups);
+		assertEquals(3, flattened.size());
+		// the flattened groups still contain their subgroups
+		assertSame(groups.get(0), flattened.get(0));
+		assertTrue(flattened.get(0).getAsJsonObject().has("subGroups"));
+	}
+
+	public void testDeepHierarchyDoesNotOverflowCallStack() throws Exception {
+		int depth = 100_000;
+		JsonArray groups = chain(depth);
+
+		JsonArray flattened = groupService.flattenSubGroups(groups, new JsonArray());
+		List<Group> transformed = groupService.transformGroupTree(groups);
+
+		assertEquals(depth, flattened.size());
+		assertEquals(depth, transformed.size());
+		for (int i = 0; i < depth; i++) {
+			assertEquals("g" + i, transformed.get(i).getId());
+		}
+	}
+
+	public void testAncestorsOfDeepHierarchy() throws Exception {
+		int depth = 2_000;
+
+		Map<String, List<Group>> ancestors = groupService.collectAncestors(chain(depth));
+
+		assertEquals(depth - 1, ancestors.size());
+		assertNull(ancestors.get("g0"));
+		List<Group> deepest = ancestors.get("g" + (depth - 1));
+		assertEquals(depth - 1, deepest.size());
+		// parent first
+		for (int i = 0; i < depth - 1; i++) {
+			assertEquals("g" + (depth - 2 - i), deepest.get(i).getId());
+		}
+	}
+
+	public void testSystemGroupsViaAttributeQueryMatchTheClientSideType() throws Exception {
+		KeycloakConfiguration configuration = new KeycloakConfiguration();
+		configuration.setSearchGroupTypeViaAttributeQuery(true);
+		configuration.setAdministratorGroupName("custom-admin");
+		Map<String, String> responses = new HashMap<>();
+		responses.put("q=type:SYSTEM", "[" + group("upper", "SYSTEM") + "]");
+		responses.put("q=type:system", "[" + group("lower", "system") + "," + group("upper", "SYSTEM") + "]");
+		responses.put("search=camunda-admin", "[" + group("camunda-admin", null) + "]");
+		// the parent of the matching subgroup is part of the result
+		JsonObject parent = group("parent", null);
+		JsonArray subGroups = new JsonArray();
+		subGroups.add(group("custom-admin", null));
+		parent.add("subGroups", subGroups);
+		responses.put("search=custom-admin", "[" + parent + "]");
+
+		try (StubServer keycloak = StubServer.start(exchange -> respond(exchange, responses))) {
+			List<Group> groups = groupService(configuration, keycloak).requestGroupsWithoutUserId(
+					CacheableKeycloakGroupQuery.of((KeycloakGroupQuery) new KeycloakGroupQuery().groupType(Groups.GROUP_TYPE_SYSTEM), true));
+
+			assertEquals(List.of("upper", "lower", "camunda-admin", "parent", "custom-admin"),
+					groups.stream().map(Group::getId).collect(Collectors.toList()));
+			// all but the parent are SYSTEM groups on the client side as well
+			assertEquals(List.of("upper", "lower", "camunda-admin", "custom-admin"), groups.stream()
+					.filter(g -> Groups.GROUP_TYPE_SYSTEM.equals(g.getType())).map(Group::getId).collect(Collectors.toList()));
+			assertTrue(keycloak.getRequests().stream().anyMatch(r -> r.contains("search=camunda-admin&exact=true")));
+			assertTrue(keycloak.getRequests().stream().filter(r -> r.contains("/groups")).allMatch(r -> r.contains("briefRepresentation=false")));
+		}
+	}
+
+	public void testTypeValuesOfSystemGroups() throws Exception {
+		KeycloakConfiguration configuration = new KeycloakConfiguration();
+		KeycloakGroupService clientSide = new KeycloakGroupService(configuration, null, null);
+
+		assertEquals(Groups.GROUP_TYPE_SYSTEM, clientSide.transformGroup(group("g", "System")).getType());
+		assertEquals(Groups.GROUP_TYPE_SYSTEM, clientSide.transformGroup(group("camunda-admin", null)).getType());
+		assertEquals(Groups.GROUP_TYPE_WORKFLOW, clientSide.transformGroup(group("g", "workflow")).getType());
+
+		// Keycloak matches attribute values exactly, only the values searched for are SYSTEM groups
+		configuration.setSearchGroupTypeViaAttributeQuery(true);
+		assertEquals(Groups.GROUP_TYPE_WORKFLOW, clientSide.transformGroup(group("g", "System")).getType());
+		assertEquals(Groups.GROUP_TYPE_SYSTEM, clientSide.transformGroup(group("g", "system")).getType());
+		assertEquals(Groups.GROUP_TYPE_SYSTEM, clientSide.transformGroup(group("camunda-admin", null)).getType());
+	}
+
+	// ------------------------------------------------------------------------
+	// Helpers
+	// ------------------------------------------------------------------------
+
+	/**
+	 * @return a group service requesting the given stub server, which answers token requests as well
+	 */
+	private static KeycloakGroupService groupService(KeycloakConfiguration configuration, StubServer keycloak) {
+		configuration.setKeycloakIssuerUrl(keycloak.getUri() + "/realms/test");
+		configuration.setKeycloakAdminUrl(keycloak.getUri() + "/admin/realms/test");
+		KeycloakRestTemplate restTemplate = new KeycloakRestTemplate();
+		restTemplate.setRequestFactory(new SimpleClientHttpRequestFactory());
+		return new KeycloakGroupService(configuration, restTemplate, new KeycloakContextProvider(configuration, restTemplate));
+	}
+
+	/**
+	 * Answers token requests and group requests whose query contains one of the given keys.
+	 */
+	private static void respond(HttpExchange exchange, Map<String, String> responses) throws IOException {
+		if (exchange.getRequestURI().getPath().endsWith("/protocol/openid-connect/token")) {
+			StubServer.respond(exchange, 200,
+					"{\"access_token\":\"token\",\"token_type\":\"Bearer\",\"refresh_token\":\"refresh\",\"expires_in\":300}");
+			return;
+		}
+		String query = exchange.getRequestURI().getQuery();
+		for (Map.Entry<String, String> response : responses.entrySet()) {
+			if (query.contains(response.getKey())) {
+				StubServer.respond(exchange, 200, response.getValue());
+				return;
+			}
+		}
+		StubServer.respond(exchange, 200, "[]");
+	}
+
+	/**
+	 * @return a group with the given ID as name and the given type attribute, if any
+	 */
+	private static JsonObject group(String name, String type) {
+		JsonObject group = group(name);
+		group.addProperty("name", name);
+		if (type != null) {
+			JsonObject attributes = new JsonObject();
+			JsonArray types = new JsonArray();
+			types.add(type);
+			attributes.add("type", types);
+			group.add("attributes", attributes);
+		}
+		return group;
+	}
+
+	/**
+	 * The reference: flattens recursively, each group followed by its subgroups.
+	 */
+	private static void flattenRecursively(JsonArray groups, List<String> parents, List<String> ids,
+			Map<String, List<String>> ancestors) {
+		for (int i = 0; i < groups.size(); i++) {
+			JsonObject group = groups.get(i).getAsJsonObject();
+			String id = group.get("id").getAsString();
+			ids.add(id);
+			if (!parents.isEmpty()) {
+				ancestors.put(id, new ArrayList<>(parents));
+			}
+			if (group.has("subGroups")) {
+				List<String> childParents = new ArrayList<>();
+				childParents.add(id);
+				childParents.addAll(parents);
+				flattenRecursively(group.getAsJsonArray("subGroups"), childParents, ids, ancestors);
+			}
+		}
+	}
+
+	/**
+	 * @return up to four groups per level, some with empty subgroups
+	 */
+	private JsonArray randomTree(int maxDepth, int depth) {
+		JsonArray groups = new JsonArray();
+		int size = random.nextInt(5);
+		for (int i = 0; i < size; i++) {
+			JsonObject group = group("g" + nextId++);
+			if (depth < maxDepth && random.nextBoolean()) {
+				group.add("subGroups", randomTree(maxDepth, depth + 1));
+			}
+			groups.add(group);
+		}
+		return groups;
+	}
+
+	/**
+	 * @return a hierarchy of the given depth with a single group per level
+	 */
+	private static JsonArray chain(int depth) {
+		JsonArray groups = new JsonArray();
+		JsonArray level = groups;
+		for (int i = 0; i < depth; i++) {
+			JsonObject group = group("g" + i);
+			level.add(group);
+			level = new JsonArray();
+			group.add("subGroups", level);
+		}
+		return groups;
+	}
+
+	private static JsonObject group(String id) {
+		JsonObject group = new JsonObject();
+		group.addProperty("id", id);
+		group.addProperty("name", "Group " + id);
+		return group;
+	}
+
+	private static List<String> ids(JsonArray groups) {
+		List<String> ids = new ArrayList<>();
+		groups.forEach(group -> ids.add(group.getAsJsonObject().get("id").getAsString()));
+		return ids;
+	}
+
+	private static Map<String, List<String>> ancestorIds(Map<String, List<Group>> ancestors) {
+		Map<String, List<String>> ids = new HashMap<>();
+		ancestors.forEach((id, groups) -> ids.put(id, groups.stream().map(Group::getId).collect(Collectors.toList())));
+		return ids;
+	}
+}
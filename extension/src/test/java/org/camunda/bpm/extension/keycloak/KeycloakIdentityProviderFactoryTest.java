@@ -0,0 +1,94 @@
+package org.camunda.bpm.extension.keycloak;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.camunda.bpm.extension.keycloak.test.util.StubServer;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit tests of the HTTP client set up by the session factory, using local stub servers as Keycloak nodes.
+ */
+public class KeycloakIdentityProviderFactoryTest extends TestCase {
+
+	private static final int MAX_HTTP_CONNECTIONS = 2;
+	private static final int REQUESTS_PER_NODE = 3;
+
+	private final CountDownLatch released = new CountDownLatch(1);
+	private final List<StubServer> nodes = new ArrayList<>();
+	private final ExecutorService clients = Executors.newCachedThreadPool();
+	private KeycloakIdentityProviderFactory factory;
+
+	@Override
+	protected void setUp() throws Exception {
+		for (int i = 0; i < 2; i++) {
+			nodes.add(StubServer.start(exchange -> {
+				try {
+					released.await(10, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				StubServer.respond(exchange, 200, "[]");
+			}));
+		}
+		KeycloakConfiguration configuration = new KeycloakConfiguration();
+		configuration.setKeycloakIssuerUrl("http://keycloak:8080/realms/test");
+		configuration.setKeycloakAdminUrl("http://keycloak:8080/admin/realms/test");
+		configuration.setKeycloakNodeUrls(nodes.get(0).getUri() + "," + nodes.get(1).getUri());
+		configuration.setMaxHttpConnections(MAX_HTTP_CONNECTIONS);
+		factory = new KeycloakIdentityProviderFactory(configuration, List.of());
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		released.countDown();
+		clients.shutdownNow();
+		factory.close();
+		nodes.forEach(StubServer::close);
+	}
+
+	public void testConnectionPoolIsSizedPerNode() throws Exception {
+		List<Future<?>> responses = new ArrayList<>();
+		for (StubServer node : nodes) {
+			// sent to the node itself, requests to the configured URLs would be balanced across the nodes
+			String url = node.getUri() + "/admin/realms/test/users";
+			for (int i = 0; i < REQUESTS_PER_NODE; i++) {
+				responses.add(clients.submit(() -> factory.restTemplate.exchange(url, HttpMethod.GET, HttpEntity.EMPTY, String.class)));
+			}
+		}
+
+		// maxHttpConnections per node, in total maxHttpConnections times the number of nodes
+		for (StubServer node : nodes) {
+			awaitRequests(node, MAX_HTTP_CONNECTIONS);
+		}
+		TimeUnit.MILLISECONDS.sleep(200);
+		for (StubServer node : nodes) {
+			assertEquals(MAX_HTTP_CONNECTIONS, node.getRequestCount());
+		}
+
+		// waiting requests are sent once connections are released
+		released.countDown();
+		for (Future<?> response : responses) {
+			response.get(10, TimeUnit.SECONDS);
+		}
+		for (StubServer node : nodes) {
+			assertEquals(REQUESTS_PER_NODE, node.getRequestCount());
+		}
+	}
+
+	private static void awaitRequests(StubServer node, int count) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+		while (node.getRequestCount() < count && System.nanoTime() < deadline) {
+			TimeUnit.MILLISECONDS.sleep(10);
+		}
+		assertEquals(count, node.getRequestCount());
+	}
+}
@@ -0,0 +1,208 @@
+package org.camunda.bpm.extension.keycloak;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit tests of client side filtering, ordering and paging.
+ */
+public class KeycloakServiceBaseTest extends TestCase {
+
+	private static final Comparator<Element> ORDER = Comparator.comparingInt(e -> e.key);
+
+	private final KeycloakServiceBase service = new KeycloakServiceBase(null, null, null) {
+	};
+	private final Random random = new Random(4711);
+
+	public void testOrderedPagesEqualSortThenPage() {
+		int heapSelections = 0;
+		int sortings = 0;
+		for (int run = 0; run < 5000; run++) {
+			List<Element> list = randomList();
+			Set<Element> matching = randomSubset(list, 0.8);
+			Set<Element> readable = randomSubset(list, 0.7);
+			int firstResult = randomFirstResult(list.size());
+			int maxResults = randomMaxResults(list.size());
+
+			List<Element> page = service.filterSortAndPage(list, matching::contains, readable::contains, ORDER,
+					firstResult, maxResults);
+
+			assertEquals(describe(list, firstResult, maxResults), sortThenPage(list, matching, readable, ORDER,
+					firstResult, maxResults), page);
+			if ((long) firstResult + maxResults <= list.size() / 8) {
+				heapSelections++;
+			} else {
+				sortings++;
+			}
+		}
+		// both the bounded heap and sorting are covered
+		assertTrue(heapSelections > 500);
+		assertTrue(sortings > 500);
+	}
+
+	public void testUnorderedPagesEqualFilterThenPage() {
+		for (int run = 0; run < 5000; run++) {
+			List<Element> list = randomList();
+			Set<Element> matching = randomSubset(list, 0.8);
+			Set<Element> readable = randomSubset(list, 0.7);
+			int firstResult = randomFirstResult(list.size());
+			int maxResults = randomMaxResults(list.size());
+
+			List<Element> page = service.filterSortAndPage(list, matching::contains, readable::contains, null,
+					firstResult, maxResults);
+
+			assertEquals(describe(list, firstResult, maxResults), sortThenPage(list, matching, readable, null,
+					firstResult, maxResults), page);
+		}
+	}
+
+	public void testUnorderedResultsStopAuthorizingOnceThePageIsComplete() {
+		List<Element> list = new ArrayList<>();
+		for (int i = 0; i < 100; i++) {
+			list.add(new Element(i, i));
+		}
+		AtomicInteger authorizations = new AtomicInteger();
+
+		List<Element> page = service.filterSortAndPage(list, e -> e.id % 2 == 0, counting(authorizations, e -> e.id != 4),
+				null, 2, 3);
+
+		// accepted 0, 2, 6, 8 and 10 (4 is rejected), elements after 10 are not authorized at all
+		assertEquals(List.of(list.get(6), list.get(8), list.get(10)), page);
+		assertEquals(6, authorizations.get());
+	}
+
+	public void testBoundedHeapAuthorizesOnlySmallestElementsSoFar() {
+		List<Element> list = new ArrayList<>();
+		for (int i = 0; i < 100; i++) {
+			list.add(new Element(i, 100 - i));
+		}
+		AtomicInteger authorizations = new AtomicInteger();
+
+		List<Element> page = service.filterSortAndPage(list, e -> true, counting(authorizations, e -> true),
+				Comparator.comparingInt((Element e) -> e.key).reversed(), 0, 5);
+
+		// descending keys: no element after the first five is among the five smallest, none of them is authorized
+		assertEquals(list.subList(0, 5), page);
+		assertEquals(5, authorizations.get());
+	}
+
+	public void testEmptyPages() {
+		List<Element> list = randomList();
+
+		assertTrue(service.filterSortAndPage(list, e -> true, e -> true, ORDER, 0, 0).isEmpty());
+		assertTrue(service.filterSortAndPage(list, e -> true, e -> true, ORDER, list.size(), 10).isEmpty());
+		assertTrue(service.filterSortAndPage(list, e -> true, e -> true, null, Integer.MAX_VALUE, Integer.MAX_VALUE).isEmpty());
+		assertEquals(sortThenPage(list, new HashSet<>(list), new HashSet<>(list), ORDER, 0, Integer.MAX_VALUE),
+				service.filterSortAndPage(list, e -> true, e -> true, ORDER, -5, Integer.MAX_VALUE));
+	}
+
+	// ------------------------------------------------------------------------
+	// Helpers
+	// ------------------------------------------------------------------------
+
+	/**
+	 * The reference implementation: filter, authorize, sort stably, then page.
+	 */
+	private static List<Element> sortThenPage(List<Element> list, Set<Element> matching, Set<Element> readable,
+			Comparator<Element> order, int firstResult, int maxResults) {
+		List<Element> candidates = list.stream()
+				.filter(matching::contains)
+				.filter(readable::contains)
+				.collect(Collectors.toCollection(ArrayList::new));
+		if (order != null) {
+			candidates.sort(order);
+		}
+		int first = Math.max(0, firstResult);
+		long end = Math.min(candidates.size(), (long) first + maxResults);
+		return first >= end ? List.of() : candidates.subList(first, (int) end);
+	}
+
+	/**
+	 * @return a list of up to 400 elements with many equal keys
+	 */
+	private List<Element> randomList() {
+		int size = random.nextInt(400);
+		int keys = 1 + random.nextInt(Math.max(1, size / 4));
+		List<Element> list = new ArrayList<>(size);
+		for (int id = 0; id < size; id++) {
+			list.add(new Element(id, random.nextInt(keys)));
+		}
+		return list;
+	}
+
+	private Set<Element> randomSubset(List<Element> list, double probability) {
+		Set<Element> subset = new HashSet<>();
+		for (Element element : list) {
+			if (random.nextDouble() < probability) {
+				subset.add(element);
+			}
+		}
+		return subset;
+	}
+
+	/**
+	 * @return mostly small pages at the start of the result, sometimes beyond its end
+	 */
+	private int randomFirstResult(int size) {
+		switch (random.nextInt(4)) {
+		case 0:
+			return 0;
+		case 1:
+			return random.nextInt(Math.max(1, size / 16));
+		case 2:
+			return random.nextInt(size + 20);
+		default:
+			return size + random.nextInt(20);
+		}
+	}
+
+	private int randomMaxResults(int size) {
+		switch (random.nextInt(4)) {
+		case 0:
+			return Integer.MAX_VALUE;
+		case 1:
+			return random.nextInt(size + 20);
+		default:
+			return random.nextInt(Math.max(1, size / 16));
+		}
+	}
+
+	private static Predicate<Element> counting(AtomicInteger count, Predicate<Element> predicate) {
+		return e -> {
+			count.incrementAndGet();
+			return predicate.test(e);
+		};
+	}
+
+	private static String describe(List<Element> list, int firstResult, int maxResults) {
+		return "size " + list.size() + ", firstResult " + firstResult + ", maxResults " + maxResults;
+	}
+
+	/**
+	 * Element with a sort key, equal keys are frequent.
+	 */
+	private static class Element {
+
+		final int id;
+		final int key;
+
+		Element(int id, int key) {
+			this.id = id;
+			this.key = key;
+		}
+
+		@Override
+		public String toString() {
+			return id + ":" + key;
+		}
+	}
+}
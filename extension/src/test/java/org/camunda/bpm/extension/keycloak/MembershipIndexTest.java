@@ -0,0 +1,144 @@
+package org.camunda.bpm.extension.keycloak;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.camunda.bpm.extension.keycloak.MembershipIndex.Changes;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit tests of the membership index.
+ */
+public class MembershipIndexTest extends TestCase {
+
+	private final AtomicLong clock = new AtomicLong();
+	private MembershipIndex index;
+
+	@Override
+	protected void setUp() throws Exception {
+		index = new MembershipIndex(10, Duration.ofNanos(100), clock::get);
+	}
+
+	public void testUnknownListingHasNoChanges() {
+		index.recordMembersOfGroup("g1", 1, List.of("u1"), true);
+
+		assertSame(Changes.NONE, index.groupsOfUser("u1"));
+		assertSame(Changes.NONE, index.membersOfGroup("g2"));
+	}
+
+	public void testNewerMemberListingAddsGroupOfUser() {
+		index.recordGroupsOfUser("u1", 1, List.of("g1"), true);
+		index.recordMembersOfGroup("g2", 2, List.of("u1", "u2"), true);
+
+		Changes changes = index.groupsOfUser("u1");
+		assertEquals(Set.of("g2"), changes.getAdded());
+		assertTrue(changes.getRemoved().isEmpty());
+	}
+
+	public void testNewerMemberListingRemovesGroupOfUser() {
+		index.recordGroupsOfUser("u1", 1, List.of("g1", "g2"), true);
+		index.recordMembersOfGroup("g1", 2, List.of("u2"), true);
+
+		Changes changes = index.groupsOfUser("u1");
+		assertTrue(changes.getAdded().isEmpty());
+		assertEquals(Set.of("g1"), changes.getRemoved());
+	}
+
+	public void testNewerGroupListingChangesMembersOfGroup() {
+		index.recordMembersOfGroup("g1", 1, List.of("u1"), true);
+		index.recordGroupsOfUser("u1", 2, List.of("g2"), true);
+		index.recordGroupsOfUser("u2", 3, List.of("g1"), true);
+
+		Changes changes = index.membersOfGroup("g1");
+		assertEquals(Set.of("u2"), changes.getAdded());
+		assertEquals(Set.of("u1"), changes.getRemoved());
+	}
+
+	public void testOlderListingOfOtherDirectionIsIgnored() {
+		index.recordMembersOfGroup("g2", 1, List.of("u1"), true);
+		index.recordGroupsOfUser("u1", 2, List.of("g1"), true);
+
+		assertSame(Changes.NONE, index.groupsOfUser("u1"));
+		assertEquals(Set.of("u1"), index.membersOfGroup("g2").getRemoved());
+	}
+
+	public void testTruncatedListingIsNotIndexed() {
+		index.recordGroupsOfUser("u1", 1, List.of("g1"), false);
+		index.recordMembersOfGroup("g2", 2, List.of("u1"), true);
+		assertSame(Changes.NONE, index.groupsOfUser("u1"));
+
+		// a truncated member listing does not state that missing users are no members
+		index.recordGroupsOfUser("u2", 3, List.of("g3"), true);
+		index.recordMembersOfGroup("g3", 4, List.of("u3"), false);
+		assertSame(Changes.NONE, index.groupsOfUser("u2"));
+		assertSame(Changes.NONE, index.membersOfGroup("g3"));
+	}
+
+	public void testTruncatedListingRemovesPreviousListing() {
+		index.recordGroupsOfUser("u1", 1, List.of("g1"), true);
+		index.recordMembersOfGroup("g1", 2, List.of(), true);
+		assertEquals(Set.of("g1"), index.groupsOfUser("u1").getRemoved());
+
+		index.recordGroupsOfUser("u1", 3, List.of("g1"), false);
+		assertSame(Changes.NONE, index.groupsOfUser("u1"));
+	}
+
+	public void testOlderRecordOfSameListingIsIgnored() {
+		index.recordGroupsOfUser("u1", 5, List.of("g1"), true);
+		// requested before, but recorded after the listing above
+		index.recordGroupsOfUser("u1", 3, List.of("g2"), true);
+		index.recordMembersOfGroup("g1", 6, List.of(), true);
+		index.recordMembersOfGroup("g2", 6, List.of(), true);
+
+		assertEquals(Set.of("g1"), index.groupsOfUser("u1").getRemoved());
+	}
+
+	public void testExpiredListingsAreNotUsed() {
+		index.recordGroupsOfUser("u1", 0, List.of("g1"), true);
+		index.recordMembersOfGroup("g2", 50, List.of("u1"), true);
+
+		clock.set(99);
+		assertEquals(Set.of("g2"), index.groupsOfUser("u1").getAdded());
+
+		// the user's listing expires, the member listing is still valid
+		clock.set(100);
+		assertSame(Changes.NONE, index.groupsOfUser("u1"));
+		assertSame(Changes.NONE, index.membersOfGroup("g2"));
+
+		clock.set(150);
+		assertSame(Changes.NONE, index.membersOfGroup("g2"));
+	}
+
+	public void testOldestListingIsEvicted() {
+		index = new MembershipIndex(1, Duration.ofNanos(100), clock::get);
+		index.recordMembersOfGroup("g1", 1, List.of(), true);
+		index.recordGroupsOfUser("u1", 2, List.of("g1"), true);
+		assertEquals(Set.of("u1"), index.membersOfGroup("g1").getAdded());
+
+		index.recordGroupsOfUser("u2", 3, List.of(), true);
+		assertSame(Changes.NONE, index.groupsOfUser("u1"));
+		assertSame(Changes.NONE, index.membersOfGroup("g1"));
+	}
+
+	public void testNoneIndexesNothing() {
+		index = MembershipIndex.none();
+		long observedAt = index.now();
+		index.recordGroupsOfUser("u1", observedAt, List.of("g1"), true);
+		index.recordMembersOfGroup("g2", observedAt + 1, List.of("u1"), true);
+
+		assertSame(Changes.NONE, index.groupsOfUser("u1"));
+	}
+
+	public void testClearRemovesAllListings() {
+		index.recordGroupsOfUser("u1", 1, List.of("g1"), true);
+		index.recordMembersOfGroup("g2", 2, List.of("u1"), true);
+		index.clear();
+
+		assertSame(Changes.NONE, index.groupsOfUser("u1"));
+		assertSame(Changes.NONE, index.membersOfGroup("g2"));
+	}
+
+}
@@ -0,0 +1,164 @@
+package org.camunda.bpm.extension.keycloak.cache;
+
+import static org.awaitility.Awaitility.await;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.camunda.bpm.engine.impl.identity.IdentityProviderException;
+import org.camunda.bpm.extension.keycloak.concurrent.RequestDeadline;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit tests of merging concurrent computations of the same key.
+ */
+public class CoalescingCacheTest extends TestCase {
+
+	private static final int CALLERS = 8;
+
+	private final CoalescingCache<String, String> cache = new CoalescingCache<>(new PassThroughCache<>());
+	private final AtomicInteger loads = new AtomicInteger();
+	private final CountDownLatch loading = new CountDownLatch(1);
+	private final CountDownLatch released = new CountDownLatch(1);
+	private final ExecutorService callers = Executors.newCachedThreadPool();
+
+	@Override
+	protected void tearDown() throws Exception {
+		released.countDown();
+		callers.shutdownNow();
+	}
+
+	public void testConcurrentCallersShareOneLoad() throws Exception {
+		List<Future<String>> results = startCallers("key", key -> "value of " + key);
+
+		released.countDown();
+
+		for (Future<String> result : results) {
+			assertEquals("value of key", result.get(10, TimeUnit.SECONDS));
+		}
+		assertEquals(1, loads.get());
+		assertEquals(CALLERS - 1, cache.getStatistics().getHitCount());
+	}
+
+	public void testFailureOfLeaderReachesAllCallers() throws Exception {
+		IllegalStateException failure = new IllegalStateException("Keycloak unavailable");
+		List<Future<String>> results = startCallers("key", key -> {
+			throw failure;
+		});
+
+		released.countDown();
+
+		for (Future<String> result : results) {
+			try {
+				result.get(10, TimeUnit.SECONDS);
+				fail("ExecutionException expected");
+			} catch (ExecutionException e) {
+				assertSame(failure, e.getCause());
+			}
+		}
+		assertEquals(1, loads.get());
+	}
+
+	public void testOtherKeysAreNotCoalesced() throws Exception {
+		List<Future<String>> results = startCallers("key", key -> "value of " + key);
+
+		assertEquals("value of other", cache.getOrCompute("other", key -> "value of " + key));
+
+		released.countDown();
+		for (Future<String> result : results) {
+			result.get(10, TimeUnit.SECONDS);
+		}
+		assertEquals(1, loads.get());
+	}
+
+	public void testCompletedComputationIsNotShared() throws Exception {
+		List<Future<String>> results = startCallers("key", key -> "value of " + key);
+		released.countDown();
+		for (Future<String> result : results) {
+			result.get(10, TimeUnit.SECONDS);
+		}
+
+		// nothing is cached by the pass through cache
+		assertEquals("value", cache.getOrCompute("key", key -> "value"));
+	}
+
+	public void testWaitingIsBoundedByRequestDeadline() throws Exception {
+		List<Future<String>> results = startCallers("key", key -> "value of " + key);
+
+		long start = System.nanoTime();
+		RequestDeadline.runWithin(start + TimeUnit.MILLISECONDS.toNanos(50), () -> {
+			try {
+				cache.getOrCompute("key", key -> "not loaded");
+				fail("IdentityProviderException expected");
+			} catch (IdentityProviderException e) {
+				assertTrue(e.getMessage().startsWith("Timeout"));
+			}
+		});
+		assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(10));
+
+		// the computation goes on for the other callers
+		released.countDown();
+		for (Future<String> result : results) {
+			assertEquals("value of key", result.get(10, TimeUnit.SECONDS));
+		}
+		assertEquals(1, loads.get());
+	}
+
+	public void testInterruptedWaitingFails() throws Exception {
+		startCallers("key", key -> "value of " + key);
+
+		Thread.currentThread().interrupt();
+		try {
+			cache.getOrCompute("key", key -> "not loaded");
+			fail("IdentityProviderException expected");
+		} catch (IdentityProviderException e) {
+			assertTrue(e.getCause() instanceof InterruptedException);
+		}
+		// the interrupt is preserved
+		assertTrue(Thread.interrupted());
+	}
+
+	// ------------------------------------------------------------------------
+	// Helpers
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Starts callers for the same key. The first one computes the value and blocks until released, the others
+	 * wait for it.
+	 */
+	private List<Future<String>> startCallers(String key, Function<String, String> computation)
+			throws InterruptedException {
+		List<Future<String>> results = new ArrayList<>();
+		results.add(callers.submit(() -> cache.getOrCompute(key, k -> {
+			loads.incrementAndGet();
+			loading.countDown();
+			try {
+				released.await(10, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return computation.apply(k);
+		})));
+		assertTrue(loading.await(10, TimeUnit.SECONDS));
+
+		long hits = cache.getStatistics().getHitCount();
+		for (int i = 1; i < CALLERS; i++) {
+			results.add(callers.submit(() -> cache.getOrCompute(key, k -> {
+				loads.incrementAndGet();
+				return computation.apply(k);
+			})));
+		}
+		await().atMost(Duration.ofSeconds(10)).until(() -> cache.getStatistics().getHitCount() == hits + CALLERS - 1);
+		return results;
+	}
+}
@@ -0,0 +1,111 @@
+package org.camunda.bpm.extension.keycloak.concurrent;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.camunda.bpm.extension.keycloak.KeycloakConfiguration;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit tests of the executors running outbound Keycloak requests.
+ */
+public class KeycloakExecutorsTest extends TestCase {
+
+	private final KeycloakConfiguration configuration = new KeycloakConfiguration();
+
+	public void testPlatformThreadPoolIsSizedByConnectionPool() throws Exception {
+		configuration.setMaxHttpConnections(3);
+
+		ThreadPoolExecutor executor = (ThreadPoolExecutor) KeycloakExecutors.create(configuration, "default");
+		try {
+			assertEquals(3, executor.getCorePoolSize());
+			assertEquals(3, executor.getMaximumPoolSize());
+			assertTrue(executor.allowsCoreThreadTimeOut());
+
+			Thread thread = executor.submit(Thread::currentThread).get(10, TimeUnit.SECONDS);
+			assertTrue(thread.isDaemon());
+			assertEquals("keycloak-default-1", thread.getName());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	public void testPlatformThreadPoolQueuesTasks() throws Exception {
+		configuration.setMaxHttpConnections(1);
+		CountDownLatch released = new CountDownLatch(1);
+
+		ExecutorService executor = KeycloakExecutors.createPlatformThreadPool(configuration, "keycloak-default-");
+		try {
+			executor.submit(() -> released.await(10, TimeUnit.SECONDS));
+			// waits for the busy thread instead of being rejected
+			executor.submit(() -> null);
+			assertEquals(1, ((ThreadPoolExecutor) executor).getQueue().size());
+		} finally {
+			released.countDown();
+			executor.shutdownNow();
+		}
+	}
+
+	public void testVirtualThreadsFallBackToPlatformThreads() throws Exception {
+		configuration.setVirtualThreadsEnabled(true);
+		configuration.setMaxHttpConnections(2);
+
+		ExecutorService executor = KeycloakExecutors.create(configuration, "default");
+		try {
+			Thread thread = executor.submit(Thread::currentThread).get(10, TimeUnit.SECONDS);
+			assertTrue(thread.getName().startsWith("keycloak-default-"));
+			if (Runtime.version().feature() >= 21) {
+				assertFalse(executor instanceof ThreadPoolExecutor);
+			} else {
+				// the runtime does not support virtual threads
+				assertNull(KeycloakExecutors.createVirtualThreadExecutor("keycloak-default-"));
+				assertEquals(2, ((ThreadPoolExecutor) executor).getMaximumPoolSize());
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	public void testHedgeExecutorRejectsCopiesBeyondCapacity() throws Exception {
+		configuration.setMaxHttpConnections(1);
+		CountDownLatch released = new CountDownLatch(1);
+
+		ExecutorService executor = KeycloakExecutors.createHedgeExecutor(configuration, "default");
+		try {
+			executor.submit(() -> released.await(10, TimeUnit.SECONDS));
+			try {
+				executor.submit(() -> null);
+				fail("RejectedExecutionException expected");
+			} catch (RejectedExecutionException e) {
+				// expected, copies are not queued
+			}
+		} finally {
+			released.countDown();
+			executor.shutdownNow();
+		}
+	}
+
+	public void testSchedulerRemovesCancelledTasks() throws Exception {
+		ScheduledExecutorService scheduler = KeycloakExecutors.createScheduler("default");
+		try {
+			ScheduledFuture<?> task = scheduler.schedule(() -> null, 1, TimeUnit.HOURS);
+			assertEquals(1, ((ScheduledThreadPoolExecutor) scheduler).getQueue().size());
+
+			task.cancel(false);
+
+			assertEquals(0, ((ScheduledThreadPoolExecutor) scheduler).getQueue().size());
+			Thread thread = scheduler.submit(Thread::currentThread).get(10, TimeUnit.SECONDS);
+			assertTrue(thread.isDaemon());
+			assertEquals("keycloak-default-scheduler-1", thread.getName());
+		} finally {
+			scheduler.shutdownNow();
+		}
+	}
+}
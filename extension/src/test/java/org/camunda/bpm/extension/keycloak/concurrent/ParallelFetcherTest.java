@@ -0,0 +1,190 @@
+package org.camunda.bpm.extension.keycloak.concurrent;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.camunda.bpm.engine.impl.identity.IdentityProviderException;
+import org.camunda.bpm.extension.keycloak.tracing.NoOpTracing;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit tests of fetching independent entries concurrently.
+ */
+public class ParallelFetcherTest extends TestCase {
+
+	private final ExecutorService executor = Executors.newCachedThreadPool();
+	private final AtomicInteger inFlight = new AtomicInteger();
+	private final AtomicInteger maxInFlight = new AtomicInteger();
+	private final AtomicInteger started = new AtomicInteger();
+
+	@Override
+	protected void tearDown() throws Exception {
+		executor.shutdownNow();
+	}
+
+	public void testResultsAreInOrderOfKeys() {
+		ParallelFetcher fetcher = fetcher(4, Duration.ofSeconds(30));
+		List<Integer> keys = IntStream.range(0, 100).boxed().collect(Collectors.toList());
+		Random random = new Random(4711);
+		List<Integer> delays = keys.stream().map(key -> random.nextInt(5)).collect(Collectors.toList());
+
+		List<String> values = fetcher.fetchAll(keys, key -> {
+			sleep(delays.get(key));
+			return "value " + key;
+		});
+
+		assertEquals(keys.stream().map(key -> "value " + key).collect(Collectors.toList()), values);
+	}
+
+	public void testParallelismIsCapped() {
+		ParallelFetcher fetcher = fetcher(3, Duration.ofSeconds(30));
+		Set<Thread> threads = ConcurrentHashMap.newKeySet();
+
+		fetcher.fetchAll(IntStream.range(0, 30).boxed().collect(Collectors.toList()), key -> {
+			threads.add(Thread.currentThread());
+			return tracked(() -> sleep(20));
+		});
+
+		assertEquals(3, maxInFlight.get());
+		// the calling thread takes part in fetching
+		assertTrue(threads.contains(Thread.currentThread()));
+		assertTrue(threads.size() <= 3);
+	}
+
+	public void testSequentialFetcherUsesCallingThread() {
+		List<Thread> threads = new ArrayList<>();
+
+		List<Integer> values = ParallelFetcher.sequential().fetchAll(List.of(1, 2, 3), key -> {
+			threads.add(Thread.currentThread());
+			return key * 2;
+		});
+
+		assertEquals(List.of(2, 4, 6), values);
+		assertEquals(List.of(Thread.currentThread(), Thread.currentThread(), Thread.currentThread()), threads);
+	}
+
+	public void testFailureStopsFetchingRemainingEntries() {
+		ParallelFetcher fetcher = fetcher(2, Duration.ofSeconds(30));
+		IllegalStateException failure = new IllegalStateException("Keycloak unavailable");
+
+		try {
+			fetcher.fetchAll(IntStream.range(0, 20).boxed().collect(Collectors.toList()), key -> {
+				started.incrementAndGet();
+				if (key == 0) {
+					throw failure;
+				}
+				sleep(20);
+				return key;
+			});
+			fail("IllegalStateException expected");
+		} catch (IllegalStateException e) {
+			assertSame(failure, e);
+		}
+
+		// the entry fetched concurrently and at most one claimed meanwhile, none after the failure
+		assertTrue(started.get() <= 3);
+	}
+
+	public void testTimeoutCancelsSiblings() throws Exception {
+		ParallelFetcher fetcher = fetcher(2, Duration.ofMillis(100));
+		CountDownLatch interrupted = new CountDownLatch(1);
+		Thread caller = Thread.currentThread();
+
+		long start = System.nanoTime();
+		try {
+			fetcher.fetchAll(List.of(1, 2, 3, 4), key -> {
+				started.incrementAndGet();
+				if (Thread.currentThread() == caller) {
+					// returns after the timeout, the calling thread does not wait for its own fetch
+					sleep(200);
+					return key;
+				}
+				try {
+					TimeUnit.SECONDS.sleep(10);
+				} catch (InterruptedException e) {
+					interrupted.countDown();
+				}
+				return key;
+			});
+			fail("IdentityProviderException expected");
+		} catch (IdentityProviderException e) {
+			assertTrue(e.getMessage().startsWith("Timeout"));
+		}
+
+		assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+		// the blocked helper is interrupted, no entries are claimed after the timeout
+		assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+		assertEquals(2, started.get());
+	}
+
+	public void testInterruptedCallerFails() {
+		ParallelFetcher fetcher = fetcher(2, Duration.ofSeconds(30));
+		CountDownLatch released = new CountDownLatch(1);
+		Thread caller = Thread.currentThread();
+
+		try {
+			fetcher.fetchAll(List.of(1, 2), key -> {
+				if (Thread.currentThread() != caller) {
+					// the helper blocks until cancelled
+					try {
+						released.await(10, TimeUnit.SECONDS);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				} else {
+					Thread.currentThread().interrupt();
+				}
+				return key;
+			});
+			fail("IdentityProviderException expected");
+		} catch (IdentityProviderException e) {
+			assertTrue(e.getCause() instanceof InterruptedException);
+		} finally {
+			released.countDown();
+		}
+		// the interrupt is preserved
+		assertTrue(Thread.interrupted());
+	}
+
+	// ------------------------------------------------------------------------
+	// Helpers
+	// ------------------------------------------------------------------------
+
+	private ParallelFetcher fetcher(int parallelism, Duration timeout) {
+		return new ParallelFetcher(executor, parallelism, timeout, new NoOpTracing());
+	}
+
+	/**
+	 * Runs a fetch, recording the maximum number of concurrent fetches.
+	 */
+	private int tracked(Runnable fetch) {
+		int current = inFlight.incrementAndGet();
+		maxInFlight.accumulateAndGet(current, Math::max);
+		try {
+			fetch.run();
+			return current;
+		} finally {
+			inFlight.decrementAndGet();
+		}
+	}
+
+	private static void sleep(long millis) {
+		try {
+			TimeUnit.MILLISECONDS.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
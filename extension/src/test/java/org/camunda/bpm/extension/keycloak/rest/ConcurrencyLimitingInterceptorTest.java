@@ -0,0 +1,216 @@
+package org.camunda.bpm.extension.keycloak.rest;
+
+import static org.awaitility.Awaitility.await;
+
+import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.camunda.bpm.extension.keycloak.concurrent.RequestDeadline;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit tests of the adaptive concurrency limit. Concurrent requests are simulated by nested executions, each
+ * holding its permit while the next one is sent, and by permits acquired via {@code tryAcquire()}.
+ */
+public class ConcurrencyLimitingInterceptorTest extends TestCase {
+
+	private static final MockClientHttpRequest REQUEST = new MockClientHttpRequest(HttpMethod.GET,
+			URI.create("http://keycloak:8080/admin/realms/test/users"));
+
+	public void testLimitGrowsByOnePerRoundTrip() throws IOException {
+		ConcurrencyLimitingInterceptor limiter = new ConcurrencyLimitingInterceptor(1, 10, 2, 0, 0);
+
+		send(limiter, 1, HttpStatus.OK);
+		assertEquals(2, limiter.getLimit());
+
+		// +1/limit per request while the limit is used: 2 + 1/2 + 1/2.5 = 2.9 + 1/2.9 = 3.24
+		assertTrue(limiter.tryAcquire());
+		send(limiter, 1, HttpStatus.OK);
+		send(limiter, 1, HttpStatus.OK);
+		assertEquals(2, limiter.getLimit());
+		send(limiter, 1, HttpStatus.OK);
+		assertEquals(3, limiter.getLimit());
+
+		limiter.release();
+		assertEquals(0, limiter.getInFlight());
+	}
+
+	public void testLimitGrowsOnlyWhileUsed() throws IOException {
+		ConcurrencyLimitingInterceptor limiter = new ConcurrencyLimitingInterceptor(4, 10, 2, 0, 0);
+
+		// a single request in flight uses less than half of the limit
+		for (int i = 0; i < 20; i++) {
+			send(limiter, 1, HttpStatus.OK);
+		}
+
+		assertEquals(4, limiter.getLimit());
+	}
+
+	public void testLimitIsCapped() throws IOException {
+		ConcurrencyLimitingInterceptor limiter = new ConcurrencyLimitingInterceptor(2, 3, 2, 0, 0);
+		assertTrue(limiter.tryAcquire());
+
+		for (int i = 0; i < 20; i++) {
+			send(limiter, 1, HttpStatus.OK);
+		}
+
+		assertEquals(3, limiter.getLimit());
+	}
+
+	public void testLimitDecreasesOncePerRoundTrip() throws IOException {
+		ConcurrencyLimitingInterceptor limiter = new ConcurrencyLimitingInterceptor(10, 10, 2, 0, 0);
+
+		// three concurrent requests shed by Keycloak: the ones started before the first decrease do not decrease again
+		send(limiter, 3, HttpStatus.SERVICE_UNAVAILABLE);
+		assertEquals(9, limiter.getLimit());
+
+		// 9 * 0.9 = 8.1
+		send(limiter, 1, HttpStatus.TOO_MANY_REQUESTS);
+		assertEquals(8, limiter.getLimit());
+		send(limiter, 1, HttpStatus.BAD_GATEWAY);
+		assertEquals(7, limiter.getLimit());
+		assertEquals(0, limiter.getInFlight());
+	}
+
+	public void testLimitDoesNotDropBelowOne() throws IOException {
+		ConcurrencyLimitingInterceptor limiter = new ConcurrencyLimitingInterceptor(1, 10, 2, 0, 0);
+
+		send(limiter, 1, HttpStatus.SERVICE_UNAVAILABLE);
+		send(limiter, 1, HttpStatus.SERVICE_UNAVAILABLE);
+
+		assertEquals(1, limiter.getLimit());
+	}
+
+	public void testPermitIsReleasedOnIOException() {
+		ConcurrencyLimitingInterceptor limiter = new ConcurrencyLimitingInterceptor(10, 10, 2, 0, 0);
+
+		try {
+			limiter.intercept(REQUEST, new byte[0], (request, body) -> {
+				throw new IOException("Connection reset");
+			});
+			fail("IOException expected");
+		} catch (IOException e) {
+			assertEquals("Connection reset", e.getMessage());
+		}
+
+		// I/O errors indicate congestion
+		assertEquals(0, limiter.getInFlight());
+		assertEquals(9, limiter.getLimit());
+	}
+
+	public void testPermitIsReleasedOnRuntimeException() throws IOException {
+		ConcurrencyLimitingInterceptor limiter = new ConcurrencyLimitingInterceptor(1, 10, 2, 0, 0);
+
+		try {
+			limiter.intercept(REQUEST, new byte[0], (request, body) -> {
+				throw new IllegalStateException("Failed");
+			});
+			fail("IllegalStateException expected");
+		} catch (IllegalStateException e) {
+			// expected
+		}
+
+		assertEquals(0, limiter.getInFlight());
+		// the permit is available again
+		send(limiter, 1, HttpStatus.OK);
+	}
+
+	public void testQueueOverflowIsRejected() throws Exception {
+		ConcurrencyLimitingInterceptor limiter = new ConcurrencyLimitingInterceptor(1, 1, 2, 10_000, 1);
+		assertTrue(limiter.tryAcquire());
+
+		CompletableFuture<ClientHttpResponse> queued = CompletableFuture.supplyAsync(() -> {
+			try {
+				return limiter.intercept(REQUEST, new byte[0], respondWith(HttpStatus.OK));
+			} catch (IOException e) {
+				throw new IllegalStateException(e);
+			}
+		});
+		await().atMost(Duration.ofSeconds(10)).until(() -> limiter.getQueued() == 1);
+
+		try {
+			limiter.intercept(REQUEST, new byte[0], respondWith(HttpStatus.OK));
+			fail("ConcurrencyLimitExceededException expected");
+		} catch (ConcurrencyLimitExceededException e) {
+			// expected, the queue is full
+		}
+		assertEquals(1, limiter.getRejectedCount());
+		// queued requests go first
+		assertFalse(limiter.tryAcquire());
+
+		limiter.release();
+		assertEquals(200, queued.get(10, TimeUnit.SECONDS).getStatusCode().value());
+		assertEquals(0, limiter.getQueued());
+		assertEquals(0, limiter.getInFlight());
+	}
+
+	public void testWaitingIsBoundedByMaxWait() {
+		ConcurrencyLimitingInterceptor limiter = new ConcurrencyLimitingInterceptor(1, 1, 2, 50, 10);
+		assertTrue(limiter.tryAcquire());
+
+		long start = System.nanoTime();
+		assertRejected(limiter);
+
+		assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+		assertEquals(0, limiter.getQueued());
+		assertEquals(1, limiter.getInFlight());
+	}
+
+	public void testWaitingIsBoundedByRequestDeadline() {
+		ConcurrencyLimitingInterceptor limiter = new ConcurrencyLimitingInterceptor(1, 1, 2, 60_000, 10);
+		assertTrue(limiter.tryAcquire());
+
+		long start = System.nanoTime();
+		RequestDeadline.runWithin(start + TimeUnit.MILLISECONDS.toNanos(50), () -> assertRejected(limiter));
+
+		assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(10));
+		assertEquals(1, limiter.getRejectedCount());
+	}
+
+	// ------------------------------------------------------------------------
+	// Helpers
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Sends the given number of concurrent requests, all answered with the given status. The innermost request is
+	 * answered first.
+	 */
+	private static void send(ConcurrencyLimitingInterceptor limiter, int concurrentRequests, HttpStatusCode status)
+			throws IOException {
+		ClientHttpRequestExecution execution = respondWith(status);
+		for (int i = 1; i < concurrentRequests; i++) {
+			ClientHttpRequestExecution nested = execution;
+			execution = (request, body) -> {
+				limiter.intercept(request, body, nested);
+				return new MockClientHttpResponse(new byte[0], status);
+			};
+		}
+		limiter.intercept(REQUEST, new byte[0], execution);
+	}
+
+	private static ClientHttpRequestExecution respondWith(HttpStatusCode status) {
+		return (request, body) -> new MockClientHttpResponse(new byte[0], status);
+	}
+
+	private static void assertRejected(ConcurrencyLimitingInterceptor limiter) {
+		try {
+			limiter.intercept(REQUEST, new byte[0], respondWith(HttpStatus.OK));
+			fail("ConcurrencyLimitExceededException expected");
+		} catch (ConcurrencyLimitExceededException e) {
+			// expected
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
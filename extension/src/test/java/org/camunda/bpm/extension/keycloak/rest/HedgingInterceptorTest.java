@@ -0,0 +1,264 @@
+package org.camunda.bpm.extension.keycloak.rest;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.camunda.bpm.extension.keycloak.concurrent.RequestDeadline;
+import org.camunda.bpm.extension.keycloak.metrics.NoOpMetrics;
+import org.camunda.bpm.extension.keycloak.rest.HedgingInterceptor.HedgeBudget;
+import org.camunda.bpm.extension.keycloak.test.util.StubServer;
+import org.camunda.bpm.extension.keycloak.tracing.NoOpTracing;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit tests of hedged requests against a local stub server.
+ */
+public class HedgingInterceptorTest extends TestCase {
+
+	private static final String PATH = "/admin/realms/test/users";
+	/** Latencies needed before requests are hedged. */
+	private static final int WARM_UP_REQUESTS = 64;
+	private static final long MIN_DELAY_MS = 50;
+
+	/** Behaviour of the requests following the warm up, in order of arrival. */
+	private final List<StubServer.Handler> slowHandlers = new CopyOnWriteArrayList<>();
+	private final AtomicInteger requestCount = new AtomicInteger();
+	private final CountDownLatch released = new CountDownLatch(1);
+	private final List<String> outcomes = new CopyOnWriteArrayList<>();
+
+	private StubServer server;
+	private CloseableHttpClient httpClient;
+	private ScheduledExecutorService scheduler;
+	private ExecutorService hedgeExecutor;
+
+	@Override
+	protected void setUp() throws Exception {
+		server = StubServer.start(exchange -> {
+			int request = requestCount.incrementAndGet() - WARM_UP_REQUESTS - 1;
+			if (request >= 0 && request < slowHandlers.size()) {
+				slowHandlers.get(request).handle(exchange);
+			}
+			StubServer.respond(exchange, 200, "\"" + request + "\"");
+		});
+		httpClient = HttpClients.custom().disableAutomaticRetries().build();
+		scheduler = Executors.newSingleThreadScheduledExecutor();
+		hedgeExecutor = Executors.newCachedThreadPool();
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		released.countDown();
+		scheduler.shutdownNow();
+		hedgeExecutor.shutdownNow();
+		httpClient.close();
+		server.close();
+	}
+
+	public void testBudgetDepositsPercentageOfCopyPerRequest() {
+		HedgeBudget budget = new HedgeBudget(10);
+
+		for (int i = 0; i < 9; i++) {
+			budget.deposit();
+		}
+		assertFalse(budget.isAvailable());
+		assertFalse(budget.withdraw());
+
+		budget.deposit();
+		assertTrue(budget.isAvailable());
+		assertTrue(budget.withdraw());
+		assertFalse(budget.isAvailable());
+	}
+
+	public void testBudgetSavesUpToTenCopies() {
+		HedgeBudget budget = new HedgeBudget(100);
+
+		for (int i = 0; i < 20; i++) {
+			budget.deposit();
+		}
+
+		assertEquals(10, withdrawAll(budget));
+	}
+
+	public void testBudgetRefundIsCapped() {
+		HedgeBudget budget = new HedgeBudget(100);
+		budget.deposit();
+		assertTrue(budget.withdraw());
+
+		budget.refund();
+		assertEquals(1, withdrawAll(budget));
+
+		for (int i = 0; i < 10; i++) {
+			budget.deposit();
+		}
+		budget.refund();
+		assertEquals(10, withdrawAll(budget));
+	}
+
+	public void testBudgetWithoutPercentageNeverHedges() {
+		HedgeBudget budget = new HedgeBudget(0);
+		for (int i = 0; i < 1000; i++) {
+			budget.deposit();
+		}
+
+		assertFalse(budget.isAvailable());
+	}
+
+	public void testCopyWinsAndOriginalIsAborted() {
+		slowHandlers.add(exchange -> awaitRelease());
+		RestTemplate restTemplate = restTemplate(hedgingInterceptor(hedgeExecutor, null));
+		warmUp(restTemplate);
+
+		long start = System.nanoTime();
+		String response = get(restTemplate);
+
+		// answered by the copy, the calling thread no longer waits for the original
+		assertEquals("\"1\"", response);
+		assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+		assertEquals(List.of(HedgingInterceptor.OUTCOME_HEDGE_WON), outcomes);
+	}
+
+	public void testOriginalWinsAndCopyIsAborted() {
+		slowHandlers.add(exchange -> sleep(MIN_DELAY_MS * 3));
+		slowHandlers.add(exchange -> awaitRelease());
+		RestTemplate restTemplate = restTemplate(hedgingInterceptor(hedgeExecutor, null));
+		warmUp(restTemplate);
+
+		String response = get(restTemplate);
+
+		assertEquals("\"0\"", response);
+		assertEquals(List.of(HedgingInterceptor.OUTCOME_PRIMARY_WON), outcomes);
+		assertEquals(WARM_UP_REQUESTS + 2, requestCount.get());
+	}
+
+	public void testWaitingForCopyIsBoundedByDeadline() {
+		// the original fails after the copy has been sent, the copy does not answer
+		slowHandlers.add(exchange -> {
+			sleep(MIN_DELAY_MS * 3);
+			StubServer.drop(exchange);
+		});
+		slowHandlers.add(exchange -> awaitRelease());
+		RestTemplate restTemplate = restTemplate(hedgingInterceptor(hedgeExecutor, null));
+		warmUp(restTemplate);
+
+		long start = System.nanoTime();
+		RequestDeadline.runWithin(start + TimeUnit.MILLISECONDS.toNanos(500), () -> {
+			try {
+				get(restTemplate);
+				fail("ResourceAccessException expected");
+			} catch (ResourceAccessException e) {
+				// expected, failure of the original
+			}
+		});
+
+		long duration = System.nanoTime() - start;
+		assertTrue(duration >= TimeUnit.MILLISECONDS.toNanos(500));
+		assertTrue(duration < TimeUnit.SECONDS.toNanos(5));
+		assertEquals(WARM_UP_REQUESTS + 2, requestCount.get());
+	}
+
+	public void testBudgetIsRefundedIfHedgingThreadsAreExhausted() {
+		slowHandlers.add(exchange -> sleep(MIN_DELAY_MS * 3));
+		Executor rejecting = command -> {
+			throw new RejectedExecutionException();
+		};
+		HedgingInterceptor interceptor = hedgingInterceptor(rejecting, null);
+		RestTemplate restTemplate = restTemplate(interceptor);
+		warmUp(restTemplate);
+
+		assertEquals("\"0\"", get(restTemplate));
+
+		assertEquals(List.of(HedgingInterceptor.OUTCOME_BUDGET_EXHAUSTED), outcomes);
+		assertEquals(WARM_UP_REQUESTS + 1, requestCount.get());
+		assertEquals(10, withdrawAll(interceptor.budget));
+	}
+
+	public void testBudgetIsRefundedIfConcurrencyLimitIsReached() {
+		slowHandlers.add(exchange -> sleep(MIN_DELAY_MS * 3));
+		ConcurrencyLimitingInterceptor concurrencyLimiter = new ConcurrencyLimitingInterceptor(1, 1, 2, 0, 0);
+		assertTrue(concurrencyLimiter.tryAcquire());
+		HedgingInterceptor interceptor = hedgingInterceptor(hedgeExecutor, concurrencyLimiter);
+		RestTemplate restTemplate = restTemplate(interceptor);
+		warmUp(restTemplate);
+
+		assertEquals("\"0\"", get(restTemplate));
+
+		assertEquals(List.of(HedgingInterceptor.OUTCOME_BUDGET_EXHAUSTED), outcomes);
+		assertEquals(WARM_UP_REQUESTS + 1, requestCount.get());
+		assertEquals(1, concurrencyLimiter.getInFlight());
+		assertEquals(10, withdrawAll(interceptor.budget));
+	}
+
+	// ------------------------------------------------------------------------
+	// Helpers
+	// ------------------------------------------------------------------------
+
+	private HedgingInterceptor hedgingInterceptor(Executor executor, ConcurrencyLimitingInterceptor concurrencyLimiter) {
+		NoOpMetrics metrics = new NoOpMetrics() {
+			@Override
+			public void recordHedging(String endpoint, String outcome) {
+				outcomes.add(outcome);
+			}
+		};
+		return new HedgingInterceptor(scheduler, executor, concurrencyLimiter, new NoOpTracing(), metrics, null,
+				95, MIN_DELAY_MS, 100);
+	}
+
+	private RestTemplate restTemplate(HedgingInterceptor interceptor) {
+		RestTemplate restTemplate = new RestTemplate(new CancellableRequestFactory(httpClient));
+		restTemplate.getInterceptors().add(interceptor);
+		return restTemplate;
+	}
+
+	/**
+	 * Records enough latencies to hedge requests, saving up the maximum budget.
+	 */
+	private void warmUp(RestTemplate restTemplate) {
+		for (int i = 0; i < WARM_UP_REQUESTS; i++) {
+			get(restTemplate);
+		}
+		outcomes.clear();
+	}
+
+	private String get(RestTemplate restTemplate) {
+		return restTemplate.exchange(server.getUri() + PATH, HttpMethod.GET, HttpEntity.EMPTY, String.class).getBody();
+	}
+
+	private void awaitRelease() {
+		try {
+			released.await(10, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static void sleep(long millis) {
+		try {
+			TimeUnit.MILLISECONDS.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static int withdrawAll(HedgeBudget budget) {
+		int copies = 0;
+		while (budget.withdraw()) {
+			copies++;
+		}
+		return copies;
+	}
+}
@@ -0,0 +1,168 @@
+package org.camunda.bpm.extension.keycloak.rest;
+
+import java.net.URI;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit tests of node selection and ejection of the load balancer.
+ */
+public class KeycloakLoadBalancerTest extends TestCase {
+
+	private static final URI ROUTED_URI = URI.create("https://keycloak:8443/admin/realms/test");
+
+	private final KeycloakNode node1 = new KeycloakNode(URI.create("http://kc1:8080"));
+	private final KeycloakNode node2 = new KeycloakNode(URI.create("http://kc2:8080"));
+	private final KeycloakNode node3 = new KeycloakNode(URI.create("http://kc3:8080"));
+
+	public void testParseNodes() {
+		List<KeycloakNode> nodes = KeycloakLoadBalancer.parseNodes(" https://kc1:8443, https://kc2:8443/ ,");
+
+		assertEquals(2, nodes.size());
+		assertEquals(URI.create("https://kc1:8443"), nodes.get(0).getBaseUri());
+		assertEquals(URI.create("https://kc2:8443"), nodes.get(1).getBaseUri());
+	}
+
+	public void testParseNodesRejectsPath() {
+		try {
+			KeycloakLoadBalancer.parseNodes("https://kc1:8443/auth");
+			fail("IllegalArgumentException expected");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+
+	public void testRoutesConfiguredUrisOnly() {
+		KeycloakLoadBalancer loadBalancer = loadBalancer(5, 1_000, node1, node2);
+
+		assertTrue(loadBalancer.isRouted(URI.create("https://KEYCLOAK:8443/realms/test/protocol/openid-connect/token")));
+		assertFalse(loadBalancer.isRouted(URI.create("http://keycloak:8443/admin/realms/test/users")));
+		assertFalse(loadBalancer.isRouted(URI.create("https://other:8443/admin/realms/test/users")));
+		assertSame(node2, loadBalancer.nodeOf(node2.resolve(ROUTED_URI)));
+	}
+
+	public void testPowerOfTwoChoicesNeverSelectsSlowestNode() {
+		KeycloakLoadBalancer loadBalancer = loadBalancer(5, 1_000, node1, node2, node3);
+		node1.recordLatency(TimeUnit.MILLISECONDS.toNanos(10));
+		node2.recordLatency(TimeUnit.MILLISECONDS.toNanos(20));
+		node3.recordLatency(TimeUnit.MILLISECONDS.toNanos(1_000));
+
+		Map<KeycloakNode, Integer> selections = select(loadBalancer, 3_000);
+
+		// the slowest node loses every comparison, the fastest one wins two out of three pairs
+		assertNull(selections.get(node3));
+		assertTrue(selections.get(node1) > selections.get(node2));
+		assertTrue(selections.get(node2) > 0);
+	}
+
+	public void testPowerOfTwoChoicesConsidersOutstandingRequests() {
+		KeycloakLoadBalancer loadBalancer = loadBalancer(5, 1_000, node1, node2);
+		node1.recordLatency(TimeUnit.MILLISECONDS.toNanos(10));
+		node2.recordLatency(TimeUnit.MILLISECONDS.toNanos(10));
+		node1.requestStarted();
+
+		assertEquals(Map.of(node2, 100), select(loadBalancer, 100));
+
+		// nodes without measured latency are preferred
+		node1.requestFinished();
+		KeycloakNode fresh = new KeycloakNode(URI.create("http://kc4:8080"));
+		assertEquals(Map.of(fresh, 100), select(loadBalancer(5, 1_000, node1, fresh), 100));
+	}
+
+	public void testSelectSkipsExcludedNodes() {
+		KeycloakLoadBalancer loadBalancer = loadBalancer(5, 1_000, node1, node2);
+
+		assertSame(node2, loadBalancer.select(List.of(node1)));
+		assertNull(loadBalancer.select(List.of(node1, node2)));
+	}
+
+	public void testNodeIsEjectedAfterConsecutiveFailures() {
+		KeycloakLoadBalancer loadBalancer = loadBalancer(3, 60_000, node1, node2);
+
+		loadBalancer.onFailure(node1);
+		loadBalancer.onFailure(node1);
+		// a success resets the consecutive failures
+		loadBalancer.onSuccess(node1, 1_000);
+		loadBalancer.onFailure(node1);
+		loadBalancer.onFailure(node1);
+		assertFalse(node1.isEjected());
+
+		long before = System.nanoTime();
+		loadBalancer.onFailure(node1);
+		long after = System.nanoTime();
+		assertTrue(node1.isEjected());
+		assertEjectedUntil(node1, before, after, TimeUnit.MILLISECONDS.toNanos(60_000));
+		assertEquals(Map.of(node2, 100), select(loadBalancer, 100));
+	}
+
+	public void testEjectionTimeGrowsUntilReadmission() throws Exception {
+		long baseNanos = TimeUnit.MILLISECONDS.toNanos(20);
+		KeycloakLoadBalancer loadBalancer = loadBalancer(1, 20, node1, node2);
+
+		for (int ejection = 1; ejection <= 12; ejection++) {
+			long before = System.nanoTime();
+			loadBalancer.onFailure(node1);
+			long after = System.nanoTime();
+			// growing linearly up to ten times the base ejection time
+			assertEjectedUntil(node1, before, after, baseNanos * Math.min(ejection, 10));
+			// failures while ejected do not extend the ejection
+			loadBalancer.onFailure(node1);
+			assertEjectedUntil(node1, before, after, baseNanos * Math.min(ejection, 10));
+			awaitReadmission(node1);
+		}
+
+		// readmitted after the ejection: selectable again and reinstated by a success
+		assertFalse(node1.isEjected());
+		assertEquals(node1, loadBalancer.select(List.of(node2)));
+		loadBalancer.onSuccess(node1, 1_000);
+
+		long before = System.nanoTime();
+		loadBalancer.onFailure(node1);
+		long after = System.nanoTime();
+		assertEjectedUntil(node1, before, after, baseNanos);
+	}
+
+	public void testAllNodesEjectedSelectsNodeRecoveringFirst() {
+		KeycloakLoadBalancer loadBalancer = loadBalancer(1, 60_000, node1, node2);
+		loadBalancer.onFailure(node1);
+		// ejected twice as long
+		loadBalancer.onFailure(node2);
+		node2.eject(TimeUnit.SECONDS.toNanos(120), TimeUnit.SECONDS.toNanos(120));
+
+		assertTrue(node1.isEjected());
+		assertTrue(node2.isEjected());
+		assertSame(node1, loadBalancer.select(List.of()));
+		assertSame(node2, loadBalancer.select(List.of(node1)));
+	}
+
+	// ------------------------------------------------------------------------
+	// Helpers
+	// ------------------------------------------------------------------------
+
+	private static KeycloakLoadBalancer loadBalancer(int consecutiveFailures, long ejectionTimeMs, KeycloakNode... nodes) {
+		return new KeycloakLoadBalancer(List.of(nodes), List.of(ROUTED_URI), consecutiveFailures, ejectionTimeMs);
+	}
+
+	private static Map<KeycloakNode, Integer> select(KeycloakLoadBalancer loadBalancer, int times) {
+		Map<KeycloakNode, Integer> selections = new HashMap<>();
+		for (int i = 0; i < times; i++) {
+			selections.merge(loadBalancer.select(List.of()), 1, Integer::sum);
+		}
+		return selections;
+	}
+
+	private static void assertEjectedUntil(KeycloakNode node, long before, long after, long durationNanos) {
+		assertTrue(node.getEjectedUntilNanos() - (before + durationNanos) >= 0);
+		assertTrue(node.getEjectedUntilNanos() - (after + durationNanos) <= 0);
+	}
+
+	private static void awaitReadmission(KeycloakNode node) throws InterruptedException {
+		while (node.isEjected()) {
+			TimeUnit.MILLISECONDS.sleep(Math.max(1, TimeUnit.NANOSECONDS.toMillis(node.getEjectedUntilNanos() - System.nanoTime())));
+		}
+	}
+}
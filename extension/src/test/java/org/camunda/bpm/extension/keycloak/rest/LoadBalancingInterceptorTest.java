@@ -0,0 +1,192 @@
+package org.camunda.bpm.extension.keycloak.rest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.camunda.bpm.extension.keycloak.test.util.StubServer;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.DefaultResponseErrorHandler;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit tests of routing and failover against local stub servers standing in for Keycloak nodes.
+ */
+public class LoadBalancingInterceptorTest extends TestCase {
+
+	private static final String ROUTED_URL = "http://keycloak:8080/admin/realms/test";
+
+	private StubServer badServer;
+	private StubServer goodServer;
+	private CloseableHttpClient httpClient;
+	private RestTemplate restTemplate;
+
+	@Override
+	protected void setUp() throws Exception {
+		goodServer = StubServer.start(exchange -> StubServer.respond(exchange, 200, "\"good\""));
+		httpClient = HttpClients.custom().disableAutomaticRetries().build();
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		httpClient.close();
+		goodServer.close();
+		if (badServer != null) {
+			badServer.close();
+		}
+	}
+
+	public void testRequestIsRoutedToNode() throws IOException {
+		setUpRestTemplate(goodServer.getUri());
+
+		ResponseEntity<String> response = get("/users?first=0&max=10");
+
+		assertEquals("\"good\"", response.getBody());
+		assertEquals(List.of("GET /admin/realms/test/users?first=0&max=10"), goodServer.getRequests());
+	}
+
+	public void testRequestToOtherHostIsNotRouted() throws IOException {
+		badServer = StubServer.start(exchange -> StubServer.respond(exchange, 200, "\"other\""));
+		setUpRestTemplate(goodServer.getUri());
+
+		ResponseEntity<String> response = restTemplate.exchange(badServer.getUri() + "/realms/test",
+				HttpMethod.GET, HttpEntity.EMPTY, String.class);
+
+		assertEquals("\"other\"", response.getBody());
+		assertEquals(0, goodServer.getRequestCount());
+	}
+
+	public void testGetFailsOverOnDroppedConnection() throws IOException {
+		badServer = StubServer.start(StubServer::drop);
+		setUpRestTemplate(badServer.getUri(), goodServer.getUri());
+
+		ResponseEntity<String> response = get("/users");
+
+		assertEquals("\"good\"", response.getBody());
+		assertEquals(1, badServer.getRequestCount());
+		assertEquals(1, goodServer.getRequestCount());
+	}
+
+	public void testGetFailsOverOnUnavailableNode() throws IOException {
+		badServer = StubServer.start(exchange -> StubServer.respond(exchange, 503, ""));
+		setUpRestTemplate(badServer.getUri(), goodServer.getUri());
+
+		ResponseEntity<String> response = get("/users");
+
+		assertEquals(200, response.getStatusCode().value());
+		assertEquals(1, badServer.getRequestCount());
+		assertEquals(1, goodServer.getRequestCount());
+	}
+
+	public void testGetReturnsLastResponseIfNoNodeIsAvailable() throws IOException {
+		badServer = StubServer.start(exchange -> StubServer.respond(exchange, 503, ""));
+		StubServer otherBadServer = StubServer.start(exchange -> StubServer.respond(exchange, 502, ""));
+		try {
+			setUpRestTemplate(badServer.getUri(), otherBadServer.getUri());
+
+			ResponseEntity<String> response = get("/users");
+
+			assertEquals(502, response.getStatusCode().value());
+			assertEquals(1, badServer.getRequestCount());
+			assertEquals(1, otherBadServer.getRequestCount());
+		} finally {
+			otherBadServer.close();
+		}
+	}
+
+	public void testPostDoesNotFailOverOnDroppedConnection() throws IOException {
+		badServer = StubServer.start(StubServer::drop);
+		setUpRestTemplate(badServer.getUri(), goodServer.getUri());
+
+		try {
+			post("/protocol/openid-connect/token");
+			fail("ResourceAccessException expected");
+		} catch (ResourceAccessException e) {
+			// expected, the request may have reached Keycloak
+		}
+		assertEquals(1, badServer.getRequestCount());
+		assertEquals(0, goodServer.getRequestCount());
+	}
+
+	public void testPostDoesNotFailOverOnUnavailableNode() throws IOException {
+		badServer = StubServer.start(exchange -> StubServer.respond(exchange, 503, ""));
+		setUpRestTemplate(badServer.getUri(), goodServer.getUri());
+
+		ResponseEntity<String> response = post("/protocol/openid-connect/token");
+
+		assertEquals(503, response.getStatusCode().value());
+		assertEquals(0, goodServer.getRequestCount());
+	}
+
+	public void testPostFailsOverOnConnectFailure() throws IOException {
+		badServer = StubServer.start(StubServer::drop);
+		URI unreachable = badServer.getUri();
+		badServer.close();
+		setUpRestTemplate(unreachable, goodServer.getUri());
+
+		ResponseEntity<String> response = post("/protocol/openid-connect/token");
+
+		assertEquals("\"good\"", response.getBody());
+		assertEquals(List.of("POST /admin/realms/test/protocol/openid-connect/token"), goodServer.getRequests());
+	}
+
+	public void testFailedNodeIsEjected() throws IOException {
+		badServer = StubServer.start(StubServer::drop);
+		KeycloakLoadBalancer loadBalancer = setUpRestTemplate(badServer.getUri(), goodServer.getUri());
+
+		for (int i = 0; i < 5; i++) {
+			assertEquals("\"good\"", get("/users").getBody());
+		}
+
+		// ejected after two consecutive failures, no longer tried first
+		assertEquals(2, badServer.getRequestCount());
+		assertEquals(5, goodServer.getRequestCount());
+		assertTrue(loadBalancer.getNodes().get(0).isEjected());
+		assertEquals(0, loadBalancer.getNodes().get(0).getOutstandingRequests());
+		assertEquals(0, loadBalancer.getNodes().get(1).getOutstandingRequests());
+	}
+
+	// ------------------------------------------------------------------------
+	// Helpers
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Sets up a rest template balancing requests across the given nodes. The first node is always tried first.
+	 */
+	private KeycloakLoadBalancer setUpRestTemplate(URI... nodeUris) {
+		List<KeycloakNode> nodes = Arrays.stream(nodeUris).map(KeycloakNode::new).toList();
+		// nodes without measured latency are preferred
+		for (int i = 1; i < nodes.size(); i++) {
+			nodes.get(i).recordLatency(TimeUnit.SECONDS.toNanos(i));
+		}
+		KeycloakLoadBalancer loadBalancer = new KeycloakLoadBalancer(nodes, List.of(URI.create(ROUTED_URL)), 2, 60_000);
+		restTemplate = new RestTemplate(new HttpComponentsClientHttpRequestFactory(httpClient));
+		restTemplate.getInterceptors().add(new LoadBalancingInterceptor(loadBalancer));
+		restTemplate.setErrorHandler(new DefaultResponseErrorHandler() {
+			@Override
+			public boolean hasError(ClientHttpResponse response) {
+				return false;
+			}
+		});
+		return loadBalancer;
+	}
+
+	private ResponseEntity<String> get(String path) {
+		return restTemplate.exchange(ROUTED_URL + path, HttpMethod.GET, HttpEntity.EMPTY, String.class);
+	}
+
+	private ResponseEntity<String> post(String path) {
+		return restTemplate.exchange(ROUTED_URL + path, HttpMethod.POST, new HttpEntity<>("grant_type=password"), String.class);
+	}
+}
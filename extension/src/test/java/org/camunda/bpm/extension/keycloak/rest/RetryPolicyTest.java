@@ -0,0 +1,161 @@
+package org.camunda.bpm.extension.keycloak.rest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.camunda.bpm.extension.keycloak.concurrent.RequestDeadline;
+import org.camunda.bpm.extension.keycloak.test.util.StubServer;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientException;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit tests of the retry policy and of retries by the rest template.
+ */
+public class RetryPolicyTest extends TestCase {
+
+	private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+	private final RetryPolicy policy = new RetryPolicy(5, 100, 1000, 60_000);
+
+	public void testBackoffWithFullJitter() {
+		assertDelaysWithin(1, 100 * MS);
+		assertDelaysWithin(2, 200 * MS);
+		assertDelaysWithin(3, 400 * MS);
+		// capped by the maximum backoff
+		assertDelaysWithin(5, 1000 * MS);
+	}
+
+	public void testMaxRetries() {
+		assertTrue(policy.delayBeforeRetry(unavailable(null), 5, 0) >= 0);
+		assertEquals(-1, policy.delayBeforeRetry(unavailable(null), 6, 0));
+		assertFalse(RetryPolicy.NONE.isEnabled());
+		assertEquals(-1, RetryPolicy.NONE.delayBeforeRetry(unavailable(null), 1, 0));
+	}
+
+	public void testRetryableFailures() {
+		assertTrue(RetryPolicy.isRetryable(new ResourceAccessException("reset", new IOException("reset"))));
+		assertTrue(RetryPolicy.isRetryable(HttpClientErrorException.create(HttpStatus.TOO_MANY_REQUESTS, "", null, null, null)));
+		assertTrue(RetryPolicy.isRetryable(HttpServerErrorException.create(HttpStatus.BAD_GATEWAY, "", null, null, null)));
+		assertTrue(RetryPolicy.isRetryable(unavailable(null)));
+		assertTrue(RetryPolicy.isRetryable(HttpServerErrorException.create(HttpStatus.GATEWAY_TIMEOUT, "", null, null, null)));
+
+		assertFalse(RetryPolicy.isRetryable(HttpServerErrorException.create(HttpStatus.INTERNAL_SERVER_ERROR, "", null, null, null)));
+		assertFalse(RetryPolicy.isRetryable(HttpClientErrorException.create(HttpStatus.NOT_FOUND, "", null, null, null)));
+		assertFalse(RetryPolicy.isRetryable(new ResourceAccessException("rejected",
+				new ConcurrencyLimitExceededException("rejected"))));
+		assertEquals(-1, policy.delayBeforeRetry(new RestClientException("conversion"), 1, 0));
+	}
+
+	public void testRetryAfterInSeconds() {
+		assertEquals(TimeUnit.SECONDS.toNanos(3), RetryPolicy.retryAfterNanos(unavailable(" 3 ")));
+		assertEquals(0, RetryPolicy.retryAfterNanos(unavailable("-3")));
+
+		// honored as minimum delay
+		assertEquals(TimeUnit.SECONDS.toNanos(3), policy.delayBeforeRetry(unavailable("3"), 1, 0));
+	}
+
+	public void testRetryAfterAsHttpDate() {
+		String date = DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now().plusSeconds(10));
+
+		long delay = RetryPolicy.retryAfterNanos(unavailable(date));
+
+		// the date has a resolution of seconds
+		assertTrue(delay > TimeUnit.SECONDS.toNanos(8));
+		assertTrue(delay <= TimeUnit.SECONDS.toNanos(10));
+		assertEquals(0, RetryPolicy.retryAfterNanos(unavailable("Wed, 21 Oct 2015 07:28:00 GMT")));
+	}
+
+	public void testInvalidRetryAfterIsIgnored() {
+		assertEquals(0, RetryPolicy.retryAfterNanos(unavailable("soon")));
+		assertEquals(0, RetryPolicy.retryAfterNanos(unavailable("")));
+		assertEquals(0, RetryPolicy.retryAfterNanos(unavailable(null)));
+		assertEquals(0, RetryPolicy.retryAfterNanos(new ResourceAccessException("reset")));
+		assertTrue(policy.delayBeforeRetry(unavailable("soon"), 1, 0) <= 100 * MS);
+	}
+
+	public void testRetryBudget() {
+		// the delay must end within the budget
+		assertEquals(-1, policy.delayBeforeRetry(unavailable("1"), 1, TimeUnit.SECONDS.toNanos(59)));
+		assertEquals(-1, policy.delayBeforeRetry(unavailable(null), 1, TimeUnit.SECONDS.toNanos(60)));
+		assertTrue(policy.delayBeforeRetry(unavailable(null), 1, TimeUnit.SECONDS.toNanos(59)) >= 0);
+	}
+
+	public void testRequestDeadlineCapsDelay() {
+		AtomicLong withinDeadline = new AtomicLong();
+		AtomicLong beyondDeadline = new AtomicLong();
+
+		RequestDeadline.runWithin(System.nanoTime() + TimeUnit.SECONDS.toNanos(1), () -> {
+			withinDeadline.set(policy.delayBeforeRetry(unavailable(null), 1, 0));
+			beyondDeadline.set(policy.delayBeforeRetry(unavailable("2"), 1, 0));
+		});
+
+		assertTrue(withinDeadline.get() >= 0);
+		assertEquals(-1, beyondDeadline.get());
+	}
+
+	public void testUriRequestsAreRetried() throws IOException {
+		AtomicLong requests = new AtomicLong();
+		try (StubServer server = StubServer.start(exchange -> StubServer.respond(exchange,
+					requests.incrementAndGet() < 3 ? 503 : 200, "[]"));
+				CloseableHttpClient httpClient = HttpClients.custom().disableAutomaticRetries().build()) {
+			KeycloakRestTemplate restTemplate = new KeycloakRestTemplate();
+			restTemplate.setRequestFactory(new HttpComponentsClientHttpRequestFactory(httpClient));
+			restTemplate.setRetryPolicy(new RetryPolicy(2, 1, 1, 60_000));
+
+			URI uri = URI.create(server.getUri() + "/admin/realms/test/users?exact=true&username=camunda");
+			assertEquals("[]", restTemplate.exchange(uri, HttpMethod.GET, HttpEntity.EMPTY, String.class).getBody());
+			assertEquals(3, server.getRequestCount());
+
+			// retries exhausted
+			requests.set(0);
+			try {
+				restTemplate.setRetryPolicy(new RetryPolicy(1, 1, 1, 60_000));
+				restTemplate.exchange(uri, HttpMethod.GET, HttpEntity.EMPTY, String.class);
+				fail("HttpServerErrorException expected");
+			} catch (HttpServerErrorException e) {
+				assertEquals(503, e.getStatusCode().value());
+			}
+			assertEquals(5, server.getRequestCount());
+		}
+	}
+
+	// ------------------------------------------------------------------------
+	// Helpers
+	// ------------------------------------------------------------------------
+
+	private void assertDelaysWithin(int retry, long backoffNanos) {
+		long max = 0;
+		for (int i = 0; i < 1000; i++) {
+			long delay = policy.delayBeforeRetry(unavailable(null), retry, 0);
+			assertTrue(delay >= 0);
+			assertTrue(delay <= backoffNanos);
+			max = Math.max(max, delay);
+		}
+		// jittered across the whole range
+		assertTrue(max > backoffNanos / 2);
+	}
+
+	private static HttpServerErrorException unavailable(String retryAfter) {
+		HttpHeaders headers = new HttpHeaders();
+		if (retryAfter != null) {
+			headers.set(HttpHeaders.RETRY_AFTER, retryAfter);
+		}
+		return (HttpServerErrorException) HttpServerErrorException.create(HttpStatus.SERVICE_UNAVAILABLE, "Service Unavailable",
+				headers, null, null);
+	}
+}
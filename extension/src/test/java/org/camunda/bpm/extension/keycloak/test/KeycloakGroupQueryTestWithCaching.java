@@ -7,10 +7,14 @@ import org.camunda.bpm.engine.ProcessEngineConfiguration;
 import org.camunda.bpm.engine.identity.Group;
 import org.camunda.bpm.engine.impl.cfg.ProcessEngineConfigurationImpl;
 import org.camunda.bpm.engine.impl.test.PluggableProcessEngineTestCase;
+import org.camunda.bpm.extension.keycloak.FindGroupsByMembersCmd;
 import org.camunda.bpm.extension.keycloak.plugin.KeycloakIdentityProviderPlugin;
 import org.camunda.bpm.extension.keycloak.test.util.CountingHttpRequestInterceptor;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Tests group queries with caching enabled.
@@ -152,6 +156,74 @@ public class KeycloakGroupQueryTestWithCaching extends AbstractKeycloakIdentityP
 		assertEquals(countBefore + 1, CountingHttpRequestInterceptor.getHttpRequestCount());
 	}
 
+	public void testCacheEnabledFilteredQueryAnsweredFromUnfilteredResult() {
+		int countBefore = CountingHttpRequestInterceptor.getHttpRequestCount();
+
+		assertEquals(9, identityService.createGroupQuery().list().size());
+
+		// non cached query. http request count should have increased
+		assertEquals(countBefore + 1, CountingHttpRequestInterceptor.getHttpRequestCount());
+
+		// filtered queries are answered from the unfiltered result
+		Group group = identityService.createGroupQuery().groupName("manager").singleResult();
+		assertNotNull(group);
+		assertEquals(GROUP_ID_MANAGER, group.getId());
+		assertEquals(1, identityService.createGroupQuery().groupNameLike("manage*").list().size());
+		assertNull(identityService.createGroupQuery().groupName("whatever").singleResult());
+
+		// request count should be same as before
+		assertEquals(countBefore + 1, CountingHttpRequestInterceptor.getHttpRequestCount());
+	}
+
+	public void testCacheEnabledFilteredQueryForSubgroupAfterUnfilteredQuery() {
+		assertEquals(9, identityService.createGroupQuery().list().size());
+
+		// nested groups are found whether or not the unfiltered result contains subgroups
+		Group group = identityService.createGroupQuery().groupName("subchild1").singleResult();
+		assertNotNull(group);
+		assertEquals(GROUP_ID_HIERARCHY_SUBCHILD1, group.getId());
+		assertEquals(2, identityService.createGroupQuery().groupNameLike("child*").list().size());
+	}
+
+	public void testCacheEnabledQueriesWithSameSearchShareEntry() {
+		int countBefore = CountingHttpRequestInterceptor.getHttpRequestCount();
+
+		Group group = identityService.createGroupQuery().groupName("manager").singleResult();
+		assertNotNull(group);
+
+		// non cached query. http request count should have increased
+		assertEquals(countBefore + 1, CountingHttpRequestInterceptor.getHttpRequestCount());
+
+		// queries sending the same search to Keycloak keep their exact semantics
+		assertEquals(group, identityService.createGroupQuery().groupNameLike("%manager").singleResult());
+		assertEquals(group, identityService.createGroupQuery().groupNameLike("*manag*").groupName("manager").singleResult());
+		assertNull(identityService.createGroupQuery().groupName("Manager").singleResult());
+
+		// request count should be same as before
+		assertEquals(countBefore + 1, CountingHttpRequestInterceptor.getHttpRequestCount());
+	}
+
+	public void testCacheEnabledGroupsOfSeveralUsers() {
+		List<String> userIds = Arrays.asList("camunda@accso.de", "johnfoo@gmail.com");
+		Map<String, List<Group>> groupsOfUsers = processEngineConfiguration.getCommandExecutorTxRequired()
+						.execute(new FindGroupsByMembersCmd(userIds));
+		assertEquals(userIds, new ArrayList<>(groupsOfUsers.keySet()));
+		int countAfter = CountingHttpRequestInterceptor.getHttpRequestCount();
+
+		// results equal those of single queries, which are answered from the cache
+		for (String userId : userIds) {
+			assertEquals(identityService.createGroupQuery().groupMember(userId).list(), groupsOfUsers.get(userId));
+		}
+		assertEquals(2, groupsOfUsers.get("johnfoo@gmail.com").size());
+
+		// run command again
+		assertEquals(groupsOfUsers, processEngineConfiguration.getCommandExecutorTxRequired()
+						.execute(new FindGroupsByMembersCmd(userIds)));
+
+		// request count should be same as before
+		assertEquals(countAfter, CountingHttpRequestInterceptor.getHttpRequestCount());
+	}
+
 	public void testAuthenticatedUserCanQueryOwnGroupsWhenCacheIsEnabled() {
 		try {
 			processEngineConfiguration.setAuthorizationEnabled(true);
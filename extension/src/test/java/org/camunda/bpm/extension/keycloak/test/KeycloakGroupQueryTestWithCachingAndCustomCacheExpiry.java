@@ -121,7 +121,7 @@ public class KeycloakGroupQueryTestWithCachingAndCustomCacheExpiry extends Abstr
 						.asMap()
 						.keySet()
 						.stream()
-						.map(CacheableKeycloakGroupQuery::getName)
+						.map(CacheableKeycloakGroupQuery::getSearch)
 						.sorted()
 						.collect(Collectors.toList());
 	}
@@ -129,7 +129,7 @@ public class KeycloakGroupQueryTestWithCachingAndMaxSize extends AbstractKeycloa
 						.asMap()
 						.keySet()
 						.stream()
-						.map(CacheableKeycloakGroupQuery::getName)
+						.map(CacheableKeycloakGroupQuery::getSearch)
 						.sorted()
 						.collect(Collectors.toList());
 	}
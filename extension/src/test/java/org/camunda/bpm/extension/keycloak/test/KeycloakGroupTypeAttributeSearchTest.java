@@ -0,0 +1,54 @@
+package org.camunda.bpm.extension.keycloak.test;
+
+import java.util.List;
+
+import org.camunda.bpm.engine.ProcessEngineConfiguration;
+import org.camunda.bpm.engine.identity.Group;
+import org.camunda.bpm.engine.impl.cfg.ProcessEngineConfigurationImpl;
+import org.camunda.bpm.engine.impl.test.PluggableProcessEngineTestCase;
+
+import junit.extensions.TestSetup;
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+/**
+ * Tests group queries filtered by group type.
+ * Flag searchGroupTypeViaAttributeQuery enabled.
+ */
+public class KeycloakGroupTypeAttributeSearchTest extends AbstractKeycloakIdentityProviderTest {
+
+	public static Test suite() {
+	    return new TestSetup(new TestSuite(KeycloakGroupTypeAttributeSearchTest.class)) {
+
+	    	// @BeforeClass
+	        protected void setUp() throws Exception {
+	    		ProcessEngineConfigurationImpl config = (ProcessEngineConfigurationImpl) ProcessEngineConfiguration
+	    				.createProcessEngineConfigurationFromResource("camunda.searchGroupTypeViaAttributeQuery.cfg.xml");
+	    		configureKeycloakIdentityProviderPlugin(config);
+	    		PluggableProcessEngineTestCase.cachedProcessEngine = config.buildProcessEngine();
+	        }
+	        
+	        // @AfterClass
+	        protected void tearDown() throws Exception {
+	    		PluggableProcessEngineTestCase.cachedProcessEngine.close();
+	    		PluggableProcessEngineTestCase.cachedProcessEngine = null;
+	        }
+	    };
+	}
+
+	public void testFilterByGroupType() {
+		List<Group> result = identityService.createGroupQuery().groupType("SYSTEM").list();
+		assertEquals(2, result.size());
+		assertEquals(1, result.stream().filter(g -> g.getId().equals(GROUP_ID_ADMIN)).count());
+		assertEquals(1, result.stream().filter(g -> g.getId().equals(GROUP_ID_SYSTEM_READONLY)).count());
+		result.forEach(g -> assertEquals("SYSTEM", g.getType()));
+	}
+
+	public void testFilterByGroupTypeAndGroupName() {
+		Group group = identityService.createGroupQuery().groupType("SYSTEM").groupName("cam-read-only").singleResult();
+		assertNotNull(group);
+		assertEquals(GROUP_ID_SYSTEM_READONLY, group.getId());
+
+		assertNull(identityService.createGroupQuery().groupType("SYSTEM").groupName("manager").singleResult());
+	}
+}
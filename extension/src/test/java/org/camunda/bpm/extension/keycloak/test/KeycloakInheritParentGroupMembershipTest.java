@@ -0,0 +1,63 @@
+package org.camunda.bpm.extension.keycloak.test;
+
+import java.util.List;
+
+import org.camunda.bpm.engine.ProcessEngineConfiguration;
+import org.camunda.bpm.engine.identity.Group;
+import org.camunda.bpm.engine.identity.User;
+import org.camunda.bpm.engine.impl.cfg.ProcessEngineConfigurationImpl;
+import org.camunda.bpm.engine.impl.test.PluggableProcessEngineTestCase;
+
+import junit.extensions.TestSetup;
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+/**
+ * Tests queries with focus on nested group hierarchy.
+ * Flag inheritParentGroupMembership enabled.
+ */
+public class KeycloakInheritParentGroupMembershipTest extends AbstractKeycloakIdentityProviderTest {
+
+	public static Test suite() {
+	    return new TestSetup(new TestSuite(KeycloakInheritParentGroupMembershipTest.class)) {
+
+	    	// @BeforeClass
+	        protected void setUp() throws Exception {
+	    		ProcessEngineConfigurationImpl config = (ProcessEngineConfigurationImpl) ProcessEngineConfiguration
+	    				.createProcessEngineConfigurationFromResource("camunda.inheritParentGroupMembership.cfg.xml");
+	    		configureKeycloakIdentityProviderPlugin(config);
+	    		PluggableProcessEngineTestCase.cachedProcessEngine = config.buildProcessEngine();
+	        }
+	        
+	        // @AfterClass
+	        protected void tearDown() throws Exception {
+	    		PluggableProcessEngineTestCase.cachedProcessEngine.close();
+	    		PluggableProcessEngineTestCase.cachedProcessEngine = null;
+	        }
+	    };
+	}
+
+	public void testGroupQueryFilterByGroupMember() {
+		List<Group> result = identityService.createGroupQuery().groupMember("johnfoo@gmail.com").list();
+		assertEquals(4, result.size());
+		assertEquals("expected johnfoo@gmail.com to member of group child2", 1, result.stream().filter(g -> g.getName().equals("child2")).count());
+		assertEquals("expected johnfoo@gmail.com to member of group subchild1", 1, result.stream().filter(g -> g.getName().equals("subchild1")).count());
+		assertEquals("expected johnfoo@gmail.com to inherit group child1", 1, result.stream().filter(g -> g.getName().equals("child1")).count());
+		assertEquals("expected johnfoo@gmail.com to inherit group root", 1, result.stream().filter(g -> g.getName().equals("root")).count());
+	}
+
+	public void testGroupQueryFilterByGroupMemberAndGroupId() {
+		Group group = identityService.createGroupQuery().groupMember("johnfoo@gmail.com").groupId(GROUP_ID_HIERARCHY_ROOT).singleResult();
+		assertNotNull(group);
+		assertEquals("root", group.getName());
+
+		assertNull(identityService.createGroupQuery().groupMember("johnfoo@gmail.com").groupId(GROUP_ID_ADMIN).singleResult());
+	}
+
+	public void testUserQueryFilterByMemberOfGroup() {
+		// members of subgroups are not included: the group hierarchy is only resolved upwards
+		User user = identityService.createUserQuery().memberOfGroup(GROUP_ID_HIERARCHY_CHILD1).singleResult();
+		assertNull(user);
+	}
+
+}
@@ -0,0 +1,130 @@
+package org.camunda.bpm.extension.keycloak.test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.camunda.bpm.engine.ProcessEngineConfiguration;
+import org.camunda.bpm.engine.identity.Group;
+import org.camunda.bpm.engine.impl.cfg.ProcessEngineConfigurationImpl;
+import org.camunda.bpm.engine.impl.test.PluggableProcessEngineTestCase;
+import org.camunda.bpm.extension.keycloak.test.util.CacheAwareKeycloakIdentityProviderPluginForTest;
+import org.camunda.bpm.extension.keycloak.test.util.CountingHttpRequestInterceptor;
+import org.springframework.http.HttpHeaders;
+
+import junit.extensions.TestSetup;
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+/**
+ * Tests group queries with subgroups loaded via the children endpoint, level by level in pages of a small
+ * maxResultSize. The nested groups have more children than fit on a single page.
+ */
+public class KeycloakLoadSubgroupsViaChildrenEndpointTest extends AbstractKeycloakIdentityProviderTest {
+
+	static final int CHILDREN = 5;
+	static final int SUBCHILDREN = 4;
+
+	static String GROUP_ID_PAGED_ROOT;
+	static List<String> GROUP_IDS_PAGED_CHILD = new ArrayList<>();
+	static List<String> GROUP_IDS_PAGED_SUBCHILD = new ArrayList<>();
+
+	public static Test suite() {
+	    return new TestSetup(new TestSuite(KeycloakLoadSubgroupsViaChildrenEndpointTest.class)) {
+
+	    	// @BeforeClass
+	        protected void setUp() throws Exception {
+	    		// setup Keycloak group tree with several pages per level
+	        	// -------------------------------------
+	    		HttpHeaders headers = authenticateKeycloakAdmin();
+	    		String realm = "test";
+	    		GROUP_ID_PAGED_ROOT = createGroup(headers, realm, "paged-root", false);
+	    		for (int i = 0; i < CHILDREN; i++) {
+	    			GROUP_IDS_PAGED_CHILD.add(createGroup(headers, realm, "paged-child" + i, false, GROUP_ID_PAGED_ROOT));
+	    		}
+	    		for (int i = 0; i < SUBCHILDREN; i++) {
+	    			GROUP_IDS_PAGED_SUBCHILD.add(createGroup(headers, realm, "paged-subchild" + i, false, GROUP_IDS_PAGED_CHILD.get(1)));
+	    		}
+	    		assignUserGroup(headers, realm, USER_ID_HIERARCHY, GROUP_IDS_PAGED_SUBCHILD.get(3));
+
+	    		// setup process engine
+	    		// -------------------------------------
+	    		ProcessEngineConfigurationImpl config = (ProcessEngineConfigurationImpl) ProcessEngineConfiguration
+	    				.createProcessEngineConfigurationFromResource("camunda.loadSubgroupsViaChildrenEndpoint.cfg.xml");
+	    		// subgroups are loaded via the children endpoint, not contained in the group query result
+	    		configureKeycloakIdentityProviderPlugin(config).setEnforceSubgroupsInGroupQuery(false);
+	    		PluggableProcessEngineTestCase.cachedProcessEngine = config.buildProcessEngine();
+	        }
+
+	        // @AfterClass
+	        protected void tearDown() throws Exception {
+	        	// tear down process engine
+	    		PluggableProcessEngineTestCase.cachedProcessEngine.close();
+	    		PluggableProcessEngineTestCase.cachedProcessEngine = null;
+
+	    		// delete the group tree including its subgroups
+	    		deleteGroup(authenticateKeycloakAdmin(), "test", GROUP_ID_PAGED_ROOT);
+	        }
+	    };
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		super.tearDown();
+		CacheAwareKeycloakIdentityProviderPluginForTest.groupQueryCache.clear();
+		CountingHttpRequestInterceptor.resetCount();
+	}
+
+	public void testGroupQueryContainsAllPagesOfAllLevels() {
+		List<Group> result = identityService.createGroupQuery().list();
+
+		assertEquals(1, result.stream().filter(g -> g.getId().equals(GROUP_ID_PAGED_ROOT)).count());
+		assertTrue(result.stream().map(Group::getId).toList().containsAll(GROUP_IDS_PAGED_CHILD));
+		assertTrue(result.stream().map(Group::getId).toList().containsAll(GROUP_IDS_PAGED_SUBCHILD));
+		// the existing hierarchy is loaded as well
+		assertEquals(1, result.stream().filter(g -> g.getId().equals(GROUP_ID_HIERARCHY_SUBCHILD1)).count());
+	}
+
+	public void testGroupsAreFlattenedDepthFirst() {
+		List<String> ids = identityService.createGroupQuery().groupNameLike("paged-*").list().stream()
+				.map(Group::getId).toList();
+
+		List<String> expected = new ArrayList<>();
+		expected.add(GROUP_ID_PAGED_ROOT);
+		expected.add(GROUP_IDS_PAGED_CHILD.get(0));
+		expected.add(GROUP_IDS_PAGED_CHILD.get(1));
+		expected.addAll(GROUP_IDS_PAGED_SUBCHILD);
+		expected.addAll(GROUP_IDS_PAGED_CHILD.subList(2, CHILDREN));
+		assertEquals(expected, ids);
+	}
+
+	public void testGroupQueryFilterBySubgroupOnLastPage() {
+		Group group = identityService.createGroupQuery().groupId(GROUP_IDS_PAGED_SUBCHILD.get(3)).singleResult();
+		assertNotNull(group);
+		assertEquals("paged-subchild3", group.getName());
+
+		group = identityService.createGroupQuery().groupName("paged-child4").singleResult();
+		assertNotNull(group);
+		assertEquals(GROUP_IDS_PAGED_CHILD.get(4), group.getId());
+	}
+
+	public void testGroupQueryFilterByGroupMemberInheritsAncestors() {
+		List<String> ids = identityService.createGroupQuery().groupMember("johnfoo@gmail.com").list().stream()
+				.map(Group::getId).toList();
+
+		assertTrue(ids.contains(GROUP_IDS_PAGED_SUBCHILD.get(3)));
+		assertTrue(ids.contains(GROUP_IDS_PAGED_CHILD.get(1)));
+		assertTrue(ids.contains(GROUP_ID_PAGED_ROOT));
+		assertFalse(ids.contains(GROUP_IDS_PAGED_CHILD.get(0)));
+	}
+
+	public void testSubtreesAreCachedPerGroup() {
+		int size = identityService.createGroupQuery().list().size();
+		int countBefore = CountingHttpRequestInterceptor.getHttpRequestCount();
+
+		// the query result is requested again, all levels are taken from the cache of the children of each group
+		CacheAwareKeycloakIdentityProviderPluginForTest.groupQueryCache.clear();
+		assertEquals(size, identityService.createGroupQuery().list().size());
+
+		assertEquals(countBefore, CountingHttpRequestInterceptor.getHttpRequestCount());
+	}
+}
@@ -0,0 +1,129 @@
+package org.camunda.bpm.extension.keycloak.test;
+
+import io.opentelemetry.api.GlobalOpenTelemetry;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.sdk.OpenTelemetrySdk;
+import io.opentelemetry.sdk.testing.exporter.InMemorySpanExporter;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SimpleSpanProcessor;
+import junit.extensions.TestSetup;
+import junit.framework.Test;
+import junit.framework.TestSuite;
+import org.camunda.bpm.engine.ProcessEngineConfiguration;
+import org.camunda.bpm.engine.impl.cfg.ProcessEngineConfigurationImpl;
+import org.camunda.bpm.engine.impl.test.PluggableProcessEngineTestCase;
+import org.camunda.bpm.extension.keycloak.plugin.KeycloakIdentityProviderPlugin;
+import org.camunda.bpm.extension.keycloak.tracing.KeycloakTracing;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Tests OpenTelemetry tracing of identity queries and Keycloak requests.
+ */
+public class KeycloakTracingTest extends AbstractKeycloakIdentityProviderTest {
+
+	private static final InMemorySpanExporter spanExporter = InMemorySpanExporter.create();
+
+	public static Test suite() {
+		return new TestSetup(new TestSuite(KeycloakTracingTest.class)) {
+
+			// @BeforeClass
+			protected void setUp() throws Exception {
+				GlobalOpenTelemetry.resetForTest();
+				GlobalOpenTelemetry.set(OpenTelemetrySdk.builder()
+								.setTracerProvider(SdkTracerProvider.builder()
+												.addSpanProcessor(SimpleSpanProcessor.create(spanExporter))
+												.build())
+								.build());
+				ProcessEngineConfigurationImpl config = (ProcessEngineConfigurationImpl) ProcessEngineConfiguration
+								.createProcessEngineConfigurationFromResource("camunda.enableTracing.cfg.xml");
+				configureKeycloakIdentityProviderPlugin(config);
+				PluggableProcessEngineTestCase.cachedProcessEngine = config.buildProcessEngine();
+			}
+
+			// @AfterClass
+			protected void tearDown() throws Exception {
+				PluggableProcessEngineTestCase.cachedProcessEngine.close();
+				PluggableProcessEngineTestCase.cachedProcessEngine = null;
+				GlobalOpenTelemetry.resetForTest();
+			}
+		};
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		processEngineConfiguration.getProcessEnginePlugins()
+						.stream()
+						.filter(KeycloakIdentityProviderPlugin.class::isInstance)
+						.map(KeycloakIdentityProviderPlugin.class::cast)
+						.forEach(KeycloakIdentityProviderPlugin::clearCache);
+		spanExporter.reset();
+	}
+
+	// ------------------------------------------------------------------------
+	// Test configuration
+	// ------------------------------------------------------------------------
+
+	public void testUserQueryIsTraced() {
+		assertEquals(5, identityService.createUserQuery().list().size());
+
+		SpanData query = findSpan("keycloak.findUserByQueryCriteria");
+		assertEquals(5L, (long) query.getAttributes().get(AttributeKey.longKey(KeycloakTracing.ATTRIBUTE_RESULT_SIZE)));
+		assertFalse(query.getAttributes().get(AttributeKey.booleanKey(KeycloakTracing.ATTRIBUTE_RESULT_TRUNCATED)));
+
+		SpanData cache = findSpan("keycloak.cache.userQuery");
+		assertEquals(query.getSpanId(), cache.getParentSpanId());
+		assertFalse(cache.getAttributes().get(AttributeKey.booleanKey(KeycloakTracing.ATTRIBUTE_CACHE_HIT)));
+
+		SpanData postProcess = findSpan("keycloak.postProcessResults");
+		assertEquals(query.getSpanId(), postProcess.getParentSpanId());
+
+		// the HTTP request is a client span nested in the cache lookup
+		List<SpanData> requests = findSpans("GET /users");
+		assertEquals(1, requests.size());
+		assertEquals(SpanKind.CLIENT, requests.get(0).getKind());
+		assertEquals(cache.getSpanId(), requests.get(0).getParentSpanId());
+		assertEquals(query.getTraceId(), requests.get(0).getTraceId());
+		assertEquals(200L, (long) requests.get(0).getAttributes().get(AttributeKey.longKey("http.response.status_code")));
+	}
+
+	public void testCacheHitIsTraced() {
+		identityService.createGroupQuery().list();
+		spanExporter.reset();
+
+		identityService.createGroupQuery().list();
+
+		assertTrue(findSpan("keycloak.cache.groupQuery").getAttributes()
+						.get(AttributeKey.booleanKey(KeycloakTracing.ATTRIBUTE_CACHE_HIT)));
+		assertTrue(findSpans("GET /groups").isEmpty());
+	}
+
+	public void testCheckPasswordIsTraced() {
+		assertTrue(identityService.checkPassword("camunda@accso.de", "camunda1!"));
+
+		SpanData checkPassword = findSpan("keycloak.checkPassword");
+		List<SpanData> tokenRequests = findSpans("POST /protocol/openid-connect/token");
+		assertFalse(tokenRequests.isEmpty());
+		assertEquals(checkPassword.getTraceId(), tokenRequests.get(tokenRequests.size() - 1).getTraceId());
+	}
+
+	// ------------------------------------------------------------------------
+	// Helpers
+	// ------------------------------------------------------------------------
+
+	private static List<SpanData> findSpans(String name) {
+		return spanExporter.getFinishedSpanItems().stream()
+						.filter(s -> s.getName().equals(name))
+						.collect(Collectors.toList());
+	}
+
+	private static SpanData findSpan(String name) {
+		List<SpanData> spans = findSpans(name);
+		assertEquals("number of spans named " + name, 1, spans.size());
+		return spans.get(0);
+	}
+}
@@ -85,6 +85,23 @@ public class KeycloakUserQueryTest extends AbstractKeycloakIdentityProviderTest
     assertNull(user);
   }
 
+  public void testFilterByFirstnameLikeWithInnerWildcard() {
+    User user = identityService.createUserQuery().userFirstNameLike("G%nar").singleResult();
+    assertNotNull(user);
+    assertEquals("Gunnar", user.getFirstName());
+
+    user = identityService.createUserQuery().userLastNameLike("von*Beck").singleResult();
+    assertNotNull(user);
+  }
+
+  public void testFilterByFirstnameLikeWithoutWildcard() {
+    User user = identityService.createUserQuery().userFirstNameLike("Gunnar").singleResult();
+    assertNotNull(user);
+
+    user = identityService.createUserQuery().userFirstNameLike("Gun").singleResult();
+    assertNull(user);
+  }
+
   public void testFilterByLastname() {
     User user = identityService.createUserQuery().userLastName("von der Beck").singleResult();
     assertNotNull(user);
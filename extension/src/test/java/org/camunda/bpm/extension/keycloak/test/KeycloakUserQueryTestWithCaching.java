@@ -7,7 +7,9 @@ import org.camunda.bpm.engine.ProcessEngineConfiguration;
 import org.camunda.bpm.engine.identity.User;
 import org.camunda.bpm.engine.impl.cfg.ProcessEngineConfigurationImpl;
 import org.camunda.bpm.engine.impl.test.PluggableProcessEngineTestCase;
+import org.camunda.bpm.extension.keycloak.cache.CacheStatistics;
 import org.camunda.bpm.extension.keycloak.plugin.KeycloakIdentityProviderPlugin;
+import org.camunda.bpm.extension.keycloak.test.util.CacheAwareKeycloakIdentityProviderPluginForTest;
 import org.camunda.bpm.extension.keycloak.test.util.CountingHttpRequestInterceptor;
 
 import java.util.List;
@@ -104,6 +106,27 @@ public class KeycloakUserQueryTestWithCaching extends AbstractKeycloakIdentityPr
 		assertNull(user);
 	}
 
+	public void testCacheEnabledQueryFilterByUserIdInUsesSingleUserEntries() {
+		int countBefore = CountingHttpRequestInterceptor.getHttpRequestCount();
+
+		assertNotNull(identityService.createUserQuery().userId("camunda@accso.de").singleResult());
+		assertEquals(countBefore + 1, CountingHttpRequestInterceptor.getHttpRequestCount());
+
+		// only the user not yet cached is requested
+		List<User> users = identityService.createUserQuery()
+						.userIdIn("camunda@accso.de", "gunnar.von-der-beck@accso.de", "non-existing").list();
+		assertEquals(2, users.size());
+		assertEquals(countBefore + 3, CountingHttpRequestInterceptor.getHttpRequestCount());
+
+		// all IDs are cached now - in any order
+		users = identityService.createUserQuery()
+						.userIdIn("non-existing", "gunnar.von-der-beck@accso.de", "camunda@accso.de").list();
+		assertEquals(2, users.size());
+		assertEquals(countBefore + 3, CountingHttpRequestInterceptor.getHttpRequestCount());
+		assertNotNull(identityService.createUserQuery().userId("gunnar.von-der-beck@accso.de").singleResult());
+		assertEquals(countBefore + 3, CountingHttpRequestInterceptor.getHttpRequestCount());
+	}
+
 	public void testCacheEnabledQueryWithPaging() {
 		int countBefore = CountingHttpRequestInterceptor.getHttpRequestCount();
 
@@ -146,6 +169,66 @@ public class KeycloakUserQueryTestWithCaching extends AbstractKeycloakIdentityPr
 		assertEquals(countBefore + 1, CountingHttpRequestInterceptor.getHttpRequestCount());
 	}
 
+	public void testCacheEnabledFilteredQueryAnsweredFromUnfilteredResult() {
+		int countBefore = CountingHttpRequestInterceptor.getHttpRequestCount();
+
+		assertEquals(5, identityService.createUserQuery().list().size());
+
+		// non cached query. http request count should have increased
+		assertEquals(countBefore + 1, CountingHttpRequestInterceptor.getHttpRequestCount());
+
+		// filtered queries are answered from the unfiltered result
+		User user = identityService.createUserQuery().userFirstName("Gunnar").singleResult();
+		assertNotNull(user);
+		assertEquals("Gunnar", user.getFirstName());
+		assertEquals(1, identityService.createUserQuery().userLastNameLike("von*").list().size());
+		assertNull(identityService.createUserQuery().userFirstName("non-existing").singleResult());
+
+		// request count should be same as before
+		assertEquals(countBefore + 1, CountingHttpRequestInterceptor.getHttpRequestCount());
+	}
+
+	public void testCacheEnabledQueriesWithSameSearchShareEntry() {
+		int countBefore = CountingHttpRequestInterceptor.getHttpRequestCount();
+
+		User user = identityService.createUserQuery().userFirstNameLike("%Gunnar%").singleResult();
+		assertNotNull(user);
+
+		// non cached query. http request count should have increased
+		assertEquals(countBefore + 1, CountingHttpRequestInterceptor.getHttpRequestCount());
+
+		// exact queries for the same terms are answered from the substring search and keep their exact semantics
+		assertEquals(user, identityService.createUserQuery().userFirstName("Gunnar").singleResult());
+		assertEquals(user, identityService.createUserQuery().userFirstNameLike("*Gun*").userFirstName("Gunnar").singleResult());
+		assertEquals(user, identityService.createUserQuery().userFirstNameLike("Gunnar").singleResult());
+		assertNull(identityService.createUserQuery().userFirstName("GUNNAR").singleResult());
+
+		// request count should be same as before
+		assertEquals(countBefore + 1, CountingHttpRequestInterceptor.getHttpRequestCount());
+	}
+
+	public void testCacheStatisticsMatchHttpRequests() {
+		int countBefore = CountingHttpRequestInterceptor.getHttpRequestCount();
+		CacheStatistics statsBefore = CacheAwareKeycloakIdentityProviderPluginForTest.userQueryCache.getStatistics();
+
+		// one miss followed by three hits
+		for (int i = 0; i < 4; i++) {
+			assertEquals(5, identityService.createUserQuery().list().size());
+		}
+
+		CacheStatistics stats = CacheAwareKeycloakIdentityProviderPluginForTest.userQueryCache.getStatistics();
+		long hits = stats.getHitCount() - statsBefore.getHitCount();
+		long misses = stats.getMissCount() - statsBefore.getMissCount();
+		assertEquals(3, hits);
+		assertEquals(1, misses);
+		assertEquals(0.75, (double) hits / (hits + misses), 0.0001);
+
+		// each miss corresponds to exactly one http request
+		assertEquals(countBefore + misses, CountingHttpRequestInterceptor.getHttpRequestCount());
+		assertEquals(1, stats.getLoadSuccessCount() - statsBefore.getLoadSuccessCount());
+		assertTrue(stats.getTotalLoadTimeNanos() > statsBefore.getTotalLoadTimeNanos());
+	}
+
 	public void testAuthenticatedUserCanQueryOwnGroupsWhenCacheIsEnabled() {
 		try {
 			processEngineConfiguration.setAuthorizationEnabled(true);
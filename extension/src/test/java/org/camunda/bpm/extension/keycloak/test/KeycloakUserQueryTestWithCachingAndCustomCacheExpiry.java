@@ -87,13 +87,13 @@ public class KeycloakUserQueryTestWithCachingAndCustomCacheExpiry extends Abstra
 		assertEquals("Identity", queryUser(query, "Identity").getFirstName());
 
 		// cache contains Identity and Admin
-		assertEquals(Arrays.asList("Admin", "Identity"), getCacheEntries());
+		assertEquals(Arrays.asList("admin", "identity"), getCacheEntries());
 
 		// move clock by another 2 minutes
 		PredictableTicker.moveTimeForwardByMinutes(2);
 
 		// cache still contains Identity and Admin
-		assertEquals(Arrays.asList("Admin", "Identity"), getCacheEntries());
+		assertEquals(Arrays.asList("admin", "identity"), getCacheEntries());
 
 		// move clock by another 2 minutes
 		PredictableTicker.moveTimeForwardByMinutes(2);
@@ -92,7 +92,7 @@ public class KeycloakUserQueryTestWithCachingAndMaxSize extends AbstractKeycloak
 		assertEquals(countBefore + 2, CountingHttpRequestInterceptor.getHttpRequestCount());
 
 		// cache contains Identity and Admin
-		assertEquals(Arrays.asList("Admin", "Identity"), getCacheEntries());
+		assertEquals(Arrays.asList("admin", "identity"), getCacheEntries());
 
 		assertEquals("Admin", queryUser(query, "Admin").getFirstName());
 
@@ -100,7 +100,7 @@ public class KeycloakUserQueryTestWithCachingAndMaxSize extends AbstractKeycloak
 		assertEquals(countBefore + 2, CountingHttpRequestInterceptor.getHttpRequestCount());
 
 		// cache still contains Identity and Admin
-		assertEquals(Arrays.asList("Admin", "Identity"), getCacheEntries());
+		assertEquals(Arrays.asList("admin", "identity"), getCacheEntries());
 
 		assertEquals("Gunnar", queryUser(query, "Gunnar").getFirstName());
 
@@ -108,7 +108,7 @@ public class KeycloakUserQueryTestWithCachingAndMaxSize extends AbstractKeycloak
 		assertEquals(countBefore + 3, CountingHttpRequestInterceptor.getHttpRequestCount());
 
 		// Identity was evicted because maxSize(2) was breached and it was used fewer times than Admin
-		assertEquals(Arrays.asList("Admin", "Gunnar"), getCacheEntries());
+		assertEquals(Arrays.asList("admin", "gunnar"), getCacheEntries());
 
 		// query Identity again
 		assertEquals("Identity", queryUser(query, "Identity").getFirstName());
@@ -117,7 +117,7 @@ public class KeycloakUserQueryTestWithCachingAndMaxSize extends AbstractKeycloak
 		assertEquals(countBefore + 4, CountingHttpRequestInterceptor.getHttpRequestCount());
 
 		// Gunnar was evicted because the name was used fewer times than Admin
-		assertEquals(Arrays.asList("Admin", "Identity"), getCacheEntries());
+		assertEquals(Arrays.asList("admin", "identity"), getCacheEntries());
 	}
 
 	private static User queryUser(UserQuery query, String firstName) {
@@ -0,0 +1,97 @@
+package org.camunda.bpm.extension.keycloak.test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.camunda.bpm.engine.ProcessEngineConfiguration;
+import org.camunda.bpm.engine.identity.User;
+import org.camunda.bpm.engine.impl.cfg.ProcessEngineConfigurationImpl;
+import org.camunda.bpm.engine.impl.test.PluggableProcessEngineTestCase;
+import org.camunda.bpm.extension.keycloak.plugin.KeycloakIdentityProviderPlugin;
+import org.camunda.bpm.extension.keycloak.test.util.CountingHttpRequestInterceptor;
+import org.springframework.http.HttpHeaders;
+
+import junit.extensions.TestSetup;
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+/**
+ * User query test with caching enabled for a realm containing more users than maxResultSize, some of them without
+ * email. With the email used as user ID these are skipped, so a truncated Keycloak response results in fewer users
+ * than maxResultSize.
+ */
+public class KeycloakUserQueryTestWithCachingAndSmallMaxResultSize extends AbstractKeycloakIdentityProviderTest {
+
+	static List<String> USER_IDS = new ArrayList<String>();
+
+	public static Test suite() {
+		return new TestSetup(new TestSuite(KeycloakUserQueryTestWithCachingAndSmallMaxResultSize.class)) {
+
+			// @BeforeClass
+			protected void setUp() throws Exception {
+				// setup Keycloak test users, users are sorted by username
+				// -------------------------------------
+				HttpHeaders headers = authenticateKeycloakAdmin();
+				String realm = "test";
+				for (int i = 0; i < 8; i++) {
+					USER_IDS.add(createUser(headers, realm, "a.no-email" + i, "NoEmail" + i, "User", null, null));
+				}
+				USER_IDS.add(createUser(headers, realm, "z.beyond-max", "Beyond", "Max", "beyond.max@test.info", null));
+
+				// setup process engine
+				// -------------------------------------
+				ProcessEngineConfigurationImpl config = (ProcessEngineConfigurationImpl) ProcessEngineConfiguration
+								.createProcessEngineConfigurationFromResource("camunda.enableCachingAndConfigureSmallMaxResultSize.cfg.xml");
+				configureKeycloakIdentityProviderPlugin(config);
+				PluggableProcessEngineTestCase.cachedProcessEngine = config.buildProcessEngine();
+			}
+
+			// @AfterClass
+			protected void tearDown() throws Exception {
+				// tear down process engine
+				PluggableProcessEngineTestCase.cachedProcessEngine.close();
+				PluggableProcessEngineTestCase.cachedProcessEngine = null;
+
+				// delete test users
+				HttpHeaders headers = authenticateKeycloakAdmin();
+				String realm = "test";
+				USER_IDS.forEach(u -> deleteUser(headers, realm, u));
+			}
+		};
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		super.tearDown();
+		processEngineConfiguration.getProcessEnginePlugins()
+						.stream()
+						.filter(KeycloakIdentityProviderPlugin.class::isInstance)
+						.map(KeycloakIdentityProviderPlugin.class::cast)
+						.forEach(KeycloakIdentityProviderPlugin::clearCache);
+		CountingHttpRequestInterceptor.resetCount();
+	}
+
+	// ------------------------------------------------------------------------
+	// Test configuration
+	// ------------------------------------------------------------------------
+
+	public void testCacheEnabledFilteredQueryNotAnsweredFromTruncatedResult() {
+		// Keycloak returns 10 users, the 8 users without email are skipped
+		List<User> unfiltered = identityService.createUserQuery().list();
+		assertTrue(unfiltered.size() < 10);
+		assertTrue(unfiltered.stream().noneMatch(u -> "beyond.max@test.info".equals(u.getId())));
+
+		int countBefore = CountingHttpRequestInterceptor.getHttpRequestCount();
+
+		// the truncated unfiltered result must not be used to answer the filtered query
+		List<User> result = identityService.createUserQuery().userFirstName("Beyond").list();
+		assertEquals(1, result.size());
+		assertEquals("beyond.max@test.info", result.get(0).getId());
+		assertEquals(countBefore + 1, CountingHttpRequestInterceptor.getHttpRequestCount());
+
+		User user = identityService.createUserQuery().userEmail("beyond.max@test.info").singleResult();
+		assertNotNull(user);
+		assertEquals("Max", user.getLastName());
+	}
+
+}
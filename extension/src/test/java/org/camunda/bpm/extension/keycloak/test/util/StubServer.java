@@ -0,0 +1,123 @@
+package org.camunda.bpm.extension.keycloak.test.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * A local HTTP server standing in for a Keycloak node in unit tests. Requests are answered concurrently by the
+ * given handler, which may block to simulate slow responses.
+ */
+public class StubServer implements AutoCloseable {
+
+	/**
+	 * Answers a request.
+	 */
+	@FunctionalInterface
+	public interface Handler {
+
+		/**
+		 * @param exchange the exchange, to be answered e.g. via {@link StubServer#respond(HttpExchange, int, String)}
+		 * @throws IOException in case of errors, the connection is closed without a response
+		 */
+		void handle(HttpExchange exchange) throws IOException;
+	}
+
+	static {
+		// response headers and body are written separately, avoid delaying the body until the headers are acknowledged
+		System.setProperty("sun.net.httpserver.nodelay", "true");
+	}
+
+	private final HttpServer server;
+	private final ExecutorService executor = Executors.newCachedThreadPool();
+	private final List<String> requests = new CopyOnWriteArrayList<>();
+
+	private StubServer(Handler handler) throws IOException {
+		server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+		server.createContext("/", exchange -> {
+			requests.add(exchange.getRequestMethod() + " " + exchange.getRequestURI());
+			try {
+				handler.handle(exchange);
+			} finally {
+				exchange.close();
+			}
+		});
+		server.setExecutor(executor);
+		server.start();
+	}
+
+	/**
+	 * Starts a new server on a free local port.
+	 * @param handler the handler of all requests
+	 * @return the started server
+	 * @throws IOException in case the server cannot be started
+	 */
+	public static StubServer start(Handler handler) throws IOException {
+		return new StubServer(handler);
+	}
+
+	/**
+	 * Answers a request.
+	 * @param exchange the exchange
+	 * @param status the HTTP status
+	 * @param body the JSON body
+	 * @throws IOException in case of errors
+	 */
+	public static void respond(HttpExchange exchange, int status, String body) throws IOException {
+		byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "application/json");
+		exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(bytes);
+		}
+	}
+
+	/**
+	 * Closes the connection of a request without any response.
+	 * @param exchange the exchange
+	 * @throws IOException always
+	 */
+	public static void drop(HttpExchange exchange) throws IOException {
+		throw new IOException("Connection dropped by stub");
+	}
+
+	/**
+	 * @return scheme, host and port of this server
+	 */
+	public URI getUri() {
+		return URI.create("http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort());
+	}
+
+	/**
+	 * @return method and URI of all requests received so far
+	 */
+	public List<String> getRequests() {
+		return requests;
+	}
+
+	/**
+	 * @return the number of requests received so far
+	 */
+	public int getRequestCount() {
+		return requests.size();
+	}
+
+	/**
+	 * Stops the server, connections are closed immediately.
+	 */
+	@Override
+	public void close() {
+		server.stop(0);
+		executor.shutdownNow();
+	}
+}